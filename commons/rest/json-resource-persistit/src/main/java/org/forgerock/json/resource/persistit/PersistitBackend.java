@@ -0,0 +1,1288 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+
+package org.forgerock.json.resource.persistit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.forgerock.json.resource.Responses.newActionResponse;
+import static org.forgerock.json.resource.Responses.newQueryResponse;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+import static org.forgerock.util.promise.Promises.newExceptionPromise;
+import static org.forgerock.util.promise.Promises.newResultPromise;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.forgerock.http.util.Json;
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.JsonValueException;
+import org.forgerock.json.resource.ActionRequest;
+import org.forgerock.json.resource.ActionResponse;
+import org.forgerock.json.resource.BadRequestException;
+import org.forgerock.json.resource.CollectionResourceProvider;
+import org.forgerock.json.resource.ConflictException;
+import org.forgerock.json.resource.CountPolicy;
+import org.forgerock.json.resource.CreateRequest;
+import org.forgerock.json.resource.DeleteRequest;
+import org.forgerock.json.resource.InMemoryQueries;
+import org.forgerock.json.resource.InternalServerErrorException;
+import org.forgerock.json.resource.MemoryBackend;
+import org.forgerock.json.resource.NotFoundException;
+import org.forgerock.json.resource.NotSupportedException;
+import org.forgerock.json.resource.PatchOperation;
+import org.forgerock.json.resource.PatchRequest;
+import org.forgerock.json.resource.PreconditionFailedException;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.QueryResponse;
+import org.forgerock.json.resource.ReadRequest;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.ServiceUnavailableException;
+import org.forgerock.json.resource.SortKey;
+import org.forgerock.json.resource.UpdateRequest;
+import org.forgerock.services.context.Context;
+import org.forgerock.util.encode.Base64;
+import org.forgerock.util.promise.Promise;
+import org.forgerock.util.query.QueryFilter;
+import org.forgerock.util.query.QueryFilterVisitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.persistit.Exchange;
+import com.persistit.Key;
+import com.persistit.Persistit;
+import com.persistit.Transaction;
+import com.persistit.Volume;
+import com.persistit.exception.PersistitException;
+import com.persistit.exception.RollbackException;
+
+/**
+ * A collection resource provider which stores resources in a Persistit {@code Tree}. Unlike
+ * {@link MemoryBackend} resources are held in a Persistit volume, so the heap used is bounded
+ * by the buffer pool rather than by the number of resources, and resources survive a restart.
+ * <p>
+ * Each resource is stored as JSON under its ID. For each indexed field the provider maintains
+ * a secondary index tree, named after the resource tree and the field, whose keys are the
+ * values of the field followed by the resource ID. Strings are indexed in lower case, matching
+ * the case-insensitive comparison of query filters and sort keys, and numbers are indexed as
+ * doubles. Resources with no string, number or boolean value for the field are indexed after
+ * all values. An index that is missing or was not completely built is built when the provider
+ * is constructed. The index trees of fields that are no longer indexed are kept, but are marked
+ * so that they are rebuilt if the field is indexed again, and can be removed by calling
+ * {@link #removeUnusedIndexes()}.
+ * <p>
+ * A query whose filter is an equality, ordering or starts-with assertion on an indexed field,
+ * alone or within an "and" filter, scans only the matching range of that index. A query sorted
+ * on a single indexed field scans that index in sort order. Other unsorted queries scan all
+ * resources in ID order. In each case results are streamed to the handler, and the paged
+ * results cookie records the index position of the last result returned. Queries sorted on
+ * several fields, or on a field that is not indexed, are sorted in memory as they are by
+ * {@link MemoryBackend}.
+ * <p>
+ * Each request runs in a Persistit transaction, so a query sees a consistent snapshot of the
+ * resources and their indexes. Updates check the revision of the resource within their
+ * transaction: when two requests update the same resource concurrently, one of the
+ * transactions is rolled back and retried, and then fails the revision check if it specified
+ * the revision the other replaced. Revisions are consecutive integers starting from "0", and
+ * server-assigned IDs are allocated from a sequence accumulator of the resource tree.
+ */
+public final class PersistitBackend implements CollectionResourceProvider {
+
+    /*
+     * Leading key segment of the sections of an index tree: entries for resources having values
+     * of the field, entries for resources without a value, the marker recording that the index
+     * has been completely built, and the marker replacing it when the field is no longer indexed.
+     * The markers hold the field.
+     */
+    private static final int PRESENT = 0;
+    private static final int MISSING = 1;
+    private static final int BUILT = 2;
+    private static final int UNUSED = 3;
+
+    /*
+     * Accumulators of the resource tree.
+     */
+    private static final int COUNT_ACCUMULATOR = 0;
+    private static final int ID_ACCUMULATOR = 1;
+
+    /*
+     * Number of characters of a string value that are indexed, which keeps index keys within the
+     * Persistit key size. Resources whose sort values share this prefix are returned in ID order.
+     */
+    private static final int MAX_INDEXED_STRING_LENGTH = 256;
+
+    private static final String INDEX_TREE_SEPARATOR = "#";
+    private static final String KEY_COOKIE_PREFIX = "k";
+    private static final String OFFSET_COOKIE_PREFIX = "o";
+
+    /** Number of times an update that conflicts with a concurrent update is retried. */
+    private static final int RETRY_COUNT = 10;
+
+    private interface Operation<T> {
+        T run() throws PersistitException, ResourceException;
+    }
+
+    private interface ScanHandler {
+        boolean handle(JsonValue content, Key position) throws ResourceException;
+    }
+
+    /**
+     * A traversal of the resource tree in ID order, or of a range of an index tree.
+     */
+    private static final class Scan {
+        private static final int MATCH = 0;
+        private static final int SKIP = 1;
+        private static final int STOP = 2;
+
+        private final JsonPointer field;
+        private final boolean descending;
+        private final boolean includeMissing;
+        private final Object lower;
+        private final boolean lowerInclusive;
+        private final Object upper;
+        private final boolean upperInclusive;
+        private final String prefix;
+
+        private boolean inMissing;
+        private Object value;
+
+        private Scan(final JsonPointer field, final boolean descending, final boolean includeMissing,
+                final Object lower, final boolean lowerInclusive, final Object upper,
+                final boolean upperInclusive, final String prefix) {
+            this.field = field;
+            this.descending = descending;
+            this.includeMissing = includeMissing;
+            this.lower = lower;
+            this.lowerInclusive = lowerInclusive;
+            this.upper = upper;
+            this.upperInclusive = upperInclusive;
+            this.prefix = prefix;
+        }
+
+        static Scan all() {
+            return new Scan(null, false, false, null, false, null, false, null);
+        }
+
+        static Scan sorted(final JsonPointer field, final boolean descending) {
+            return new Scan(field, descending, true, null, false, null, false, null);
+        }
+
+        static Scan range(final JsonPointer field, final Object lower, final boolean lowerInclusive,
+                final Object upper, final boolean upperInclusive) {
+            return new Scan(field, false, false, lower, lowerInclusive, upper, upperInclusive, null);
+        }
+
+        static Scan prefix(final JsonPointer field, final String prefix) {
+            return new Scan(field, false, false, prefix, true, null, false, prefix);
+        }
+
+        boolean isEquality() {
+            return lower != null && lower.equals(upper);
+        }
+
+        /*
+         * Identifies the traversal in a paged results cookie.
+         */
+        String getName() {
+            return field == null ? "" : (descending ? "-" : "+") + field;
+        }
+
+        void start(final Key key, final Key resumeKey) {
+            if (resumeKey != null) {
+                resumeKey.copyTo(key);
+                inMissing = field != null && key.reset().decodeInt() == MISSING;
+                return;
+            }
+            key.clear();
+            if (field == null) {
+                key.append(Key.BEFORE);
+            } else if (descending) {
+                key.append(PRESENT).append(Key.AFTER);
+            } else if (lower != null) {
+                key.append(PRESENT).append(lower);
+            } else {
+                key.append(PRESENT);
+            }
+        }
+
+        /*
+         * Advances to the next entry of the traversal, and returns false when there are no more.
+         * For an index traversal the value of the field in the entry is then available from
+         * getValue(), or null for a resource without a value.
+         */
+        boolean next(final Exchange ex) throws PersistitException {
+            if (field == null) {
+                return ex.traverse(Key.GT, true);
+            }
+            while (true) {
+                final boolean down = descending && !inMissing;
+                if (!ex.traverse(down ? Key.LT : Key.GT, true, 0)) {
+                    if (down) {
+                        // The values have been returned in descending order: resources without
+                        // a value follow in ID order.
+                        inMissing = true;
+                        ex.clear().append(MISSING);
+                        continue;
+                    }
+                    return false;
+                }
+                final Key key = ex.getKey().reset();
+                final int section = key.decodeInt();
+                if (section == PRESENT) {
+                    value = key.decode();
+                    switch (accept(value)) {
+                    case MATCH:
+                        return true;
+                    case SKIP:
+                        continue;
+                    default:
+                        return false;
+                    }
+                } else if (section == MISSING && includeMissing && !down) {
+                    value = null;
+                    return true;
+                } else if (down) {
+                    inMissing = true;
+                    ex.clear().append(MISSING);
+                } else {
+                    return false;
+                }
+            }
+        }
+
+        String getId(final Exchange ex) {
+            final Key key = ex.getKey().reset();
+            if (field != null) {
+                if (key.decodeInt() == PRESENT) {
+                    key.decode();
+                }
+            }
+            return key.decodeString();
+        }
+
+        Object getValue() {
+            return value;
+        }
+
+        /*
+         * A resource having several values for the field has an index entry for each of them.
+         * The resource is returned only at the entry for the least of its values in the range
+         * of the traversal, which in a sorted traversal is the value the resource is sorted by.
+         */
+        boolean isFirstEntry(final JsonValue content) {
+            if (value == null) {
+                return true;
+            }
+            Object least = null;
+            for (final Object v : getIndexValues(content, field)) {
+                if (accept(v) == MATCH && (least == null || compareIndexValues(v, least) < 0)) {
+                    least = v;
+                }
+            }
+            return value.equals(least);
+        }
+
+        private int accept(final Object v) {
+            if (prefix != null) {
+                return v instanceof String && ((String) v).startsWith(prefix) ? MATCH : STOP;
+            }
+            if (lower != null) {
+                if (typeRank(v) != typeRank(lower)) {
+                    return typeRank(v) < typeRank(lower) ? SKIP : STOP;
+                }
+                final int c = compareIndexValues(v, lower);
+                if (c < 0 || (c == 0 && !lowerInclusive)) {
+                    return SKIP;
+                }
+            }
+            if (upper != null) {
+                if (typeRank(v) != typeRank(upper)) {
+                    return typeRank(v) < typeRank(upper) ? SKIP : STOP;
+                }
+                final int c = compareIndexValues(v, upper);
+                if (c > 0 || (c == 0 && !upperInclusive)) {
+                    return STOP;
+                }
+            }
+            return MATCH;
+        }
+    }
+
+    /*
+     * Returns the value under which a JSON value is indexed, or null if it cannot be indexed.
+     */
+    private static Object toIndexValue(final Object value) {
+        if (value instanceof String) {
+            final String s = ((String) value).toLowerCase(Locale.ENGLISH);
+            return s.length() > MAX_INDEXED_STRING_LENGTH ? s.substring(0, MAX_INDEXED_STRING_LENGTH) : s;
+        } else if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        } else if (value instanceof Boolean) {
+            return value;
+        } else {
+            return null;
+        }
+    }
+
+    private static boolean isTruncated(final Object value) {
+        return value instanceof String && ((String) value).length() > MAX_INDEXED_STRING_LENGTH;
+    }
+
+    private static List<Object> getIndexValues(final JsonValue content, final JsonPointer field) {
+        final List<Object> values = new ArrayList<>(1);
+        for (final Object value : InMemoryQueries.getValues(content, field)) {
+            final Object indexValue = toIndexValue(value);
+            if (indexValue != null && !values.contains(indexValue)) {
+                values.add(indexValue);
+            }
+        }
+        return values;
+    }
+
+    /*
+     * Orders index values as Persistit orders them in keys: booleans, then numbers, then
+     * strings.
+     */
+    private static int typeRank(final Object value) {
+        return value instanceof Boolean ? 0 : value instanceof Double ? 1 : 2;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static int compareIndexValues(final Object v1, final Object v2) {
+        final int rank = typeRank(v1) - typeRank(v2);
+        return rank != 0 ? rank : ((Comparable) v1).compareTo(v2);
+    }
+
+    /*
+     * Chooses the index range scanned by a query filter, or returns null if the filter does not
+     * restrict an indexed field.
+     */
+    private final QueryFilterVisitor<Scan, Void, JsonPointer> scanPlanner =
+            new QueryFilterVisitor<Scan, Void, JsonPointer>() {
+
+            @Override
+            public Scan visitAndFilter(final Void p, final List<QueryFilter<JsonPointer>> subFilters) {
+                Scan scan = null;
+                for (final QueryFilter<JsonPointer> subFilter : subFilters) {
+                    final Scan s = subFilter.accept(this, p);
+                    if (s != null && s.isEquality()) {
+                        return s;
+                    } else if (scan == null) {
+                        scan = s;
+                    }
+                }
+                return scan;
+            }
+
+            @Override
+            public Scan visitBooleanLiteralFilter(final Void p, final boolean value) {
+                return null;
+            }
+
+            @Override
+            public Scan visitContainsFilter(final Void p, final JsonPointer field, final Object valueAssertion) {
+                return null;
+            }
+
+            @Override
+            public Scan visitEqualsFilter(final Void p, final JsonPointer field, final Object valueAssertion) {
+                final Object value = toIndexValue(valueAssertion);
+                return isIndexed(field) && value != null ? Scan.range(field, value, true, value, true) : null;
+            }
+
+            @Override
+            public Scan visitExtendedMatchFilter(final Void p, final JsonPointer field,
+                    final String matchingRuleId, final Object valueAssertion) {
+                return null;
+            }
+
+            @Override
+            public Scan visitGreaterThanFilter(final Void p, final JsonPointer field, final Object valueAssertion) {
+                final Object value = toIndexValue(valueAssertion);
+                return isIndexed(field) && value != null
+                        ? Scan.range(field, value, isTruncated(valueAssertion), null, false) : null;
+            }
+
+            @Override
+            public Scan visitGreaterThanOrEqualToFilter(final Void p, final JsonPointer field,
+                    final Object valueAssertion) {
+                final Object value = toIndexValue(valueAssertion);
+                return isIndexed(field) && value != null ? Scan.range(field, value, true, null, false) : null;
+            }
+
+            @Override
+            public Scan visitLessThanFilter(final Void p, final JsonPointer field, final Object valueAssertion) {
+                final Object value = toIndexValue(valueAssertion);
+                return isIndexed(field) && value != null
+                        ? Scan.range(field, null, false, value, isTruncated(valueAssertion)) : null;
+            }
+
+            @Override
+            public Scan visitLessThanOrEqualToFilter(final Void p, final JsonPointer field,
+                    final Object valueAssertion) {
+                final Object value = toIndexValue(valueAssertion);
+                return isIndexed(field) && value != null ? Scan.range(field, null, false, value, true) : null;
+            }
+
+            @Override
+            public Scan visitNotFilter(final Void p, final QueryFilter<JsonPointer> subFilter) {
+                return null;
+            }
+
+            @Override
+            public Scan visitOrFilter(final Void p, final List<QueryFilter<JsonPointer>> subFilters) {
+                return null;
+            }
+
+            @Override
+            public Scan visitPresentFilter(final Void p, final JsonPointer field) {
+                return null;
+            }
+
+            @Override
+            public Scan visitStartsWithFilter(final Void p, final JsonPointer field, final Object valueAssertion) {
+                final Object value = toIndexValue(valueAssertion);
+                if (!isIndexed(field) || value == null) {
+                    return null;
+                } else if (value instanceof String) {
+                    return Scan.prefix(field, (String) value);
+                } else {
+                    // Use equality matching for numbers and booleans.
+                    return Scan.range(field, value, true, value, true);
+                }
+            }
+        };
+
+    private static final Logger logger = LoggerFactory.getLogger(PersistitBackend.class);
+
+    private final Persistit db;
+    private final Volume volume;
+    private final String treeName;
+    private final Map<JsonPointer, String> indexes = new LinkedHashMap<>();
+
+    /**
+     * Creates a collection stored in the named tree of a Persistit volume, with secondary
+     * indexes for the specified fields. The tree is created if it does not exist, and indexes
+     * are built as necessary.
+     *
+     * @param db
+     *            The Persistit instance.
+     * @param volume
+     *            The volume holding the collection.
+     * @param treeName
+     *            The name of the tree holding the resources. The names of the index trees begin
+     *            with this name followed by {@code '#'}.
+     * @param indexedFields
+     *            The fields to index.
+     * @throws ResourceException
+     *             If the trees could not be opened or an index could not be built.
+     */
+    public PersistitBackend(final Persistit db, final Volume volume, final String treeName,
+            final Collection<JsonPointer> indexedFields) throws ResourceException {
+        this.db = db;
+        this.volume = volume;
+        this.treeName = treeName;
+        for (final JsonPointer field : indexedFields) {
+            indexes.put(field, treeName + INDEX_TREE_SEPARATOR + field);
+        }
+        try {
+            volume.getTree(treeName, true);
+            for (final String name : getUnusedIndexes()) {
+                final Exchange index = db.getExchange(volume, name, false);
+                try {
+                    // The index is no longer maintained, so it must be rebuilt if it is used again.
+                    if (index.clear().append(BUILT).fetch().getValue().isDefined()) {
+                        index.clear().append(UNUSED).store();
+                        index.clear().append(BUILT).remove();
+                        logger.warn("The index tree '{}' of the collection '{}' is no longer used and can be "
+                                + "removed", name, treeName);
+                    }
+                } finally {
+                    db.releaseExchange(index);
+                }
+            }
+            for (final Map.Entry<JsonPointer, String> index : indexes.entrySet()) {
+                buildIndex(index.getKey(), index.getValue());
+            }
+        } catch (final PersistitException e) {
+            throw new InternalServerErrorException("The collection '" + treeName + "' could not be opened", e);
+        }
+    }
+
+    /**
+     * Creates a collection stored in the named tree of a Persistit volume, with secondary
+     * indexes for the specified fields.
+     *
+     * @param db
+     *            The Persistit instance.
+     * @param volume
+     *            The volume holding the collection.
+     * @param treeName
+     *            The name of the tree holding the resources.
+     * @param indexedFields
+     *            The fields to index.
+     * @throws ResourceException
+     *             If the trees could not be opened or an index could not be built.
+     * @see #PersistitBackend(Persistit, Volume, String, Collection)
+     */
+    public PersistitBackend(final Persistit db, final Volume volume, final String treeName,
+            final JsonPointer... indexedFields) throws ResourceException {
+        this(db, volume, treeName, Arrays.asList(indexedFields));
+    }
+
+    /**
+     * Removes the index trees of this collection for fields which are not indexed by this
+     * provider. Only trees named after this collection and a field, and which were once
+     * completely built by a provider for this collection, are removed.
+     *
+     * @return The names of the index trees removed.
+     * @throws ResourceException
+     *             If the index trees could not be removed.
+     */
+    public List<String> removeUnusedIndexes() throws ResourceException {
+        try {
+            final List<String> removed = new ArrayList<>();
+            for (final String name : getUnusedIndexes()) {
+                final Exchange index = db.getExchange(volume, name, false);
+                try {
+                    index.removeTree();
+                } finally {
+                    db.releaseExchange(index);
+                }
+                logger.info("Removed the unused index tree '{}' of the collection '{}'", name, treeName);
+                removed.add(name);
+            }
+            return removed;
+        } catch (final PersistitException e) {
+            throw new InternalServerErrorException("The unused indexes of the collection '" + treeName
+                    + "' could not be removed", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Promise<ActionResponse, ResourceException> actionCollection(final Context context,
+            final ActionRequest request) {
+        try {
+            if (request.getAction().equals("clear")) {
+                final long size = runTransaction(RETRY_COUNT, new Operation<Long>() {
+                    @Override
+                    public Long run() throws PersistitException {
+                        return clear();
+                    }
+                });
+                final JsonValue result = new JsonValue(new LinkedHashMap<>(1));
+                result.put("cleared", size);
+                return newResultPromise(newActionResponse(result));
+            } else {
+                throw new NotSupportedException("Unrecognized action ID '" + request.getAction()
+                        + "'. Supported action IDs: clear");
+            }
+        } catch (final ResourceException e) {
+            return newExceptionPromise(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Promise<ActionResponse, ResourceException> actionInstance(final Context context, final String id,
+            final ActionRequest request) {
+        final ResourceException e = new NotSupportedException("Actions are not supported for resource instances");
+        return newExceptionPromise(e);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Promise<ResourceResponse, ResourceException> createInstance(final Context context,
+            final CreateRequest request) {
+        final String id = request.getNewResourceId();
+        try {
+            return newResultPromise(runTransaction(RETRY_COUNT, new Operation<ResourceResponse>() {
+                @Override
+                public ResourceResponse run() throws PersistitException, ResourceException {
+                    final Exchange ex = db.getExchange(volume, treeName, false);
+                    try {
+                        String eid = id;
+                        if (eid == null) {
+                            do {
+                                eid = String.valueOf(ex.getTree().getSeqAccumulator(ID_ACCUMULATOR).allocate());
+                            } while (readResource(ex, eid) != null);
+                        } else if (readResource(ex, eid) != null) {
+                            throw new PreconditionFailedException("The resource with ID '" + id
+                                    + "' could not be created because "
+                                    + "there is already another resource with the same ID");
+                        }
+                        final JsonValue content = withIdAndRevision(request.getContent(), eid, "0");
+                        writeResource(ex, eid, content);
+                        updateIndexes(eid, null, content);
+                        ex.getTree().getSumAccumulator(COUNT_ACCUMULATOR).add(1);
+                        return toResponse(content);
+                    } finally {
+                        db.releaseExchange(ex);
+                    }
+                }
+            }));
+        } catch (final ResourceException e) {
+            return newExceptionPromise(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Promise<ResourceResponse, ResourceException> deleteInstance(final Context context, final String id,
+            final DeleteRequest request) {
+        final String rev = request.getRevision();
+        try {
+            return newResultPromise(runTransaction(RETRY_COUNT, new Operation<ResourceResponse>() {
+                @Override
+                public ResourceResponse run() throws PersistitException, ResourceException {
+                    final Exchange ex = db.getExchange(volume, treeName, false);
+                    try {
+                        final JsonValue content = getResourceForUpdate(ex, id, rev);
+                        ex.clear().append(id).remove();
+                        updateIndexes(id, content, null);
+                        ex.getTree().getSumAccumulator(COUNT_ACCUMULATOR).add(-1);
+                        return toResponse(content);
+                    } finally {
+                        db.releaseExchange(ex);
+                    }
+                }
+            }));
+        } catch (final ResourceException e) {
+            return newExceptionPromise(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Promise<ResourceResponse, ResourceException> patchInstance(final Context context, final String id,
+            final PatchRequest request) {
+        final String rev = request.getRevision();
+        try {
+            return newResultPromise(runTransaction(RETRY_COUNT, new Operation<ResourceResponse>() {
+                @Override
+                public ResourceResponse run() throws PersistitException, ResourceException {
+                    final Exchange ex = db.getExchange(volume, treeName, false);
+                    try {
+                        final JsonValue existing = getResourceForUpdate(ex, id, rev);
+                        final JsonValue newContent = existing.copy();
+                        for (final PatchOperation operation : request.getPatchOperations()) {
+                            applyPatchOperation(newContent, operation);
+                        }
+                        final JsonValue content = withIdAndRevision(newContent, id, getNextRevision(existing));
+                        writeResource(ex, id, content);
+                        updateIndexes(id, existing, content);
+                        return toResponse(content);
+                    } finally {
+                        db.releaseExchange(ex);
+                    }
+                }
+            }));
+        } catch (final ResourceException e) {
+            return newExceptionPromise(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Promise<QueryResponse, ResourceException> queryCollection(final Context context,
+            final QueryRequest request, final QueryResourceHandler handler) {
+        if (request.getQueryId() != null) {
+            return new NotSupportedException("Query by ID not supported").asPromise();
+        } else if (request.getQueryExpression() != null) {
+            return new NotSupportedException("Query by expression not supported").asPromise();
+        } else if (request.getPageSize() > 0 && request.getPagedResultsCookie() != null
+                && request.getPagedResultsOffset() > 0) {
+            return new BadRequestException("Cookies and offsets are mutually exclusive").asPromise();
+        }
+        try {
+            // Results are streamed to the handler, so the query must not be retried.
+            return newResultPromise(runTransaction(0, new Operation<QueryResponse>() {
+                @Override
+                public QueryResponse run() throws PersistitException, ResourceException {
+                    return query(request, handler);
+                }
+            }));
+        } catch (final ResourceException e) {
+            return newExceptionPromise(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Promise<ResourceResponse, ResourceException> readInstance(final Context context, final String id,
+            final ReadRequest request) {
+        try {
+            return newResultPromise(runTransaction(0, new Operation<ResourceResponse>() {
+                @Override
+                public ResourceResponse run() throws PersistitException, ResourceException {
+                    final Exchange ex = db.getExchange(volume, treeName, false);
+                    try {
+                        final JsonValue content = readResource(ex, id);
+                        if (content == null) {
+                            throw new NotFoundException("The resource with ID '" + id
+                                    + "' could not be read because it does not exist");
+                        }
+                        return toResponse(content);
+                    } finally {
+                        db.releaseExchange(ex);
+                    }
+                }
+            }));
+        } catch (final ResourceException e) {
+            return newExceptionPromise(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Promise<ResourceResponse, ResourceException> updateInstance(final Context context, final String id,
+            final UpdateRequest request) {
+        final String rev = request.getRevision();
+        try {
+            return newResultPromise(runTransaction(RETRY_COUNT, new Operation<ResourceResponse>() {
+                @Override
+                public ResourceResponse run() throws PersistitException, ResourceException {
+                    final Exchange ex = db.getExchange(volume, treeName, false);
+                    try {
+                        final JsonValue existing = getResourceForUpdate(ex, id, rev);
+                        final JsonValue content =
+                                withIdAndRevision(request.getContent(), id, getNextRevision(existing));
+                        writeResource(ex, id, content);
+                        updateIndexes(id, existing, content);
+                        return toResponse(content);
+                    } finally {
+                        db.releaseExchange(ex);
+                    }
+                }
+            }));
+        } catch (final ResourceException e) {
+            return newExceptionPromise(e);
+        }
+    }
+
+    private boolean isIndexed(final JsonPointer field) {
+        return indexes.containsKey(field);
+    }
+
+    /*
+     * Runs an operation in a transaction, retrying it up to the specified number of times if
+     * it is rolled back by a conflicting concurrent update.
+     */
+    private <T> T runTransaction(final int retryCount, final Operation<T> operation) throws ResourceException {
+        final Transaction txn = db.getTransaction();
+        int retries = retryCount;
+        try {
+            while (true) {
+                txn.begin();
+                try {
+                    final T result = operation.run();
+                    txn.commit();
+                    return result;
+                } catch (final ResourceException e) {
+                    txn.rollback();
+                    throw e;
+                } catch (final RollbackException e) {
+                    if (retries-- <= 0) {
+                        throw new ServiceUnavailableException("The request could not be completed because of "
+                                + "concurrent updates to the same resources", e);
+                    }
+                } finally {
+                    txn.end();
+                }
+            }
+        } catch (final PersistitException e) {
+            throw new InternalServerErrorException(e.getMessage(), e);
+        }
+    }
+
+    private QueryResponse query(final QueryRequest request, final QueryResourceHandler handler)
+            throws PersistitException, ResourceException {
+        final QueryFilter<JsonPointer> filter = request.getQueryFilter();
+        final List<SortKey> sortKeys = request.getSortKeys();
+        final Scan scan;
+        if (sortKeys.isEmpty()) {
+            final Scan range = filter != null ? filter.accept(scanPlanner, null) : null;
+            scan = range != null ? range : Scan.all();
+        } else if (sortKeys.size() == 1 && isIndexed(sortKeys.get(0).getField())) {
+            scan = Scan.sorted(sortKeys.get(0).getField(), !sortKeys.get(0).isAscendingOrder());
+        } else {
+            return querySorted(request, handler);
+        }
+
+        final int pageSize = request.getPageSize();
+        final String cookie = pageSize > 0 ? request.getPagedResultsCookie() : null;
+        final Key resumeKey = cookie != null ? decodeKeyCookie(cookie, scan) : null;
+        final boolean countRequested = pageSize > 0 && request.getTotalPagedResultsPolicy() != CountPolicy.NONE;
+        final boolean countMatches = countRequested && filter != null && resumeKey == null;
+
+        final int[] skip = { Math.max(0, request.getPagedResultsOffset()) };
+        final int[] count = { 0 };
+        final int[] returned = { 0 };
+        final String[] nextCookie = { null };
+        final Key last = new Key(db);
+        scan(scan, filter, resumeKey, new ScanHandler() {
+            @Override
+            public boolean handle(final JsonValue content, final Key position) throws ResourceException {
+                count[0]++;
+                if (skip[0] > 0) {
+                    skip[0]--;
+                    return true;
+                } else if (pageSize > 0 && returned[0] == pageSize) {
+                    // At least one more result follows this page.
+                    nextCookie[0] = encodeKeyCookie(last, scan);
+                    return countMatches;
+                } else if (!handler.handleResource(toResponse(content))) {
+                    return false;
+                }
+                returned[0]++;
+                position.copyTo(last);
+                return true;
+            }
+        });
+
+        if (!countRequested) {
+            return pageSize > 0 ? newQueryResponse(nextCookie[0]) : newQueryResponse();
+        }
+        final int totalCount;
+        if (filter == null) {
+            totalCount = (int) getResourceCount();
+        } else if (countMatches) {
+            totalCount = count[0];
+        } else {
+            totalCount = countMatches(scan, filter);
+        }
+        return newQueryResponse(nextCookie[0], CountPolicy.EXACT, totalCount);
+    }
+
+    /*
+     * Server side sorting on several fields, or on a field which is not indexed: aggregate the
+     * result set then sort. Paged results cookies record the offset of the next page.
+     */
+    private QueryResponse querySorted(final QueryRequest request, final QueryResourceHandler handler)
+            throws PersistitException, ResourceException {
+        final QueryFilter<JsonPointer> filter = request.getQueryFilter();
+        final Scan range = filter != null ? filter.accept(scanPlanner, null) : null;
+        final List<JsonValue> results = new ArrayList<>();
+        scan(range != null ? range : Scan.all(), filter, null, new ScanHandler() {
+            @Override
+            public boolean handle(final JsonValue content, final Key position) {
+                results.add(content);
+                return true;
+            }
+        });
+        Collections.sort(results, InMemoryQueries.comparator(request.getSortKeys()));
+
+        final int pageSize = request.getPageSize();
+        final String cookie = request.getPagedResultsCookie();
+        final int firstResultIndex;
+        if (pageSize > 0 && cookie != null) {
+            firstResultIndex = decodeOffsetCookie(cookie);
+        } else {
+            firstResultIndex = Math.max(0, request.getPagedResultsOffset());
+        }
+        final int lastResultIndex = pageSize > 0 ? firstResultIndex + pageSize : Integer.MAX_VALUE;
+        for (int index = firstResultIndex; index < lastResultIndex && index < results.size(); index++) {
+            if (!handler.handleResource(toResponse(results.get(index)))) {
+                break;
+            }
+        }
+        if (pageSize > 0) {
+            final String nextCookie = lastResultIndex < results.size()
+                    ? OFFSET_COOKIE_PREFIX + lastResultIndex : null;
+            if (request.getTotalPagedResultsPolicy() != CountPolicy.NONE) {
+                return newQueryResponse(nextCookie, CountPolicy.EXACT, results.size());
+            }
+            return newQueryResponse(nextCookie);
+        }
+        return newQueryResponse();
+    }
+
+    private int countMatches(final Scan scan, final QueryFilter<JsonPointer> filter)
+            throws PersistitException, ResourceException {
+        final int[] count = { 0 };
+        scan(scan, filter, null, new ScanHandler() {
+            @Override
+            public boolean handle(final JsonValue content, final Key position) {
+                count[0]++;
+                return true;
+            }
+        });
+        return count[0];
+    }
+
+    /*
+     * Passes each resource found by a traversal that matches the filter to the handler, until
+     * the traversal ends or the handler returns false.
+     */
+    private void scan(final Scan scan, final QueryFilter<JsonPointer> filter, final Key resumeKey,
+            final ScanHandler handler) throws PersistitException, ResourceException {
+        final Exchange resources = db.getExchange(volume, treeName, false);
+        final Exchange index = scan.field != null ? db.getExchange(volume, indexes.get(scan.field), false) : null;
+        try {
+            final Exchange ex = index != null ? index : resources;
+            scan.start(ex.getKey(), resumeKey);
+            while (scan.next(ex)) {
+                final JsonValue content;
+                if (index == null) {
+                    content = decode(ex.getValue().getByteArray());
+                } else {
+                    content = readResource(resources, scan.getId(ex));
+                    if (content == null || !scan.isFirstEntry(content)) {
+                        continue;
+                    }
+                }
+                if (filter == null || InMemoryQueries.matches(filter, content)) {
+                    if (!handler.handle(content, ex.getKey())) {
+                        return;
+                    }
+                }
+            }
+        } finally {
+            if (index != null) {
+                db.releaseExchange(index);
+            }
+            db.releaseExchange(resources);
+        }
+    }
+
+    private long getResourceCount() throws PersistitException {
+        final Exchange ex = db.getExchange(volume, treeName, false);
+        try {
+            return ex.getTree().getSumAccumulator(COUNT_ACCUMULATOR).getSnapshotValue();
+        } finally {
+            db.releaseExchange(ex);
+        }
+    }
+
+    private long clear() throws PersistitException {
+        final Exchange ex = db.getExchange(volume, treeName, false);
+        try {
+            final long size = ex.getTree().getSumAccumulator(COUNT_ACCUMULATOR).getSnapshotValue();
+            ex.removeAll();
+            ex.getTree().getSumAccumulator(COUNT_ACCUMULATOR).add(-size);
+            for (final String indexName : indexes.values()) {
+                final Exchange index = db.getExchange(volume, indexName, false);
+                try {
+                    index.clear().append(PRESENT).remove(Key.GTEQ);
+                    index.clear().append(MISSING).remove(Key.GTEQ);
+                } finally {
+                    db.releaseExchange(index);
+                }
+            }
+            return size;
+        } finally {
+            db.releaseExchange(ex);
+        }
+    }
+
+    /*
+     * Returns the names of the index trees of this collection for fields which are not indexed.
+     * A tree is an index tree of this collection if it is named after the collection and a JSON
+     * pointer, and its built or unused marker records that pointer. An index which was not
+     * completely built has no marker, and is rebuilt if the field is indexed again.
+     */
+    private List<String> getUnusedIndexes() throws PersistitException {
+        final List<String> names = new ArrayList<>();
+        final String prefix = treeName + INDEX_TREE_SEPARATOR + "/";
+        for (final String name : volume.getTreeNames()) {
+            if (!name.startsWith(prefix) || indexes.containsValue(name)) {
+                continue;
+            }
+            final Exchange index = db.getExchange(volume, name, false);
+            try {
+                if (isIndexOf(index, BUILT, name) || isIndexOf(index, UNUSED, name)) {
+                    names.add(name);
+                }
+            } finally {
+                db.releaseExchange(index);
+            }
+        }
+        return names;
+    }
+
+    private boolean isIndexOf(final Exchange index, final int marker, final String name)
+            throws PersistitException {
+        index.clear().append(marker).fetch();
+        return index.getValue().isDefined() && index.getValue().getType() == String.class
+                && name.equals(treeName + INDEX_TREE_SEPARATOR + index.getValue().getString());
+    }
+
+    /*
+     * Builds an index unless it has already been completely built. The index is built outside
+     * of a transaction, and marked as built once all of its entries have been stored, so an
+     * index left incomplete by a failure is built again.
+     */
+    private void buildIndex(final JsonPointer field, final String indexName)
+            throws PersistitException, ResourceException {
+        final Exchange index = db.getExchange(volume, indexName, true);
+        try {
+            if (index.clear().append(BUILT).isValueDefined()) {
+                return;
+            }
+            index.removeAll();
+            final Exchange resources = db.getExchange(volume, treeName, false);
+            try {
+                resources.clear().append(Key.BEFORE);
+                while (resources.next()) {
+                    final String id = resources.getKey().reset().decodeString();
+                    storeIndexEntries(index, id, getIndexValues(decode(resources.getValue().getByteArray()), field));
+                }
+            } finally {
+                db.releaseExchange(resources);
+            }
+            index.getValue().put(field.toString());
+            index.clear().append(BUILT).store();
+        } finally {
+            db.releaseExchange(index);
+        }
+    }
+
+    private void updateIndexes(final String id, final JsonValue oldContent, final JsonValue newContent)
+            throws PersistitException {
+        for (final Map.Entry<JsonPointer, String> entry : indexes.entrySet()) {
+            final List<Object> oldValues = oldContent != null ? getIndexValues(oldContent, entry.getKey()) : null;
+            final List<Object> newValues = newContent != null ? getIndexValues(newContent, entry.getKey()) : null;
+            if (oldValues != null && oldValues.equals(newValues)) {
+                continue;
+            }
+            final Exchange index = db.getExchange(volume, entry.getValue(), false);
+            try {
+                if (oldValues != null) {
+                    removeIndexEntries(index, id, oldValues);
+                }
+                if (newValues != null) {
+                    storeIndexEntries(index, id, newValues);
+                }
+            } finally {
+                db.releaseExchange(index);
+            }
+        }
+    }
+
+    private static void storeIndexEntries(final Exchange index, final String id, final List<Object> values)
+            throws PersistitException {
+        index.getValue().putNull();
+        if (values.isEmpty()) {
+            index.clear().append(MISSING).append(id).store();
+        }
+        for (final Object value : values) {
+            index.clear().append(PRESENT).append(value).append(id).store();
+        }
+    }
+
+    private static void removeIndexEntries(final Exchange index, final String id, final List<Object> values)
+            throws PersistitException {
+        if (values.isEmpty()) {
+            index.clear().append(MISSING).append(id).remove();
+        }
+        for (final Object value : values) {
+            index.clear().append(PRESENT).append(value).append(id).remove();
+        }
+    }
+
+    private static JsonValue readResource(final Exchange ex, final String id)
+            throws PersistitException, ResourceException {
+        ex.clear().append(id).fetch();
+        return ex.getValue().isDefined() ? decode(ex.getValue().getByteArray()) : null;
+    }
+
+    private static void writeResource(final Exchange ex, final String id, final JsonValue content)
+            throws PersistitException, ResourceException {
+        try {
+            ex.getValue().putByteArray(Json.writeJson(content.getObject()));
+        } catch (final IOException e) {
+            throw new BadRequestException("The resource with ID '" + id
+                    + "' could not be stored because its content is not valid JSON", e);
+        }
+        ex.clear().append(id).store();
+    }
+
+    private static JsonValue decode(final byte[] bytes) throws ResourceException {
+        try {
+            return new JsonValue(Json.readJson(new String(bytes, UTF_8)));
+        } catch (final IOException e) {
+            throw new InternalServerErrorException("Malformed resource content encountered", e);
+        }
+    }
+
+    private static ResourceResponse toResponse(final JsonValue content) {
+        return newResourceResponse(content.get(ResourceResponse.FIELD_CONTENT_ID).asString(),
+                content.get(ResourceResponse.FIELD_CONTENT_REVISION).asString(), content);
+    }
+
+    /*
+     * Returns a copy of the content with the ID and revision added, so that they are included
+     * with subsequent responses.
+     */
+    private static JsonValue withIdAndRevision(final JsonValue content, final String id, final String rev)
+            throws ResourceException {
+        final JsonValue copy = content.copy();
+        try {
+            copy.asMap().put(ResourceResponse.FIELD_CONTENT_ID, id);
+            copy.asMap().put(ResourceResponse.FIELD_CONTENT_REVISION, rev);
+        } catch (final JsonValueException e) {
+            throw new BadRequestException("The request could not be processed because the provided "
+                    + "content is not a JSON object");
+        }
+        return copy;
+    }
+
+    private static String getNextRevision(final JsonValue content) throws ResourceException {
+        final String rev = content.get(ResourceResponse.FIELD_CONTENT_REVISION).asString();
+        try {
+            return String.valueOf(Long.parseLong(rev) + 1);
+        } catch (final NumberFormatException e) {
+            throw new InternalServerErrorException("Malformed revision number '" + rev
+                    + "' encountered while updating a resource");
+        }
+    }
+
+    private static JsonValue getResourceForUpdate(final Exchange ex, final String id, final String rev)
+            throws PersistitException, ResourceException {
+        final JsonValue existing = readResource(ex, id);
+        if (existing == null) {
+            throw new NotFoundException("The resource with ID '" + id
+                    + "' could not be updated because it does not exist");
+        } else if (rev != null && !existing.get(ResourceResponse.FIELD_CONTENT_REVISION).asString().equals(rev)) {
+            throw new PreconditionFailedException("The resource with ID '" + id
+                    + "' could not be updated because " + "it does not have the required version");
+        }
+        return existing;
+    }
+
+    private static void applyPatchOperation(final JsonValue newContent, final PatchOperation operation)
+            throws ResourceException {
+        try {
+            if (operation.isAdd()) {
+                newContent.putPermissive(operation.getField(), operation.getValue().getObject());
+            } else if (operation.isRemove()) {
+                if (operation.getValue().isNull()) {
+                    // Remove entire value.
+                    newContent.remove(operation.getField());
+                } else {
+                    // Find matching value(s) and remove (assumes reference to array).
+                    final JsonValue value = newContent.get(operation.getField());
+                    if (value != null) {
+                        final Object valueToBeRemoved = operation.getValue().getObject();
+                        if (value.isList()) {
+                            final Iterator<Object> iterator = value.asList().iterator();
+                            while (iterator.hasNext()) {
+                                if (valueToBeRemoved.equals(iterator.next())) {
+                                    iterator.remove();
+                                }
+                            }
+                        } else if (valueToBeRemoved.equals(value.getObject())) {
+                            // Single valued field.
+                            newContent.remove(operation.getField());
+                        }
+                    }
+                }
+            } else if (operation.isReplace()) {
+                newContent.remove(operation.getField());
+                if (!operation.getValue().isNull()) {
+                    newContent.putPermissive(operation.getField(), operation.getValue().getObject());
+                }
+            } else if (operation.isIncrement()) {
+                final JsonValue value = newContent.get(operation.getField());
+                final Number amount = operation.getValue().asNumber();
+                if (value == null) {
+                    throw new BadRequestException("The field '" + operation.getField() + "' does not exist");
+                } else if (value.isList()) {
+                    final List<Object> elements = value.asList();
+                    for (int i = 0; i < elements.size(); i++) {
+                        elements.set(i, increment(operation, elements.get(i), amount));
+                    }
+                } else {
+                    newContent.put(operation.getField(), increment(operation, value.getObject(), amount));
+                }
+            }
+        } catch (final JsonValueException e) {
+            throw new ConflictException("The field '" + operation.getField() + "' does not exist");
+        }
+    }
+
+    private static Object increment(final PatchOperation operation, final Object object, final Number amount)
+            throws BadRequestException {
+        if (object instanceof Long) {
+            return ((Long) object) + amount.longValue();
+        } else if (object instanceof Integer) {
+            return ((Integer) object) + amount.intValue();
+        } else if (object instanceof Float) {
+            return ((Float) object) + amount.floatValue();
+        } else if (object instanceof Double) {
+            return ((Double) object) + amount.doubleValue();
+        } else {
+            throw new BadRequestException("The field '" + operation.getField() + "' is not a number");
+        }
+    }
+
+    private static String encodeKeyCookie(final Key key, final Scan scan) {
+        final byte[] bytes = Arrays.copyOf(key.getEncodedBytes(), key.getEncodedSize());
+        return KEY_COOKIE_PREFIX + scan.getName() + ":" + Base64.encode(bytes);
+    }
+
+    private Key decodeKeyCookie(final String cookie, final Scan scan) throws BadRequestException {
+        final String prefix = KEY_COOKIE_PREFIX + scan.getName() + ":";
+        if (cookie.startsWith(prefix)) {
+            final byte[] bytes = Base64.decode(cookie.substring(prefix.length()));
+            final Key key = new Key(db);
+            if (bytes != null && bytes.length > 0 && bytes.length <= key.getMaximumSize()) {
+                System.arraycopy(bytes, 0, key.getEncodedBytes(), 0, bytes.length);
+                key.setEncodedSize(bytes.length);
+                return key;
+            }
+        }
+        throw new BadRequestException("The paged results cookie '" + cookie + "' is not valid for this query");
+    }
+
+    private static int decodeOffsetCookie(final String cookie) throws BadRequestException {
+        if (cookie.startsWith(OFFSET_COOKIE_PREFIX)) {
+            try {
+                return Integer.parseInt(cookie.substring(OFFSET_COOKIE_PREFIX.length()));
+            } catch (final NumberFormatException e) {
+                // Fall through.
+            }
+        }
+        throw new BadRequestException("The paged results cookie '" + cookie + "' is not valid for this query");
+    }
+}
@@ -0,0 +1,426 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+
+package org.forgerock.json.resource.persistit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.array;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.PatchOperation.increment;
+import static org.forgerock.json.resource.PatchOperation.replace;
+import static org.forgerock.json.resource.Requests.newActionRequest;
+import static org.forgerock.json.resource.Requests.newCreateRequest;
+import static org.forgerock.json.resource.Requests.newDeleteRequest;
+import static org.forgerock.json.resource.Requests.newPatchRequest;
+import static org.forgerock.json.resource.Requests.newQueryRequest;
+import static org.forgerock.json.resource.Requests.newReadRequest;
+import static org.forgerock.json.resource.Requests.newUpdateRequest;
+import static org.forgerock.json.resource.Resources.newInternalConnection;
+import static org.forgerock.json.resource.Router.uriTemplate;
+import static org.testng.Assert.fail;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.CollectionResourceProvider;
+import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.CountPolicy;
+import org.forgerock.json.resource.MemoryBackend;
+import org.forgerock.json.resource.NotFoundException;
+import org.forgerock.json.resource.PreconditionFailedException;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResponse;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.Router;
+import org.forgerock.services.context.Context;
+import org.forgerock.services.context.RootContext;
+import org.forgerock.util.query.QueryFilter;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.persistit.Exchange;
+import com.persistit.Persistit;
+
+/**
+ * Tests for {@link PersistitBackend}.
+ */
+@SuppressWarnings("javadoc")
+public final class PersistitBackendTest {
+
+    private static final JsonPointer NAME = new JsonPointer("name");
+    private static final JsonPointer AGE = new JsonPointer("age");
+    private static final JsonPointer ROLE = new JsonPointer("role");
+    private static final JsonPointer TAGS = new JsonPointer("tags");
+
+    private static final String[] ROLES = { "it", "sales", "eng" };
+    private static final String[] COLOURS = { "Red", "green", "blue", "amber", "cyan" };
+
+    private static final int COUNT = 200;
+
+    private File directory;
+    private Persistit db;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("PersistitBackendTest").toFile();
+        open();
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        db.close();
+        delete(directory);
+    }
+
+    @Test
+    public void testCreateReadUpdateDelete() throws Exception {
+        final Connection connection = getConnection(NAME, AGE);
+        final ResourceResponse created = connection.create(ctx(), newCreateRequest("users", user("alice", 20)));
+        assertThat(created.getRevision()).isEqualTo("0");
+        assertThat(created.getContent().get("_id").asString()).isEqualTo(created.getId());
+        final ResourceResponse read = connection.read(ctx(), newReadRequest("users/" + created.getId()));
+        assertThat(read.getContent().getObject()).isEqualTo(created.getContent().getObject());
+
+        final ResourceResponse second = connection.create(ctx(), newCreateRequest("users", user("bob", 30)));
+        assertThat(second.getId()).isNotEqualTo(created.getId());
+        try {
+            connection.create(ctx(), newCreateRequest("users", created.getId(), user("carol", 40)));
+            fail("Create succeeded unexpectedly");
+        } catch (final PreconditionFailedException e) {
+            // Expected.
+        }
+
+        final ResourceResponse updated = connection.update(ctx(),
+                newUpdateRequest("users/" + created.getId(), user("alice", 21)).setRevision("0"));
+        assertThat(updated.getRevision()).isEqualTo("1");
+        try {
+            connection.update(ctx(), newUpdateRequest("users/" + created.getId(), user("alice", 22))
+                    .setRevision("0"));
+            fail("Update succeeded unexpectedly");
+        } catch (final PreconditionFailedException e) {
+            // Expected.
+        }
+
+        final ResourceResponse patched = connection.patch(ctx(), newPatchRequest("users/" + created.getId(),
+                increment("/age", 2), replace("/name", "Alice")));
+        assertThat(patched.getRevision()).isEqualTo("2");
+        assertThat(patched.getContent().get(AGE).asInteger()).isEqualTo(23);
+        assertThat(queryIds(connection, newQueryRequest("users")
+                .setQueryFilter(QueryFilter.equalTo(AGE, 23)))).containsOnly(created.getId());
+        assertThat(queryIds(connection, newQueryRequest("users")
+                .setQueryFilter(QueryFilter.equalTo(AGE, 21)))).isEmpty();
+
+        final ResourceResponse deleted = connection.delete(ctx(), newDeleteRequest("users/" + created.getId()));
+        assertThat(deleted.getRevision()).isEqualTo("2");
+        try {
+            connection.read(ctx(), newReadRequest("users/" + created.getId()));
+            fail("Read succeeded unexpectedly");
+        } catch (final NotFoundException e) {
+            // Expected.
+        }
+        assertThat(queryIds(connection, newQueryRequest("users")
+                .setQueryFilter(QueryFilter.startsWith(NAME, "a")))).isEmpty();
+        assertThat(queryIds(connection, newQueryRequest("users"))).containsOnly(second.getId());
+    }
+
+    @Test
+    public void testQueriesMatchMemoryBackend() throws Exception {
+        final Connection connection = getConnection(NAME, AGE, TAGS);
+        final Connection memory = getConnection(new MemoryBackend());
+        populate(connection);
+        populate(memory);
+
+        final List<QueryFilter<JsonPointer>> filters = new ArrayList<>();
+        filters.add(QueryFilter.<JsonPointer>equalTo(NAME, "USER007"));
+        filters.add(QueryFilter.<JsonPointer>greaterThan(AGE, 30));
+        filters.add(QueryFilter.<JsonPointer>greaterThanOrEqualTo(AGE, 30.0));
+        filters.add(QueryFilter.<JsonPointer>lessThan(AGE, 5));
+        filters.add(QueryFilter.<JsonPointer>lessThanOrEqualTo(AGE, 5));
+        filters.add(QueryFilter.<JsonPointer>startsWith(NAME, "user01"));
+        filters.add(QueryFilter.<JsonPointer>greaterThan(NAME, "user190"));
+        filters.add(QueryFilter.<JsonPointer>equalTo(TAGS, "red"));
+        filters.add(QueryFilter.<JsonPointer>lessThan(TAGS, "b"));
+        filters.add(QueryFilter.and(QueryFilter.<JsonPointer>equalTo(ROLE, "it"),
+                QueryFilter.<JsonPointer>greaterThanOrEqualTo(AGE, 20)));
+        filters.add(QueryFilter.or(QueryFilter.<JsonPointer>equalTo(NAME, "user001"),
+                QueryFilter.<JsonPointer>equalTo(AGE, 3)));
+        filters.add(QueryFilter.not(QueryFilter.<JsonPointer>present(AGE)));
+        for (final QueryFilter<JsonPointer> filter : filters) {
+            final Set<String> expected = queryIds(memory, newQueryRequest("users").setQueryFilter(filter));
+            assertThat(expected).isNotEmpty();
+            assertThat(queryIds(connection, newQueryRequest("users").setQueryFilter(filter)))
+                    .as(filter.toString()).isEqualTo(expected);
+        }
+
+        for (final String sortKey : new String[] { "+/age", "-/age", "+/tags", "-/tags", "+/role", "-/name" }) {
+            final QueryRequest request = newQueryRequest("users").addSortKey(sortKey);
+            final JsonPointer field = new JsonPointer(sortKey.substring(1));
+            assertThat(sortValues(query(connection, request), field)).as(sortKey)
+                    .isEqualTo(sortValues(query(memory, request), field));
+        }
+        final QueryRequest request = newQueryRequest("users").addSortKey("-/age")
+                .setQueryFilter(QueryFilter.<JsonPointer>equalTo(ROLE, "eng"));
+        assertThat(sortValues(query(connection, request), AGE)).isEqualTo(sortValues(query(memory, request), AGE));
+    }
+
+    @Test
+    public void testPagedResultsWithCookie() throws Exception {
+        final Connection connection = getConnection(AGE);
+        populate(connection);
+        for (final String sortKey : new String[] { "+/age", "-/age", "+/role", null }) {
+            final List<ResourceResponse> all = query(connection, sortKey != null
+                    ? newQueryRequest("users").addSortKey(sortKey) : newQueryRequest("users"));
+            assertThat(all).hasSize(COUNT);
+
+            final List<ResourceResponse> paged = new ArrayList<>();
+            final QueryRequest request = newQueryRequest("users").setPageSize(7)
+                    .setTotalPagedResultsPolicy(CountPolicy.EXACT);
+            if (sortKey != null) {
+                request.addSortKey(sortKey);
+            }
+            QueryResponse response;
+            do {
+                final List<ResourceResponse> page = new ArrayList<>();
+                response = connection.query(ctx(), request, page);
+                assertThat(page.size()).isLessThanOrEqualTo(7);
+                assertThat(response.getTotalPagedResults()).isEqualTo(COUNT);
+                paged.addAll(page);
+                request.setPagedResultsCookie(response.getPagedResultsCookie());
+            } while (response.getPagedResultsCookie() != null);
+            assertThat(ids(paged)).as(String.valueOf(sortKey)).isEqualTo(ids(all));
+        }
+
+        final QueryRequest filtered = newQueryRequest("users").setPageSize(5)
+                .setTotalPagedResultsPolicy(CountPolicy.EXACT)
+                .setQueryFilter(QueryFilter.<JsonPointer>lessThan(AGE, 10));
+        final int matches = query(connection, newQueryRequest("users").setQueryFilter(filtered.getQueryFilter()))
+                .size();
+        final QueryResponse first = connection.query(ctx(), filtered, new ArrayList<ResourceResponse>());
+        assertThat(first.getTotalPagedResults()).isEqualTo(matches);
+        filtered.setPagedResultsCookie(first.getPagedResultsCookie());
+        final QueryResponse second = connection.query(ctx(), filtered, new ArrayList<ResourceResponse>());
+        assertThat(second.getTotalPagedResults()).isEqualTo(matches);
+    }
+
+    @Test
+    public void testIndexesArePersistent() throws Exception {
+        populate(getConnection(NAME));
+        db.close();
+        open();
+
+        final Connection connection = getConnection(NAME, ROLE);
+        assertThat(db.getVolume("crest").getTree("users#/role", false)).isNotNull();
+        final Set<String> expected = new HashSet<>();
+        for (int i = 0; i < COUNT; i += ROLES.length) {
+            expected.add(String.valueOf(i));
+        }
+        assertThat(queryIds(connection, newQueryRequest("users")
+                .setQueryFilter(QueryFilter.<JsonPointer>equalTo(ROLE, "IT")))).isEqualTo(expected);
+        assertThat(queryIds(connection, newQueryRequest("users")
+                .setQueryFilter(QueryFilter.<JsonPointer>equalTo(NAME, "user001")))).containsOnly("1");
+
+    }
+
+    @Test
+    public void testUnusedIndexesAreRebuiltOrRemoved() throws Exception {
+        populate(getConnection(NAME, ROLE));
+        // Trees named like index trees but not built by the provider must be left alone.
+        for (final String name : new String[] { "users#archive", "users#/other" }) {
+            final Exchange ex = db.getExchange("crest", name, true);
+            ex.getValue().put("not an index");
+            ex.to(2).store();
+            db.releaseExchange(ex);
+        }
+
+        // The name index is not maintained while the name is not indexed.
+        final Connection connection = getConnection(ROLE);
+        assertThat(db.getVolume("crest").getTree("users#/name", false)).isNotNull();
+        connection.update(ctx(), newUpdateRequest("users/1", user("renamed", 1)));
+        assertThat(queryIds(getConnection(NAME, ROLE), newQueryRequest("users")
+                .setQueryFilter(QueryFilter.<JsonPointer>equalTo(NAME, "renamed")))).containsOnly("1");
+
+        final PersistitBackend users = new PersistitBackend(db, db.getVolume("crest"), "users", ROLE);
+        assertThat(users.removeUnusedIndexes()).containsOnly("users#/name");
+        assertThat(db.getVolume("crest").getTree("users#/name", false)).isNull();
+        assertThat(db.getVolume("crest").getTree("users#/role", false)).isNotNull();
+        assertThat(db.getVolume("crest").getTree("users#archive", false)).isNotNull();
+        assertThat(db.getVolume("crest").getTree("users#/other", false)).isNotNull();
+        assertThat(users.removeUnusedIndexes()).isEmpty();
+    }
+
+    @Test
+    public void testConcurrentUpdatesCheckRevision() throws Exception {
+        final Connection connection = getConnection(AGE);
+        connection.create(ctx(), newCreateRequest("users", "0", user("alice", 20)));
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                final int age = 30 + i;
+                futures.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        try {
+                            connection.update(ctx(), newUpdateRequest("users/0", user("alice", age))
+                                    .setRevision("0"));
+                            return true;
+                        } catch (final PreconditionFailedException e) {
+                            return false;
+                        }
+                    }
+                }));
+            }
+            int updated = 0;
+            for (final Future<Boolean> future : futures) {
+                if (future.get()) {
+                    updated++;
+                }
+            }
+            assertThat(updated).isEqualTo(1);
+        } finally {
+            executor.shutdown();
+        }
+        final ResourceResponse resource = connection.read(ctx(), newReadRequest("users/0"));
+        assertThat(resource.getRevision()).isEqualTo("1");
+        assertThat(queryIds(connection, newQueryRequest("users")
+                .setQueryFilter(QueryFilter.<JsonPointer>greaterThanOrEqualTo(AGE, 30)))).containsOnly("0");
+    }
+
+    @Test
+    public void testActionCollectionClear() throws Exception {
+        final Connection connection = getConnection(AGE);
+        populate(connection);
+        final JsonValue result = connection.action(ctx(), newActionRequest("users", "clear")).getJsonContent();
+        assertThat(result.get("cleared").asLong()).isEqualTo(COUNT);
+        assertThat(query(connection, newQueryRequest("users"))).isEmpty();
+        assertThat(query(connection, newQueryRequest("users").addSortKey("+/age"))).isEmpty();
+        connection.create(ctx(), newCreateRequest("users", "0", user("alice", 20)));
+        final QueryResponse response = connection.query(ctx(), newQueryRequest("users").setPageSize(10)
+                .setTotalPagedResultsPolicy(CountPolicy.EXACT), new ArrayList<ResourceResponse>());
+        assertThat(response.getTotalPagedResults()).isEqualTo(1);
+    }
+
+    private void open() throws Exception {
+        final Properties properties = new Properties();
+        properties.setProperty("datapath", directory.getPath());
+        properties.setProperty("buffer.count.16384", "200");
+        properties.setProperty("volume.1", "${datapath}/crest,create,pageSize:16384,initialPages:1,"
+                + "extensionPages:100,maximumPages:100000");
+        properties.setProperty("journalpath", "${datapath}/journal");
+        db = new Persistit(properties);
+    }
+
+    private Connection getConnection(final JsonPointer... indexedFields) throws ResourceException {
+        return getConnection(new PersistitBackend(db, db.getVolume("crest"), "users", indexedFields));
+    }
+
+    private Connection getConnection(final CollectionResourceProvider users) {
+        final Router router = new Router();
+        router.addRoute(uriTemplate("users"), users);
+        return newInternalConnection(router);
+    }
+
+    /*
+     * Every tenth user has no age, and each user has one or two tags.
+     */
+    private static void populate(final Connection connection) throws ResourceException {
+        for (int i = 0; i < COUNT; i++) {
+            final JsonValue user = json(object(field("name", String.format("%s%03d", i % 2 == 0 ? "User" : "user", i)),
+                    field("role", ROLES[i % ROLES.length]),
+                    field("tags", i % 3 == 0 ? array(COLOURS[i % 5]) : array(COLOURS[i % 5], COLOURS[i * 7 % 4]))));
+            if (i % 10 != 0) {
+                user.put("age", i % 37);
+            }
+            connection.create(ctx(), newCreateRequest("users", String.valueOf(i), user));
+        }
+    }
+
+    private static JsonValue user(final String name, final int age) {
+        return json(object(field("name", name), field("age", age)));
+    }
+
+    private static List<ResourceResponse> query(final Connection connection, final QueryRequest request)
+            throws ResourceException {
+        final List<ResourceResponse> results = new ArrayList<>();
+        connection.query(ctx(), request, results);
+        return results;
+    }
+
+    private static Set<String> queryIds(final Connection connection, final QueryRequest request)
+            throws ResourceException {
+        return new HashSet<>(ids(query(connection, request)));
+    }
+
+    private static List<String> ids(final List<ResourceResponse> resources) {
+        final List<String> ids = new ArrayList<>();
+        for (final ResourceResponse resource : resources) {
+            ids.add(resource.getId());
+        }
+        return ids;
+    }
+
+    /*
+     * Returns the least value of the field of each resource, in lower case, which is the value
+     * the resources are sorted by.
+     */
+    private static List<String> sortValues(final List<ResourceResponse> resources, final JsonPointer field) {
+        final List<String> values = new ArrayList<>();
+        for (final ResourceResponse resource : resources) {
+            final JsonValue value = resource.getContent().get(field);
+            String least = null;
+            if (value != null) {
+                for (final Object v : value.isList() ? value.asList() : array(value.getObject())) {
+                    final String s = String.valueOf(v).toLowerCase(Locale.ENGLISH);
+                    if (least == null || s.compareTo(least) < 0) {
+                        least = s;
+                    }
+                }
+            }
+            values.add(least);
+        }
+        return values;
+    }
+
+    private static Context ctx() {
+        return new RootContext();
+    }
+
+    private static void delete(final File file) {
+        final File[] files = file.listFiles();
+        if (files != null) {
+            for (final File child : files) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
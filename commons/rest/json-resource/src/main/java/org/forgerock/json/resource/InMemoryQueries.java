@@ -0,0 +1,338 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+
+package org.forgerock.json.resource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+import org.forgerock.util.query.QueryFilter;
+import org.forgerock.util.query.QueryFilterVisitor;
+
+/**
+ * Evaluates query filters and sort keys against the JSON content of resources, for collection
+ * resource providers which cannot delegate them to an underlying store. String values are
+ * compared without regard to case, numbers are compared as doubles, and values of different
+ * types never match. This is the query semantics of {@link MemoryBackend}.
+ */
+public final class InMemoryQueries {
+    private enum FilterResult {
+        FALSE, TRUE, UNDEFINED;
+
+        static FilterResult valueOf(final boolean b) {
+            return b ? TRUE : FALSE;
+        }
+
+        boolean toBoolean() {
+            return this == TRUE; // UNDEFINED collapses to FALSE.
+        }
+    }
+
+    private static final class ResourceComparator implements Comparator<JsonValue> {
+        private final List<SortKey> sortKeys;
+
+        private ResourceComparator(final List<SortKey> sortKeys) {
+            this.sortKeys = sortKeys;
+        }
+
+        @Override
+        public int compare(final JsonValue r1, final JsonValue r2) {
+            for (final SortKey sortKey : sortKeys) {
+                final int result = compare(r1, r2, sortKey);
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return 0;
+        }
+
+        private int compare(final JsonValue r1, final JsonValue r2, final SortKey sortKey) {
+            final List<Object> vs1 = getValuesSorted(r1, sortKey.getField());
+            final List<Object> vs2 = getValuesSorted(r2, sortKey.getField());
+            if (vs1.isEmpty() && vs2.isEmpty()) {
+                return 0;
+            } else if (vs1.isEmpty()) {
+                // Sort resources with missing attributes last.
+                return 1;
+            } else if (vs2.isEmpty()) {
+                // Sort resources with missing attributes last.
+                return -1;
+            } else {
+                // Compare first values only (consistent with LDAP sort control).
+                final Object v1 = vs1.get(0);
+                final Object v2 = vs2.get(0);
+                return sortKey.isAscendingOrder() ? compareValues(v1, v2) : -compareValues(v1, v2);
+            }
+        }
+
+        private List<Object> getValuesSorted(final JsonValue resource, final JsonPointer field) {
+            List<Object> results = getValues(resource, field);
+            if (results.size() > 1) {
+                results = new ArrayList<>(results);
+                Collections.sort(results, VALUE_COMPARATOR);
+            }
+            return results;
+        }
+    }
+
+    private static final QueryFilterVisitor<FilterResult, JsonValue, JsonPointer> RESOURCE_FILTER =
+            new QueryFilterVisitor<FilterResult, JsonValue, JsonPointer>() {
+
+            @Override
+            public FilterResult visitAndFilter(final JsonValue p, final List<QueryFilter<JsonPointer>> subFilters) {
+                FilterResult result = FilterResult.TRUE;
+                for (final QueryFilter<JsonPointer> subFilter : subFilters) {
+                    final FilterResult r = subFilter.accept(this, p);
+                    if (r.ordinal() < result.ordinal()) {
+                        result = r;
+                    }
+                    if (result == FilterResult.FALSE) {
+                        break;
+                    }
+                }
+                return result;
+            }
+
+            @Override
+            public FilterResult visitBooleanLiteralFilter(final JsonValue p, final boolean value) {
+                return FilterResult.valueOf(value);
+            }
+
+            @Override
+            public FilterResult visitContainsFilter(final JsonValue p, final JsonPointer field,
+                    final Object valueAssertion) {
+                for (final Object value : getValues(p, field)) {
+                    if (isCompatible(valueAssertion, value)) {
+                        if (valueAssertion instanceof String) {
+                            final String s1 = ((String) valueAssertion).toLowerCase(Locale.ENGLISH);
+                            final String s2 = ((String) value).toLowerCase(Locale.ENGLISH);
+                            if (s2.contains(s1)) {
+                                return FilterResult.TRUE;
+                            }
+                        } else if (compareValues(valueAssertion, value) == 0) {
+                            // Use equality matching for numbers and booleans.
+                            return FilterResult.TRUE;
+                        }
+                    }
+                }
+                return FilterResult.FALSE;
+            }
+
+            @Override
+            public FilterResult visitEqualsFilter(final JsonValue p, final JsonPointer field,
+                    final Object valueAssertion) {
+                for (final Object value : getValues(p, field)) {
+                    if (isCompatible(valueAssertion, value) && compareValues(valueAssertion, value) == 0) {
+                        return FilterResult.TRUE;
+                    }
+                }
+                return FilterResult.FALSE;
+            }
+
+            @Override
+            public FilterResult visitExtendedMatchFilter(final JsonValue p, final JsonPointer field,
+                    final String matchingRuleId, final Object valueAssertion) {
+                // Extended filters are not supported.
+                return FilterResult.UNDEFINED;
+            }
+
+            @Override
+            public FilterResult visitGreaterThanFilter(final JsonValue p, final JsonPointer field,
+                    final Object valueAssertion) {
+                for (final Object value : getValues(p, field)) {
+                    if (isCompatible(valueAssertion, value) && compareValues(valueAssertion, value) < 0) {
+                        return FilterResult.TRUE;
+                    }
+                }
+                return FilterResult.FALSE;
+            }
+
+            @Override
+            public FilterResult visitGreaterThanOrEqualToFilter(final JsonValue p, final JsonPointer field,
+                    final Object valueAssertion) {
+                for (final Object value : getValues(p, field)) {
+                    if (isCompatible(valueAssertion, value) && compareValues(valueAssertion, value) <= 0) {
+                        return FilterResult.TRUE;
+                    }
+                }
+                return FilterResult.FALSE;
+            }
+
+            @Override
+            public FilterResult visitLessThanFilter(final JsonValue p, final JsonPointer field,
+                    final Object valueAssertion) {
+                for (final Object value : getValues(p, field)) {
+                    if (isCompatible(valueAssertion, value) && compareValues(valueAssertion, value) > 0) {
+                        return FilterResult.TRUE;
+                    }
+                }
+                return FilterResult.FALSE;
+            }
+
+            @Override
+            public FilterResult visitLessThanOrEqualToFilter(final JsonValue p, final JsonPointer field,
+                    final Object valueAssertion) {
+                for (final Object value : getValues(p, field)) {
+                    if (isCompatible(valueAssertion, value) && compareValues(valueAssertion, value) >= 0) {
+                        return FilterResult.TRUE;
+                    }
+                }
+                return FilterResult.FALSE;
+            }
+
+            @Override
+            public FilterResult visitNotFilter(final JsonValue p, final QueryFilter<JsonPointer> subFilter) {
+                switch (subFilter.accept(this, p)) {
+                case FALSE:
+                    return FilterResult.TRUE;
+                case UNDEFINED:
+                    return FilterResult.UNDEFINED;
+                default: // TRUE
+                    return FilterResult.FALSE;
+                }
+            }
+
+            @Override
+            public FilterResult visitOrFilter(final JsonValue p, final List<QueryFilter<JsonPointer>> subFilters) {
+                FilterResult result = FilterResult.FALSE;
+                for (final QueryFilter<JsonPointer> subFilter : subFilters) {
+                    final FilterResult r = subFilter.accept(this, p);
+                    if (r.ordinal() > result.ordinal()) {
+                        result = r;
+                    }
+                    if (result == FilterResult.TRUE) {
+                        break;
+                    }
+                }
+                return result;
+            }
+
+            @Override
+            public FilterResult visitPresentFilter(final JsonValue p, final JsonPointer field) {
+                return FilterResult.valueOf(p.get(field) != null);
+            }
+
+            @Override
+            public FilterResult visitStartsWithFilter(final JsonValue p, final JsonPointer field,
+                    final Object valueAssertion) {
+                for (final Object value : getValues(p, field)) {
+                    if (isCompatible(valueAssertion, value)) {
+                        if (valueAssertion instanceof String) {
+                            final String s1 = ((String) valueAssertion).toLowerCase(Locale.ENGLISH);
+                            final String s2 = ((String) value).toLowerCase(Locale.ENGLISH);
+                            if (s2.startsWith(s1)) {
+                                return FilterResult.TRUE;
+                            }
+                        } else if (compareValues(valueAssertion, value) == 0) {
+                            // Use equality matching for numbers and booleans.
+                            return FilterResult.TRUE;
+                        }
+                    }
+                }
+                return FilterResult.FALSE;
+            }
+        };
+
+    private static final Comparator<Object> VALUE_COMPARATOR = new Comparator<Object>() {
+        @Override
+        public int compare(final Object o1, final Object o2) {
+            return compareValues(o1, o2);
+        }
+    };
+
+    /**
+     * Returns {@code true} if the provided resource content matches a query filter. A filter
+     * whose result is undefined, such as an extended match filter, does not match.
+     *
+     * @param filter
+     *            The query filter.
+     * @param content
+     *            The JSON content of the resource.
+     * @return {@code true} if the resource matches the filter.
+     */
+    public static boolean matches(final QueryFilter<JsonPointer> filter, final JsonValue content) {
+        return filter.accept(RESOURCE_FILTER, content).toBoolean();
+    }
+
+    /**
+     * Returns a comparator which orders resource content by the provided sort keys. Resources
+     * are ordered by the least of the values of each field, and resources without a value for
+     * a field are ordered after those with one.
+     *
+     * @param sortKeys
+     *            The sort keys.
+     * @return A comparator of resource content.
+     */
+    public static Comparator<JsonValue> comparator(final List<SortKey> sortKeys) {
+        return new ResourceComparator(sortKeys);
+    }
+
+    /**
+     * Returns the values of a field of the provided resource content: the elements of a list,
+     * a single value, or no values if the field is missing.
+     *
+     * @param content
+     *            The JSON content of the resource.
+     * @param field
+     *            The field.
+     * @return The values of the field.
+     */
+    public static List<Object> getValues(final JsonValue content, final JsonPointer field) {
+        final JsonValue value = content.get(field);
+        if (value == null) {
+            return Collections.emptyList();
+        } else if (value.isList()) {
+            return value.asList();
+        } else {
+            return Collections.singletonList(value.getObject());
+        }
+    }
+
+    private static int compareValues(final Object v1, final Object v2) {
+        if (v1 instanceof String && v2 instanceof String) {
+            final String s1 = (String) v1;
+            final String s2 = (String) v2;
+            return s1.compareToIgnoreCase(s2);
+        } else if (v1 instanceof Number && v2 instanceof Number) {
+            final Double n1 = ((Number) v1).doubleValue();
+            final Double n2 = ((Number) v2).doubleValue();
+            return n1.compareTo(n2);
+        } else if (v1 instanceof Boolean && v2 instanceof Boolean) {
+            final Boolean b1 = (Boolean) v1;
+            final Boolean b2 = (Boolean) v2;
+            return b1.compareTo(b2);
+        } else {
+            // Different types: we need to ensure predictable ordering,
+            // so use class name as secondary key.
+            return v1.getClass().getName().compareTo(v2.getClass().getName());
+        }
+    }
+
+    private static boolean isCompatible(final Object v1, final Object v2) {
+        return (v1 instanceof String && v2 instanceof String)
+                || (v1 instanceof Number && v2 instanceof Number)
+                || (v1 instanceof Boolean && v2 instanceof Boolean);
+    }
+
+    private InMemoryQueries() {
+        // Prevent instantiation.
+    }
+}
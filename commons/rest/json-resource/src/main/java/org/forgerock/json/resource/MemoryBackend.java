@@ -27,7 +27,6 @@ import java.util.Comparator;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
@@ -39,7 +38,6 @@ import org.forgerock.json.JsonValueException;
 import org.forgerock.util.encode.Base64;
 import org.forgerock.util.promise.Promise;
 import org.forgerock.util.query.QueryFilter;
-import org.forgerock.util.query.QueryFilterVisitor;
 
 /**
  * A simple in-memory collection resource provider which uses a {@code Map} to
@@ -47,18 +45,6 @@ import org.forgerock.util.query.QueryFilterVisitor;
  * and there are no performance guarantees.
  */
 public final class MemoryBackend implements CollectionResourceProvider {
-    private enum FilterResult {
-        FALSE, TRUE, UNDEFINED;
-
-        static FilterResult valueOf(final boolean b) {
-            return b ? TRUE : FALSE;
-        }
-
-        boolean toBoolean() {
-            return this == TRUE; // UNDEFINED collapses to FALSE.
-        }
-    }
-
     private static final class Cookie {
         private final List<SortKey> sortKeys;
         private final int lastResultIndex;
@@ -107,279 +93,6 @@ public final class MemoryBackend implements CollectionResourceProvider {
         }
     }
 
-    private static final class ResourceComparator implements Comparator<ResourceResponse> {
-        private final List<SortKey> sortKeys;
-
-        private ResourceComparator(final List<SortKey> sortKeys) {
-            this.sortKeys = sortKeys;
-        }
-
-        @Override
-        public int compare(final ResourceResponse r1, final ResourceResponse r2) {
-            for (final SortKey sortKey : sortKeys) {
-                final int result = compare(r1, r2, sortKey);
-                if (result != 0) {
-                    return result;
-                }
-            }
-            return 0;
-        }
-
-        private int compare(final ResourceResponse r1, final ResourceResponse r2, final SortKey sortKey) {
-            final List<Object> vs1 = getValuesSorted(r1, sortKey.getField());
-            final List<Object> vs2 = getValuesSorted(r2, sortKey.getField());
-            if (vs1.isEmpty() && vs2.isEmpty()) {
-                return 0;
-            } else if (vs1.isEmpty()) {
-                // Sort resources with missing attributes last.
-                return 1;
-            } else if (vs2.isEmpty()) {
-                // Sort resources with missing attributes last.
-                return -1;
-            } else {
-                // Compare first values only (consistent with LDAP sort control).
-                final Object v1 = vs1.get(0);
-                final Object v2 = vs2.get(0);
-                return sortKey.isAscendingOrder() ? compareValues(v1, v2) : -compareValues(v1, v2);
-            }
-        }
-
-        private List<Object> getValuesSorted(final ResourceResponse resource, final JsonPointer field) {
-            final JsonValue value = resource.getContent().get(field);
-            if (value == null) {
-                return Collections.emptyList();
-            } else if (value.isList()) {
-                List<Object> results = value.asList();
-                if (results.size() > 1) {
-                    results = new ArrayList<>(results);
-                    Collections.sort(results, VALUE_COMPARATOR);
-                }
-                return results;
-            } else {
-                return Collections.singletonList(value.getObject());
-            }
-        }
-    }
-
-    private static final QueryFilterVisitor<FilterResult, ResourceResponse, JsonPointer> RESOURCE_FILTER =
-            new QueryFilterVisitor<FilterResult, ResourceResponse, JsonPointer>() {
-
-            @Override
-            public FilterResult visitAndFilter(final ResourceResponse p,
-                    final List<org.forgerock.util.query.QueryFilter<JsonPointer>> subFilters) {
-                FilterResult result = FilterResult.TRUE;
-                for (final org.forgerock.util.query.QueryFilter<JsonPointer> subFilter : subFilters) {
-                    final FilterResult r = subFilter.accept(this, p);
-                    if (r.ordinal() < result.ordinal()) {
-                        result = r;
-                    }
-                    if (result == FilterResult.FALSE) {
-                        break;
-                    }
-                }
-                return result;
-            }
-
-            @Override
-            public FilterResult visitBooleanLiteralFilter(final ResourceResponse p, final boolean value) {
-                return FilterResult.valueOf(value);
-            }
-
-            @Override
-            public FilterResult visitContainsFilter(final ResourceResponse p, final JsonPointer field,
-                    final Object valueAssertion) {
-                for (final Object value : getValues(p, field)) {
-                    if (isCompatible(valueAssertion, value)) {
-                        if (valueAssertion instanceof String) {
-                            final String s1 =
-                                    ((String) valueAssertion).toLowerCase(Locale.ENGLISH);
-                            final String s2 = ((String) value).toLowerCase(Locale.ENGLISH);
-                            if (s2.contains(s1)) {
-                                return FilterResult.TRUE;
-                            }
-                        } else {
-                            // Use equality matching for numbers and booleans.
-                            if (compareValues(valueAssertion, value) == 0) {
-                                return FilterResult.TRUE;
-                            }
-                        }
-                    }
-                }
-                return FilterResult.FALSE;
-            }
-
-            @Override
-            public FilterResult visitEqualsFilter(final ResourceResponse p, final JsonPointer field,
-                    final Object valueAssertion) {
-                for (final Object value : getValues(p, field)) {
-                    if (isCompatible(valueAssertion, value)
-                            && compareValues(valueAssertion, value) == 0) {
-                        return FilterResult.TRUE;
-                    }
-                }
-                return FilterResult.FALSE;
-            }
-
-            @Override
-            public FilterResult visitExtendedMatchFilter(final ResourceResponse p,
-                    final JsonPointer field, final String matchingRuleId,
-                    final Object valueAssertion) {
-                // This backend does not support any extended filters.
-                return FilterResult.UNDEFINED;
-            }
-
-            @Override
-            public FilterResult visitGreaterThanFilter(final ResourceResponse p,
-                    final JsonPointer field, final Object valueAssertion) {
-                for (final Object value : getValues(p, field)) {
-                    if (isCompatible(valueAssertion, value)
-                            && compareValues(valueAssertion, value) < 0) {
-                        return FilterResult.TRUE;
-                    }
-                }
-                return FilterResult.FALSE;
-            }
-
-            @Override
-            public FilterResult visitGreaterThanOrEqualToFilter(final ResourceResponse p,
-                    final JsonPointer field, final Object valueAssertion) {
-                for (final Object value : getValues(p, field)) {
-                    if (isCompatible(valueAssertion, value)
-                            && compareValues(valueAssertion, value) <= 0) {
-                        return FilterResult.TRUE;
-                    }
-                }
-                return FilterResult.FALSE;
-            }
-
-            @Override
-            public FilterResult visitLessThanFilter(final ResourceResponse p, final JsonPointer field,
-                    final Object valueAssertion) {
-                for (final Object value : getValues(p, field)) {
-                    if (isCompatible(valueAssertion, value)
-                            && compareValues(valueAssertion, value) > 0) {
-                        return FilterResult.TRUE;
-                    }
-                }
-                return FilterResult.FALSE;
-            }
-
-            @Override
-            public FilterResult visitLessThanOrEqualToFilter(final ResourceResponse p,
-                    final JsonPointer field, final Object valueAssertion) {
-                for (final Object value : getValues(p, field)) {
-                    if (isCompatible(valueAssertion, value)
-                            && compareValues(valueAssertion, value) >= 0) {
-                        return FilterResult.TRUE;
-                    }
-                }
-                return FilterResult.FALSE;
-            }
-
-            @Override
-            public FilterResult visitNotFilter(final ResourceResponse p,
-                    final org.forgerock.util.query.QueryFilter<JsonPointer> subFilter) {
-                switch (subFilter.accept(this, p)) {
-                case FALSE:
-                    return FilterResult.TRUE;
-                case UNDEFINED:
-                    return FilterResult.UNDEFINED;
-                default: // TRUE
-                    return FilterResult.FALSE;
-                }
-            }
-
-            @Override
-            public FilterResult visitOrFilter(final ResourceResponse p,
-                    final List<org.forgerock.util.query.QueryFilter<JsonPointer>> subFilters) {
-                FilterResult result = FilterResult.FALSE;
-                for (final org.forgerock.util.query.QueryFilter<JsonPointer> subFilter : subFilters) {
-                    final FilterResult r = subFilter.accept(this, p);
-                    if (r.ordinal() > result.ordinal()) {
-                        result = r;
-                    }
-                    if (result == FilterResult.TRUE) {
-                        break;
-                    }
-                }
-                return result;
-            }
-
-            @Override
-            public FilterResult visitPresentFilter(final ResourceResponse p, final JsonPointer field) {
-                final JsonValue value = p.getContent().get(field);
-                return FilterResult.valueOf(value != null);
-            }
-
-            @Override
-            public FilterResult visitStartsWithFilter(final ResourceResponse p,
-                    final JsonPointer field, final Object valueAssertion) {
-                for (final Object value : getValues(p, field)) {
-                    if (isCompatible(valueAssertion, value)) {
-                        if (valueAssertion instanceof String) {
-                            final String s1 =
-                                    ((String) valueAssertion).toLowerCase(Locale.ENGLISH);
-                            final String s2 = ((String) value).toLowerCase(Locale.ENGLISH);
-                            if (s2.startsWith(s1)) {
-                                return FilterResult.TRUE;
-                            }
-                        } else {
-                            // Use equality matching for numbers and booleans.
-                            if (compareValues(valueAssertion, value) == 0) {
-                                return FilterResult.TRUE;
-                            }
-                        }
-                    }
-                }
-                return FilterResult.FALSE;
-            }
-
-            private List<Object> getValues(final ResourceResponse resource, final JsonPointer field) {
-                final JsonValue value = resource.getContent().get(field);
-                if (value == null) {
-                    return Collections.emptyList();
-                } else if (value.isList()) {
-                    return value.asList();
-                } else {
-                    return Collections.singletonList(value.getObject());
-                }
-            }
-
-        };
-
-    private static final Comparator<Object> VALUE_COMPARATOR = new Comparator<Object>() {
-        @Override
-        public int compare(final Object o1, final Object o2) {
-            return compareValues(o1, o2);
-        }
-    };
-
-    private static int compareValues(final Object v1, final Object v2) {
-        if (v1 instanceof String && v2 instanceof String) {
-            final String s1 = (String) v1;
-            final String s2 = (String) v2;
-            return s1.compareToIgnoreCase(s2);
-        } else if (v1 instanceof Number && v2 instanceof Number) {
-            final Double n1 = ((Number) v1).doubleValue();
-            final Double n2 = ((Number) v2).doubleValue();
-            return n1.compareTo(n2);
-        } else if (v1 instanceof Boolean && v2 instanceof Boolean) {
-            final Boolean b1 = (Boolean) v1;
-            final Boolean b2 = (Boolean) v2;
-            return b1.compareTo(b2);
-        } else {
-            // Different types: we need to ensure predictable ordering,
-            // so use class name as secondary key.
-            return v1.getClass().getName().compareTo(v2.getClass().getName());
-        }
-    }
-
-    private static boolean isCompatible(final Object v1, final Object v2) {
-        return (v1 instanceof String && v2 instanceof String)
-                || (v1 instanceof Number && v2 instanceof Number)
-                || (v1 instanceof Boolean && v2 instanceof Boolean);
-    }
-
     private final AtomicLong nextResourceId = new AtomicLong();
     private final Map<String, ResourceResponse> resources = new ConcurrentHashMap<>();
     private final Object writeLock = new Object();
@@ -615,7 +328,7 @@ public final class MemoryBackend implements CollectionResourceProvider {
             if (sortKeys.isEmpty()) {
                 // No sorting so stream the results.
                 for (final ResourceResponse resource : resources.values()) {
-                    if (filter == null || filter.accept(RESOURCE_FILTER, resource).toBoolean()) {
+                    if (filter == null || InMemoryQueries.matches(filter, resource.getContent())) {
                         if (resultIndex >= firstResultIndex && resultIndex < lastResultIndex) {
                             handler.handleResource(resource);
                         }
@@ -629,11 +342,17 @@ public final class MemoryBackend implements CollectionResourceProvider {
                 // would need to impose administrative limits in order to control memory utilization.
                 final List<ResourceResponse> results = new ArrayList<>();
                 for (final ResourceResponse resource : resources.values()) {
-                    if (filter == null || filter.accept(RESOURCE_FILTER, resource).toBoolean()) {
+                    if (filter == null || InMemoryQueries.matches(filter, resource.getContent())) {
                         results.add(resource);
                     }
                 }
-                Collections.sort(results, new ResourceComparator(sortKeys));
+                final Comparator<JsonValue> comparator = InMemoryQueries.comparator(sortKeys);
+                Collections.sort(results, new Comparator<ResourceResponse>() {
+                    @Override
+                    public int compare(final ResourceResponse r1, final ResourceResponse r2) {
+                        return comparator.compare(r1.getContent(), r2.getContent());
+                    }
+                });
                 for (final ResourceResponse resource : results) {
                     if (resultIndex >= firstResultIndex && resultIndex < lastResultIndex) {
                         handler.handleResource(resource);
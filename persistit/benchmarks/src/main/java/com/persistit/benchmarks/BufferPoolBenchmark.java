@@ -0,0 +1,100 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.persistit.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.persistit.Exchange;
+import com.persistit.exception.PersistitException;
+
+/**
+ * Random fetches by concurrent threads against a buffer pool that either holds
+ * every page of the tree or only a small fraction of them. In the first case
+ * threads contend for the latches of the index pages; in the second they also
+ * contend for buffer replacement and page reads. Run {@link #main(String[])}
+ * to measure each configuration at 1 through 32 threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class BufferPoolBenchmark extends PersistitState {
+
+    private static final int[] THREAD_COUNTS = { 1, 2, 4, 8, 16, 32 };
+
+    @Param({ "500000" })
+    public int recordCount;
+
+    @Param({ "128", "8192" })
+    public int bufferCount;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        Exchange exchange;
+
+        @Setup(Level.Trial)
+        public void setup(final BufferPoolBenchmark benchmark) throws PersistitException {
+            exchange = benchmark.getExchange();
+        }
+    }
+
+    @Override
+    protected int getBufferCount() {
+        return bufferCount;
+    }
+
+    @Override
+    protected void populate() throws PersistitException {
+        storeRecords(recordCount, 100);
+    }
+
+    @Benchmark
+    public Object fetch(final ThreadState state) throws PersistitException {
+        final Exchange exchange = state.exchange;
+        exchange.clear().append(ThreadLocalRandom.current().nextInt(recordCount)).fetch();
+        return exchange.getValue().get();
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        for (final int threads : THREAD_COUNTS) {
+            final Options opt = new OptionsBuilder().include(BufferPoolBenchmark.class.getSimpleName())
+                    .threads(threads).build();
+            new Runner(opt).run();
+        }
+    }
+}
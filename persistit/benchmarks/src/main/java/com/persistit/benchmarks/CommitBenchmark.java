@@ -0,0 +1,105 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.persistit.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.persistit.Exchange;
+import com.persistit.Transaction;
+import com.persistit.Transaction.CommitPolicy;
+import com.persistit.exception.PersistitException;
+
+/**
+ * Transactions that each store <code>updates</code> records at random keys
+ * and commit with the specified {@link CommitPolicy}. With the HARD and GROUP
+ * policies the result is dominated by the cost of forcing the journal, so run
+ * with several threads (<code>-t</code>) to see the effect of group commit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class CommitBenchmark extends PersistitState {
+
+    @Param({ "100000" })
+    public int recordCount;
+
+    @Param({ "1", "10" })
+    public int updates;
+
+    @Param({ "SOFT", "HARD", "GROUP" })
+    public CommitPolicy policy;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        Exchange exchange;
+        Transaction transaction;
+
+        @Setup(Level.Trial)
+        public void setup(final CommitBenchmark benchmark) throws PersistitException {
+            exchange = benchmark.getExchange();
+            exchange.getValue().put(makeValue(64));
+            transaction = benchmark.persistit.getTransaction();
+        }
+    }
+
+    @Override
+    protected void populate() throws PersistitException {
+        storeRecords(recordCount, 64);
+    }
+
+    @Benchmark
+    public void commit(final ThreadState state) throws PersistitException {
+        final Exchange exchange = state.exchange;
+        final Transaction transaction = state.transaction;
+        transaction.begin();
+        try {
+            for (int index = 0; index < updates; index++) {
+                exchange.clear().append(ThreadLocalRandom.current().nextInt(recordCount)).store();
+            }
+            transaction.commit(policy);
+        } finally {
+            transaction.end();
+        }
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        final Options opt = new OptionsBuilder().include(CommitBenchmark.class.getSimpleName()).build();
+        new Runner(opt).run();
+    }
+}
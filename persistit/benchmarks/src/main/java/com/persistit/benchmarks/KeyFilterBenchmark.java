@@ -0,0 +1,118 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.persistit.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.persistit.Exchange;
+import com.persistit.Key;
+import com.persistit.KeyFilter;
+import com.persistit.exception.PersistitException;
+
+/**
+ * Complete scans of a tree of two-segment keys <code>{group, member}</code>
+ * through a {@link KeyFilter}: one selecting a range of groups, which visits
+ * contiguous keys, and one selecting a single member of every group, which
+ * visits one key in <code>membersPerGroup</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class KeyFilterBenchmark extends PersistitState {
+
+    private static final int GROUPS_PER_RANGE = 10;
+
+    @Param({ "1000" })
+    public int groupCount;
+
+    @Param({ "10", "1000" })
+    public int membersPerGroup;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        Exchange exchange;
+        KeyFilter sparseFilter;
+
+        @Setup(Level.Trial)
+        public void setup(final KeyFilterBenchmark benchmark) throws PersistitException {
+            exchange = benchmark.getExchange();
+            sparseFilter = new KeyFilter(new KeyFilter.Term[] { KeyFilter.ALL,
+                    KeyFilter.simpleTerm(benchmark.membersPerGroup / 2) });
+        }
+    }
+
+    @Override
+    protected void populate() throws PersistitException {
+        final Exchange exchange = getExchange();
+        exchange.getValue().put(makeValue(16));
+        for (int group = 0; group < groupCount; group++) {
+            for (int member = 0; member < membersPerGroup; member++) {
+                exchange.clear().append(group).append(member).store();
+            }
+        }
+        persistit.releaseExchange(exchange);
+    }
+
+    @Benchmark
+    public int rangeScan(final ThreadState state) throws PersistitException {
+        final int from = ThreadLocalRandom.current().nextInt(groupCount - GROUPS_PER_RANGE);
+        final KeyFilter filter = new KeyFilter(new KeyFilter.Term[] {
+                KeyFilter.rangeTerm(from, from + GROUPS_PER_RANGE - 1), KeyFilter.ALL });
+        return scan(state.exchange, filter);
+    }
+
+    @Benchmark
+    public int sparseScan(final ThreadState state) throws PersistitException {
+        return scan(state.exchange, state.sparseFilter);
+    }
+
+    private static int scan(final Exchange exchange, final KeyFilter filter) throws PersistitException {
+        exchange.clear().append(Key.BEFORE);
+        int count = 0;
+        while (exchange.next(filter)) {
+            count++;
+        }
+        return count;
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        final Options opt = new OptionsBuilder().include(KeyFilterBenchmark.class.getSimpleName()).build();
+        new Runner(opt).run();
+    }
+}
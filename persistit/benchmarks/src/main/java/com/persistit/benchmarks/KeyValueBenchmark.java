@@ -0,0 +1,116 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.persistit.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.persistit.Key;
+import com.persistit.Value;
+
+/**
+ * Encoding and decoding of {@link Key} segments and {@link Value} fields,
+ * without any access to a tree.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class KeyValueBenchmark extends PersistitState {
+
+    private static final String STRING = "The quick brown fox jumped over the lazy dog";
+
+    private Key key;
+    private Value value;
+    private Key encodedKey;
+    private Value encodedValue;
+
+    // use a non-final variable in order to prevent constant folding
+    private long number = 1234567890123L;
+
+    @Override
+    protected int getBufferCount() {
+        return 64;
+    }
+
+    @Setup(Level.Trial)
+    public void createKeyAndValue() {
+        key = new Key(persistit);
+        value = new Value(persistit);
+        encodedKey = new Key(persistit);
+        encodedKey.append(number).append(STRING);
+        encodedValue = new Value(persistit);
+        encodedValue.setStreamMode(true);
+        encodedValue.put(number);
+        encodedValue.put(STRING);
+        encodedValue.setStreamMode(false);
+    }
+
+    @Benchmark
+    public Key encodeKey() {
+        return key.clear().append(number).append(STRING);
+    }
+
+    @Benchmark
+    public String decodeKey() {
+        encodedKey.reset();
+        number = encodedKey.decodeLong();
+        return encodedKey.decodeString();
+    }
+
+    @Benchmark
+    public Value encodeValue() {
+        value.clear();
+        value.setStreamMode(true);
+        value.put(number);
+        value.put(STRING);
+        value.setStreamMode(false);
+        return value;
+    }
+
+    @Benchmark
+    public Object decodeValue() {
+        encodedValue.setStreamMode(true);
+        number = encodedValue.getLong();
+        final Object result = encodedValue.get();
+        encodedValue.setStreamMode(false);
+        return result;
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        final Options opt = new OptionsBuilder().include(KeyValueBenchmark.class.getSimpleName()).build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.persistit.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Properties;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.persistit.Exchange;
+import com.persistit.Persistit;
+import com.persistit.exception.PersistitException;
+
+/**
+ * A Persistit instance shared by all threads of a benchmark. Each trial starts
+ * with an empty volume and journal in a new temporary directory, which is
+ * deleted when the trial ends, so that runs do not depend on each other.
+ * Subclasses load the records they need in {@link #populate()}.
+ */
+@State(Scope.Benchmark)
+public abstract class PersistitState {
+
+    static final String VOLUME_NAME = "persistit";
+    static final String TREE_NAME = "bench";
+
+    protected Persistit persistit;
+
+    private File dataPath;
+
+    @Setup(Level.Trial)
+    public void startPersistit() throws Exception {
+        dataPath = Files.createTempDirectory("persistit_bench").toFile();
+        persistit = new Persistit(getProperties());
+        populate();
+        persistit.checkpoint();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopPersistit() throws Exception {
+        try {
+            persistit.close(false);
+        } finally {
+            delete(dataPath);
+        }
+    }
+
+    /**
+     * @return number of 16K buffers in the buffer pool
+     */
+    protected int getBufferCount() {
+        return 4096;
+    }
+
+    protected void populate() throws PersistitException {
+    }
+
+    protected Properties getProperties() {
+        final Properties p = new Properties();
+        p.setProperty("datapath", dataPath.getPath());
+        p.setProperty("buffer.count.16384", Integer.toString(getBufferCount()));
+        p.setProperty("volume.1", "${datapath}/" + VOLUME_NAME + ",create,"
+                + "pageSize:16384,initialPages:1000,extensionPages:1000,maximumPages:10000000");
+        p.setProperty("journalpath", "${datapath}/persistit_journal");
+        p.setProperty("logfile", "${datapath}/persistit_${timestamp}.log");
+        p.setProperty("tmpvoldir", "${datapath}");
+        p.setProperty("jmx", "false");
+        return p;
+    }
+
+    /**
+     * @return an Exchange on the benchmark tree for the calling thread
+     */
+    Exchange getExchange() throws PersistitException {
+        return persistit.getExchange(VOLUME_NAME, TREE_NAME, true);
+    }
+
+    /**
+     * Store <code>count</code> records with keys <code>{0}</code> through
+     * <code>{count - 1}</code> and string values of <code>valueSize</code>
+     * characters.
+     */
+    void storeRecords(final int count, final int valueSize) throws PersistitException {
+        final Exchange exchange = getExchange();
+        final String value = makeValue(valueSize);
+        for (int index = 0; index < count; index++) {
+            exchange.getValue().put(value);
+            exchange.clear().append(index).store();
+        }
+        persistit.releaseExchange(exchange);
+    }
+
+    static String makeValue(final int size) {
+        final StringBuilder sb = new StringBuilder(size);
+        for (int index = 0; index < size; index++) {
+            sb.append((char) ('a' + index % 26));
+        }
+        return sb.toString();
+    }
+
+    private static void delete(final File file) throws IOException {
+        final File[] files = file.listFiles();
+        if (files != null) {
+            for (final File child : files) {
+                delete(child);
+            }
+        }
+        Files.deleteIfExists(file.toPath());
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.persistit.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.persistit.Exchange;
+import com.persistit.exception.PersistitException;
+
+/**
+ * Fetch and store of single records at random keys, outside of a
+ * transaction. The records fit in the buffer pool, so these measure the cost
+ * of the tree search and of encoding the value rather than I/O.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class PointBenchmark extends PersistitState {
+
+    @Param({ "100000" })
+    public int recordCount;
+
+    @Param({ "16", "256" })
+    public int valueSize;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        Exchange exchange;
+        String value;
+
+        @Setup(Level.Trial)
+        public void setup(final PointBenchmark benchmark) throws PersistitException {
+            exchange = benchmark.getExchange();
+            value = makeValue(benchmark.valueSize);
+        }
+    }
+
+    @Override
+    protected void populate() throws PersistitException {
+        storeRecords(recordCount, valueSize);
+    }
+
+    @Benchmark
+    public Object fetch(final ThreadState state) throws PersistitException {
+        final Exchange exchange = state.exchange;
+        exchange.clear().append(ThreadLocalRandom.current().nextInt(recordCount)).fetch();
+        return exchange.getValue().get();
+    }
+
+    @Benchmark
+    public void store(final ThreadState state) throws PersistitException {
+        final Exchange exchange = state.exchange;
+        exchange.getValue().put(state.value);
+        exchange.clear().append(ThreadLocalRandom.current().nextInt(recordCount)).store();
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        final Options opt = new OptionsBuilder().include(PointBenchmark.class.getSimpleName()).build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.persistit.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.persistit.Exchange;
+import com.persistit.Key;
+import com.persistit.exception.PersistitException;
+
+/**
+ * Traversal of a tree: one step of a sequential scan that wraps around at the
+ * end of the tree, and a short scan starting at a random key.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class TraverseBenchmark extends PersistitState {
+
+    @Param({ "100000" })
+    public int recordCount;
+
+    @Param({ "1", "100" })
+    public int scanLength;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        Exchange exchange;
+
+        @Setup(Level.Trial)
+        public void setup(final TraverseBenchmark benchmark) throws PersistitException {
+            exchange = benchmark.getExchange();
+            exchange.clear().append(Key.BEFORE);
+        }
+    }
+
+    @Override
+    protected void populate() throws PersistitException {
+        storeRecords(recordCount, 64);
+    }
+
+    @Benchmark
+    public Object sequential(final ThreadState state) throws PersistitException {
+        final Exchange exchange = state.exchange;
+        if (!exchange.next()) {
+            exchange.clear().append(Key.BEFORE).next();
+        }
+        return exchange.getValue().get();
+    }
+
+    @Benchmark
+    public int random(final ThreadState state) throws PersistitException {
+        final Exchange exchange = state.exchange;
+        exchange.clear().append(ThreadLocalRandom.current().nextInt(recordCount));
+        int count = 0;
+        while (count < scanLength && exchange.next()) {
+            count++;
+        }
+        return count;
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        final Options opt = new OptionsBuilder().include(TraverseBenchmark.class.getSimpleName()).build();
+        new Runner(opt).run();
+    }
+}
@@ -20,6 +20,7 @@ import java.lang.ref.WeakReference;
 import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import com.persistit.exception.PersistitException;
 import com.persistit.exception.PersistitInterruptedException;
@@ -86,6 +87,17 @@ import com.persistit.exception.PersistitInterruptedException;
  * transactionally accurate.
  * </p>
  * <p>
+ * The live value of a <code>SumAccumulator</code> is striped in the manner of
+ * {@link java.util.concurrent.atomic.LongAdder}: an update that loses a race to
+ * modify the shared value is instead added to one of several cells selected by
+ * the updating thread, and the cells are combined with the shared value when
+ * the live value is read. This removes the serialization point on row-count
+ * accumulators updated by many concurrently committing threads. The snapshot
+ * value and checkpoint value are computed from the transaction
+ * <code>Delta</code> instances, which are already partitioned by
+ * {@link TransactionIndex} bucket, and are unaffected.
+ * </p>
+ * <p>
  * <a name="_SeqAccumulator" />
  * <h3>SeqAccumulator</h3>
  * The <code>SeqAccumulator</code> is a combination of
@@ -133,11 +145,30 @@ public abstract class Accumulator {
 
     final static int MAX_SERIALIZED_SIZE = Tree.MAX_SERIALIZED_SIZE + 24;
 
+    /*
+     * Number of cells in the striped live value of a SumAccumulator: the
+     * smallest power of two not less than the number of processors, capped
+     * at 64.
+     */
+    final static int LIVE_VALUE_CELLS = Math.min(64,
+            Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)));
+
+    /*
+     * Each cell occupies its own 64-byte cache line of the AtomicLongArray so
+     * that threads updating different cells do not contend.
+     */
+    private final static int CELL_STRIDE = 8;
+
     protected final Tree _tree;
     private final int _index;
     private final TransactionIndex _transactionIndex;
 
     private final AtomicLong _liveValue = new AtomicLong();
+    /*
+     * Cells holding contributions to the live value of a SumAccumulator made
+     * by updates that lost a race on _liveValue. Created on first contention.
+     */
+    private volatile AtomicLongArray _liveCells;
     /*
      * Check-pointed value read during recovery.
      */
@@ -207,6 +238,42 @@ public abstract class Accumulator {
             return Type.SUM;
         }
 
+        /**
+         * Add to the live value without a retry loop on the shared value. An
+         * update that loses the race on the shared value is added to a cell
+         * chosen by the current thread. An update that would overflow the
+         * combined live value is rejected. The shared value and cells are
+         * partial sums, so an individual cell may wrap while the combined
+         * value remains in range. The value returned is that of the shared
+         * value or cell rather than the combined live value, which
+         * {@link #selectValue(long, long)} ignores.
+         */
+        @Override
+        long updateLiveValue(final long value) {
+            AtomicLongArray cells = liveCells();
+            if (cells == null) {
+                final long previous = liveValue().get();
+                final long updated = updateValue(previous, value);
+                if (liveValue().compareAndSet(previous, updated)) {
+                    return updated;
+                }
+                cells = createLiveCells();
+            }
+            updateValue(getLiveValue(), value);
+            int index = cellIndex(Thread.currentThread());
+            for (;;) {
+                final long previous = cells.get(index);
+                final long updated = applyValue(previous, value);
+                if (cells.compareAndSet(index, previous, updated)) {
+                    return updated;
+                }
+                /*
+                 * Move to another cell after a collision
+                 */
+                index = (index + CELL_STRIDE) % cells.length();
+            }
+        }
+
         /**
          * <p>
          * Add the supplied value to this <code>SumAccumulator</code>. The
@@ -561,6 +628,47 @@ public abstract class Accumulator {
 
     abstract Type getType();
 
+    /**
+     * Atomically apply an update to the live value using
+     * {@link #updateValue(long, long)}. An update that would not change the
+     * live value, such as a <code>MaxAccumulator</code> update with a value
+     * smaller than the current maximum, does not write the shared value.
+     * 
+     * @param value
+     *            The delta value
+     * @return the updated live value
+     */
+    long updateLiveValue(final long value) {
+        for (;;) {
+            final long previous = _liveValue.get();
+            final long updated = updateValue(previous, value);
+            if (updated == previous || _liveValue.compareAndSet(previous, updated)) {
+                return updated;
+            }
+        }
+    }
+
+    AtomicLong liveValue() {
+        return _liveValue;
+    }
+
+    AtomicLongArray liveCells() {
+        return _liveCells;
+    }
+
+    synchronized AtomicLongArray createLiveCells() {
+        if (_liveCells == null) {
+            _liveCells = new AtomicLongArray(LIVE_VALUE_CELLS * CELL_STRIDE);
+        }
+        return _liveCells;
+    }
+
+    static int cellIndex(final Thread thread) {
+        long h = thread.getId() * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        return ((int) h & (LIVE_VALUE_CELLS - 1)) * CELL_STRIDE;
+    }
+
     void aggregate(final int hashIndex, final Delta delta) {
         _bucketValues[hashIndex] = applyValue(_bucketValues[hashIndex], delta.getValue());
     }
@@ -641,7 +749,14 @@ public abstract class Accumulator {
      * @return the live value
      */
     public long getLiveValue() {
-        return _liveValue.get();
+        long value = _liveValue.get();
+        final AtomicLongArray cells = _liveCells;
+        if (cells != null) {
+            for (int index = 0; index < cells.length(); index += CELL_STRIDE) {
+                value = applyValue(value, cells.get(index));
+            }
+        }
+        return value;
     }
 
     /**
@@ -689,6 +804,12 @@ public abstract class Accumulator {
     void updateBaseValue(final long value, final long commitTimestamp) {
         _baseValue = applyValue(_baseValue, value);
         _liveValue.set(_baseValue);
+        final AtomicLongArray cells = _liveCells;
+        if (cells != null) {
+            for (int index = 0; index < cells.length(); index += CELL_STRIDE) {
+                cells.set(index, 0);
+            }
+        }
         /*
          * This method is called during recovery processing to handle a delta
          * operation that was part of a transaction that committed after the
@@ -714,18 +835,7 @@ public abstract class Accumulator {
         if (status.getTc() != TransactionStatus.UNCOMMITTED) {
             throw new IllegalStateException("Transaction has already committed or aborted");
         }
-        /*
-         * Update the live value using compare-and-set
-         */
-        long previous;
-        long updated;
-        for (;;) {
-            previous = _liveValue.get();
-            updated = updateValue(previous, value);
-            if (_liveValue.compareAndSet(previous, updated)) {
-                break;
-            }
-        }
+        final long updated = updateLiveValue(value);
         /*
          * Add a Delta to the TransactionStatus
          */
@@ -749,7 +859,7 @@ public abstract class Accumulator {
      */
     public String toString() {
         return String.format("Accumulator(tree=%s index=%d type=%s base=%,d live=%,d)",
-                _tree == null ? "null" : _tree.getName(), _index, getType(), _baseValue, _liveValue.get());
+                _tree == null ? "null" : _tree.getName(), _index, getType(), _baseValue, getLiveValue());
     }
 
     void store(final Value value) {
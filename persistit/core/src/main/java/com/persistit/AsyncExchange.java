@@ -0,0 +1,394 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.persistit.Key.Direction;
+import com.persistit.Transaction.CommitPolicy;
+import com.persistit.exception.PersistitException;
+import com.persistit.util.Util;
+
+/**
+ * <p>
+ * An asynchronous facade over {@link Exchange} for applications that must not
+ * block their own threads on disk I/O. Each method copies its arguments,
+ * submits the operation to an I/O {@link Executor} and immediately returns an
+ * {@link AsyncResult} that completes, and notifies its listeners, when the
+ * operation has finished on an executor thread. Unless an executor is supplied
+ * to the constructor, operations run on a pool owned by the
+ * <code>Persistit</code> instance whose size is set by
+ * {@link Configuration#setAsyncThreads(int)}.
+ * </p>
+ * <p>
+ * A B-tree operation in Persistit holds claims on the pages of its path from
+ * the root while it descends, and cannot be suspended on a page miss and
+ * resumed later. Each operation is therefore executed in its entirety by one
+ * executor thread using a pooled <code>Exchange</code>, and a page miss blocks
+ * that thread rather than the caller.
+ * </p>
+ * <p>
+ * Operations do not participate in a transaction of the calling thread.
+ * By default they are not transactional; after
+ * {@link #setCommitPolicy(CommitPolicy)} each operation runs in its own
+ * transaction on the executor thread and is retried up to
+ * {@link #getRetryCount()} times if it is rolled back. Operations submitted
+ * by one caller may run concurrently and complete in any order; an
+ * application that needs ordering should submit the next operation from the
+ * listener of the previous one. An <code>AsyncExchange</code> is thread-safe.
+ * </p>
+ */
+public class AsyncExchange {
+
+    /**
+     * Default number of threads in the I/O pool of a <code>Persistit</code>
+     * instance
+     */
+    public final static int DEFAULT_THREADS = 8;
+
+    /**
+     * Maximum number of threads in the I/O pool of a <code>Persistit</code>
+     * instance
+     */
+    public final static int MAXIMUM_THREADS = 256;
+
+    /**
+     * Default number of retries of a transactional operation that is rolled
+     * back
+     */
+    public final static int DEFAULT_RETRY_COUNT = 10;
+
+    private final static long RETRY_DELAY_MS = 1;
+
+    /**
+     * A key and its value returned by
+     * {@link AsyncExchange#traverse(Key, Direction, KeyFilter, int)}
+     */
+    public static class Entry {
+        private final Key _key;
+        private final Value _value;
+
+        Entry(final Key key, final Value value) {
+            _key = key;
+            _value = value;
+        }
+
+        public Key getKey() {
+            return _key;
+        }
+
+        public Value getValue() {
+            return _value;
+        }
+
+        @Override
+        public String toString() {
+            return _key + "=" + _value;
+        }
+    }
+
+    /**
+     * An operation performed on a pooled <code>Exchange</code>
+     */
+    private abstract static class Operation<T> {
+        T _result;
+
+        abstract T run(Exchange exchange) throws PersistitException;
+    }
+
+    private final Persistit _persistit;
+    private final Volume _volume;
+    private final String _treeName;
+    private final Executor _executor;
+    private volatile CommitPolicy _commitPolicy;
+    private volatile int _retryCount = DEFAULT_RETRY_COUNT;
+
+    /**
+     * Construct an <code>AsyncExchange</code> for a tree that submits
+     * operations to the I/O pool of the <code>Persistit</code> instance.
+     *
+     * @param persistit
+     *            The Persistit instance
+     * @param volume
+     *            The Volume
+     * @param treeName
+     *            The tree name
+     * @param create
+     *            <code>true</code> to create a new Tree if one by the
+     *            specified name does not already exist
+     * @throws PersistitException
+     */
+    public AsyncExchange(final Persistit persistit, final Volume volume, final String treeName, final boolean create)
+            throws PersistitException {
+        this(persistit, volume, treeName, create, persistit.getAsyncExecutor());
+    }
+
+    /**
+     * Construct an <code>AsyncExchange</code> for a tree that submits
+     * operations to the supplied <code>Executor</code>.
+     *
+     * @param persistit
+     *            The Persistit instance
+     * @param volume
+     *            The Volume
+     * @param treeName
+     *            The tree name
+     * @param create
+     *            <code>true</code> to create a new Tree if one by the
+     *            specified name does not already exist
+     * @param executor
+     *            The Executor that runs operations
+     * @throws PersistitException
+     */
+    public AsyncExchange(final Persistit persistit, final Volume volume, final String treeName,
+            final boolean create, final Executor executor) throws PersistitException {
+        /*
+         * Verify, or create, the tree on the calling thread
+         */
+        persistit.releaseExchange(persistit.getExchange(volume, treeName, create));
+        _persistit = persistit;
+        _volume = volume;
+        _treeName = treeName;
+        _executor = executor;
+    }
+
+    public Volume getVolume() {
+        return _volume;
+    }
+
+    public String getTreeName() {
+        return _treeName;
+    }
+
+    public Executor getExecutor() {
+        return _executor;
+    }
+
+    /**
+     * @return the <code>CommitPolicy</code> of the transaction in which each
+     *         operation runs, or <code>null</code> if operations are not
+     *         transactional
+     */
+    public CommitPolicy getCommitPolicy() {
+        return _commitPolicy;
+    }
+
+    /**
+     * Run each subsequently submitted operation in its own transaction
+     * committed with the supplied policy, or outside of any transaction if
+     * <code>null</code>.
+     *
+     * @param policy
+     *            the <code>CommitPolicy</code>, or <code>null</code>
+     */
+    public void setCommitPolicy(final CommitPolicy policy) {
+        _commitPolicy = policy;
+    }
+
+    /**
+     * @return the number of times a transactional operation is retried after
+     *         being rolled back
+     */
+    public int getRetryCount() {
+        return _retryCount;
+    }
+
+    /**
+     * Set the number of times a transactional operation is retried after being
+     * rolled back before its result fails with a
+     * {@link com.persistit.exception.RollbackException}.
+     *
+     * @param count
+     *            the retry count
+     */
+    public void setRetryCount(final int count) {
+        Util.rangeCheck(count, 0, Integer.MAX_VALUE);
+        _retryCount = count;
+    }
+
+    /**
+     * Fetch the value associated with a key. The result holds a new
+     * <code>Value</code> that is undefined if the key is not present.
+     *
+     * @param key
+     *            the key, which is copied
+     * @return the pending <code>Value</code>
+     */
+    public AsyncResult<Value> fetch(final Key key) {
+        final Key k = new Key(key);
+        return submit(new Operation<Value>() {
+            @Override
+            Value run(final Exchange exchange) throws PersistitException {
+                k.copyTo(exchange.getKey());
+                final Value value = new Value(_persistit);
+                exchange.fetch(value);
+                return value;
+            }
+        });
+    }
+
+    /**
+     * Fetch the values associated with a batch of keys in ascending order
+     * using {@link Exchange#fetch(List, List)}.
+     *
+     * @param keys
+     *            the keys in ascending order, which are copied
+     * @return the pending values, one per key, undefined where a key is not
+     *         present
+     */
+    public AsyncResult<List<Value>> fetch(final List<Key> keys) {
+        final List<Key> copies = new ArrayList<Key>(keys.size());
+        for (final Key key : keys) {
+            copies.add(new Key(key));
+        }
+        return submit(new Operation<List<Value>>() {
+            @Override
+            List<Value> run(final Exchange exchange) throws PersistitException {
+                final List<Value> values = new ArrayList<Value>(copies.size());
+                for (int index = 0; index < copies.size(); index++) {
+                    values.add(new Value(_persistit));
+                }
+                exchange.fetch(copies, values);
+                return values;
+            }
+        });
+    }
+
+    /**
+     * Store a key-value pair.
+     *
+     * @param key
+     *            the key, which is copied
+     * @param value
+     *            the value, which is copied
+     * @return the pending completion
+     */
+    public AsyncResult<Void> store(final Key key, final Value value) {
+        final Key k = new Key(key);
+        final Value v = new Value(_persistit);
+        value.copyTo(v);
+        return submit(new Operation<Void>() {
+            @Override
+            Void run(final Exchange exchange) throws PersistitException {
+                k.copyTo(exchange.getKey());
+                v.copyTo(exchange.getValue());
+                exchange.store();
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Remove a key and its value.
+     *
+     * @param key
+     *            the key, which is copied
+     * @return the pending indication of whether the key was present
+     */
+    public AsyncResult<Boolean> remove(final Key key) {
+        final Key k = new Key(key);
+        return submit(new Operation<Boolean>() {
+            @Override
+            Boolean run(final Exchange exchange) throws PersistitException {
+                k.copyTo(exchange.getKey());
+                return Boolean.valueOf(exchange.remove());
+            }
+        });
+    }
+
+    /**
+     * Traverse up to <code>limit</code> keys from a starting key. To read a
+     * large range in pages, pass the last key of one page as the
+     * <code>from</code> key of the next with direction {@link Key#GT} or
+     * {@link Key#LT}.
+     *
+     * @param from
+     *            the starting key, which is copied; it may be
+     *            {@link Key#BEFORE} or {@link Key#AFTER}
+     * @param direction
+     *            one of {@link Key#GT}, {@link Key#GTEQ}, {@link Key#LT} or
+     *            {@link Key#LTEQ}
+     * @param filter
+     *            a <code>KeyFilter</code> selecting the keys to return, or
+     *            <code>null</code>
+     * @param limit
+     *            maximum number of entries to return
+     * @return the pending entries, in traversal order
+     */
+    public AsyncResult<List<Entry>> traverse(final Key from, final Direction direction, final KeyFilter filter,
+            final int limit) {
+        if (direction == Key.EQ) {
+            throw new IllegalArgumentException("Direction must be GT, GTEQ, LT or LTEQ");
+        }
+        Util.rangeCheck(limit, 1, Integer.MAX_VALUE);
+        final Key k = new Key(from);
+        final Direction next = direction == Key.GTEQ ? Key.GT : direction == Key.LTEQ ? Key.LT : direction;
+        return submit(new Operation<List<Entry>>() {
+            @Override
+            List<Entry> run(final Exchange exchange) throws PersistitException {
+                final List<Entry> entries = new ArrayList<Entry>();
+                k.copyTo(exchange.getKey());
+                Direction d = direction;
+                while (entries.size() < limit && exchange.traverse(d, filter, Integer.MAX_VALUE)) {
+                    final Value value = new Value(_persistit);
+                    exchange.getValue().copyTo(value);
+                    entries.add(new Entry(new Key(exchange.getKey()), value));
+                    d = next;
+                }
+                return entries;
+            }
+        });
+    }
+
+    private <T> AsyncResult<T> submit(final Operation<T> operation) {
+        final AsyncResult<T> result = new AsyncResult<T>(_persistit, new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                return execute(operation);
+            }
+        });
+        try {
+            _executor.execute(result);
+        } catch (final RejectedExecutionException e) {
+            result.fail(e);
+        }
+        return result;
+    }
+
+    private <T> T execute(final Operation<T> operation) throws PersistitException {
+        final Exchange exchange = _persistit.getExchange(_volume, _treeName, false);
+        try {
+            final CommitPolicy policy = _commitPolicy;
+            if (policy == null) {
+                return operation.run(exchange);
+            }
+            exchange.getTransaction().run(new TransactionRunnable() {
+                @Override
+                public void runTransaction() throws PersistitException {
+                    operation._result = operation.run(exchange);
+                }
+            }, _retryCount, RETRY_DELAY_MS, policy);
+            return operation._result;
+        } finally {
+            _persistit.releaseExchange(exchange);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import com.persistit.exception.PersistitException;
+import com.persistit.exception.PersistitInterruptedException;
+
+/**
+ * <p>
+ * The pending result of an operation submitted through an
+ * {@link AsyncExchange}. An <code>AsyncResult</code> is a {@link FutureTask},
+ * so a caller may block in {@link #get()}, but it is intended to be consumed
+ * without blocking by registering a {@link Listener} that is invoked once the
+ * operation has completed, failed or been cancelled. Within a listener,
+ * {@link #getResult()} returns immediately.
+ * </p>
+ * <p>
+ * Each listener is invoked exactly once. Listeners registered before
+ * completion are invoked by the thread that completes the operation, normally
+ * an I/O thread of the executor, and so should not themselves block. A
+ * listener registered after the others have been notified is invoked
+ * immediately by the registering thread. Note that {@link #get()} may return
+ * slightly before the listeners have been notified.
+ * </p>
+ *
+ * @param <T>
+ *            type of the result
+ */
+public class AsyncResult<T> extends FutureTask<T> {
+
+    /**
+     * Callback invoked when an {@link AsyncResult} completes
+     *
+     * @param <T>
+     *            type of the result
+     */
+    public interface Listener<T> {
+        /**
+         * Invoked once the operation has completed, failed or been cancelled.
+         *
+         * @param result
+         *            the completed result
+         */
+        void completed(AsyncResult<T> result);
+    }
+
+    private final Persistit _persistit;
+
+    /*
+     * Listeners to invoke on completion, or null once the result is done
+     */
+    private List<Listener<T>> _listeners = new ArrayList<Listener<T>>();
+
+    AsyncResult(final Persistit persistit, final Callable<T> callable) {
+        super(callable);
+        _persistit = persistit;
+    }
+
+    /**
+     * Register a listener to be invoked when this result completes. If the
+     * listeners of a completed result have already been notified, the
+     * listener is invoked immediately.
+     *
+     * @param listener
+     *            the <code>Listener</code>
+     * @return this <code>AsyncResult</code> to permit call chaining
+     */
+    public AsyncResult<T> addListener(final Listener<T> listener) {
+        synchronized (this) {
+            if (_listeners != null) {
+                _listeners.add(listener);
+                return this;
+            }
+        }
+        invoke(listener);
+        return this;
+    }
+
+    /**
+     * Wait for the operation to complete and return its result. Unlike
+     * {@link #get()} this method rethrows the <code>PersistitException</code>
+     * or <code>RuntimeException</code> thrown by the operation rather than
+     * wrapping it.
+     *
+     * @return the result of the operation
+     * @throws PersistitException
+     *             the exception thrown by the operation
+     * @throws java.util.concurrent.CancellationException
+     *             if the operation was cancelled
+     */
+    public T getResult() throws PersistitException {
+        try {
+            return get();
+        } catch (final InterruptedException e) {
+            throw new PersistitInterruptedException(e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof PersistitException) {
+                throw (PersistitException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new PersistitException(cause);
+            }
+        }
+    }
+
+    /**
+     * Complete this result with an exception without running the operation.
+     */
+    void fail(final Throwable t) {
+        setException(t);
+    }
+
+    @Override
+    protected void done() {
+        final List<Listener<T>> listeners;
+        synchronized (this) {
+            listeners = _listeners;
+            _listeners = null;
+        }
+        for (final Listener<T> listener : listeners) {
+            invoke(listener);
+        }
+    }
+
+    private void invoke(final Listener<T> listener) {
+        try {
+            listener.completed(this);
+        } catch (final RuntimeException e) {
+            _persistit.getLogBase().exception.log(e);
+        }
+    }
+}
@@ -18,14 +18,24 @@ package com.persistit;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
@@ -58,6 +68,18 @@ import com.persistit.util.Util;
  * form a complete backup, and as a convenience, a mechanism to compress and
  * copy them.
  * </p>
+ * <p>
+ * An archive written by this class records a base timestamp in a manifest
+ * entry. Any page written to a volume file after the archive was made has a
+ * timestamp no earlier than the base. An <i>incremental</i> backup names a
+ * previous archive as its base. In place of each volume file it stores only
+ * the pages whose timestamps are no earlier than the base timestamp of that
+ * archive, together with the volume file's length. It stores the journal
+ * files in full, as a full backup does. A full backup followed by a chain of
+ * incremental backups, each based on its predecessor, is restored by
+ * {@link #doRestore(List)} or the <code>restore</code> command, which apply
+ * the archives in order.
+ * </p>
  * 
  * @author peter
  * 
@@ -66,6 +88,17 @@ public class BackupTask extends Task {
 
     private final static int BUFFER_SIZE = 1024 * 1024;
     private final static int PROGRESS_MARK_AT = 100 * 1000 * 1000;
+    /**
+     * Name of the archive entry that records the timestamps of a backup
+     */
+    final static String MANIFEST_ENTRY = "persistit_backup.properties";
+    /**
+     * Suffix appended to a volume path to name the archive entry holding the
+     * changed pages of that volume in an incremental backup
+     */
+    final static String PAGES_SUFFIX = ".pages";
+    private final static String TIMESTAMP_PROPERTY = "timestamp";
+    private final static String SINCE_PROPERTY = "since";
     private boolean _start;
     private boolean _end;
     private boolean _showFiles;
@@ -73,6 +106,12 @@ public class BackupTask extends Task {
     private boolean _checkpoint;
     private boolean _copyback;
     private String _toFile;
+    private String _baseFile;
+    private List<String> _restoreFiles;
+    private long _since = -1;
+    private long _baseTimestamp;
+    private final List<String> _volumeFiles = new ArrayList<String>();
+    private final Map<String, Integer> _pageSizes = new HashMap<String, Integer>();
     final List<String> _files = new ArrayList<String>();
     private volatile String _backupStatus;
 
@@ -83,9 +122,12 @@ public class BackupTask extends Task {
             @Arg("_flag|c|Request checkpoint before backup") final boolean checkpoint,
             @Arg("_flag|z|Compress output to ZIP format") final boolean compressed,
             @Arg("_flag|f|Emit a list of files that need to be copied") final boolean showFiles,
-            @Arg("_flag|y|Copyback pages before starting") final boolean copyback) throws Exception {
+            @Arg("_flag|y|Copyback pages before starting") final boolean copyback,
+            @Arg("base|string|Previous archive on which to base an incremental backup") final String baseFile)
+            throws Exception {
         final BackupTask task = new BackupTask();
         task._toFile = file;
+        task._baseFile = baseFile;
         task._start = start;
         task._end = end;
         task._showFiles = showFiles;
@@ -95,15 +137,34 @@ public class BackupTask extends Task {
         return task;
     }
 
+    @Cmd("restore")
+    static Task setupRestoreTask(
+            @Arg("files|string|Comma-separated archive paths: a full backup followed by incremental backups") final String files)
+            throws Exception {
+        final BackupTask task = new BackupTask();
+        task._restoreFiles = Arrays.asList(files.split(","));
+        return task;
+    }
+
     private void validate() {
         if (_toFile == null) {
             _toFile = "";
         }
+        if (_baseFile == null) {
+            _baseFile = "";
+        }
     }
 
     @Override
     protected void runTask() throws Exception {
+        if (_restoreFiles != null) {
+            doRestore(_restoreFiles);
+            return;
+        }
         validate();
+        if (!_baseFile.isEmpty()) {
+            _since = readManifest(new File(_baseFile)).get(TIMESTAMP_PROPERTY);
+        }
         final Management management = _persistit.getManagement();
         final boolean wasAppendOnly = management.getJournalInfo().isAppendOnly();
         if (_checkpoint) {
@@ -125,6 +186,11 @@ public class BackupTask extends Task {
         try {
             if (_showFiles || !_toFile.isEmpty()) {
                 management.setAppendOnly(true);
+                /*
+                 * The copier is now stopped, so pages written to volume
+                 * files from here on have timestamps no earlier than this.
+                 */
+                _baseTimestamp = _persistit.getJournalManager().getEarliestUncopiedTimestamp();
                 populateBackupFiles();
                 if (!_toFile.isEmpty()) {
                     doBackup();
@@ -148,6 +214,8 @@ public class BackupTask extends Task {
         for (final VolumeInfo info : volumes) {
             if (!info.isTransient()) {
                 _files.add(info.getPath());
+                _volumeFiles.add(info.getPath());
+                _pageSizes.put(info.getPath(), info.getPageSize());
             }
         }
         final JournalInfo info = _persistit.getManagement().getJournalInfo();
@@ -185,8 +253,13 @@ public class BackupTask extends Task {
                 size += new File(file).length();
             }
             postMessage("Total size of files in backup set: " + formatedSize(size), 0);
+            writeManifest(zos);
             for (final String path : _files) {
                 final File file = new File(path);
+                if (_since >= 0 && _volumeFiles.contains(path)) {
+                    backupChangedPages(zos, file, _pageSizes.get(path));
+                    continue;
+                }
                 postMessage("Backing up " + path + " size=" + formatedSize(file.length()), 1);
                 final ZipEntry ze = new ZipEntry(path);
                 ze.setSize(file.length());
@@ -211,16 +284,123 @@ public class BackupTask extends Task {
                     is.close();
                 }
             }
-            postMessage("Backup of " + _files.size() + " files to " + _toFile + " completed", 0);
+            postMessage((_since >= 0 ? "Incremental backup" : "Backup") + " of " + _files.size() + " files to "
+                    + _toFile + " completed", 0);
         } finally {
             zos.close();
         }
     }
 
+    private void writeManifest(final ZipOutputStream zos) throws IOException {
+        final Properties properties = new Properties();
+        properties.setProperty(TIMESTAMP_PROPERTY, Long.toString(_baseTimestamp));
+        if (_since >= 0) {
+            properties.setProperty(SINCE_PROPERTY, Long.toString(_since));
+        }
+        zos.putNextEntry(new ZipEntry(MANIFEST_ENTRY));
+        properties.store(zos, "Persistit backup");
+    }
+
+    /**
+     * Read the manifest of an archive written by {@link #doBackup()}.
+     * 
+     * @return map containing the base timestamp of the archive and, if it is
+     *         an incremental backup, the base timestamp of its predecessor
+     */
+    static Map<String, Long> readManifest(final File archive) throws IOException {
+        final ZipFile zipFile = new ZipFile(archive);
+        try {
+            final ZipEntry ze = zipFile.getEntry(MANIFEST_ENTRY);
+            if (ze == null) {
+                throw new IOException("Archive " + archive + " has no backup manifest");
+            }
+            final Properties properties = new Properties();
+            final InputStream is = zipFile.getInputStream(ze);
+            try {
+                properties.load(is);
+            } finally {
+                is.close();
+            }
+            final Map<String, Long> manifest = new HashMap<String, Long>();
+            for (final String name : properties.stringPropertyNames()) {
+                manifest.put(name, Long.parseLong(properties.getProperty(name)));
+            }
+            return manifest;
+        } finally {
+            zipFile.close();
+        }
+    }
+
+    /**
+     * Write the pages of a volume file having timestamps no earlier than
+     * <code>_since</code>, and always page zero, which holds the volume
+     * header. The entry holds the page size and file length followed by the
+     * address and image of each page, and ends with a page address of -1.
+     */
+    private void backupChangedPages(final ZipOutputStream zos, final File file, final int pageSize)
+            throws IOException {
+        final ZipEntry ze = new ZipEntry(file.getPath() + PAGES_SUFFIX);
+        ze.setTime(file.lastModified());
+        zos.putNextEntry(ze);
+        final DataOutputStream os = new DataOutputStream(zos);
+        final byte[] bytes = new byte[pageSize];
+        final long length = file.length();
+        long changed = 0;
+        os.writeInt(pageSize);
+        os.writeLong(length);
+        final DataInputStream is = new DataInputStream(new BufferedInputStream(new FileInputStream(file),
+                BUFFER_SIZE));
+        try {
+            for (long page = 0; page < length / pageSize; page++) {
+                is.readFully(bytes);
+                if (page == 0 || Util.getLong(bytes, Buffer.TIMESTAMP_OFFSET) >= _since) {
+                    os.writeLong(page);
+                    os.write(bytes);
+                    changed++;
+                }
+                poll();
+            }
+        } finally {
+            is.close();
+        }
+        os.writeLong(-1);
+        os.flush();
+        postMessage("Backed up " + changed + " of " + length / pageSize + " pages of " + file, 1);
+    }
+
+    /**
+     * Restore a full backup followed by a chain of incremental backups, each
+     * based on the one before it. The files of the full backup are unzipped
+     * as by {@link #doRestore(String)}; the pages saved by each incremental
+     * backup are then written into the restored volume files and its journal
+     * files replace those previously restored.
+     * 
+     * @param paths
+     *            Archive paths, beginning with a full backup
+     * @throws Exception
+     */
+    public void doRestore(final List<String> paths) throws Exception {
+        long timestamp = -1;
+        for (final String path : paths) {
+            final Map<String, Long> manifest = readManifest(new File(path));
+            final Long since = manifest.get(SINCE_PROPERTY);
+            if (timestamp < 0 ? since != null : since == null || since.longValue() != timestamp) {
+                throw new IOException("Archive " + path + " is not "
+                        + (timestamp < 0 ? "a full backup" : "based on the preceding archive"));
+            }
+            timestamp = manifest.get(TIMESTAMP_PROPERTY);
+        }
+        for (final String path : paths) {
+            doRestore(path);
+        }
+    }
+
     /**
      * A convenience method for unit tests to unzip a backup created by
      * {@link #doBackup()}. In production it is expected a backup produced by
-     * {@link #doBackup()} will be restored via an external unzip utility.
+     * {@link #doBackup()} will be restored via an external unzip utility. If
+     * the backup is incremental, its pages are written into the existing
+     * volume files.
      * 
      * @throws Exception
      */
@@ -232,6 +412,13 @@ public class BackupTask extends Task {
                 new BufferedInputStream(new FileInputStream(zipFile), BUFFER_SIZE));
         ZipEntry ze;
         while ((ze = zis.getNextEntry()) != null) {
+            if (ze.getName().equals(MANIFEST_ENTRY)) {
+                continue;
+            }
+            if (ze.getName().endsWith(PAGES_SUFFIX)) {
+                restoreChangedPages(zis, ze);
+                continue;
+            }
             postMessage("Unzipping " + ze, 0);
             final File file = new File(ze.getName());
             if (file.exists()) {
@@ -255,6 +442,31 @@ public class BackupTask extends Task {
         zis.close();
     }
 
+    private void restoreChangedPages(final InputStream zis, final ZipEntry ze) throws IOException {
+        final String name = ze.getName();
+        final File file = new File(name.substring(0, name.length() - PAGES_SUFFIX.length()));
+        postMessage("Restoring pages of " + file, 0);
+        final DataInputStream is = new DataInputStream(zis);
+        final int pageSize = is.readInt();
+        final byte[] bytes = new byte[pageSize];
+        final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(is.readLong());
+            long count = 0;
+            for (long page; (page = is.readLong()) != -1;) {
+                is.readFully(bytes);
+                raf.seek(page * pageSize);
+                raf.write(bytes);
+                count++;
+            }
+            appendMessage(" (" + count + " pages)", 1);
+        } catch (final EOFException e) {
+            throw new IOException("Incomplete page list for " + file, e);
+        } finally {
+            raf.close();
+        }
+    }
+
     private void rename(final File file) throws Exception {
         for (int k = 0; k < 1000; k++) {
             final String candidate = k == 0 ? file.getAbsolutePath() + "~" : file.getAbsoluteFile() + "~" + k;
@@ -35,6 +35,7 @@ import com.persistit.JournalRecord.IV;
 import com.persistit.JournalRecord.PA;
 import com.persistit.MVV.PrunedVersion;
 import com.persistit.Management.RecordInfo;
+import com.persistit.exception.CorruptVolumeException;
 import com.persistit.exception.InUseException;
 import com.persistit.exception.InvalidPageAddressException;
 import com.persistit.exception.InvalidPageStructureException;
@@ -182,6 +183,16 @@ public class Buffer extends SharedResource {
     final static int RIGHT_SIBLING_OFFSET = 16;
     final static int TIMESTAMP_OFFSET = 24;
 
+    /**
+     * Offset of the page checksum (see {@link PageChecksum}). The checksum
+     * occupies the high-order half of the page address field, which is
+     * otherwise always zero because no page address exceeds
+     * {@link #MAX_VALID_PAGE_ADDR}.
+     */
+    final static int CHECKSUM_OFFSET = Persistit.BIG_ENDIAN ? PAGE_ADDRESS_OFFSET : PAGE_ADDRESS_OFFSET + 4;
+    final static int CHECKSUM_SIZE = 4;
+    final static long PAGE_ADDRESS_MASK = 0xFFFFFFFFL;
+
     // Offset within page of first KeyBlock
     final static int KEY_BLOCK_START = HEADER_SIZE;
 
@@ -457,15 +468,38 @@ public class Buffer extends SharedResource {
      * @throws VolumeClosedException
      * @throws InUseException
      * @throws PersistitInterruptedException
+     * @throws CorruptVolumeException
      */
     void load(final Volume vol, final long page) throws PersistitIOException, InvalidPageAddressException,
-            InvalidPageStructureException, VolumeClosedException, InUseException, PersistitInterruptedException {
+            InvalidPageStructureException, VolumeClosedException, InUseException, PersistitInterruptedException,
+            CorruptVolumeException {
         _vol = vol;
         _page = page;
+        final long start = _persistit.getLatencyMeter().start();
         vol.getStorage().readPage(this);
+        _persistit.getLatencyMeter().record(LatencyMeter.READ_PAGE, start);
+        verifyChecksum();
         load();
     }
 
+    /**
+     * Verify the checksum of a page image just read from the journal or the
+     * volume file. Pages written before checksums were introduced carry no
+     * checksum and are accepted.
+     *
+     * @throws CorruptVolumeException
+     *             if the stored checksum does not match the page content
+     */
+    void verifyChecksum() throws CorruptVolumeException {
+        if (_page != 0 && !isTemporary() && !PageChecksum.verify(_bytes, 0, _bufferSize)) {
+            _vol.getStatistics().bumpChecksumFailureCounter();
+            final String error = String.format("Checksum mismatch on page %,d of volume %s: stored=%08x computed=%08x",
+                    _page, _vol, PageChecksum.stored(_bytes, 0), PageChecksum.compute(_bytes, 0, _bufferSize));
+            _persistit.getLogBase().corruptVolume.log(error);
+            throw new CorruptVolumeException(error);
+        }
+    }
+
     void load() throws InvalidPageStructureException {
         Debug.$assert0.t(isOwnedAsWriterByMe());
 
@@ -486,7 +520,7 @@ public class Buffer extends SharedResource {
                 _rightSibling = 0;
             } else {
                 Debug.$assert0.t(getByte(BUFFER_LENGTH_OFFSET) * 256 == _bufferSize);
-                Debug.$assert0.t(getLong(PAGE_ADDRESS_OFFSET) == _page);
+                Debug.$assert0.t((getLong(PAGE_ADDRESS_OFFSET) & PAGE_ADDRESS_MASK) == _page);
                 _alloc = getChar(FREE_OFFSET);
                 _slack = getChar(SLACK_OFFSET);
                 _rightSibling = getLong(RIGHT_SIBLING_OFFSET);
@@ -522,7 +556,9 @@ public class Buffer extends SharedResource {
         if (volume != null) {
             clearSlack();
             save();
+            final long start = _persistit.getLatencyMeter().start();
             _vol.getStorage().writePage(this);
+            _persistit.getLatencyMeter().record(LatencyMeter.WRITE_PAGE, start);
             clearDirty();
             volume.getStatistics().bumpWriteCounter();
             _pool.bumpWriteCounter();
@@ -611,7 +647,8 @@ public class Buffer extends SharedResource {
     }
 
     /**
-     * Post fields back into the buffer in preparation for writing it to disk.
+     * Post fields back into the buffer in preparation for writing it to disk
+     * and compute the page checksum.
      */
     void save() {
         putLong(TIMESTAMP_OFFSET, _timestamp);
@@ -623,6 +660,9 @@ public class Buffer extends SharedResource {
             putChar(SLACK_OFFSET, _slack);
             putLong(PAGE_ADDRESS_OFFSET, _page);
             putLong(RIGHT_SIBLING_OFFSET, _rightSibling);
+            if (!isTemporary()) {
+                putInt(CHECKSUM_OFFSET, PageChecksum.compute(_bytes, 0, _bufferSize));
+            }
         }
     }
 
@@ -4158,6 +4198,40 @@ public class Buffer extends SharedResource {
         bumpGeneration();
     }
 
+    /**
+     * Move the first garbage chain whose left page is not in
+     * <code>excluded</code> to the top of this garbage page, so that it is
+     * the chain returned by {@link #getGarbageChainLeftPage()}.
+     *
+     * @param excluded
+     *            left pages of chains that must not be allocated
+     * @return <code>true</code> if such a chain exists
+     */
+    boolean selectGarbageChain(final Set<Long> excluded) {
+        Debug.$assert1.t(isOwnedAsWriterByMe() && isGarbagePage());
+        for (int p = _alloc; p < _bufferSize; p += GARBAGE_BLOCK_SIZE) {
+            if (!excluded.contains(getGarbageChainLeftPage(p))) {
+                if (p != _alloc) {
+                    final int status = getInt(p + GARBAGE_BLOCK_STATUS);
+                    final long left = getLong(p + GARBAGE_BLOCK_LEFT_PAGE);
+                    final long right = getLong(p + GARBAGE_BLOCK_RIGHT_PAGE);
+                    final long expectedCount = getLong(p + GARBAGE_BLOCK_EXPECTED_COUNT);
+                    putInt(p + GARBAGE_BLOCK_STATUS, getInt(_alloc + GARBAGE_BLOCK_STATUS));
+                    putLong(p + GARBAGE_BLOCK_LEFT_PAGE, getLong(_alloc + GARBAGE_BLOCK_LEFT_PAGE));
+                    putLong(p + GARBAGE_BLOCK_RIGHT_PAGE, getLong(_alloc + GARBAGE_BLOCK_RIGHT_PAGE));
+                    putLong(p + GARBAGE_BLOCK_EXPECTED_COUNT, getLong(_alloc + GARBAGE_BLOCK_EXPECTED_COUNT));
+                    putInt(_alloc + GARBAGE_BLOCK_STATUS, status);
+                    putLong(_alloc + GARBAGE_BLOCK_LEFT_PAGE, left);
+                    putLong(_alloc + GARBAGE_BLOCK_RIGHT_PAGE, right);
+                    putLong(_alloc + GARBAGE_BLOCK_EXPECTED_COUNT, expectedCount);
+                    bumpGeneration();
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
     void setGarbageLeftPage(final long left) {
         Debug.$assert1.t(isOwnedAsWriterByMe() && isGarbagePage() && left > 0 && left <= MAX_VALID_PAGE_ADDR
                 && left != _page && _alloc + GARBAGE_BLOCK_SIZE <= _bufferSize && _alloc >= _keyBlockEnd);
@@ -35,6 +35,7 @@ import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.locks.ReentrantLock;
 
 import com.persistit.JournalManager.PageNode;
+import com.persistit.exception.CorruptVolumeException;
 import com.persistit.exception.InUseException;
 import com.persistit.exception.InvalidPageAddressException;
 import com.persistit.exception.InvalidPageStructureException;
@@ -221,6 +222,17 @@ public class BufferPool {
      */
     private PageWriter _writer;
 
+    /**
+     * Optional second-level cache of clean page images held in direct memory,
+     * or <code>null</code> if none is configured.
+     */
+    private final OffHeapPageCache _offHeapCache;
+
+    /**
+     * Policy that selects pages for eviction
+     */
+    private final ReplacementPolicy _replacementPolicy;
+
     /**
      * Construct a BufferPool with the specified count of <code>Buffer</code>s
      * of the specified size.
@@ -231,6 +243,27 @@ public class BufferPool {
      *            The size (in bytes) of each buffer
      */
     BufferPool(final int count, final int size, final Persistit persistit) {
+        this(count, size, 0, ReplacementPolicy.DEFAULT_NAME, persistit);
+    }
+
+    /**
+     * Construct a BufferPool with the specified count of <code>Buffer</code>s
+     * of the specified size, backed by an {@link OffHeapPageCache} of the
+     * specified size.
+     *
+     * @param count
+     *            The number of buffers in the pool
+     * @param size
+     *            The size (in bytes) of each buffer
+     * @param offHeapMemory
+     *            The number of bytes of direct memory to allocate for
+     *            evicted page images, or zero for none
+     * @param replacementPolicyName
+     *            Name of the {@link ReplacementPolicy} used to choose pages
+     *            to evict
+     */
+    BufferPool(final int count, final int size, final long offHeapMemory, final String replacementPolicyName,
+            final Persistit persistit) {
         _persistit = persistit;
         if (count < MINIMUM_POOL_COUNT) {
             throw new IllegalArgumentException("Buffer pool count too small: " + count);
@@ -290,6 +323,8 @@ public class BufferPool {
             System.err.println(_persistit.getAvailableHeap());
             throw e;
         }
+        _offHeapCache = offHeapMemory > 0 ? new OffHeapPageCache(offHeapMemory, size) : null;
+        _replacementPolicy = ReplacementPolicy.forName(replacementPolicyName, count);
         _writer = new PageWriter();
     }
 
@@ -350,6 +385,12 @@ public class BufferPool {
         info.writeCount = _writeCounter.get();
         info.forcedCheckpointWriteCount = _forcedCheckpointWriteCounter.get();
         info.forcedWriteCount = _forcedWriteCounter.get();
+        info.replacementPolicy = _replacementPolicy.getName();
+        info.policyHitCount = _replacementPolicy.getHitCount();
+        info.policyMissCount = _replacementPolicy.getMissCount();
+        info.hotPageCount = _replacementPolicy.getHotPageCount();
+        info.promoteCount = _replacementPolicy.getPromoteCount();
+        info.demoteCount = _replacementPolicy.getDemoteCount();
         int validPages = 0;
         int readerClaimedPages = 0;
         int writerClaimedPages = 0;
@@ -597,6 +638,9 @@ public class BufferPool {
                 _hashLocks[hashIndex % HASH_LOCKS].unlock();
             }
         }
+        if (_offHeapCache != null) {
+            _offHeapCache.invalidate(volume);
+        }
         if (markedAvailable > 0) {
             _availablePages.set(true);
         }
@@ -637,6 +681,9 @@ public class BufferPool {
                 }
             }
         }
+        if (_offHeapCache != null) {
+            _offHeapCache.invalidate(volume);
+        }
         if (markedAvailable > 0) {
             _availablePages.set(true);
         }
@@ -761,6 +808,7 @@ public class BufferPool {
                         if (buffer.claim(writer, 0)) {
                             vol.getStatistics().bumpGetCounter();
                             bumpHitCounter();
+                            _replacementPolicy.hit(buffer);
                             assert !buffer.isOwnedAsWriterByOther();
                             return buffer;
                         } else {
@@ -829,6 +877,7 @@ public class BufferPool {
                         //
                         vol.getStatistics().bumpGetCounter();
                         bumpHitCounter();
+                        _replacementPolicy.hit(buffer);
                         assert !buffer.isOwnedAsWriterByOther();
                         return buffer;
                     } else {
@@ -859,10 +908,15 @@ public class BufferPool {
                     try {
                         Debug.$assert0.t(buffer.getPageAddress() == page && buffer.getVolume() == vol
                                 && hashIndex(buffer.getVolume(), buffer.getPageAddress()) == hash);
-                        buffer.load(vol, page);
+                        if (_offHeapCache != null && _offHeapCache.take(buffer)) {
+                            buffer.load();
+                        } else {
+                            buffer.load(vol, page);
+                        }
                         loaded = true;
                         vol.getStatistics().bumpGetCounter();
                         bumpMissCounter();
+                        _replacementPolicy.loaded(buffer);
                     } finally {
                         if (!loaded) {
                             invalidate(buffer);
@@ -870,9 +924,13 @@ public class BufferPool {
                         }
                     }
                 } else {
+                    if (_offHeapCache != null) {
+                        _offHeapCache.remove(vol, page);
+                    }
                     buffer.clear();
                     buffer.init(Buffer.PAGE_TYPE_UNALLOCATED);
                     bumpNewCounter();
+                    _replacementPolicy.loaded(buffer);
                 }
                 if (!writer) {
                     buffer.releaseWriterClaim();
@@ -882,6 +940,86 @@ public class BufferPool {
         }
     }
 
+    /**
+     * Read a page into the pool in anticipation of a subsequent request. This
+     * method is used by {@link ReadAhead}; unlike
+     * {@link #get(Volume, long, boolean, boolean, long)} it never waits for a
+     * page claimed by another thread, and finding the page already present
+     * does not count as a hit.
+     *
+     * @param vol
+     *            The Volume
+     * @param page
+     *            The address of the page
+     * @return the address of the page's right sibling if it is a data page,
+     *         otherwise 0
+     * @throws PersistitException
+     */
+    long prefetch(final Volume vol, final long page) throws PersistitException {
+        final int hash = hashIndex(vol, page);
+        Buffer buffer;
+        _hashLocks[hash % HASH_LOCKS].lock();
+        try {
+            for (buffer = _hashTable[hash]; buffer != null; buffer = buffer.getNext()) {
+                if (buffer.getPageAddress() == page && buffer.getVolume() == vol) {
+                    if (!buffer.claim(false, 0)) {
+                        return 0;
+                    }
+                    break;
+                }
+            }
+        } finally {
+            _hashLocks[hash % HASH_LOCKS].unlock();
+        }
+        boolean loaded = false;
+        if (buffer == null) {
+            try {
+                buffer = get(vol, page, false, true, 0);
+            } catch (final InUseException e) {
+                return 0;
+            }
+            loaded = true;
+            _replacementPolicy.prefetched(buffer);
+            _persistit.getIOMeter().chargeReadAhead(vol, page, buffer.getBufferSize(), buffer.getIndex());
+        }
+        try {
+            return buffer.isDataPage() ? buffer.getRightSibling() : 0;
+        } finally {
+            if (loaded) {
+                buffer.releaseTouched();
+            } else {
+                buffer.release();
+            }
+        }
+    }
+
+    /**
+     * Indicate whether a page is currently held in this pool. The answer may
+     * be stale by the time the caller acts on it; it is intended for
+     * background tasks such as {@link ScrubTask} that merely prefer to leave
+     * resident pages alone.
+     *
+     * @param vol
+     *            The Volume
+     * @param page
+     *            The address of the page
+     * @return <code>true</code> if the page is in the pool
+     */
+    boolean isCached(final Volume vol, final long page) {
+        final int hash = hashIndex(vol, page);
+        _hashLocks[hash % HASH_LOCKS].lock();
+        try {
+            for (Buffer buffer = _hashTable[hash]; buffer != null; buffer = buffer.getNext()) {
+                if (buffer.getPageAddress() == page && buffer.getVolume() == vol) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            _hashLocks[hash % HASH_LOCKS].unlock();
+        }
+    }
+
     /**
      * Returns a copy of Buffer. The returned buffer is newly created, is not a
      * member of the buffer pool, and is not claimed. There is no guarantee that
@@ -896,12 +1034,13 @@ public class BufferPool {
      * @throws InvalidPageStructureException
      * @throws VolumeClosedException
      * @throws PersistitInterruptedException
+     * @throws CorruptVolumeException
      * @throws RetryException
      * @throws IOException
      */
     public Buffer getBufferCopy(final Volume vol, final long page) throws InvalidPageAddressException,
             InvalidPageStructureException, VolumeClosedException, InUseException, PersistitIOException,
-            PersistitInterruptedException {
+            PersistitInterruptedException, CorruptVolumeException {
         final int hash = hashIndex(vol, page);
         Buffer buffer = null;
         _hashLocks[hash % HASH_LOCKS].lock();
@@ -946,9 +1085,9 @@ public class BufferPool {
 
     /**
      * Returns an available buffer. The replacement policy is to return a buffer
-     * that's already been marked invalid, if available. Otherwise use the Clock
-     * algorithm to choose a page for replacement that is approximately the
-     * least-recently-used page.
+     * that's already been marked invalid, if available. Otherwise sweep the
+     * clock over the pool and let the {@link ReplacementPolicy} choose a page
+     * for replacement.
      *
      * @return Buffer An available buffer, or <i>null</i> if no buffer is
      *         currently available. The buffer has a writer claim.
@@ -1008,9 +1147,7 @@ public class BufferPool {
                 continue;
             }
             final Buffer buffer = _buffers[clock];
-            if (buffer.isTouched()) {
-                buffer.clearTouched();
-            } else {
+            if (_replacementPolicy.isCandidate(buffer, retry >= _bufferCount)) {
                 //
                 // Note: need to verify that there are no claims - including
                 // those of the current thread.
@@ -1029,6 +1166,7 @@ public class BufferPool {
                         // this context
                         try {
                             buffer.writePage();
+                            spill(buffer);
                             if (detach(buffer)) {
                                 buffer.clearValid();
                                 _forcedWriteCounter.incrementAndGet();
@@ -1036,6 +1174,14 @@ public class BufferPool {
                                 _persistit.getIOMeter().chargeEvictPageFromPool(buffer.getVolume(),
                                         buffer.getPageAddress(), buffer.getBufferSize(), buffer.getIndex());
                             }
+                        } catch (final InUseException e) {
+                            // A temporary volume being closed by another
+                            // thread holds an exclusive claim on its storage
+                            // and will invalidate this buffer; look for
+                            // another one.
+                            if (!buffer.getVolume().isTemporary() || !buffer.getVolume().isClosed()) {
+                                throw e;
+                            }
                         } finally {
                             if (!buffer.isValid()) {
                                 return buffer;
@@ -1044,6 +1190,9 @@ public class BufferPool {
                             }
                         }
                     } else {
+                        if (buffer.isValid()) {
+                            spill(buffer);
+                        }
                         if (buffer.isValid() && detach(buffer)) {
                             buffer.clearValid();
                             _evictCounter.incrementAndGet();
@@ -1063,6 +1212,31 @@ public class BufferPool {
         throw new IllegalStateException("No available Buffers");
     }
 
+    /**
+     * Copy the image of a clean page about to be evicted into the off-heap
+     * cache, if there is one. This is done before the buffer is detached from
+     * the hash table so that no other thread can miss the page in both the
+     * pool and the off-heap cache and then read an older image from the
+     * volume. Pages of temporary volumes are not retained.
+     *
+     * @param buffer
+     *            A clean, valid Buffer on which this thread holds a writer
+     *            claim
+     */
+    private void spill(final Buffer buffer) {
+        if (_offHeapCache != null && !buffer.isTemporary() && !buffer.isDirty()) {
+            _offHeapCache.store(buffer);
+        }
+    }
+
+    OffHeapPageCache getOffHeapCache() {
+        return _offHeapCache;
+    }
+
+    ReplacementPolicy getReplacementPolicy() {
+        return _replacementPolicy;
+    }
+
     enum Result {
         WRITTEN, UNAVAILABLE, ERROR
     };
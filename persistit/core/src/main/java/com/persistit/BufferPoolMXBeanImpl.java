@@ -244,4 +244,40 @@ class BufferPoolMXBeanImpl implements BufferPoolMXBean {
         return recent().getEarliestDirtyTimestamp();
     }
 
+    @Override
+    @Description("The name of the replacement policy used to select pages for eviction")
+    public String getReplacementPolicy() {
+        return recent().getReplacementPolicy();
+    }
+
+    @Override
+    @Description("The number of page lookups the replacement policy recorded as hits")
+    public long getPolicyHitCount() {
+        return recent().getPolicyHitCount();
+    }
+
+    @Override
+    @Description("The number of page loads the replacement policy recorded as misses")
+    public long getPolicyMissCount() {
+        return recent().getPolicyMissCount();
+    }
+
+    @Override
+    @Description("The number of pages the replacement policy currently protects from eviction")
+    public int getHotPageCount() {
+        return recent().getHotPageCount();
+    }
+
+    @Override
+    @Description("The number of pages promoted into the protected working set")
+    public long getPromoteCount() {
+        return recent().getPromoteCount();
+    }
+
+    @Override
+    @Description("The number of pages demoted from the protected working set")
+    public long getDemoteCount() {
+        return recent().getDemoteCount();
+    }
+
 }
@@ -157,7 +157,7 @@ public class CLI {
     private final static Map<String, Command> COMMANDS = new TreeMap<String, Command>();
 
     private final static Class<?>[] CLASSES = { CLI.class, BackupTask.class, IntegrityCheck.class, StreamSaver.class,
-            StreamLoader.class, StatisticsTask.class, TaskCheck.class, VolumeHeader.class };
+            StreamLoader.class, StatisticsTask.class, TaskCheck.class, VolumeHeader.class, ScrubTask.class };
 
     static {
         for (final Class<?> clazz : CLASSES) {
@@ -1305,6 +1305,37 @@ public class CLI {
         };
     }
 
+    @Cmd("latency")
+    Task latency(final @Arg("_flag|r|Reset histograms after display") boolean r,
+            final @Arg("_flag|e|Enable measurement") boolean e, final @Arg("_flag|d|Disable measurement") boolean d)
+            throws Exception {
+        return new Task() {
+
+            String _result = "";
+
+            @Override
+            public void runTask() throws Exception {
+                if (_persistit == null) {
+                    _result = "Persistit not loaded";
+                    return;
+                }
+                final LatencyMeter meter = _persistit.getLatencyMeter();
+                if (e) {
+                    meter.setEnabled(true);
+                } else if (d) {
+                    meter.setEnabled(false);
+                }
+                _result = (meter.isEnabled() ? "" : "Latency measurement is disabled" + Util.NEW_LINE)
+                        + meter.dump(r);
+            }
+
+            @Override
+            public String getStatus() {
+                return _result;
+            }
+        };
+    }
+
     @Cmd("help")
     Task help() throws Exception {
         return new Task() {
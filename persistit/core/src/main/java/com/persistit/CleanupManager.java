@@ -199,6 +199,40 @@ class CleanupManager extends IOTaskRunnable implements CleanupManagerMXBean {
         return sb.toString();
     }
 
+    static class CleanupLongRecordChain implements CleanupAction {
+
+        final Volume _volume;
+        final long _page;
+
+        CleanupLongRecordChain(final Volume volume, final long page) {
+            _volume = volume;
+            _page = page;
+        }
+
+        @Override
+        public void performAction(final Persistit persistit, final List<CleanupAction> consequentActions)
+                throws PersistitException {
+            if (!_volume.isClosed()) {
+                _volume.getStructure().deallocateGarbageChain(_page, 0);
+            }
+        }
+
+        @Override
+        public int compareTo(final CleanupAction other) {
+            if (other instanceof CleanupLongRecordChain) {
+                final CleanupLongRecordChain a = (CleanupLongRecordChain) other;
+                return _page > a._page ? 1 : _page < a._page ? -1 : 0;
+            } else {
+                return 1;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s on page %,d volume %s", getClass().getSimpleName(), _page, _volume.getName());
+        }
+    }
+
     abstract static class CleanupTreePage implements CleanupAction {
 
         private final static ThreadLocal<WeakReference<Exchange>> _exchangeThreadLocal = new ThreadLocal<WeakReference<Exchange>>();
@@ -314,4 +348,25 @@ class CleanupManager extends IOTaskRunnable implements CleanupManagerMXBean {
         }
     }
 
+    static class CleanupRebuildFilter extends CleanupTreePage {
+
+        CleanupRebuildFilter(final int treeHandle) {
+            super(treeHandle, 0);
+        }
+
+        @Override
+        public void performAction(final Persistit persistit, final List<CleanupAction> consequentActions)
+                throws PersistitException {
+            final Exchange exchange = getExchange(persistit);
+            if (exchange != null) {
+                exchange.getTree().rebuildMembershipFilter(exchange);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s on tree handle [%,d]", getClass().getSimpleName(), _treeHandle);
+        }
+    }
+
 }
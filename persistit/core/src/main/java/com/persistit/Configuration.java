@@ -46,6 +46,7 @@ import com.persistit.exception.PersistitException;
 import com.persistit.exception.PersistitIOException;
 import com.persistit.exception.PropertiesNotFoundException;
 import com.persistit.logging.DefaultPersistitLogger;
+import com.persistit.mxbeans.JournalManagerMXBean;
 import com.persistit.policy.JoinPolicy;
 import com.persistit.policy.SplitPolicy;
 import com.persistit.util.Util;
@@ -141,6 +142,16 @@ public class Configuration {
      * specified memory allocation, including overhead for FastIndex elements.
      */
     public final static String BUFFER_MEM_PROPERTY_NAME = "buffer.memory.";
+    /**
+     * Property name prefix for specifying an off-heap page cache. The full
+     * property name should be one of "1024", "2048", "4096", "8192" or "16384"
+     * appended to this string, e.g., "buffer.offheap.8192". The value is the
+     * number of bytes of direct memory, optionally followed by "K", "M", "G"
+     * or "T", to allocate for images of pages evicted from the buffer pool of
+     * that size. This property may be combined with either
+     * "buffer.count.nnnn" or "buffer.memory.nnnn".
+     */
+    public final static String BUFFER_OFFHEAP_PROPERTY_NAME = "buffer.offheap.";
     /**
      * Property name prefix for specifying Volumes. The full property name
      * should be a unique ordinal number appended to this string, e.g.,
@@ -277,6 +288,11 @@ public class Configuration {
      */
     public final static String APPEND_ONLY_PROPERTY_NAME = "appendonly";
 
+    /**
+     * Property name for enabling latency histograms at startup
+     */
+    public final static String LATENCY_METER_PROPERTY_NAME = "latencymeter";
+
     /**
      * Property name for the "ignore missing volumes" property.
      */
@@ -302,6 +318,36 @@ public class Configuration {
      */
     public final static String BUFFER_INVENTORY_PROPERTY_NAME = "bufferinventory";
 
+    /**
+     * Property name to specify the replacement policy used to select pages
+     * for eviction from the buffer pools ("CLOCK" or "2Q").
+     */
+    public final static String BUFFER_POLICY_PROPERTY_NAME = "bufferpolicy";
+
+    /**
+     * Property name to specify the maximum number of pages read ahead of a
+     * sequential traversal.
+     */
+    public final static String READ_AHEAD_PROPERTY_NAME = "readahead";
+
+    /**
+     * Property name to specify the number of threads that apply recovered
+     * transactions after a crash.
+     */
+    public final static String RECOVERY_THREADS_PROPERTY_NAME = "recoverythreads";
+
+    /**
+     * Property name to specify the number of threads that run operations
+     * submitted through an {@link AsyncExchange}.
+     */
+    public final static String ASYNC_THREADS_PROPERTY_NAME = "asyncthreads";
+
+    /**
+     * Property name to specify the number of threads that copy pages from the
+     * journal to volumes on different devices concurrently.
+     */
+    public final static String COPIER_THREADS_PROPERTY_NAME = "copierthreads";
+
     /**
      * Property name to specify the default {@link JoinPolicy}.
      */
@@ -379,6 +425,7 @@ public class Configuration {
         private long maximumMemory;
         private long reservedMemory;
         private float fraction;
+        private long offHeapMemory;
 
         private void reset() {
             minimumCount = 0;
@@ -504,9 +551,50 @@ public class Configuration {
             this.fraction = fraction;
         }
 
+        /**
+         * @return the number of bytes of direct memory allocated to hold
+         *         images of pages evicted from the buffer pool, or zero if
+         *         there is no off-heap page cache
+         */
+        public long getOffHeapMemory() {
+            return offHeapMemory;
+        }
+
+        /**
+         * Set the number of bytes of direct (off-heap) memory to allocate for
+         * an {@link OffHeapPageCache} behind the buffer pool. Page images
+         * evicted from the heap-resident pool are retained there and copied
+         * back on a subsequent miss instead of being read from disk. Zero
+         * disables the off-heap cache.
+         *
+         * @param offHeapMemory
+         *            the offHeapMemory to set
+         */
+        public void setOffHeapMemory(final long offHeapMemory) {
+            Util.rangeCheck(offHeapMemory, 0, Long.MAX_VALUE);
+            this.offHeapMemory = offHeapMemory;
+        }
+
+        /**
+         * Parse the supplied property value as the number of bytes of direct
+         * memory to allocate for the off-heap page cache. The value may be
+         * followed by "K", "M", "G" or "T" as a multiplier.
+         *
+         * @param bufferSize
+         * @param propertyName
+         * @param propertyValue
+         */
+        public void parseOffHeapMemory(final int bufferSize, final String propertyName, final String propertyValue) {
+            checkBufferSize(bufferSize, propertyName);
+            setOffHeapMemory(parseLongProperty(propertyName, propertyValue));
+        }
+
         private final static String SIMPLE_COUNT_FORMAT = "count=%d";
         private final static String MIN_MAX_COUNT_FORMAT = "minCount=%d,maxCount=%d";
         private final static String MIN_MAX_MEMORY_FORMAT = "minMem=%s,maxMem=%s,reserved=%s,fraction=%s";
+        private final static String OFF_HEAP_FORMAT = ",offHeap=%s";
+        private final static Pattern OFF_HEAP_PATTERN = Pattern.compile("(.*),offHeap=([0-9]+[KMGT]?)",
+                Pattern.CASE_INSENSITIVE);
         private final static Pattern SIMPLE_COUNT_PATTERN = Pattern.compile("count=([0-9]+[KMGT]?)",
                 Pattern.CASE_INSENSITIVE);
         private final static Pattern MIN_MAX_COUNT_PATTERN = Pattern.compile(
@@ -558,6 +646,9 @@ public class Configuration {
                 sb.append(String.format(MIN_MAX_MEMORY_FORMAT, displayableLongValue(minimumMemory),
                         displayableLongValue(maximumMemory), displayableLongValue(reservedMemory), fraction));
             }
+            if (offHeapMemory != 0) {
+                sb.append(String.format(OFF_HEAP_FORMAT, displayableLongValue(offHeapMemory)));
+            }
             return sb.toString();
         }
 
@@ -571,13 +662,21 @@ public class Configuration {
          * 
          * where propertyNames are <code>count</code>, <code>minCount</code>,
          * <code>maxCount</code>, <code>minMemory</code>, <code>maxMemory</code>
-         * , <code>reserved</code> or <code>fraction</code>
+         * , <code>reserved</code> or <code>fraction</code>, optionally
+         * followed by <code>offHeap</code>
          */
         public void parse(final String string) {
             final String[] terms = string.split(",", 2);
             if (terms.length > 1) {
                 checkBufferSize((int) parseLongProperty(string, terms[0]), string);
                 Matcher matcher;
+                matcher = OFF_HEAP_PATTERN.matcher(terms[1]);
+                if (matcher.matches()) {
+                    setOffHeapMemory(parseLongProperty(string, matcher.group(2)));
+                    terms[1] = matcher.group(1);
+                } else {
+                    setOffHeapMemory(0);
+                }
                 matcher = SIMPLE_COUNT_PATTERN.matcher(terms[1]);
                 if (matcher.matches()) {
                     setCount((int) parseLongProperty(string, matcher.group(1)));
@@ -714,8 +813,14 @@ public class Configuration {
     private int rmiServerPort;
     private boolean jmx = true;
     private boolean appendOnly;
+    private boolean latencyMeterEnabled;
     private boolean bufferInventoryEnabled;
     private boolean bufferPreloadEnabled;
+    private String bufferReplacementPolicy = ReplacementPolicy.DEFAULT_NAME;
+    private int readAheadWindow = ReadAhead.DEFAULT_WINDOW;
+    private int recoveryThreads = ParallelTransactionPlayer.DEFAULT_THREADS;
+    private int asyncThreads = AsyncExchange.DEFAULT_THREADS;
+    private int copierThreads = JournalManager.DEFAULT_COPIER_THREADS;
     private boolean ignoreMissingVolumes;
     private String tmpVolDir;
     private int tmpVolPageSize;
@@ -796,6 +901,7 @@ public class Configuration {
 
     void loadProperties() throws InvalidVolumeSpecificationException {
         setAppendOnly(getBooleanProperty(APPEND_ONLY_PROPERTY_NAME, false));
+        setLatencyMeterEnabled(getBooleanProperty(LATENCY_METER_PROPERTY_NAME, false));
         setCommitPolicy(getProperty(COMMIT_POLICY_PROPERTY_NAME));
         setConstructorOverride(getBooleanProperty(CONSTRUCTOR_OVERRIDE_PROPERTY_NAME, false));
         setIgnoreMissingVolumes(getBooleanProperty(IGNORE_MISSING_VOLUMES_PROPERTY, false));
@@ -817,6 +923,12 @@ public class Configuration {
         setSysVolume(getProperty(SYSTEM_VOLUME_PROPERTY_NAME, DEFAULT_SYSTEM_VOLUME_NAME));
         setBufferInventoryEnabled(getBooleanProperty(BUFFER_INVENTORY_PROPERTY_NAME, false));
         setBufferPreloadEnabled(getBooleanProperty(BUFFER_PRELOAD_PROPERTY_NAME, false));
+        setBufferReplacementPolicy(getProperty(BUFFER_POLICY_PROPERTY_NAME, ReplacementPolicy.DEFAULT_NAME));
+        setReadAheadWindow(getIntegerProperty(READ_AHEAD_PROPERTY_NAME, ReadAhead.DEFAULT_WINDOW));
+        setRecoveryThreads(getIntegerProperty(RECOVERY_THREADS_PROPERTY_NAME,
+                ParallelTransactionPlayer.DEFAULT_THREADS));
+        setAsyncThreads(getIntegerProperty(ASYNC_THREADS_PROPERTY_NAME, AsyncExchange.DEFAULT_THREADS));
+        setCopierThreads(getIntegerProperty(COPIER_THREADS_PROPERTY_NAME, JournalManager.DEFAULT_COPIER_THREADS));
         setUseOldVSpec(getBooleanProperty(USE_OLD_VSPEC, false));
 
         loadPropertiesBufferSpecifications();
@@ -830,8 +942,11 @@ public class Configuration {
             final String countPropertyName = BUFFERS_PROPERTY_NAME + size;
             final String memPropertyName = BUFFER_MEM_PROPERTY_NAME + size;
 
+            final String offHeapPropertyName = BUFFER_OFFHEAP_PROPERTY_NAME + size;
+
             final String countSpec = getProperty(countPropertyName);
             final String memSpec = getProperty(memPropertyName);
+            final String offHeapSpec = getProperty(offHeapPropertyName);
             int count = 0;
             final BufferPoolConfiguration bpc = bufferPoolMap.get(size);
 
@@ -850,6 +965,11 @@ public class Configuration {
             } else if (count == 0) {
                 bpc.reset();
             }
+            if (offHeapSpec != null) {
+                bpc.parseOffHeapMemory(size, offHeapPropertyName, offHeapSpec);
+            } else {
+                bpc.setOffHeapMemory(0);
+            }
         }
     }
 
@@ -1984,6 +2104,36 @@ public class Configuration {
         this.appendOnly = appendOnly;
     }
 
+    /**
+     * Return the value defined by {@link #setLatencyMeterEnabled}
+     * 
+     * @return <code>true</code> if latency histograms are enabled at startup
+     */
+    public boolean isLatencyMeterEnabled() {
+        return latencyMeterEnabled;
+    }
+
+    /**
+     * <p>
+     * Control whether Persistit measures the latency of fetch, store,
+     * traverse, remove, commit, page read and write, and journal force
+     * operations in histograms from startup. Measurement adds two reads of the
+     * system nanosecond timer to each operation. This method changes only the
+     * initial state; use {@link com.persistit.mxbeans.LatencyMeterMXBean} to
+     * change it while the system is running.
+     * </p>
+     * <p>
+     * Default value is <code>false</code><br />
+     * Property name is {@value #LATENCY_METER_PROPERTY_NAME}
+     * </p>
+     * 
+     * @param enabled
+     *            <code>true</code> to measure operation latencies
+     */
+    public void setLatencyMeterEnabled(final boolean enabled) {
+        this.latencyMeterEnabled = enabled;
+    }
+
     /**
      * Return the value defined by {@link #setBufferInventoryEnabled}
      * 
@@ -2037,6 +2187,163 @@ public class Configuration {
         this.bufferPreloadEnabled = bufferPreloadEnabled;
     }
 
+    /**
+     * Return the value defined by {@link #setBufferReplacementPolicy(String)}
+     * 
+     * @return the name of the buffer replacement policy
+     */
+    public String getBufferReplacementPolicy() {
+        return bufferReplacementPolicy;
+    }
+
+    /**
+     * <p>
+     * Select the policy each buffer pool uses to choose a page to evict. The
+     * value "CLOCK" selects the classic CLOCK algorithm. The value "2Q"
+     * selects a scan-resistant variant in which pages read only once, for
+     * example by a long traversal, a backup or an integrity check, cannot
+     * displace the frequently used pages of the working set.
+     * </p>
+     * <p>
+     * Default value is "CLOCK"<br />
+     * Property name is {@value #BUFFER_POLICY_PROPERTY_NAME}
+     * </p>
+     * 
+     * @param policyName
+     *            "CLOCK" or "2Q"
+     */
+    public void setBufferReplacementPolicy(final String policyName) {
+        if (!ReplacementPolicy.isValidName(policyName)) {
+            throw new IllegalArgumentException("No such ReplacementPolicy " + policyName);
+        }
+        this.bufferReplacementPolicy = policyName.toUpperCase();
+    }
+
+    /**
+     * Return the value defined by {@link #setReadAheadWindow(int)}
+     * 
+     * @return the maximum number of pages read ahead of a sequential traversal
+     */
+    public int getReadAheadWindow() {
+        return readAheadWindow;
+    }
+
+    /**
+     * <p>
+     * Set the maximum number of pages Persistit reads ahead of an
+     * {@link Exchange} that is traversing a range of keys. When a traversal
+     * steps through consecutive data pages, background threads read the
+     * following pages of the right-sibling chain into the buffer pool so that
+     * the traversal does not wait for each page to be read in turn. The value
+     * 0 disables read-ahead.
+     * </p>
+     * <p>
+     * Default value is 0<br />
+     * Property name is {@value #READ_AHEAD_PROPERTY_NAME}
+     * </p>
+     * 
+     * @param readAheadWindow
+     *            maximum number of pages, between 0 and
+     *            {@value ReadAhead#MAXIMUM_WINDOW}
+     */
+    public void setReadAheadWindow(final int readAheadWindow) {
+        Util.rangeCheck(readAheadWindow, 0, ReadAhead.MAXIMUM_WINDOW);
+        this.readAheadWindow = readAheadWindow;
+    }
+
+    /**
+     * Return the value defined by {@link #setRecoveryThreads(int)}
+     * 
+     * @return the number of threads that apply recovered transactions
+     */
+    public int getRecoveryThreads() {
+        return recoveryThreads;
+    }
+
+    /**
+     * <p>
+     * Set the number of threads that apply committed transactions recovered
+     * from the journal after a crash. With more than one thread, transactions
+     * that update a single tree are applied concurrently with those updating
+     * other trees; the updates to each tree are still applied in commit order.
+     * Transactions that update several trees are applied after all earlier
+     * transactions have been applied.
+     * </p>
+     * <p>
+     * Default value is 1<br />
+     * Property name is {@value #RECOVERY_THREADS_PROPERTY_NAME}
+     * </p>
+     * 
+     * @param recoveryThreads
+     *            number of threads, between 1 and
+     *            {@value ParallelTransactionPlayer#MAXIMUM_THREADS}
+     */
+    public void setRecoveryThreads(final int recoveryThreads) {
+        Util.rangeCheck(recoveryThreads, 1, ParallelTransactionPlayer.MAXIMUM_THREADS);
+        this.recoveryThreads = recoveryThreads;
+    }
+
+    /**
+     * Return the value defined by {@link #setAsyncThreads(int)}
+     * 
+     * @return the number of threads that run asynchronous operations
+     */
+    public int getAsyncThreads() {
+        return asyncThreads;
+    }
+
+    /**
+     * <p>
+     * Set the number of threads in the pool that runs operations submitted
+     * through an {@link AsyncExchange}. The pool is created when the first
+     * <code>AsyncExchange</code> is obtained, and its idle threads exit after
+     * a short interval.
+     * </p>
+     * <p>
+     * Default value is {@value AsyncExchange#DEFAULT_THREADS}<br />
+     * Property name is {@value #ASYNC_THREADS_PROPERTY_NAME}
+     * </p>
+     * 
+     * @param asyncThreads
+     *            number of threads, between 1 and
+     *            {@value AsyncExchange#MAXIMUM_THREADS}
+     */
+    public void setAsyncThreads(final int asyncThreads) {
+        Util.rangeCheck(asyncThreads, 1, AsyncExchange.MAXIMUM_THREADS);
+        this.asyncThreads = asyncThreads;
+    }
+
+    /**
+     * Return the value defined by {@link #setCopierThreads(int)}
+     * 
+     * @return the number of threads that copy pages to volumes
+     */
+    public int getCopierThreads() {
+        return copierThreads;
+    }
+
+    /**
+     * <p>
+     * Set the maximum number of threads that write pages copied from the
+     * journal back to their volumes. When the journal falls behind, volumes on
+     * different devices are written concurrently, each device by one thread
+     * in ascending page order. Volumes on the same device are always written
+     * by one thread.
+     * </p>
+     * <p>
+     * Default value is {@value JournalManagerMXBean#DEFAULT_COPIER_THREADS}<br />
+     * Property name is {@value #COPIER_THREADS_PROPERTY_NAME}
+     * </p>
+     * 
+     * @param copierThreads
+     *            number of threads, between 1 and
+     *            {@value JournalManagerMXBean#MAXIMUM_COPIER_THREADS}
+     */
+    public void setCopierThreads(final int copierThreads) {
+        Util.rangeCheck(copierThreads, 1, JournalManager.MAXIMUM_COPIER_THREADS);
+        this.copierThreads = copierThreads;
+    }
+
     /**
      * Return the value defined by {@link #setIgnoreMissingVolumes(boolean)}
      * 
@@ -24,6 +24,7 @@ import com.persistit.ValueHelper.MVVValueWriter;
 import com.persistit.ValueHelper.RawValueWriter;
 import com.persistit.VolumeStructure.Chain;
 import com.persistit.exception.BufferSizeUnavailableException;
+import com.persistit.exception.ConversionException;
 import com.persistit.exception.CorruptVolumeException;
 import com.persistit.exception.InUseException;
 import com.persistit.exception.PersistitException;
@@ -46,6 +47,8 @@ import java.util.List;
 import static com.persistit.Buffer.EXACT_MASK;
 import static com.persistit.Buffer.HEADER_SIZE;
 import static com.persistit.Buffer.KEYBLOCK_LENGTH;
+import static com.persistit.Buffer.LONGREC_PREFIX_OFFSET;
+import static com.persistit.Buffer.LONGREC_PREFIX_SIZE;
 import static com.persistit.Buffer.MAX_VALID_PAGE_ADDR;
 import static com.persistit.Buffer.PAGE_TYPE_DATA;
 import static com.persistit.Buffer.PAGE_TYPE_INDEX_MIN;
@@ -302,6 +305,7 @@ public class Exchange implements ReadOnlyExchange {
   private final RawValueWriter _rawValueWriter = new RawValueWriter();
   private final MVVValueWriter _mvvValueWriter = new MVVValueWriter();
   private LongRecordHelper _longRecordHelper;
+  private ReadAhead.Stream _readAheadStream;
 
   private volatile Thread _thread;
 
@@ -1160,7 +1164,11 @@ public class Exchange implements ReadOnlyExchange {
 
   /**
    * Searches for the current key from top down and populates the level cache
-   * while doing so.
+   * while doing so. When searching for a data page, the descent starts at the
+   * lowest index page still held in the level cache that covers the key,
+   * rather than at the root. Since the search holds a reader claim on the
+   * tree, no index page can be removed while it proceeds, and a split to the
+   * right of the starting page is handled by walking right.
    * <p />
    * As a side effect, this method populates the root LevelCache instance
    * (_levelCache[0]) and establishes a claim on a Buffer at that level to
@@ -1180,14 +1188,25 @@ public class Exchange implements ReadOnlyExchange {
       throw new InUseException("Thread " + Thread.currentThread().getName() + " failed to get reader claim on "
         + _tree);
     }
-    checkLevelCache();
-
-    long pageAddress = _tree.getRootPageAddr();
-    long oldPageAddress = pageAddress;
-    Debug.$assert0.t(pageAddress != 0);
-
     try {
-      for (currentLevel = _cacheDepth; --currentLevel >= toLevel;) {
+      checkLevelCache();
+
+      long pageAddress = _tree.getRootPageAddr();
+      int startLevel = _cacheDepth;
+      if (toLevel == 0) {
+        for (int level = 1; level < _cacheDepth; level++) {
+          final long cachedPageAddress = coveringPage(key, _levelCache[level]);
+          if (cachedPageAddress != -1) {
+            pageAddress = cachedPageAddress;
+            startLevel = level + 1;
+            break;
+          }
+        }
+      }
+      long oldPageAddress = pageAddress;
+      Debug.$assert0.t(pageAddress != 0);
+
+      for (currentLevel = startLevel; --currentLevel >= toLevel;) {
         if (pageAddress <= 0) {
           corrupt("Volume " + _volume + " level=" + currentLevel + " page=" + pageAddress + " oldPage="
             + oldPageAddress + " key=<" + key.toString() + "> " + " invalid page address");
@@ -1243,6 +1262,29 @@ public class Exchange implements ReadOnlyExchange {
     }
   }
 
+  /**
+   * Determine whether the page held by a LevelCache is still valid and covers
+   * the supplied key, neither before its left edge nor after its right edge.
+   *
+   * @return the page address, or -1 if the page cannot be used as the
+   *         starting point of a search for the key
+   */
+  private long coveringPage(final Key key, final LevelCache lc) throws PersistitException {
+    final Buffer buffer = quicklyReclaimBuffer(lc, false);
+    if (buffer == null) {
+      return -1;
+    }
+    try {
+      final int foundAt = findKey(buffer, key, lc);
+      if (!buffer.isIndexPage() || buffer.isBeforeLeftEdge(foundAt) || buffer.isAfterRightEdge(foundAt)) {
+        return -1;
+      }
+      return lc._page;
+    } finally {
+      buffer.release();
+    }
+  }
+
   /**
    * Search for the key in the specified page (data or index). This method
    * gets and claims the identified page. If the key is found to be after the
@@ -1358,11 +1400,13 @@ public class Exchange implements ReadOnlyExchange {
     if (!isDirectoryExchange()) {
       _persistit.checkSuspended();
     }
+    final long start = _persistit.getLatencyMeter().start();
     throttle();
     int options = StoreOptions.WAIT;
     options |= (!_ignoreTransactions && _transaction.isActive()) ? StoreOptions.MVCC : 0;
     storeInternal(key, value, 0, options);
     _treeHolder.verifyReleased();
+    _persistit.getLatencyMeter().record(LatencyMeter.STORE, start);
 
     return this;
   }
@@ -1670,6 +1714,7 @@ public class Exchange implements ReadOnlyExchange {
           if (buffer.isDataPage()) {
             if (!keyExisted) {
               _tree.bumpChangeCount();
+              _tree.membershipAdded(key);
             }
             assert buffer.isDirty() : "Buffer must be dirty";
             committed = true;
@@ -2061,7 +2106,27 @@ public class Exchange implements ReadOnlyExchange {
    */
   public boolean traverse(final Direction direction, final boolean deep, final int minimumBytes)
     throws PersistitException {
-    return traverse(direction, deep, minimumBytes, 0, 0, null);
+    return traverse(direction, deep, minimumBytes, 0, null, 0, null);
+  }
+
+  /**
+   * Report a step of a traversal from a data page to its right sibling so
+   * that {@link ReadAhead} can recognize sequential access and read the
+   * following pages in the background.
+   *
+   * @param from
+   *            the page being left
+   * @param to
+   *            its right sibling
+   */
+  private void readAhead(final Buffer from, final Buffer to) {
+    final ReadAhead readAhead = _persistit.getReadAhead();
+    if (readAhead.isEnabled() && !_volume.isTemporary()) {
+      if (_readAheadStream == null) {
+        _readAheadStream = readAhead.newStream();
+      }
+      _readAheadStream.advance(_volume, from.getPageAddress(), to.getPageAddress(), to.getRightSibling());
+    }
   }
 
   /**
@@ -2072,13 +2137,27 @@ public class Exchange implements ReadOnlyExchange {
    *            Minimum valid key depth. If a key is found with a depth less
    *            than this value, <i>regardless of MVCC visibility</i>,
    *            <code>false</code> is immediately returned.
+   * @param matchKey
+   *            Key holding the fragment a found key must match; if
+   *            <code>null</code>, the supplied key is used
    * @param matchUpToIndex
    *            Length of minimum matching key fragment. If a key is found
    *            that does not match this many bytes, <i>regardless of MVCC
    *            visibility</i>, <code>false</code> is immediately returned.
    */
   private boolean traverse(final Direction direction, final boolean deep, final int minimumBytes,
-    final int minKeyDepth, final int matchUpToIndex, final TraverseVisitor visitor) throws PersistitException {
+    final int minKeyDepth, final Key matchKey, final int matchUpToIndex, final TraverseVisitor visitor)
+    throws PersistitException {
+    final long start = _persistit.getLatencyMeter().start();
+    final boolean result = traverseInternal(direction, deep, minimumBytes, minKeyDepth, matchKey, matchUpToIndex,
+      visitor);
+    _persistit.getLatencyMeter().record(LatencyMeter.TRAVERSE, start);
+    return result;
+  }
+
+  private boolean traverseInternal(final Direction direction, final boolean deep, final int minimumBytes,
+    final int minKeyDepth, final Key matchKey, final int matchUpToIndex, final TraverseVisitor visitor)
+    throws PersistitException {
     assertCorrectThread(true);
     _persistit.checkClosed();
     final Key spareKey = _spareKey1;
@@ -2184,6 +2263,7 @@ public class Exchange implements ReadOnlyExchange {
             if (rightSiblingPage > 0) {
               final Buffer rightSibling = _pool.get(_volume, rightSiblingPage, false, true,
                 _timeoutMillis);
+              readAhead(buffer, rightSibling);
               buffer.releaseTouched();
               //
               // Reset foundAtNext to point to the first key block
@@ -2229,7 +2309,8 @@ public class Exchange implements ReadOnlyExchange {
         if (minKeyDepth > 0 && _key.getDepth() < minKeyDepth) {
           stopDueToKeyDepth = true;
         } else if (matchUpToIndex > 0) {
-          stopDueToKeyDepth = spareKey.compareKeyFragment(_key, 0, matchUpToIndex) != 0;
+          final Key prefix = matchKey == null ? spareKey : matchKey;
+          stopDueToKeyDepth = prefix.compareKeyFragment(_key, 0, matchUpToIndex) != 0;
         } else {
           stopDueToKeyDepth = false;
         }
@@ -2440,7 +2521,7 @@ public class Exchange implements ReadOnlyExchange {
 
   public boolean traverse(final Direction direction, final boolean deep, final int minimumBytes,
     final TraverseVisitor visitor) throws PersistitException {
-    return traverse(direction, deep, Math.max(0, minimumBytes), 0, 0, visitor);
+    return traverse(direction, deep, Math.max(0, minimumBytes), 0, null, 0, visitor);
   }
 
   /**
@@ -2470,6 +2551,16 @@ public class Exchange implements ReadOnlyExchange {
    * otherwise find the next smaller key and return it.</dd>
    * </dl>
    * </p>
+   * <p>
+   * The traversal is a skip-scan: whenever it reaches a key the filter does not
+   * select, {@link KeyFilter#next(Key, Direction)} computes the smallest (or
+   * largest) key that could still be selected, using the terms at every depth,
+   * and the traversal re-seeks to it. A run of unselected keys therefore costs
+   * one visit rather than one per key, and the number of keys visited is
+   * roughly the number selected plus one for each distinct prefix ruled out by
+   * a leading term. Limiting the filter's depth with {@link KeyFilter#limit(int, int)} avoids
+   * visiting the ancestors of selected keys.
+   * </p>
    *
    * @param direction
    *            One of Key.GT, Key.GTEQ, Key.EQ, Key.LT or Key.LTEQ.
@@ -2517,11 +2608,13 @@ public class Exchange implements ReadOnlyExchange {
         }
         return false;
       }
-      if (keyFilter.isKeyPrefixFilter()) {
-        return traverse(direction, true, minBytes, keyFilter.getMinimumDepth(),
-          keyFilter.getKeyPrefixByteCount(), null);
-      }
-      final boolean matched = traverse(direction, true, minBytes);
+      //
+      // Every key selected by a key prefix filter begins with the prefix, so
+      // the traversal can stop at the first key that does not, visible or
+      // not, rather than visiting it and asking the filter for a successor.
+      //
+      final boolean matched = keyFilter.isKeyPrefixFilter() ? traverse(direction, true, minBytes, 0,
+        keyFilter.getKeyPrefix(), keyFilter.getKeyPrefixByteCount(), null) : traverse(direction, true, minBytes);
       totalVisited += _keysVisitedDuringTraverse;
       _keysVisitedDuringTraverse = totalVisited;
       if (!matched) {
@@ -2733,6 +2826,9 @@ public class Exchange implements ReadOnlyExchange {
    * @throws PersistitException
    */
   public boolean isValueDefined() throws PersistitException {
+    if (!_tree.mightContain(_key)) {
+      return false;
+    }
     return traverse(EQ, true, -1);
   }
 
@@ -2748,6 +2844,41 @@ public class Exchange implements ReadOnlyExchange {
     return store(_key, _value);
   }
 
+  /**
+   * <p>
+   * Insert a batch of key/value pairs into this <code>Exchange</code>'s
+   * <code>Tree</code>, replacing any existing values. This is equivalent to
+   * copying each key in turn into this <code>Exchange</code>'s
+   * <code>Key</code> and storing the corresponding value, but is intended for
+   * keys that are clustered: while successive keys fall on the same data page
+   * the page is found again from the level cache without searching, and when
+   * a key falls on a different page the search restarts from the lowest cached
+   * index page covering it rather than from the root of the tree.
+   * </p>
+   * <p>
+   * The keys must be in ascending order. On return this <code>Exchange</code>'s
+   * <code>Key</code> holds the last key of the batch.
+   * </p>
+   *
+   * @param keys
+   *            the keys, in ascending order
+   * @param values
+   *            the values, one per key
+   * @return This <code>Exchange</code> to permit method call chaining
+   * @throws IllegalArgumentException
+   *             if the lists differ in size or the keys are not in ascending
+   *             order
+   * @throws PersistitException
+   */
+  public Exchange store(final List<Key> keys, final List<Value> values) throws PersistitException {
+    checkBatch(keys, values);
+    for (int index = 0; index < keys.size(); index++) {
+      keys.get(index).copyTo(_key);
+      store(_key, values.get(index));
+    }
+    return this;
+  }
+
   /**
    * Invoke {@link #lock(Key, long)} with the current key and a default
    * timeout value of
@@ -2964,6 +3095,51 @@ public class Exchange implements ReadOnlyExchange {
     return fetch(value, Integer.MAX_VALUE);
   }
 
+  /**
+   * <p>
+   * Fetch the values associated with a batch of keys. This is equivalent to
+   * copying each key in turn into this <code>Exchange</code>'s
+   * <code>Key</code> and invoking {@link #fetch(Value)} with the corresponding
+   * <code>Value</code>, and is efficient for clustered keys in the same way as
+   * {@link #store(List, List)}. A value whose key is not present is left
+   * undefined.
+   * </p>
+   * <p>
+   * The keys must be in ascending order. On return this <code>Exchange</code>'s
+   * <code>Key</code> holds the last key of the batch.
+   * </p>
+   *
+   * @param keys
+   *            the keys, in ascending order
+   * @param values
+   *            the values into which the database values are fetched, one per
+   *            key
+   * @return This <code>Exchange</code> to permit method call chaining
+   * @throws IllegalArgumentException
+   *             if the lists differ in size or the keys are not in ascending
+   *             order
+   * @throws PersistitException
+   */
+  public Exchange fetch(final List<Key> keys, final List<Value> values) throws PersistitException {
+    checkBatch(keys, values);
+    for (int index = 0; index < keys.size(); index++) {
+      keys.get(index).copyTo(_key);
+      fetch(values.get(index), Integer.MAX_VALUE);
+    }
+    return this;
+  }
+
+  private void checkBatch(final List<Key> keys, final List<Value> values) {
+    if (keys.size() != values.size()) {
+      throw new IllegalArgumentException("Batch has " + keys.size() + " keys and " + values.size() + " values");
+    }
+    for (int index = 1; index < keys.size(); index++) {
+      if (keys.get(index - 1).compareTo(keys.get(index)) >= 0) {
+        throw new IllegalArgumentException("Batch keys are not in ascending order at index " + index);
+      }
+    }
+  }
+
   /**
    * Fetch a single version of a value from a <code>Buffer</code> that is
    * assumed, but not required, to be an MVV. The correct version is
@@ -3055,10 +3231,105 @@ public class Exchange implements ReadOnlyExchange {
     if (minimumBytes < 0) {
       minimumBytes = 0;
     }
-    searchAndFetchInternal(value, minimumBytes);
+    final long start = _persistit.getLatencyMeter().start();
+    if (_tree.mightContain(_key)) {
+      searchAndFetchInternal(value, minimumBytes);
+    } else {
+      value.clear();
+      _volume.getStatistics().bumpFetchCounter();
+      _tree.getStatistics().bumpFetchCounter();
+    }
+    _persistit.getLatencyMeter().record(LatencyMeter.FETCH, start);
     return this;
   }
 
+  /**
+   * <p>
+   * Opens a stream over the elements of the <code>byte</code> array stored
+   * under the current key, as by {@link Value#put(Object)} with a
+   * <code>byte[]</code> argument or by {@link #storeOutputStream()}. Unlike
+   * {@link #fetch()}, a value that is too large to fit in a data page is not
+   * copied into a <code>Value</code>: its pages are read one at a time as the
+   * stream is consumed, and {@link LongRecordInputStream#skip(long)} passes
+   * over pages without copying them.
+   * </p>
+   * <p>
+   * The stream delivers the version of the value visible to this
+   * <code>Exchange</code> when this method is called, even if the value is
+   * subsequently replaced or removed. The stream must be closed to release
+   * the pages of a version that has since been replaced.
+   * </p>
+   *
+   * @return the stream, or <code>null</code> if there is no value stored
+   *         under the key
+   * @throws ConversionException
+   *             if the value is not a <code>byte</code> array
+   * @throws PersistitException
+   */
+  public LongRecordInputStream fetchInputStream() throws PersistitException {
+    assertCorrectThread(true);
+    _persistit.checkClosed();
+    _key.testValidForStoreAndFetch(_volume.getPageSize());
+
+    final Value value = _spareValue;
+    Buffer buffer = null;
+    try {
+      final int foundAt = search(_key, false);
+      buffer = _levelCache[0]._buffer;
+      final boolean visible = fetchFromBufferInternal(buffer, value, foundAt, -1);
+      _volume.getStatistics().bumpFetchCounter();
+      _tree.getStatistics().bumpFetchCounter();
+      if (!visible || !value.isDefined()) {
+        return null;
+      }
+      final byte[] bytes = value.getEncodedBytes();
+      final int size = value.getEncodedSize();
+      if (isLongRecord(value)) {
+        if (!Value.isByteArray(bytes, LONGREC_PREFIX_OFFSET, LONGREC_PREFIX_SIZE)) {
+          throw new ConversionException("Value is not a byte array");
+        }
+        final long page = Buffer.decodeLongRecordDescriptorPointer(bytes, 0);
+        /*
+         * Pin while the data page is still claimed so the chain cannot be
+         * deallocated before the stream has finished reading it.
+         */
+        _volume.getStructure().pinLongRecord(page);
+        return new LongRecordInputStream(_persistit, _volume, bytes, LONGREC_PREFIX_OFFSET, LONGREC_PREFIX_SIZE,
+          Buffer.decodeLongRecordDescriptorSize(bytes, 0), page, _timeoutMillis);
+      }
+      if (!Value.isByteArray(bytes, 0, size)) {
+        throw new ConversionException("Value is not a byte array");
+      }
+      return new LongRecordInputStream(_persistit, _volume, bytes, 0, size, size, 0, _timeoutMillis);
+    } finally {
+      if (buffer != null) {
+        buffer.releaseTouched();
+      }
+      value.clear();
+      _treeHolder.verifyReleased();
+    }
+  }
+
+  /**
+   * Opens a stream that stores the bytes written to it as a <code>byte</code>
+   * array under the current key when the stream is closed. The bytes are
+   * written to the pages of the volume as each page fills rather than being
+   * accumulated in a <code>Value</code>, so a value of several megabytes can
+   * be stored with bounded memory. See {@link LongRecordOutputStream}.
+   *
+   * @return the stream
+   * @throws PersistitException
+   */
+  public LongRecordOutputStream storeOutputStream() throws PersistitException {
+    assertCorrectThread(true);
+    _persistit.checkClosed();
+    if (_volume.isReadOnly()) {
+      throw new ReadOnlyVolumeException(_volume.toString());
+    }
+    _key.testValidForStoreAndFetch(_volume.getPageSize());
+    return new LongRecordOutputStream(this, _key, maxValueSize(_key.getEncodedSize()));
+  }
+
   /**
    * Helper for fully pulling a value out of a Buffer. That is, if the value
    * is a LONG_RECORD it will also be fetched.
@@ -3109,9 +3380,13 @@ public class Exchange implements ReadOnlyExchange {
     if (!_ignoreMVCCFetch) {
       /*
        * Must fetch entire record as it *could* be an MVV, and reading
-       * partial MVV is not supported (need all for correct version)
+       * partial MVV is not supported (need all for correct version). A
+       * caller asking for just the descriptor only needs that when it is
+       * an MVV.
        */
-      fetchFixupForLongRecords(value, Integer.MAX_VALUE);
+      if (minimumBytes >= 0 || isLongMVV(value)) {
+        fetchFixupForLongRecords(value, Integer.MAX_VALUE);
+      }
       if (MVV.isArrayMVV(value.getEncodedBytes(), 0, value.getEncodedSize())) {
         visible = mvccFetch(value, minimumBytes);
         fetchFixupForLongRecords(value, minimumBytes);
@@ -3189,7 +3464,7 @@ public class Exchange implements ReadOnlyExchange {
   public boolean hasChildren() throws PersistitException {
     _key.copyTo(_spareKey2);
     final int size = _key.getEncodedSize();
-    final boolean result = traverse(GT, true, 0, _key.getDepth() + 1, size, null);
+    final boolean result = traverse(GT, true, 0, _key.getDepth() + 1, null, size, null);
     _spareKey2.copyTo(_key);
     return result;
   }
@@ -3317,8 +3592,13 @@ public class Exchange implements ReadOnlyExchange {
       }
     }
 
+    final long start = _persistit.getLatencyMeter().start();
     final boolean result = removeKeyRangeInternal(_spareKey3, _spareKey4, fetchFirst);
+    if (result) {
+      _tree.membershipRemoved(selection != EQ);
+    }
     _treeHolder.verifyReleased();
+    _persistit.getLatencyMeter().record(LatencyMeter.REMOVE, start);
     return result;
   }
 
@@ -3362,8 +3642,13 @@ public class Exchange implements ReadOnlyExchange {
       throw new IllegalArgumentException("Second key must be greater than the first");
     }
 
+    final long start = _persistit.getLatencyMeter().start();
     final boolean result = removeKeyRangeInternal(_spareKey3, _spareKey4, false);
+    if (result) {
+      _tree.membershipRemoved(true);
+    }
     _treeHolder.verifyReleased();
+    _persistit.getLatencyMeter().record(LatencyMeter.REMOVE, start);
     return result;
   }
 
@@ -0,0 +1,269 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import static com.persistit.util.Util.NS_PER_MS;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.persistit.exception.PersistitException;
+import com.persistit.exception.PersistitInterruptedException;
+
+/**
+ * <p>
+ * Group commit pipeline used by transactions committed with
+ * {@link Transaction.CommitPolicy#GROUP}. Committing threads queue on a lock.
+ * The first thread to find no force operation in progress becomes the
+ * <i>leader</i>: it allocates a timestamp, forces the journal and then wakes
+ * every waiting <i>follower</i> whose transaction was flushed to the journal
+ * write buffer before that timestamp. Followers that arrive while the leader is
+ * forcing wait for the next batch, which is led by one of them as soon as the
+ * current force completes. Under load every force therefore covers all the
+ * commits that arrived during the previous one, and a lone committer never
+ * waits for anything but its own I/O.
+ * </p>
+ * <p>
+ * When the previous batch contained more than one commit the leader may also
+ * pause briefly before forcing, to let more of the expected committers join.
+ * The pause is a fraction of the measured force latency (an exponentially
+ * weighted moving average), never more than the caller's stall time, and ends
+ * as soon as as many committers as were in the previous batch have joined.
+ * </p>
+ */
+class GroupCommit {
+
+    /**
+     * Weight, as a power of two divisor, of each new force latency sample in
+     * the moving average
+     */
+    private final static int LATENCY_SMOOTHING_SHIFT = 3;
+
+    /**
+     * The batching window is the average force latency divided by this
+     * value
+     */
+    private final static int WINDOW_DIVISOR = 2;
+
+    private final JournalManager _journal;
+
+    private final Persistit _persistit;
+
+    private final ReentrantLock _lock = new ReentrantLock();
+
+    /**
+     * Signaled when a batch completes
+     */
+    private final Condition _forced = _lock.newCondition();
+
+    /**
+     * Signaled when a committer joins while the leader is in its batching
+     * window
+     */
+    private final Condition _joined = _lock.newCondition();
+
+    /*
+     * The following fields are guarded by _lock
+     */
+    private boolean _leading;
+
+    private int _waiting;
+
+    private long _durableTimestamp;
+
+    private int _lastBatchSize;
+
+    private PersistitException _failure;
+
+    private long _failureTimestamp;
+
+    private volatile long _averageForceNanos;
+
+    private volatile int _maximumBatchSize;
+
+    private final AtomicLong _batchCount = new AtomicLong();
+
+    private final AtomicLong _commitCount = new AtomicLong();
+
+    private final AtomicLong _waitNanos = new AtomicLong();
+
+    GroupCommit(final JournalManager journal, final Persistit persistit) {
+        _journal = journal;
+        _persistit = persistit;
+    }
+
+    /**
+     * Wait until every journal record written before
+     * <code>flushedTimestamp</code> was allocated is durable, either as a
+     * follower in a batch forced by another thread or by forcing the journal as
+     * the leader of a new batch.
+     *
+     * @param flushedTimestamp
+     *            a timestamp taken after the transaction buffer belonging to
+     *            the current transaction has been flushed
+     * @param stallTime
+     *            upper bound in milliseconds on the time a leader waits for
+     *            other committers to join its batch
+     * @throws PersistitException
+     *             if the force operation covering this commit failed
+     */
+    void waitForDurability(final long flushedTimestamp, final long stallTime) throws PersistitException {
+        final long start = System.nanoTime();
+        _lock.lock();
+        try {
+            _waiting++;
+            try {
+                while (true) {
+                    if (_failure != null && _failureTimestamp > flushedTimestamp) {
+                        throw _failure;
+                    }
+                    if (_durableTimestamp > flushedTimestamp) {
+                        break;
+                    }
+                    if (!_leading) {
+                        lead(stallTime);
+                    } else {
+                        _joined.signal();
+                        _forced.awaitUninterruptibly();
+                    }
+                }
+            } finally {
+                _waiting--;
+            }
+        } finally {
+            _lock.unlock();
+        }
+        _commitCount.incrementAndGet();
+        _waitNanos.addAndGet(System.nanoTime() - start);
+    }
+
+    /**
+     * Lead one batch. Called and returns with <code>_lock</code> held; the
+     * lock is released while the journal is being forced.
+     */
+    private void lead(final long stallTime) throws PersistitInterruptedException {
+        _leading = true;
+        try {
+            long remaining = window(stallTime);
+            while (remaining > 0 && _waiting < _lastBatchSize) {
+                try {
+                    remaining = _joined.awaitNanos(remaining);
+                } catch (final InterruptedException e) {
+                    throw new PersistitInterruptedException(e);
+                }
+            }
+            final int batchSize = _waiting;
+            PersistitException failure = null;
+            long timestamp;
+            _lock.unlock();
+            try {
+                /*
+                 * Every member of the batch allocated its flushedTimestamp
+                 * before joining, so this timestamp is larger than all of
+                 * them, and every record they wrote precedes it in the journal
+                 * write buffer.
+                 */
+                timestamp = _persistit.getTimestampAllocator().updateTimestamp();
+                final long startTime = System.nanoTime();
+                try {
+                    _journal.force();
+                } catch (final PersistitException e) {
+                    failure = e;
+                }
+                final long elapsed = System.nanoTime() - startTime;
+                final long average = _averageForceNanos;
+                _averageForceNanos = average == 0 ? elapsed : average
+                        + ((elapsed - average) >> LATENCY_SMOOTHING_SHIFT);
+            } finally {
+                _lock.lock();
+            }
+            if (failure == null) {
+                _durableTimestamp = Math.max(_durableTimestamp, timestamp);
+            } else {
+                _failure = failure;
+                _failureTimestamp = timestamp;
+            }
+            _lastBatchSize = batchSize;
+            _batchCount.incrementAndGet();
+            if (batchSize > _maximumBatchSize) {
+                _maximumBatchSize = batchSize;
+            }
+        } finally {
+            _leading = false;
+            _forced.signalAll();
+        }
+    }
+
+    /**
+     * @param stallTime
+     *            upper bound in milliseconds
+     * @return the time in nanoseconds a new leader should wait for other
+     *         committers before forcing the journal
+     */
+    private long window(final long stallTime) {
+        if (_lastBatchSize <= 1 || _waiting >= _lastBatchSize) {
+            return 0;
+        }
+        return Math.min(_averageForceNanos / WINDOW_DIVISOR, stallTime * NS_PER_MS);
+    }
+
+    /**
+     * @return number of batches forced
+     */
+    long getBatchCount() {
+        return _batchCount.get();
+    }
+
+    /**
+     * @return number of commits made durable by group commit
+     */
+    long getCommitCount() {
+        return _commitCount.get();
+    }
+
+    /**
+     * @return largest number of commits covered by a single force
+     */
+    int getMaximumBatchSize() {
+        return _maximumBatchSize;
+    }
+
+    /**
+     * @return average number of commits covered by a single force
+     */
+    double getAverageBatchSize() {
+        final long batches = _batchCount.get();
+        return batches == 0 ? 0.0 : (double) _commitCount.get() / batches;
+    }
+
+    /**
+     * @return aggregate time in milliseconds committers spent waiting
+     */
+    long getWaitTime() {
+        return TimeUnit.NANOSECONDS.toMillis(_waitNanos.get());
+    }
+
+    /**
+     * @return moving average of the time in microseconds taken to force the
+     *         journal
+     */
+    long getAverageForceTime() {
+        return TimeUnit.NANOSECONDS.toMicros(_averageForceNanos);
+    }
+}
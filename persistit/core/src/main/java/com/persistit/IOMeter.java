@@ -73,8 +73,9 @@ class IOMeter implements IOMeterMXBean {
     private final static int EVICT_PAGE_FROM_POOL = 8;
     private final static int FLUSH_JOURNAL = 9;
     private final static int GET_PAGE = 10;
+    private final static int READ_AHEAD = 11;
 
-    private final static int ITEM_COUNT = 11;
+    private final static int ITEM_COUNT = 12;
 
     private long _quiescentIOthreshold = DEFAULT_QUIESCENT_IO_THRESHOLD_KBYTES_PER_SEC;
 
@@ -357,6 +358,11 @@ class IOMeter implements IOMeterMXBean {
         log(GET_PAGE, volume, pageAddress, size, 0, bufferIndex);
     }
 
+    public void chargeReadAhead(final Volume volume, final long pageAddress, final int size, final int bufferIndex) {
+        log(READ_AHEAD, volume, pageAddress, size, 0, bufferIndex);
+        charge(size, READ_AHEAD);
+    }
+
     @Override
     public long totalOperations(final String opName) {
         return totalOperations(op(opName));
@@ -405,7 +411,8 @@ class IOMeter implements IOMeterMXBean {
      * during a recent time interval. This measurement does not include journal
      * copying because this method is used by the journal copier to determine
      * how frequently to schedule its own activities without interfering
-     * severely with current operational load.
+     * severely with current operational load. Read-ahead is also excluded
+     * because the underlying reads are already charged as RV or RJ.
      * 
      * @return
      */
@@ -420,7 +427,7 @@ class IOMeter implements IOMeterMXBean {
                 break;
             }
             for (int item = 0; item < ITEM_COUNT; item++) {
-                if (item != COPY_PAGE_TO_VOLUME) {
+                if (item != COPY_PAGE_TO_VOLUME && item != READ_AHEAD) {
                     charge += _counters[item][bucket].sum();
                 }
             }
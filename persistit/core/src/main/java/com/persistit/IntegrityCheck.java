@@ -17,7 +17,20 @@
 package com.persistit;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.persistit.Buffer.VerifyVisitor;
 import com.persistit.CLI.Arg;
@@ -25,6 +38,8 @@ import com.persistit.CLI.Cmd;
 import com.persistit.CleanupManager.CleanupIndexHole;
 import com.persistit.exception.InUseException;
 import com.persistit.exception.PersistitException;
+import com.persistit.exception.PersistitInterruptedException;
+import com.persistit.exception.TaskEndedException;
 import com.persistit.util.Debug;
 import com.persistit.util.Util;
 
@@ -47,6 +62,18 @@ import com.persistit.util.Util;
  * <code>Tree</code> while <code>IntegrityCheck</code> is reviewing its
  * structure, spurious faults are likely to be detected.
  * </p>
+ * <p>
+ * By default each <code>Tree</code> is checked by a single thread. When
+ * {@link #setThreads(int)} specifies more than one thread, the index pages near
+ * the root of each tree having more than one level are checked first and the
+ * subtrees below them are then divided into contiguous key ranges which are
+ * checked concurrently. The sibling relationships across the boundaries
+ * between ranges are verified after all ranges are complete, so the faults
+ * detected are the same as in a single-threaded check.
+ * {@link #setPagesPerSecond(int)} limits the rate at which pages not already in
+ * the buffer pool are read so that a check of a large volume can run alongside
+ * other work.
+ * </p>
  * 
  * @version 1.0
  */
@@ -55,12 +82,14 @@ public class IntegrityCheck extends Task {
     final static int MAX_HOLES_TO_FIX = 1000;
     final static int MAX_WALK_RIGHT = 1000;
     final static int MAX_PRUNING_ERRORS = 50;
+    final static int MAX_THREADS = 64;
+    final static int RANGES_PER_THREAD = 4;
 
     private Volume _currentVolume;
     private Tree _currentTree;
     private LongBitSet _usedPageBits = new LongBitSet();
     private long _totalPages = 0;
-    private long _pagesVisited = 0;
+    private AtomicLong _pagesVisited = new AtomicLong();
 
     private final Counters _counters = new Counters();
     private final Buffer[] _edgeBuffers = new Buffer[Exchange.MAX_TREE_DEPTH];
@@ -69,6 +98,27 @@ public class IntegrityCheck extends Task {
     private final Key[] _edgeKeys = new Key[Exchange.MAX_TREE_DEPTH];
     private int _treeDepth = -1;
 
+    private int _threads = 1;
+    private int _pagesPerSecond = 0;
+    private long _nextPageTime;
+    /*
+     * In parallel mode, the level at which subtrees are collected to be
+     * checked concurrently, and the collected subtrees
+     */
+    private int _collectLevel = -1;
+    private List<Subtree> _subtrees;
+    /*
+     * Set only in the workers that check ranges of subtrees concurrently
+     */
+    private IntegrityCheck _parent;
+    /*
+     * Set in the parent when it stops or expires while workers are running
+     */
+    private volatile boolean _workersEnded;
+    private final long[] _firstPages;
+    private final Key[] _firstKeys;
+    private final long[] _lastPages;
+
     private TreeSelector _treeSelector;
     private boolean _suspendUpdates;
     private boolean _fixHoles;
@@ -121,6 +171,23 @@ public class IntegrityCheck extends Task {
             _garbagePageCount = counters._garbagePageCount;
         }
 
+        void add(final Counters counters) {
+            _indexPageCount += counters._indexPageCount;
+            _dataPageCount += counters._dataPageCount;
+            _indexBytesInUse += counters._indexBytesInUse;
+            _dataBytesInUse += counters._dataBytesInUse;
+            _longRecordPageCount += counters._longRecordPageCount;
+            _longRecordBytesInUse += counters._longRecordBytesInUse;
+            _indexHoleCount += counters._indexHoleCount;
+            _mvvPageCount += counters._mvvPageCount;
+            _mvvCount += counters._mvvCount;
+            _mvvOverhead += counters._mvvOverhead;
+            _mvvAntiValues += counters._mvvAntiValues;
+            _pruningErrorCount += counters._pruningErrorCount;
+            _prunedPageCount += counters._prunedPageCount;
+            _garbagePageCount += counters._garbagePageCount;
+        }
+
         void difference(final Counters counters) {
             _indexPageCount = counters._indexPageCount - _indexPageCount;
             _dataPageCount = counters._dataPageCount - _dataPageCount;
@@ -178,6 +245,28 @@ public class IntegrityCheck extends Task {
         }
     };
 
+    /**
+     * A child page collected in parallel mode, together with the key and
+     * address of the index record that points to it.
+     */
+    private static class Subtree {
+        private final byte[] _keyBytes;
+        private final long _parent;
+        private final long _page;
+
+        Subtree(final Key key, final long parent, final long page) {
+            _keyBytes = Arrays.copyOf(key.getEncodedBytes(), key.getEncodedSize());
+            _parent = parent;
+            _page = page;
+        }
+
+        Key key(final Key key) {
+            System.arraycopy(_keyBytes, 0, key.getEncodedBytes(), 0, _keyBytes.length);
+            key.setEncodedSize(_keyBytes.length);
+            return key;
+        }
+    }
+
     private final VerifyVisitor _visitor = new VerifyVisitor() {
 
         @Override
@@ -197,6 +286,13 @@ public class IntegrityCheck extends Task {
         }
     };
 
+    public static IntegrityCheck icheck(final String treeSelectorString, final boolean regex,
+            final boolean dontSuspendUpdates, final boolean fixHoles, final boolean prune,
+            final boolean pruneAndClear, final boolean verbose, final boolean csv) throws Exception {
+        return icheck(treeSelectorString, regex, dontSuspendUpdates, fixHoles, prune, pruneAndClear, verbose, csv, 1,
+                0);
+    }
+
     @Cmd("icheck")
     public static IntegrityCheck icheck(
             @Arg("trees|string|Tree selector: Volumes/Trees to check") final String treeSelectorString,
@@ -205,7 +301,9 @@ public class IntegrityCheck extends Task {
             @Arg("_flag|h|Fix index holes") final boolean fixHoles,
             @Arg("_flag|p|Prune MVV values") final boolean prune,
             @Arg("_flag|P|Prune MVV values and clear TransactionIndex") final boolean pruneAndClear,
-            @Arg("_flag|v|Verbose results") final boolean verbose, @Arg("_flag|c|Format as CSV") final boolean csv)
+            @Arg("_flag|v|Verbose results") final boolean verbose, @Arg("_flag|c|Format as CSV") final boolean csv,
+            @Arg("threads|int:1:1:64|Number of threads checking each tree") final int threads,
+            @Arg("rate|int:0:0:1000000|Maximum pages read per second, 0 for no limit") final int pagesPerSecond)
             throws Exception {
         final IntegrityCheck task = new IntegrityCheck();
         task._treeSelector = TreeSelector.parseSelector(treeSelectorString, regex, '\\');
@@ -214,6 +312,8 @@ public class IntegrityCheck extends Task {
         task._pruneAndClear = pruneAndClear;
         task._suspendUpdates = !dontSuspendUpdates;
         task._csv = csv;
+        task._threads = threads;
+        task._pagesPerSecond = pagesPerSecond;
         task.setMessageLogVerbosity(verbose ? LOG_VERBOSE : LOG_NORMAL);
         return task;
     }
@@ -222,11 +322,36 @@ public class IntegrityCheck extends Task {
      * Package-private constructor for use in a {@link Task}.
      */
     IntegrityCheck() {
+        _firstPages = null;
+        _firstKeys = null;
+        _lastPages = null;
     }
 
     public IntegrityCheck(final Persistit persistit) {
         super(persistit);
         _persistit = persistit;
+        _firstPages = null;
+        _firstKeys = null;
+        _lastPages = null;
+    }
+
+    /**
+     * Constructs a worker that checks a range of the subtrees collected by
+     * the supplied parent. The worker shares the parent's record of visited
+     * pages and its progress counter, and posts messages through the parent.
+     */
+    private IntegrityCheck(final IntegrityCheck parent) {
+        super(parent._persistit);
+        _parent = parent;
+        _currentVolume = parent._currentVolume;
+        _currentTree = parent._currentTree;
+        _treeDepth = parent._treeDepth;
+        _usedPageBits = parent._usedPageBits;
+        _pagesVisited = parent._pagesVisited;
+        _prune = parent._prune;
+        _firstPages = new long[Exchange.MAX_TREE_DEPTH];
+        _firstKeys = new Key[Exchange.MAX_TREE_DEPTH];
+        _lastPages = new long[Exchange.MAX_TREE_DEPTH];
     }
 
     @Override
@@ -448,6 +573,44 @@ public class IntegrityCheck extends Task {
         _prune = prune;
     }
 
+    /**
+     * @return the number of threads used to check each tree
+     */
+    public int getThreads() {
+        return _threads;
+    }
+
+    /**
+     * Set the number of threads used to check each tree. The default is one.
+     * A tree consisting of a single page is always checked by one thread.
+     *
+     * @param threads
+     *            Number of threads, between 1 and {@value #MAX_THREADS}
+     */
+    public void setThreads(final int threads) {
+        _threads = Util.rangeCheck(threads, 1, MAX_THREADS);
+    }
+
+    /**
+     * @return the maximum rate at which pages are read from disk, or zero if
+     *         the rate is not limited
+     */
+    public int getPagesPerSecond() {
+        return _pagesPerSecond;
+    }
+
+    /**
+     * Limit the rate at which pages not already present in the buffer pool
+     * are read. The limit applies to all threads of the check together. The
+     * default is zero, meaning no limit.
+     *
+     * @param pagesPerSecond
+     *            Maximum pages read per second, or zero for no limit
+     */
+    public void setPagesPerSecond(final int pagesPerSecond) {
+        _pagesPerSecond = Util.rangeCheck(pagesPerSecond, 0, Integer.MAX_VALUE);
+    }
+
     /**
      * Indicates whether fault have been detected
      * 
@@ -590,7 +753,7 @@ public class IntegrityCheck extends Task {
         if (_totalPages == 0) {
             return 1;
         } else {
-            return ((double) _pagesVisited) / ((double) _totalPages);
+            return ((double) _pagesVisited.get()) / ((double) _totalPages);
         }
     }
 
@@ -619,7 +782,7 @@ public class IntegrityCheck extends Task {
         if (_currentVolume == null) {
             return null;
         } else {
-            return _pagesVisited + "/" + _totalPages + " (" + resourceName() + ")";
+            return _pagesVisited.get() + "/" + _totalPages + " (" + resourceName() + ")";
         }
     }
 
@@ -735,7 +898,7 @@ public class IntegrityCheck extends Task {
         //
         BitSet _bitSet = new BitSet();
 
-        public void set(final long index, final boolean value) {
+        public synchronized void set(final long index, final boolean value) {
             if (index > Integer.MAX_VALUE) {
                 throw new RuntimeException("Large page addresses not implemented yet.");
             }
@@ -745,12 +908,23 @@ public class IntegrityCheck extends Task {
                 _bitSet.clear((int) index);
         }
 
-        public boolean get(final long index) {
+        public synchronized boolean get(final long index) {
             if (index > Integer.MAX_VALUE) {
                 throw new RuntimeException("Large page addresses not implemented yet.");
             }
             return _bitSet.get((int) index);
         }
+
+        /**
+         * Set the bit at the specified index.
+         *
+         * @return the previous value of the bit
+         */
+        public synchronized boolean getAndSet(final long index) {
+            final boolean value = get(index);
+            set(index, true);
+            return value;
+        }
     }
 
     /**
@@ -764,7 +938,7 @@ public class IntegrityCheck extends Task {
         _currentTree = null;
         _usedPageBits = new LongBitSet();
         _totalPages = 0;
-        _pagesVisited = 0;
+        _pagesVisited.set(0);
     }
 
     /**
@@ -837,19 +1011,23 @@ public class IntegrityCheck extends Task {
         try {
             try {
                 initTree(tree);
+                if (_threads > 1 && _treeDepth > 1) {
+                    //
+                    // Check at most two index levels nearest the root here
+                    // and collect the pages below them to check concurrently.
+                    //
+                    _collectLevel = Math.max(0, _treeDepth - 3);
+                    _subtrees = new ArrayList<Subtree>();
+                }
                 checkTree(new Key(_persistit), 0, tree.getRootPageAddr(), _treeDepth - 1, tree);
-            } finally {
-                //
-                // Release all the buffers.
-                //
-                for (int index = 0; index < Exchange.MAX_TREE_DEPTH; index++) {
-                    final Buffer buffer = _edgeBuffers[index];
-                    if (buffer != null) {
-                        buffer.release();
-                        _edgeBuffers[index] = null;
-                        _edgePages[index] = 0;
-                    }
+                if (_subtrees != null && !_subtrees.isEmpty()) {
+                    releaseEdgeBuffers();
+                    checkSubtrees(tree);
                 }
+            } finally {
+                releaseEdgeBuffers();
+                _collectLevel = -1;
+                _subtrees = null;
                 _currentTree = null;
             }
         } finally {
@@ -882,6 +1060,159 @@ public class IntegrityCheck extends Task {
         return faults == 0;
     }
 
+    /**
+     * Release all the buffers.
+     */
+    private void releaseEdgeBuffers() {
+        for (int index = 0; index < Exchange.MAX_TREE_DEPTH; index++) {
+            final Buffer buffer = _edgeBuffers[index];
+            if (buffer != null) {
+                buffer.release();
+                _edgeBuffers[index] = null;
+                _edgePages[index] = 0;
+            }
+        }
+    }
+
+    /**
+     * Checks the collected subtrees of the current tree in contiguous ranges
+     * on a pool of up to <code>_threads</code> threads, each range by its own
+     * worker. The workers' counters, faults and holes are then merged, and
+     * finally the sibling links crossing each boundary between adjacent ranges
+     * are checked as they would have been by a single-threaded check.
+     */
+    private void checkSubtrees(final Tree tree) throws PersistitException {
+        /*
+         * Each worker may claim a buffer at every level it checks plus two
+         * more while walking right; leave at least half of the buffer pool
+         * to other threads.
+         */
+        final int maxThreads = _currentVolume.getPool().getBufferCount() / (2 * (_collectLevel + 3));
+        final int threads = Math.max(1, Math.min(_threads, maxThreads));
+        final int count = Math.min(_subtrees.size(), threads * RANGES_PER_THREAD);
+        final IntegrityCheck[] workers = new IntegrityCheck[count];
+        final AtomicInteger counter = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, count),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(final Runnable r) {
+                        final Thread thread = new Thread(r, "INTEGRITY_CHECK:" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        Exception exception = null;
+        try {
+            final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int index = 0; index < count; index++) {
+                final List<Subtree> range = _subtrees.subList(_subtrees.size() * index / count, _subtrees.size()
+                        * (index + 1) / count);
+                final IntegrityCheck worker = new IntegrityCheck(this);
+                workers[index] = worker;
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        worker.checkRange(range, _collectLevel, tree);
+                        return null;
+                    }
+                }));
+            }
+            for (final Future<Void> future : futures) {
+                try {
+                    awaitWorker(future);
+                } catch (final ExecutionException e) {
+                    if (exception == null) {
+                        exception = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                        /*
+                         * Abandon the ranges that have not started
+                         */
+                        for (final Runnable r : executor.shutdownNow()) {
+                            ((Future<?>) r).cancel(false);
+                        }
+                    }
+                } catch (final CancellationException e) {
+                    // abandoned after an earlier failure
+                } catch (final InterruptedException e) {
+                    executor.shutdownNow();
+                    throw new PersistitInterruptedException(e);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        for (final IntegrityCheck worker : workers) {
+            _counters.add(worker._counters);
+            for (final Fault fault : worker._faults) {
+                if (_faults.size() < MAX_FAULTS) {
+                    _faults.add(fault);
+                }
+            }
+            for (final CleanupIndexHole hole : worker._holes) {
+                if (_holes.size() < MAX_HOLES_TO_FIX) {
+                    _holes.add(hole);
+                }
+            }
+        }
+        if (exception instanceof PersistitException) {
+            throw (PersistitException) exception;
+        } else if (exception instanceof RuntimeException) {
+            throw (RuntimeException) exception;
+        } else if (exception != null) {
+            throw new PersistitException(exception);
+        }
+
+        for (int index = 1; index < count; index++) {
+            checkBoundary(workers[index - 1], workers[index], tree);
+        }
+    }
+
+    /**
+     * Checks a range of subtrees in a worker. On completion the final page and
+     * key at each level remain recorded in <code>_lastPages</code> and
+     * <code>_edgeKeys</code> for {@link #checkBoundary}.
+     */
+    private void checkRange(final List<Subtree> range, final int level, final Tree tree) throws PersistitException {
+        final Key key = new Key(_persistit);
+        try {
+            for (final Subtree subtree : range) {
+                _edgePages[level + 1] = subtree._parent;
+                checkTree(subtree.key(key), subtree._parent, subtree._page, level, tree);
+            }
+            System.arraycopy(_edgePages, 0, _lastPages, 0, level + 1);
+        } finally {
+            releaseEdgeBuffers();
+        }
+    }
+
+    /**
+     * Walks right from the last page checked by the <code>left</code> worker
+     * at each level to the first page checked by the <code>right</code>
+     * worker, detecting holes and out-of-sequence keys between them.
+     */
+    private void checkBoundary(final IntegrityCheck left, final IntegrityCheck right, final Tree tree)
+            throws PersistitException {
+        for (int level = _collectLevel; level >= 0; level--) {
+            final long fromPage = left._lastPages[level];
+            final long toPage = right._firstPages[level];
+            final Key key = left._edgeKeys[level];
+            if (fromPage == 0 || toPage == 0 || key == null) {
+                continue;
+            }
+            _edgeBuffers[level] = getPage(fromPage);
+            _edgePages[level] = fromPage;
+            final Buffer buffer = walkRight(level, toPage, key, tree);
+            _edgeBuffers[level] = null;
+            _edgePages[level] = 0;
+            buffer.release();
+            final int compare = key.compareTo(right._firstKeys[level]);
+            if (compare != 0) {
+                addFault("left sibling final key is " + (compare < 0 ? "less than" : "greater than")
+                        + " parent key", toPage, level, 0);
+            }
+        }
+    }
+
     /**
      * Verifies integrity the subtree rooted in the supplied page. If this page
      * has already been visited, then we have some kind of cycle error. If this
@@ -898,7 +1229,7 @@ public class IntegrityCheck extends Task {
         if (level >= Exchange.MAX_TREE_DEPTH) {
             addFault("Tree is too deep", page, level, 0);
         }
-        if (_usedPageBits.get(page)) {
+        if (_usedPageBits.getAndSet(page)) {
             addFault("Page has more than one parent", page, level, 0);
         }
 
@@ -906,10 +1237,8 @@ public class IntegrityCheck extends Task {
             addFault("Page 0 not allowed in tree structure", page, level, 0);
         }
 
-        _usedPageBits.set(page, true);
-
         Buffer buffer = getPage(page);
-        _pagesVisited++;
+        _pagesVisited.incrementAndGet();
 
         try {
             if (parent == 0 && buffer.getRightSibling() != 0) {
@@ -934,6 +1263,10 @@ public class IntegrityCheck extends Task {
             } else {
                 key = new Key(parentKey);
                 _edgeKeys[level] = key;
+                if (_firstKeys != null && _firstKeys[level] == null) {
+                    _firstKeys[level] = new Key(parentKey);
+                    _firstPages[level] = page;
+                }
             }
 
             Debug.$assert0.t(leftSibling != buffer);
@@ -982,8 +1315,13 @@ public class IntegrityCheck extends Task {
                             addFault("Invalid index pointer value " + child, page, level, foundAt);
                         }
 
-                        // Recursively check the subtree.
-                        checkTree(key, page, child, level - 1, tree);
+                        if (level - 1 == _collectLevel) {
+                            // Check the subtree later in checkSubtrees.
+                            _subtrees.add(new Subtree(key, page, child));
+                        } else {
+                            // Recursively check the subtree.
+                            checkTree(key, page, child, level - 1, tree);
+                        }
                     }
                 } else {
                     throw new RuntimeException("should never happen!");
@@ -1013,7 +1351,7 @@ public class IntegrityCheck extends Task {
                 first = false;
             }
             checkGarbagePage(garbageBuffer);
-            _pagesVisited++;
+            _pagesVisited.incrementAndGet();
             garbagePageAddress = garbageBuffer.getRightSibling();
             garbageBuffer.release();
         }
@@ -1064,7 +1402,7 @@ public class IntegrityCheck extends Task {
                 addGarbageFault("Page of type " + buffer.getPageTypeName() + " found on garbage page", page, 0, 0);
             }
             _counters._garbagePageCount++;
-            _pagesVisited++;
+            _pagesVisited.incrementAndGet();
             page = buffer.getRightSibling();
             buffer.release();
         }
@@ -1138,7 +1476,7 @@ public class IntegrityCheck extends Task {
                     oldBuffer = buffer;
                     return startingBuffer;
                 }
-                _pagesVisited++;
+                _pagesVisited.incrementAndGet();
             }
             if (startingBuffer != buffer) {
                 startingBuffer.release();
@@ -1206,11 +1544,10 @@ public class IntegrityCheck extends Task {
         longSize -= Buffer.LONGREC_PREFIX_SIZE;
 
         for (long longPage = pointer; longPage != 0;) {
-            if (_usedPageBits.get(longPage)) {
+            if (_usedPageBits.getAndSet(longPage)) {
                 addFault("Long record page " + longPage + " is multiply linked", page, 0, foundAt);
                 break;
             }
-            _usedPageBits.set(longPage, true);
             if (longSize <= 0) {
                 addFault("Long record chain too long at page " + longPage + " pointed to by " + fromPage, page, 0,
                         foundAt);
@@ -1249,6 +1586,7 @@ public class IntegrityCheck extends Task {
     private Buffer getPage(final long page) throws PersistitException {
         poll();
         final BufferPool pool = _currentVolume.getPool();
+        throttle(pool, page);
         try {
             final Buffer buffer = pool
                     .get(_currentVolume, page, isPruneEnabled() && !_currentVolume.isReadOnly(), true);
@@ -1257,4 +1595,82 @@ public class IntegrityCheck extends Task {
             throw de;
         }
     }
+
+    /**
+     * Delays as necessary to limit the rate at which pages not in the buffer
+     * pool are read to the rate set by {@link #setPagesPerSecond(int)}. The
+     * limit is shared by all workers of a parallel check.
+     */
+    private void throttle(final BufferPool pool, final long page) throws PersistitException {
+        final IntegrityCheck owner = _parent == null ? this : _parent;
+        final int pagesPerSecond = owner._pagesPerSecond;
+        if (pagesPerSecond > 0 && !pool.isCached(_currentVolume, page)) {
+            final long nanosPerPage = StatisticsTask.NANOS_PER_SECOND / pagesPerSecond;
+            final long delay;
+            synchronized (owner) {
+                final long now = System.nanoTime();
+                delay = (owner._nextPageTime - now) / StatisticsTask.NANOS_PER_MILLI;
+                owner._nextPageTime = Math.max(owner._nextPageTime, now - StatisticsTask.NANOS_PER_SECOND)
+                        + nanosPerPage;
+            }
+            if (delay > 0) {
+                Util.sleep(delay);
+            }
+        }
+    }
+
+    /**
+     * Wait for a worker to finish. The parent polls while it waits so that it
+     * is stopped, suspended or expired as usual; the workers follow it.
+     */
+    private void awaitWorker(final Future<Void> future) throws ExecutionException, InterruptedException {
+        for (;;) {
+            try {
+                poll();
+            } catch (final RuntimeException e) {
+                _workersEnded = true;
+                throw e;
+            }
+            try {
+                future.get(Persistit.SHORT_DELAY, TimeUnit.MILLISECONDS);
+                return;
+            } catch (final TimeoutException e) {
+                // poll again
+            }
+        }
+    }
+
+    /**
+     * Workers of a parallel check are stopped or suspended along with the
+     * parent task. Only the parent's flags are read, so a suspended worker
+     * does not hold the parent's monitor.
+     */
+    @Override
+    protected void poll() {
+        if (_parent == null) {
+            super.poll();
+        } else {
+            while (_parent._suspend.get() && !_parent._stop.get() && !_parent._workersEnded) {
+                try {
+                    Util.sleep(Persistit.SHORT_DELAY);
+                } catch (final PersistitInterruptedException ie) {
+                    throw new TaskEndedException("Interrupted");
+                }
+            }
+            if (_parent._stop.get() || _parent._workersEnded) {
+                throw new TaskEndedException("Stopped");
+            }
+        }
+    }
+
+    @Override
+    protected void postMessage(final String message, final int level) {
+        if (_parent == null) {
+            super.postMessage(message, level);
+        } else {
+            synchronized (_parent) {
+                _parent.postMessage(message, level);
+            }
+        }
+    }
 }
@@ -27,6 +27,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -34,15 +35,26 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.DataFormatException;
 
 import com.persistit.AlertMonitor.AlertLevel;
 import com.persistit.AlertMonitor.Event;
@@ -88,6 +100,10 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
     private final static int TOO_MANY_WARN_THRESHOLD = 5;
     private final static int TOO_MANY_ERROR_THRESHOLD = 10;
     private final static long KILO = 1024;
+    /** Size of the journal region the copier reads in one I/O operation. */
+    private final static int COPY_WINDOW_SIZE = 2 * 1024 * 1024;
+    /** Largest gap between page images the copier reads across in one I/O operation. */
+    private final static int COPY_WINDOW_GAP = 64 * 1024;
 
     /**
      * REGEX expression that recognizes the name of a journal file.
@@ -96,11 +112,11 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
 
     private long _journalCreatedTime;
 
-    private final Map<PageNode, PageNode> _pageMap = new HashMap<PageNode, PageNode>();
+    private final PageMap _pageMap = new PageMap();
 
     private final RangeRemovingArrayList<PageNode> _pageList = new RangeRemovingArrayList<PageNode>();
 
-    private final Map<PageNode, PageNode> _branchMap = new HashMap<PageNode, PageNode>();
+    private final PageMap _branchMap = new PageMap();
 
     private final Map<Volume, Integer> _volumeToHandleMap = new HashMap<Volume, Integer>();
 
@@ -131,6 +147,13 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
 
     private final AtomicBoolean _copying = new AtomicBoolean();
 
+    private final ThreadLocal<PageCompressor> _pageCompressorThreadLocal = new ThreadLocal<PageCompressor>() {
+        @Override
+        protected PageCompressor initialValue() {
+            return new PageCompressor();
+        }
+    };
+
     private final AtomicBoolean _copyFast = new AtomicBoolean();
 
     private final AtomicBoolean _flushing = new AtomicBoolean();
@@ -190,6 +213,8 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
 
     private final AtomicLong _totalFlushIoTime = new AtomicLong();
 
+    private final GroupCommit _groupCommit;
+
     private volatile long _flushInterval = DEFAULT_FLUSH_INTERVAL_MS;
 
     private volatile long _slowIoAlertThreshold = DEFAULT_SLOW_IO_ALERT_THRESHOLD_MS;
@@ -213,6 +238,12 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
 
     private volatile int _copiesPerCycle = DEFAULT_COPIES_PER_CYCLE;
 
+    private volatile int _copierThreads = DEFAULT_COPIER_THREADS;
+
+    private volatile ThreadPoolExecutor _copyWriters;
+
+    private volatile boolean _copyDevicePerVolume;
+
     private volatile long _copierTimestampLimit = Long.MAX_VALUE;
 
     private volatile long _earliestCommittedTimestamp = Long.MAX_VALUE;
@@ -428,6 +459,17 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
         _copier.setPollInterval(copierInterval);
     }
 
+    @Override
+    public int getCopierThreads() {
+        return _copierThreads;
+    }
+
+    @Override
+    public void setCopierThreads(final int copierThreads) {
+        Util.rangeCheck(copierThreads, 1, MAXIMUM_COPIER_THREADS);
+        _copierThreads = copierThreads;
+    }
+
     @Override
     public void setRollbackPruningEnabled(final boolean rollbackPruning) {
         _rollbackPruning.set(rollbackPruning);
@@ -440,6 +482,7 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
 
     public JournalManager(final Persistit persistit) {
         _persistit = persistit;
+        _groupCommit = new GroupCommit(this, persistit);
     }
 
     @Override
@@ -509,6 +552,28 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
         return _lastValidCheckpoint.getTimestamp();
     }
 
+    /**
+     * Return a timestamp such that every page image written to a volume file
+     * after this call has a timestamp no earlier than the returned value: the
+     * lesser of the last valid checkpoint timestamp and the earliest
+     * timestamp of any page image held in the journal but not yet copied back.
+     * Pages modified before the checkpoint have already been written to the
+     * journal, so they are all accounted for by the page maps.
+     *
+     * @return the timestamp
+     */
+    synchronized long getEarliestUncopiedTimestamp() {
+        long timestamp = _lastValidCheckpoint.getTimestamp();
+        for (final PageMap map : new PageMap[] { _pageMap, _branchMap }) {
+            for (final PageNode lastPageNode : map.values()) {
+                for (PageNode pn = lastPageNode; pn != null; pn = pn.getPrevious()) {
+                    timestamp = Math.min(timestamp, pn.getTimestamp());
+                }
+            }
+        }
+        return timestamp;
+    }
+
     @Override
     public String getLastCopierException() {
         return Util.toString(_copier.getLastException());
@@ -539,6 +604,31 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
         return _totalCommitWaitTime.get() / NS_PER_MS;
     }
 
+    @Override
+    public long getGroupCommitBatchCount() {
+        return _groupCommit.getBatchCount();
+    }
+
+    @Override
+    public double getGroupCommitAverageBatchSize() {
+        return _groupCommit.getAverageBatchSize();
+    }
+
+    @Override
+    public int getGroupCommitMaximumBatchSize() {
+        return _groupCommit.getMaximumBatchSize();
+    }
+
+    @Override
+    public long getGroupCommitWaitTime() {
+        return _groupCommit.getWaitTime();
+    }
+
+    @Override
+    public long getGroupCommitForceTime() {
+        return _groupCommit.getAverageForceTime();
+    }
+
     @Override
     public long getCurrentTimestamp() {
         return _persistit.getCurrentTimestamp();
@@ -704,6 +794,15 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
 
     private void readFully(final ByteBuffer bb, final long address) throws PersistitIOException,
             CorruptJournalException {
+        readFully(bb, address, null);
+    }
+
+    private void readFully(final ByteBuffer bb, final long address, final JournalWindow window)
+            throws PersistitIOException, CorruptJournalException {
+        if (window != null && window.covers(address, bb.remaining())) {
+            window.get(bb, address);
+            return;
+        }
         //
         // If necessary read the bytes out of the _writeBuffer
         // before they have been written out to the file. This code
@@ -777,13 +876,25 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
     }
 
     PageNode lookupUpPageNode(final long pageAddress, final Volume volume) {
-        PageNode pnLookup = null;
-        synchronized (this) {
-            final Integer volumeHandle = _volumeToHandleMap.get(volume);
-            if (volumeHandle != null) {
-                pnLookup = _pageMap.get(new PageNode(volumeHandle, pageAddress, -1, -1));
+        int volumeHandle = volume.getHandle();
+        if (volumeHandle == 0) {
+            /*
+             * A volume recovered from the journal is not assigned its handle
+             * until it is next written.
+             */
+            synchronized (this) {
+                final Integer handle = _volumeToHandleMap.get(volume);
+                if (handle == null) {
+                    return null;
+                }
+                volumeHandle = handle.intValue();
             }
         }
+        /*
+         * The page map permits lookups concurrent with updates by the thread
+         * holding this JournalManager's monitor.
+         */
+        final PageNode pnLookup = _pageMap.get(volumeHandle, pageAddress);
 
         if (pnLookup == null) {
             return null;
@@ -808,23 +919,29 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
 
     private long readPageBufferFromJournal(final PageNode pn, final ByteBuffer bb) throws PersistitIOException,
             CorruptJournalException {
+        return readPageBufferFromJournal(pn, bb, null);
+    }
+
+    private long readPageBufferFromJournal(final PageNode pn, final ByteBuffer bb, final JournalWindow window)
+            throws PersistitIOException, CorruptJournalException {
         final int at = bb.position();
         bb.limit(at + PA.OVERHEAD);
-        readFully(bb, pn.getJournalAddress());
+        readFully(bb, pn.getJournalAddress(), window);
         if (bb.remaining() < PA.OVERHEAD) {
             throw new CorruptJournalException("Record at " + pn.toStringJournalAddress(this) + " is incomplete");
         }
         final int type = JournalRecord.getType(bb);
-        final int payloadSize = JournalRecord.getLength(bb) - PA.OVERHEAD;
+        int payloadSize = JournalRecord.getLength(bb) - PA.OVERHEAD;
         final int leftSize = PA.getLeftSize(bb);
         final int bufferSize = PA.getBufferSize(bb);
+        final int compression = PA.getCompression(bb);
         final long pageAddress = PA.getPageAddress(bb);
 
         if (type != PA.TYPE) {
             throw new CorruptJournalException("Record at " + pn.toStringJournalAddress(this) + " is not a PAGE record");
         }
 
-        if (leftSize < 0 || payloadSize < leftSize || payloadSize > bufferSize) {
+        if (leftSize < 0 || payloadSize > bufferSize || compression == PageCompressor.NONE && payloadSize < leftSize) {
             throw new CorruptJournalException("Record at " + pn.toStringJournalAddress(this)
                     + " invalid sizes: recordSize= " + payloadSize + " leftSize=" + leftSize + " bufferSize="
                     + bufferSize);
@@ -836,7 +953,11 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
         }
 
         bb.limit(at + payloadSize).position(at);
-        readFully(bb, pn.getJournalAddress() + PA.OVERHEAD);
+        readFully(bb, pn.getJournalAddress() + PA.OVERHEAD, window);
+        if (compression != PageCompressor.NONE) {
+            payloadSize = expandPageImage(bb.array(), at, payloadSize, compression, leftSize, bufferSize,
+                    pn.getJournalAddress());
+        }
 
         final int rightSize = payloadSize - leftSize;
         System.arraycopy(bb.array(), leftSize + at, bb.array(), bufferSize - rightSize + at, rightSize);
@@ -863,13 +984,15 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
             return null;
         }
         final int type = JournalRecord.getType(bb);
-        final int payloadSize = JournalRecord.getLength(bb) - PA.OVERHEAD;
+        int payloadSize = JournalRecord.getLength(bb) - PA.OVERHEAD;
         final int leftSize = PA.getLeftSize(bb);
         final int bufferSize = PA.getBufferSize(bb);
+        final int compression = PA.getCompression(bb);
         final long pageAddress = PA.getPageAddress(bb);
         final int volumeHandle = PA.getVolumeHandle(bb);
 
-        if (type != PA.TYPE || leftSize < 0 || payloadSize < leftSize || payloadSize > bufferSize) {
+        if (type != PA.TYPE || leftSize < 0 || payloadSize > bufferSize || compression == PageCompressor.NONE
+                && payloadSize < leftSize) {
             return null;
         }
 
@@ -879,6 +1002,9 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
         bb = buffer.getByteBuffer();
         bb.limit(payloadSize).position(0);
         readFully(bb, address + PA.OVERHEAD);
+        if (compression != PageCompressor.NONE) {
+            payloadSize = expandPageImage(bb.array(), 0, payloadSize, compression, leftSize, bufferSize, address);
+        }
 
         if (leftSize > 0) {
             final int rightSize = payloadSize - leftSize;
@@ -893,6 +1019,46 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
         return buffer;
     }
 
+    /**
+     * Expand the compressed payload of a PA record in place.
+     *
+     * @param bytes
+     *            array holding the payload
+     * @param offset
+     *            offset of the payload within <code>bytes</code>
+     * @param size
+     *            size of the compressed payload
+     * @param compression
+     *            the compression code stored in the record
+     * @param leftSize
+     *            the leftSize stored in the record
+     * @param bufferSize
+     *            the bufferSize stored in the record
+     * @param address
+     *            journal address of the record, for diagnostic messages
+     * @return size of the uncompressed payload
+     * @throws CorruptJournalException
+     *             if the payload cannot be expanded
+     */
+    int expandPageImage(final byte[] bytes, final int offset, final int size, final int compression,
+            final int leftSize, final int bufferSize, final long address) throws CorruptJournalException {
+        if (compression != PageCompressor.DEFLATE) {
+            throw new CorruptJournalException("Record at " + address + " has unknown compression code "
+                    + compression);
+        }
+        final int payloadSize;
+        try {
+            payloadSize = _pageCompressorThreadLocal.get().expand(bytes, offset, size, bufferSize);
+        } catch (final DataFormatException e) {
+            throw new CorruptJournalException("Record at " + address + " cannot be expanded: " + e.getMessage());
+        }
+        if (payloadSize < leftSize) {
+            throw new CorruptJournalException("Record at " + address + " invalid sizes: recordSize= " + payloadSize
+                    + " leftSize=" + leftSize + " bufferSize=" + bufferSize);
+        }
+        return payloadSize;
+    }
+
     private void advance(final int recordSize) {
         Debug.$assert1.t(recordSize > 0 && recordSize + _writeBuffer.position() <= _writeBuffer.capacity());
         _currentAddress += recordSize;
@@ -1075,6 +1241,29 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
 
         final Volume volume;
         final int recordSize;
+        final int leftSize;
+        final int rightSize;
+        if (buffer.isDataPage() || buffer.isIndexPage() || buffer.isGarbagePage()) {
+            leftSize = buffer.getKeyBlockEnd();
+            rightSize = buffer.getBufferSize() - buffer.getAlloc();
+        } else {
+            leftSize = 0;
+            rightSize = buffer.getBufferSize();
+        }
+        /*
+         * Compress outside of the monitor; the caller's claim on the buffer
+         * keeps the page image stable.
+         */
+        PageCompressor compressor = null;
+        int compressedSize = -1;
+        if (!buffer.isTemporary()
+                && buffer.getVolume().getSpecification().getCompression() == VolumeSpecification.Compression.DEFLATE) {
+            compressor = _pageCompressorThreadLocal.get();
+            compressedSize = compressor.compress(buffer.getBytes(), buffer.getBufferSize(), leftSize, rightSize);
+            final int payloadSize = leftSize + rightSize;
+            buffer.getVolume().getStatistics()
+                    .bumpCompressionCounters(payloadSize, compressedSize >= 0 ? compressedSize : payloadSize);
+        }
 
         synchronized (this) {
 
@@ -1084,17 +1273,8 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
 
             volume = buffer.getVolume();
             final int handle = handleForVolume(volume);
-            int leftSize;
-            int rightSize;
-            if (buffer.isDataPage() || buffer.isIndexPage() || buffer.isGarbagePage()) {
-                leftSize = buffer.getKeyBlockEnd();
-                rightSize = buffer.getBufferSize() - buffer.getAlloc();
-            } else {
-                leftSize = 0;
-                rightSize = buffer.getBufferSize();
-            }
 
-            recordSize = PA.OVERHEAD + leftSize + rightSize;
+            recordSize = PA.OVERHEAD + (compressedSize >= 0 ? compressedSize : leftSize + rightSize);
 
             prepareWriteBuffer(recordSize);
             Debug.$assert1.t(_writeBuffer.remaining() >= recordSize);
@@ -1109,9 +1289,14 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
             PA.putLeftSize(_writeBuffer, leftSize);
             PA.putBufferSize(_writeBuffer, buffer.getBufferSize());
             PA.putPageAddress(_writeBuffer, buffer.getPageAddress());
+            if (compressedSize >= 0) {
+                PA.putCompression(_writeBuffer, PageCompressor.DEFLATE);
+            }
             advance(PA.OVERHEAD);
 
-            if (leftSize > 0) {
+            if (compressedSize >= 0) {
+                _writeBuffer.put(compressor.getCompressedBytes(), 0, compressedSize);
+            } else if (leftSize > 0) {
                 _writeBuffer.put(buffer.getBytes(), 0, leftSize);
                 _writeBuffer.put(buffer.getBytes(), buffer.getBufferSize() - rightSize, rightSize);
             } else {
@@ -1304,6 +1489,7 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
         if (copier != null) {
             _persistit.waitForIOTaskStop(copier);
         }
+        closeCopyWriters();
 
         final JournalFlusher flusher = _flusher;
         _flusher = null;
@@ -1350,6 +1536,7 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
     void crash() throws IOException {
         IOTaskRunnable.crash(_flusher);
         IOTaskRunnable.crash(_copier);
+        closeCopyWriters();
         //
         // Even when simulating a crash do this to release
         // channels and therefore allow disk space to be returned to
@@ -1449,7 +1636,9 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
             address = flush();
             if (address != Long.MAX_VALUE) {
                 final FileChannel channel = getFileChannel(address);
+                final long start = _persistit.getLatencyMeter().start();
                 channel.force(false);
+                _persistit.getLatencyMeter().record(LatencyMeter.FORCE_JOURNAL, start);
             }
         } catch (final IOException e) {
             throw new PersistitIOException("Writing to file " + addressToFile(address), e);
@@ -1843,6 +2032,30 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
         }
     }
 
+    /**
+     * Wait for durability of a transaction committed with
+     * {@link Transaction.CommitPolicy#GROUP}. Rather than waiting for the
+     * JOURNAL_FLUSHER, the calling thread joins the {@link GroupCommit}
+     * pipeline, in which one of the waiting threads forces the journal on
+     * behalf of all of them.
+     *
+     * @param flushedTimestamp
+     *            a timestamp taken after the transaction buffer belonging to
+     *            the current transaction has been flushed.
+     * @param stallTime
+     *            upper bound, in milliseconds, on the time the thread forcing
+     *            the journal waits for other transactions to join its batch.
+     *            The actual interval is derived from the measured duration of
+     *            recent force operations.
+     * @throws PersistitException
+     */
+    void waitForGroupCommit(final long flushedTimestamp, final long stallTime) throws PersistitException {
+        final long now = System.nanoTime();
+        _groupCommit.waitForDurability(flushedTimestamp, stallTime);
+        _totalCommits.incrementAndGet();
+        _totalCommitWaitTime.addAndGet(System.nanoTime() - now);
+    }
+
     public static class TreeDescriptor {
 
         final int _volumeHandle;
@@ -1907,7 +2120,7 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
 
         final long _timestamp;
 
-        long _journalAddress;
+        volatile long _journalAddress;
 
         int _offset;
 
@@ -2173,6 +2386,7 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
 
         private volatile boolean _shouldStop = false;
         private final ByteBuffer _bb = ByteBuffer.allocate(DEFAULT_COPY_BUFFER_SIZE);
+        private final JournalWindow _window = new JournalWindow(COPY_WINDOW_SIZE);
         private final List<PageNode> _copyList = new ArrayList<PageNode>(_copiesPerCycle);
         int _lastCyclePagesWritten;
 
@@ -2193,10 +2407,15 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
                 if (!_appendOnly.get()) {
                     selectForCopy(_copyList);
                     if (!_copyList.isEmpty()) {
-                        readForCopy(_copyList, _bb);
+                        readForCopy(_copyList, _bb, _window);
                     }
                     if (!_copyList.isEmpty()) {
-                        writeForCopy(_copyList, _bb);
+                        /*
+                         * Write to volumes on different devices concurrently
+                         * only once the journal is falling behind, to leave
+                         * I/O capacity to the application otherwise.
+                         */
+                        writeForCopy(_copyList, _bb, urgency() >= HALF_URGENT ? _copierThreads : 1);
                     }
                 }
                 cleanupForCopy(_copyList);
@@ -2230,16 +2449,90 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
 
         /**
          * Return a nice interval, in milliseconds, to wait between copierCycle
-         * invocations. When number of journal reach the PAGE_COPIER_URGENT threshold,
-         * the page copier run flat-out.
+         * invocations. The interval shrinks as the urgency rises, and when the
+         * number of journal files reaches the PAGE_COPIER_URGENT threshold, or
+         * the urgency reaches HALF_URGENT, the page copier runs flat-out.
          */
         @Override
         public long pollInterval() {
             final long pollInterval = super.getPollInterval();
-            if (_lastCyclePagesWritten == 0 || getJournalFileCount() < PAGE_COPIER_URGENT) {
+            if (_lastCyclePagesWritten == 0) {
                 return pollInterval;
             }
-            return 0;
+            final int urgency = urgency();
+            if (urgency >= HALF_URGENT || getJournalFileCount() >= PAGE_COPIER_URGENT) {
+                return 0;
+            }
+            return pollInterval * (HALF_URGENT - urgency) / HALF_URGENT;
+        }
+    }
+
+    /**
+     * A region of one journal file read in a single I/O operation. The copier
+     * visits the page images it has selected in journal address order and
+     * reads those lying close together through one window.
+     */
+    private class JournalWindow {
+
+        private final ByteBuffer _buffer;
+        private long _address = -1;
+
+        JournalWindow(final int size) {
+            _buffer = ByteBuffer.allocate(size);
+        }
+
+        int capacity() {
+            return _buffer.capacity();
+        }
+
+        void clear() {
+            _address = -1;
+        }
+
+        boolean covers(final long address, final int length) {
+            return _address >= 0 && address >= _address && address + length <= _address + _buffer.limit();
+        }
+
+        /**
+         * Copy the bytes starting at <code>address</code> into the remaining
+         * space of <code>bb</code>, leaving its position unchanged.
+         */
+        void get(final ByteBuffer bb, final long address) {
+            System.arraycopy(_buffer.array(), (int) (address - _address), bb.array(), bb.position(), bb.remaining());
+        }
+
+        void read(final long from, final long to) throws PersistitIOException {
+            _address = -1;
+            final FileChannel fc = getFileChannel(from);
+            _buffer.clear().limit((int) (to - from));
+            long fileAddr = addressToOffset(from);
+            try {
+                while (_buffer.hasRemaining()) {
+                    final int count = fc.read(_buffer, fileAddr);
+                    if (count < 0) {
+                        break;
+                    }
+                    fileAddr += count;
+                }
+            } catch (final IOException ioe) {
+                throw new PersistitIOException(ioe);
+            }
+            _buffer.flip();
+            _address = from;
+        }
+    }
+
+    /**
+     * Pages of one volume to be written by a copier cycle, in ascending page
+     * address order.
+     */
+    private static class CopyRun {
+
+        private final Volume _volume;
+        private final List<PageNode> _pages = new ArrayList<PageNode>();
+
+        CopyRun(final Volume volume) {
+            _volume = volume;
         }
     }
 
@@ -2455,14 +2748,16 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
         }
     }
 
-    void readForCopy(final List<PageNode> list, final ByteBuffer bb) throws PersistitException {
+    void readForCopy(final List<PageNode> list, final ByteBuffer bb, final JournalWindow window)
+            throws PersistitException {
         Collections.sort(list, PageNode.READ_COMPARATOR);
         bb.clear();
+        window.clear();
 
         Volume volume = null;
         int handle = -1;
 
-        for (final Iterator<PageNode> iterator = list.iterator(); iterator.hasNext();) {
+        for (final ListIterator<PageNode> iterator = list.listIterator(); iterator.hasNext();) {
 
             final PageNode pageNode = iterator.next();
             if (pageNode.isInvalid()) {
@@ -2493,7 +2788,10 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
                     iterator.remove();
                     continue;
                 }
-                pageAddress = readPageBufferFromJournal(stablePageNode, bb);
+                if (!window.covers(stablePageNode.getJournalAddress(), PA.OVERHEAD + volume.getPageSize())) {
+                    readWindowForCopy(window, list, iterator.previousIndex(), stablePageNode.getJournalAddress());
+                }
+                pageAddress = readPageBufferFromJournal(stablePageNode, bb, window);
                 _persistit.getIOMeter().chargeCopyPageFromJournal(volume, pageAddress, volume.getPageSize(),
                         stablePageNode.getJournalAddress(), urgency());
             } catch (final PersistitException ioe) {
@@ -2517,11 +2815,42 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
         }
     }
 
-    void writeForCopy(final List<PageNode> list, final ByteBuffer bb) throws PersistitException {
+    /**
+     * Read, in one I/O operation, the region of the journal file holding the
+     * page image at <code>address</code> and the images of the following
+     * pages in the list, which is sorted by journal address, up to the first
+     * one separated from its predecessor by more than {@value #COPY_WINDOW_GAP}
+     * bytes. The region ends before any part of the journal still held in the
+     * write buffer.
+     */
+    private void readWindowForCopy(final JournalWindow window, final List<PageNode> list, final int index,
+            final long address) throws PersistitIOException {
+        long limit = Math.min((address / _blockSize + 1) * _blockSize, address + window.capacity());
+        synchronized (this) {
+            limit = Math.min(limit, _writeBufferAddress);
+        }
+        long end = address + PA.OVERHEAD + Buffer.MAX_BUFFER_SIZE;
+        for (int next = index + 1; next < list.size(); next++) {
+            final long nextAddress = list.get(next).getJournalAddress();
+            if (nextAddress >= limit || nextAddress - end > COPY_WINDOW_GAP) {
+                break;
+            }
+            end = Math.max(end, nextAddress + PA.OVERHEAD + Buffer.MAX_BUFFER_SIZE);
+        }
+        end = Math.min(end, limit);
+        if (end > address) {
+            window.read(address, end);
+        } else {
+            window.clear();
+        }
+    }
+
+    void writeForCopy(final List<PageNode> list, final ByteBuffer bb, final int writers) throws PersistitException {
         Collections.sort(list, PageNode.WRITE_COMPARATOR);
         Volume volume = null;
         int handle = -1;
-        final Set<Volume> volumes = new HashSet<Volume>();
+        final List<CopyRun> runs = new ArrayList<CopyRun>();
+        CopyRun run = null;
 
         for (final Iterator<PageNode> iterator = list.iterator(); iterator.hasNext();) {
             final PageNode pageNode = iterator.next();
@@ -2559,31 +2888,160 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
                 iterator.remove();
                 continue;
             }
+            if (run == null || run._volume != volume) {
+                run = new CopyRun(volume);
+                runs.add(run);
+            }
+            run._pages.add(pageNode);
+        }
 
-            final long pageAddress = pageNode.getPageAddress();
-            volume.getStorage().extend(pageAddress);
+        /*
+         * Each group of runs is written by one thread, in ascending page
+         * order within each volume. The copier thread writes the first group.
+         */
+        final List<List<CopyRun>> groups = groupForCopy(runs, writers);
+        final List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+        for (int index = 1; index < groups.size(); index++) {
+            final List<CopyRun> group = groups.get(index);
+            final ByteBuffer view = bb.duplicate();
+            futures.add(getCopyWriters().submit(new Callable<Integer>() {
+                @Override
+                public Integer call() throws PersistitException {
+                    return writeForCopy(group, view);
+                }
+            }));
+        }
+        int copied = 0;
+        Throwable failure = null;
+        try {
+            copied += writeForCopy(groups.get(0), bb);
+        } catch (final PersistitException e) {
+            failure = e;
+        }
+        for (final Future<Integer> future : futures) {
+            try {
+                copied += future.get();
+            } catch (final ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            } catch (final InterruptedException e) {
+                if (failure == null) {
+                    failure = new PersistitInterruptedException(e);
+                }
+            }
+        }
+        _copiedPageCount += copied;
+        if (failure instanceof PersistitException) {
+            throw (PersistitException) failure;
+        } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+    }
+
+    private int writeForCopy(final List<CopyRun> runs, final ByteBuffer bb) throws PersistitException {
+        int copied = 0;
+        for (final CopyRun run : runs) {
+            final Volume volume = run._volume;
             final int pageSize = volume.getPageSize();
-            final int at = pageNode.getOffset();
-            bb.limit(bb.capacity()).position(at).limit(at + pageSize);
+            for (final PageNode pageNode : run._pages) {
+                final long pageAddress = pageNode.getPageAddress();
+                volume.getStorage().extend(pageAddress);
+                final int at = pageNode.getOffset();
+                bb.limit(bb.capacity()).position(at).limit(at + pageSize);
 
-            try {
-                volume.getStorage().writePage(bb, pageAddress);
-                volumes.add(volume);
-            } catch (final PersistitException ioe) {
-                _persistit.getLogBase().copyException.log(ioe, volume, pageNode.getPageAddress(),
-                        pageNode.getJournalAddress());
-                throw ioe;
+                try {
+                    volume.getStorage().writePage(bb, pageAddress);
+                } catch (final PersistitException ioe) {
+                    _persistit.getLogBase().copyException.log(ioe, volume, pageNode.getPageAddress(),
+                            pageNode.getJournalAddress());
+                    throw ioe;
+                }
+
+                copied++;
+                _persistit.getIOMeter().chargeCopyPageToVolume(volume, pageAddress, volume.getPageSize(),
+                        pageNode.getJournalAddress(), urgency());
             }
+            volume.getStorage().force();
+        }
+        return copied;
+    }
 
-            _copiedPageCount++;
-            _persistit.getIOMeter().chargeCopyPageToVolume(volume, pageAddress, volume.getPageSize(),
-                    pageNode.getJournalAddress(), urgency());
+    /**
+     * Partition the runs into at most <code>writers</code> groups such that
+     * the volumes of each device are written by one thread.
+     */
+    private List<List<CopyRun>> groupForCopy(final List<CopyRun> runs, final int writers) {
+        final List<List<CopyRun>> groups = new ArrayList<List<CopyRun>>();
+        if (writers <= 1 || runs.size() <= 1) {
+            groups.add(runs);
+            return groups;
+        }
+        final Map<Object, List<CopyRun>> devices = new LinkedHashMap<Object, List<CopyRun>>();
+        for (final CopyRun run : runs) {
+            Object device = run._volume;
+            if (!_copyDevicePerVolume) {
+                try {
+                    device = Files.getFileStore(run._volume.getAbsoluteFile().toPath());
+                } catch (final IOException e) {
+                    // write this volume in its own group
+                }
+            }
+            List<CopyRun> group = devices.get(device);
+            if (group == null) {
+                group = new ArrayList<CopyRun>();
+                devices.put(device, group);
+            }
+            group.add(run);
         }
+        int index = 0;
+        for (final List<CopyRun> group : devices.values()) {
+            if (groups.size() < writers) {
+                groups.add(group);
+            } else {
+                groups.get(index++ % writers).addAll(group);
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * package-private for unit tests only: treat each volume as a separate
+     * device so that volumes in one file system are copied concurrently.
+     *
+     * @param copyDevicePerVolume
+     */
+    void setCopyDevicePerVolume(final boolean copyDevicePerVolume) {
+        _copyDevicePerVolume = copyDevicePerVolume;
+    }
 
-        for (final Volume vol : volumes) {
-            vol.getStorage().force();
+    private void closeCopyWriters() {
+        final ThreadPoolExecutor executor = _copyWriters;
+        _copyWriters = null;
+        if (executor != null) {
+            executor.shutdown();
         }
+    }
 
+    private ThreadPoolExecutor getCopyWriters() {
+        ThreadPoolExecutor executor = _copyWriters;
+        if (executor == null) {
+            final AtomicInteger threadCounter = new AtomicInteger();
+            executor = new ThreadPoolExecutor(MAXIMUM_COPIER_THREADS, MAXIMUM_COPIER_THREADS, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                        @Override
+                        public Thread newThread(final Runnable r) {
+                            final Thread thread = new Thread(r, "JOURNAL_COPY_WRITER:" + threadCounter.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            executor.allowCoreThreadTimeOut(true);
+            _copyWriters = executor;
+        }
+        return executor;
     }
 
     private void cleanupForCopy(final List<PageNode> list) throws PersistitException {
@@ -3031,7 +3489,7 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
     }
 
     public PageNode queryPageNode(final int volumeHandle, final long pageAddress) {
-        final PageNode pn = _pageMap.get(new PageNode(volumeHandle, pageAddress, -1, -1));
+        final PageNode pn = _pageMap.get(volumeHandle, pageAddress);
         if (pn != null) {
             return new PageNode(pn);
         } else {
@@ -3040,7 +3498,7 @@ class JournalManager implements JournalManagerMXBean, VolumeHandleLookup {
     }
 
     public PageNode queryBranchNode(final int volumeHandle, final long pageAddress) {
-        final PageNode pn = _branchMap.get(new PageNode(volumeHandle, pageAddress, -1, -1));
+        final PageNode pn = _branchMap.get(volumeHandle, pageAddress);
         if (pn != null) {
             return new PageNode(pn);
         } else {
@@ -185,9 +185,16 @@ import com.persistit.util.Util;
  * </tr>
  * <tr valign="top">
  * <td>+32</td>
+ * <td>bufferSize (char) and, in the high-order half of the same int, the
+ * compression code; 0 denotes an uncompressed payload</td>
+ * </tr>
+ * <tr valign="top">
+ * <td>+36</td>
  * <td>bytes: the first leftSize bytes will go into the page at offset 0 the
  * remaining bytes will go to the end of the page; the middle of the page will
- * be cleared</td>
+ * be cleared. If the payload is compressed, only its first 32 bytes (the page
+ * header) are stored as-is, followed by the Deflate-compressed remainder (see
+ * {@link PageCompressor}).</td>
  * </tr>
  * </table>
  * </td>
@@ -845,13 +852,21 @@ public class JournalRecord {
         }
 
         public static int getBufferSize(final ByteBuffer bb) {
-            return getInt(bb, 32);
+            return getInt(bb, 32) & 0xFFFF;
         }
 
         public static void putBufferSize(final ByteBuffer bb, final int bufferSize) {
             putInt(bb, 32, (char) bufferSize);
         }
 
+        public static int getCompression(final ByteBuffer bb) {
+            return getInt(bb, 32) >>> 16;
+        }
+
+        public static void putCompression(final ByteBuffer bb, final int compression) {
+            putInt(bb, 32, getBufferSize(bb) | compression << 16);
+        }
+
     }
 
     /**
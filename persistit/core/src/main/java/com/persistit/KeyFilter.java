@@ -313,10 +313,12 @@ public class KeyFilter {
     /**
      * Flag for filters that are guaranteed to be a subset of key range. For
      * example, as created by {@link #KeyFilter(Key, int, int)}. Allows
-     * optimized traversal.
+     * optimized traversal. The prefix holds the leading segments shared by
+     * every selected key.
      */
     private int _keyPrefixByteCount = 0;
     private boolean _isKeyPrefixFilter = false;
+    private Key _keyPrefix;
 
     /**
      * Constructs an empty <code>KeyFilter</code>. This <code>KeyFilter</code>
@@ -398,12 +400,19 @@ public class KeyFilter {
                 index = key.nextElementIndex(previous);
                 if (index < 0)
                     break;
-                if (level <= minDepth)
+                //
+                // A selected key may be an ancestor of the supplied key as
+                // shallow as minDepth (but at least one segment), so only
+                // that many segments are common to every selected key.
+                //
+                if (level < Math.max(minDepth, 1))
                     _keyPrefixByteCount += (index - previous);
                 final byte[] bytes = new byte[index - previous];
                 System.arraycopy(key.getEncodedBytes(), previous, bytes, 0, bytes.length);
                 _terms[level] = new SimpleTerm(bytes);
             }
+            _keyPrefix = new Key(key);
+            _keyPrefix.setEncodedSize(_keyPrefixByteCount);
         }
         _minDepth = minDepth;
         _maxDepth = maxDepth;
@@ -1738,4 +1747,8 @@ public class KeyFilter {
     int getKeyPrefixByteCount() {
         return _keyPrefixByteCount;
     }
+
+    Key getKeyPrefix() {
+        return _keyPrefix;
+    }
 }
@@ -0,0 +1,290 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.persistit.mxbeans.LatencyMeterMXBean;
+import com.persistit.util.Util;
+
+/**
+ * <p>
+ * Accumulates histograms of the latency of frequent operations (see
+ * {@link LatencyMeterMXBean#OPERATIONS}). A caller obtains a start time from
+ * {@link #start()} and passes it to {@link #record(int, long)} when the
+ * operation completes; while measurement is disabled <code>start</code>
+ * returns zero and <code>record</code> does nothing.
+ * </p>
+ * <p>
+ * Each histogram has exact buckets for latencies below 64 nanoseconds and
+ * {@value #SUB_BUCKETS} buckets for each power of two above, so a reported
+ * percentile is within about 3% of the true value. Buckets are updated with
+ * atomic increments and no lock is taken. A reset swaps each bucket with zero,
+ * so an operation recorded concurrently is counted in either the old or the
+ * new interval but never lost.
+ * </p>
+ */
+class LatencyMeter implements LatencyMeterMXBean {
+
+    final static int FETCH = 0;
+    final static int STORE = 1;
+    final static int TRAVERSE = 2;
+    final static int REMOVE = 3;
+    final static int COMMIT = 4;
+    final static int READ_PAGE = 5;
+    final static int WRITE_PAGE = 6;
+    final static int FORCE_JOURNAL = 7;
+
+    private final static int SUB_BUCKET_BITS = 5;
+    private final static int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /*
+     * Values below this bound are counted in exact buckets
+     */
+    private final static int LINEAR_BOUND = SUB_BUCKETS * 2;
+    private final static int LINEAR_EXPONENT = SUB_BUCKET_BITS + 1;
+    /*
+     * Values of 2^44 nanoseconds (about 4.9 hours) or more are counted in the
+     * last bucket
+     */
+    private final static int MAXIMUM_EXPONENT = 43;
+    private final static int BUCKET_COUNT = LINEAR_BOUND + (MAXIMUM_EXPONENT - LINEAR_EXPONENT + 1) * SUB_BUCKETS;
+
+    private final static String DUMP_HEADER = "%-14s %14s %12s";
+    private final static String DUMP_COLUMN = " %12s";
+    private final static String DUMP_ROW = "%-14s %,14d %,12.1f";
+    private final static String DUMP_VALUE = " %,12.1f";
+    private final static double NS_PER_US = 1000.0;
+
+    private final Histogram[] _histograms = new Histogram[OPERATIONS.length];
+
+    private volatile boolean _enabled;
+
+    /**
+     * A lock-free latency histogram
+     */
+    static class Histogram {
+        private final AtomicLongArray _counts = new AtomicLongArray(BUCKET_COUNT);
+        private final AtomicLong _sum = new AtomicLong();
+        private final AtomicLong _maximum = new AtomicLong();
+
+        void record(final long nanos) {
+            final long value = Math.max(0, nanos);
+            _counts.incrementAndGet(bucket(value));
+            _sum.addAndGet(value);
+            long maximum = _maximum.get();
+            while (value > maximum && !_maximum.compareAndSet(maximum, value)) {
+                maximum = _maximum.get();
+            }
+        }
+
+        /**
+         * Return a copy of the histogram, optionally resetting it to empty.
+         * Operations recorded while the copy is taken may be reflected in
+         * the bucket counts but not the sum, or vice versa.
+         */
+        Snapshot snapshot(final boolean reset) {
+            final long[] counts = new long[BUCKET_COUNT];
+            for (int index = 0; index < BUCKET_COUNT; index++) {
+                counts[index] = reset ? _counts.getAndSet(index, 0) : _counts.get(index);
+            }
+            final long sum = reset ? _sum.getAndSet(0) : _sum.get();
+            final long maximum = reset ? _maximum.getAndSet(0) : _maximum.get();
+            return new Snapshot(counts, sum, maximum);
+        }
+    }
+
+    /**
+     * An immutable copy of a {@link Histogram}
+     */
+    static class Snapshot {
+        private final long[] _counts;
+        private final long _count;
+        private final long _sum;
+        private final long _maximum;
+
+        Snapshot(final long[] counts, final long sum, final long maximum) {
+            _counts = counts;
+            long count = 0;
+            for (final long c : counts) {
+                count += c;
+            }
+            _count = count;
+            _sum = sum;
+            _maximum = maximum;
+        }
+
+        long getCount() {
+            return _count;
+        }
+
+        long getMaximum() {
+            return _maximum;
+        }
+
+        double getMean() {
+            return _count == 0 ? 0 : (double) _sum / _count;
+        }
+
+        /**
+         * @return the largest value of the bucket holding the operation at the
+         *         specified percentile, but no more than the maximum recorded
+         *         value, or zero if there are no operations
+         */
+        long getValueAtPercentile(final double percentile) {
+            if (_count == 0) {
+                return 0;
+            }
+            final double fraction = Math.min(100.0, Math.max(0.0, percentile)) / 100.0;
+            final long rank = Math.max(1, (long) Math.ceil(fraction * _count));
+            long seen = 0;
+            for (int index = 0; index < BUCKET_COUNT; index++) {
+                seen += _counts[index];
+                if (seen >= rank) {
+                    return Math.min(highestValue(index), _maximum);
+                }
+            }
+            return _maximum;
+        }
+    }
+
+    LatencyMeter() {
+        for (int index = 0; index < _histograms.length; index++) {
+            _histograms[index] = new Histogram();
+        }
+    }
+
+    /**
+     * @return the start time of an operation to be passed to
+     *         {@link #record(int, long)}, or zero if measurement is disabled
+     */
+    long start() {
+        return _enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Record the latency of an operation that started at <code>start</code>.
+     *
+     * @param operation
+     *            the operation, e.g., {@link #FETCH}
+     * @param start
+     *            the value returned by {@link #start()}
+     */
+    void record(final int operation, final long start) {
+        if (start != 0) {
+            _histograms[operation].record(System.nanoTime() - start);
+        }
+    }
+
+    Snapshot snapshot(final int operation, final boolean reset) {
+        return _histograms[operation].snapshot(reset);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return _enabled;
+    }
+
+    @Override
+    public void setEnabled(final boolean enabled) {
+        _enabled = enabled;
+    }
+
+    @Override
+    public long count(final String operation) {
+        return snapshot(operationIndex(operation), false).getCount();
+    }
+
+    @Override
+    public double mean(final String operation) {
+        return snapshot(operationIndex(operation), false).getMean();
+    }
+
+    @Override
+    public long maximum(final String operation) {
+        return snapshot(operationIndex(operation), false).getMaximum();
+    }
+
+    @Override
+    public long percentile(final String operation, final double percentile) {
+        return snapshot(operationIndex(operation), false).getValueAtPercentile(percentile);
+    }
+
+    @Override
+    public String dump(final boolean reset) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(String.format(DUMP_HEADER, "operation", "count", "mean"));
+        for (final double percentile : DUMP_PERCENTILES) {
+            sb.append(String.format(DUMP_COLUMN, "p" + label(percentile)));
+        }
+        sb.append(String.format(DUMP_COLUMN, "max"));
+        sb.append(Util.NEW_LINE);
+        for (int index = 0; index < OPERATIONS.length; index++) {
+            final Snapshot snapshot = snapshot(index, reset);
+            sb.append(String.format(DUMP_ROW, OPERATIONS[index], snapshot.getCount(), snapshot.getMean()
+                    / NS_PER_US));
+            for (final double percentile : DUMP_PERCENTILES) {
+                sb.append(String.format(DUMP_VALUE, snapshot.getValueAtPercentile(percentile) / NS_PER_US));
+            }
+            sb.append(String.format(DUMP_VALUE, snapshot.getMaximum() / NS_PER_US));
+            sb.append(Util.NEW_LINE);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void reset() {
+        for (final Histogram histogram : _histograms) {
+            histogram.snapshot(true);
+        }
+    }
+
+    private static String label(final double percentile) {
+        return percentile == Math.rint(percentile) ? Long.toString((long) percentile) : Double.toString(percentile);
+    }
+
+    static int operationIndex(final String operation) {
+        for (int index = 0; index < OPERATIONS.length; index++) {
+            if (OPERATIONS[index].equalsIgnoreCase(operation)) {
+                return index;
+            }
+        }
+        throw new IllegalArgumentException("No such operation " + operation);
+    }
+
+    static int bucket(final long value) {
+        if (value < LINEAR_BOUND) {
+            return (int) value;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAXIMUM_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_BOUND + (exponent - LINEAR_EXPONENT) * SUB_BUCKETS + subBucket;
+    }
+
+    static long highestValue(final int bucket) {
+        if (bucket < LINEAR_BOUND) {
+            return bucket;
+        }
+        final int exponent = (bucket - LINEAR_BOUND) / SUB_BUCKETS + LINEAR_EXPONENT;
+        final int subBucket = (bucket - LINEAR_BOUND) % SUB_BUCKETS;
+        final int shift = exponent - SUB_BUCKET_BITS;
+        return ((long) (SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+}
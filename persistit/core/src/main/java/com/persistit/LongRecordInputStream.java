@@ -0,0 +1,286 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import static com.persistit.Buffer.HEADER_SIZE;
+import static com.persistit.Buffer.MAX_LONG_RECORD_CHAIN;
+import static com.persistit.Buffer.PAGE_TYPE_LONG_RECORD;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.persistit.exception.CorruptVolumeException;
+import com.persistit.exception.PersistitException;
+
+/**
+ * <p>
+ * An <code>InputStream</code> over the elements of a <code>byte</code> array
+ * value, created by {@link Exchange#fetchInputStream()}. When the value is
+ * stored as a LONG_RECORD the stream reads its chain of pages one page at a
+ * time as the application consumes it, so memory use is bounded by a single
+ * page regardless of the size of the value. {@link #skip(long)} follows the
+ * chain without copying the pages it passes over, so a range of a large value
+ * can be read by skipping to its start. {@link #mark(int)} and
+ * {@link #reset()} are supported; resetting to a position before the current
+ * page restarts from the beginning of the chain.
+ * </p>
+ * <p>
+ * The stream reads the version of the value that was visible when it was
+ * created. While it is open the pages of that version are not reused even if
+ * the value is concurrently replaced or removed. Such pages are added to the
+ * volume's garbage chain immediately, so they are not lost if Persistit stops
+ * before the stream is closed, but they are reused only after the stream is
+ * closed or garbage collected. Unlike an {@link Exchange}, the stream may be
+ * read and closed by any thread.
+ * </p>
+ */
+public class LongRecordInputStream extends InputStream {
+
+    private final Persistit _persistit;
+
+    private final Volume _volume;
+
+    private final long _timeout;
+
+    /**
+     * Leading encoded bytes of the value: the prefix held in the LONG_RECORD
+     * descriptor, or the entire value if it is not a LONG_RECORD
+     */
+    private final byte[] _prefix;
+
+    /**
+     * Total encoded size of the value, including the byte array header
+     */
+    private final int _size;
+
+    /**
+     * First page of the LONG_RECORD chain, or zero
+     */
+    private final long _head;
+
+    private byte[] _segment;
+
+    /**
+     * Encoded offset of the first byte in <code>_segment</code>, or -1 if no
+     * page has been read
+     */
+    private int _segmentStart = -1;
+
+    private int _segmentSize;
+
+    private long _nextPage;
+
+    private int _position = Value.BYTE_ARRAY_HEADER_SIZE;
+
+    private int _mark = Value.BYTE_ARRAY_HEADER_SIZE;
+
+    private boolean _closed;
+
+    LongRecordInputStream(final Persistit persistit, final Volume volume, final byte[] prefix, final int offset,
+            final int prefixSize, final int size, final long head, final long timeout) {
+        _persistit = persistit;
+        _volume = volume;
+        _prefix = new byte[prefixSize];
+        System.arraycopy(prefix, offset, _prefix, 0, prefixSize);
+        _size = size;
+        _head = head;
+        _timeout = timeout;
+    }
+
+    /**
+     * @return the number of elements in the array
+     */
+    public long getLength() {
+        return _size - Value.BYTE_ARRAY_HEADER_SIZE;
+    }
+
+    /**
+     * @return the index of the next element to be read
+     */
+    public long getPosition() {
+        return _position - Value.BYTE_ARRAY_HEADER_SIZE;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] b = new byte[1];
+        return read(b, 0, 1) == 1 ? b[0] & 0xFF : -1;
+    }
+
+    @Override
+    public int read(final byte[] b, int offset, int length) throws IOException {
+        if (offset < 0 || length < 0 || length > b.length - offset) {
+            throw new IndexOutOfBoundsException();
+        }
+        ensureOpen();
+        if (length == 0) {
+            return 0;
+        }
+        if (_position >= _size) {
+            return -1;
+        }
+        int count = 0;
+        while (length > 0 && _position < _size) {
+            int n;
+            if (_position < _prefix.length) {
+                n = Math.min(length, _prefix.length - _position);
+                System.arraycopy(_prefix, _position, b, offset, n);
+            } else {
+                readSegment(_position);
+                n = Math.min(length, _segmentStart + _segmentSize - _position);
+                System.arraycopy(_segment, _position - _segmentStart, b, offset, n);
+            }
+            _position += n;
+            offset += n;
+            length -= n;
+            count += n;
+        }
+        return count;
+    }
+
+    /**
+     * Skip over elements. Pages of the LONG_RECORD chain that are skipped
+     * entirely are visited only to find their successors.
+     */
+    @Override
+    public long skip(final long n) throws IOException {
+        ensureOpen();
+        if (n <= 0) {
+            return 0;
+        }
+        final int skipped = (int) Math.min(n, _size - _position);
+        _position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        ensureOpen();
+        if (_position < _prefix.length) {
+            return Math.min(_size, _prefix.length) - _position;
+        }
+        if (_segmentStart >= 0 && _position >= _segmentStart) {
+            return Math.max(0, _segmentStart + _segmentSize - _position);
+        }
+        return 0;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(final int readLimit) {
+        _mark = _position;
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        ensureOpen();
+        _position = _mark;
+    }
+
+    /**
+     * Close the stream, allowing the pages it was reading to be reused if the
+     * value has since been replaced or removed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!_closed) {
+            _closed = true;
+            _segment = null;
+            if (_head != 0) {
+                _volume.getStructure().unpinLongRecord(_head);
+            }
+        }
+    }
+
+    /**
+     * Release the pages of a stream the application failed to close.
+     */
+    @Override
+    protected void finalize() throws Throwable {
+        try {
+            close();
+        } finally {
+            super.finalize();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (_closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    /**
+     * Read the page holding the supplied encoded offset into
+     * <code>_segment</code>, continuing from the current page if the offset
+     * lies beyond it and otherwise starting again from the head of the chain.
+     */
+    private void readSegment(final int position) throws IOException {
+        if (_segmentStart >= 0 && position >= _segmentStart && position < _segmentStart + _segmentSize) {
+            return;
+        }
+        final BufferPool pool = _volume.getPool();
+        final int capacity = pool.getBufferSize() - HEADER_SIZE;
+        long page;
+        int start;
+        if (_segmentStart >= 0 && position >= _segmentStart) {
+            page = _nextPage;
+            start = _segmentStart + capacity;
+        } else {
+            page = _head;
+            start = _prefix.length;
+        }
+        try {
+            for (int count = 0;; count++) {
+                if (page == 0 || count > MAX_LONG_RECORD_CHAIN) {
+                    corrupt("LONG_RECORD chain starting at " + _head + " is invalid at offset " + start);
+                }
+                final Buffer buffer = pool.get(_volume, page, false, true, _timeout);
+                try {
+                    if (buffer.getPageType() != PAGE_TYPE_LONG_RECORD) {
+                        corrupt("LONG_RECORD chain is invalid at page " + page + " - invalid page type: " + buffer);
+                    }
+                    if (position < start + capacity) {
+                        if (_segment == null) {
+                            _segment = new byte[capacity];
+                        }
+                        _segmentSize = Math.min(capacity, _size - start);
+                        System.arraycopy(buffer.getBytes(), HEADER_SIZE, _segment, 0, _segmentSize);
+                        _segmentStart = start;
+                        _nextPage = buffer.getRightSibling();
+                        return;
+                    }
+                    page = buffer.getRightSibling();
+                    start += capacity;
+                } finally {
+                    buffer.releaseTouched();
+                }
+            }
+        } catch (final PersistitException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private void corrupt(final String error) throws CorruptVolumeException {
+        _persistit.getLogBase().corruptVolume.log(error);
+        throw new CorruptVolumeException(error);
+    }
+}
@@ -0,0 +1,300 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import static com.persistit.Buffer.HEADER_SIZE;
+import static com.persistit.Buffer.LONGREC_PREFIX_OFFSET;
+import static com.persistit.Buffer.LONGREC_PREFIX_SIZE;
+import static com.persistit.Buffer.LONGREC_SIZE;
+import static com.persistit.Buffer.MAX_LONG_RECORD_CHAIN;
+import static com.persistit.Buffer.PAGE_TYPE_LONG_RECORD;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.persistit.exception.PersistitException;
+
+/**
+ * <p>
+ * An <code>OutputStream</code> that stores the bytes written to it as a
+ * <code>byte</code> array value, created by
+ * {@link Exchange#storeOutputStream()}. Bytes are written directly into the
+ * pages of a new LONG_RECORD chain as each page fills, so memory use is bounded
+ * by a single page regardless of the size of the value. The value is stored
+ * under the key the <code>Exchange</code> held when the stream was created
+ * when the stream is closed; until then the key's previous value remains
+ * visible. A value small enough to be stored in a data page is stored without
+ * a LONG_RECORD chain.
+ * </p>
+ * <p>
+ * The chain is written from left to right, so unlike a chain written by
+ * {@link Exchange#store()} a crash while the stream is open can leave pages
+ * that are allocated but not linked to any data page. As for a chain
+ * abandoned in that way by <code>store</code>, such pages can be detected by
+ * {@link IntegrityCheck} and are recovered by saving and reloading the data.
+ * Pages written by a stream that is still open when the transaction it was
+ * created in rolls back are deallocated, as are those of a stream that is
+ * garbage collected without having been closed. If the stream is closed
+ * within a transaction it must also have been created within that
+ * transaction, and {@link #close()} must be called by the thread that owns
+ * the <code>Exchange</code>.
+ * </p>
+ */
+public class LongRecordOutputStream extends OutputStream {
+
+    private final Exchange _exchange;
+
+    private final Key _key;
+
+    private final Volume _volume;
+
+    private final int _maxSimpleValueSize;
+
+    private final boolean _inTxn;
+
+    private final long _timeout;
+
+    private final byte[] _prefix = new byte[LONGREC_PREFIX_SIZE];
+
+    private final byte[] _segment;
+
+    /**
+     * Count of encoded bytes written so far, including the byte array header
+     */
+    private int _size = Value.BYTE_ARRAY_HEADER_SIZE;
+
+    private int _segmentSize;
+
+    /**
+     * First page of the chain, or zero if no page has been allocated
+     */
+    private long _head;
+
+    /**
+     * Page allocated to hold <code>_segment</code>, or zero
+     */
+    private long _page;
+
+    private int _pageCount;
+
+    private boolean _closed;
+
+    LongRecordOutputStream(final Exchange exchange, final Key key, final int maxSimpleValueSize) {
+        _exchange = exchange;
+        _key = new Key(key);
+        _volume = exchange.getVolume();
+        _maxSimpleValueSize = maxSimpleValueSize;
+        _inTxn = exchange.getTransaction().isActive();
+        _timeout = exchange.getTimeoutMillis();
+        _segment = new byte[_volume.getPool().getBufferSize() - HEADER_SIZE];
+        Value.putByteArrayHeader(_prefix, 0);
+        if (_inTxn) {
+            exchange.getTransaction().addOutputStream(this);
+        }
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(final byte[] b, int offset, int length) throws IOException {
+        if (offset < 0 || length < 0 || length > b.length - offset) {
+            throw new IndexOutOfBoundsException();
+        }
+        ensureOpen();
+        if (length > Integer.MAX_VALUE - _size) {
+            throw new IOException("Value is too large");
+        }
+        try {
+            while (length > 0) {
+                int n;
+                if (_size < LONGREC_PREFIX_SIZE) {
+                    n = Math.min(length, LONGREC_PREFIX_SIZE - _size);
+                    System.arraycopy(b, offset, _prefix, _size, n);
+                } else {
+                    if (_segmentSize == _segment.length) {
+                        if (_pageCount + 2 > MAX_LONG_RECORD_CHAIN) {
+                            abandon();
+                            throw new IOException("Value exceeds " + MAX_LONG_RECORD_CHAIN + " LONG_RECORD pages");
+                        }
+                        writeSegment(false);
+                    }
+                    n = Math.min(length, _segment.length - _segmentSize);
+                    System.arraycopy(b, offset, _segment, _segmentSize, n);
+                    _segmentSize += n;
+                }
+                _size += n;
+                offset += n;
+                length -= n;
+            }
+        } catch (final PersistitException e) {
+            abandon();
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Store the value. The value written so far is discarded if this method
+     * fails.
+     */
+    @Override
+    public void close() throws IOException {
+        if (_closed) {
+            return;
+        }
+        boolean stored = false;
+        try {
+            final Value value = new Value(_exchange.getPersistitInstance());
+            if (_head == 0 && _size <= _maxSimpleValueSize) {
+                value.ensureFit(_size);
+                final int prefixSize = Math.min(_size, LONGREC_PREFIX_SIZE);
+                System.arraycopy(_prefix, 0, value.getEncodedBytes(), 0, prefixSize);
+                System.arraycopy(_segment, 0, value.getEncodedBytes(), prefixSize, _segmentSize);
+                value.setEncodedSize(_size);
+            } else {
+                writeSegment(true);
+                final byte[] descriptor = new byte[LONGREC_SIZE];
+                Buffer.writeLongRecordDescriptor(descriptor, _size, _head);
+                System.arraycopy(_prefix, 0, descriptor, LONGREC_PREFIX_OFFSET, LONGREC_PREFIX_SIZE);
+                value.putEncodedBytes(descriptor, 0, LONGREC_SIZE);
+            }
+            _exchange.store(_key, value);
+            stored = true;
+        } catch (final PersistitException e) {
+            throw new IOException(e);
+        } finally {
+            if (!stored) {
+                abandon();
+            }
+            _closed = true;
+            if (_inTxn) {
+                _exchange.getTransaction().removeOutputStream(this);
+            }
+        }
+    }
+
+    /**
+     * Called when the transaction the stream was created in rolls back before
+     * the stream is closed.
+     */
+    void rollback() {
+        if (!_closed) {
+            abandon();
+        }
+    }
+
+    /**
+     * Deallocate the pages written by a stream the application failed to
+     * close. The work is done by the {@link CleanupManager} so that the
+     * finalizer thread does not wait for page claims.
+     */
+    @Override
+    protected void finalize() throws Throwable {
+        try {
+            if (!_closed && _head != 0) {
+                _closed = true;
+                _exchange.getPersistitInstance().getCleanupManager()
+                        .offer(new CleanupManager.CleanupLongRecordChain(_volume, _head));
+            }
+        } finally {
+            super.finalize();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (_closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    /**
+     * Write <code>_segment</code> to its page. Unless this is the last page, a
+     * page for the following segment is allocated first so that the page
+     * being written can point to it.
+     */
+    private void writeSegment(final boolean last) throws PersistitException {
+        if (_page == 0) {
+            _page = allocate();
+            _head = _page;
+        }
+        final long next = last ? 0 : allocate();
+        final Buffer buffer;
+        try {
+            buffer = _volume.getPool().get(_volume, _page, true, true, _timeout);
+        } catch (final PersistitException e) {
+            if (next != 0) {
+                _volume.getStructure().deallocateGarbageChain(next, 0);
+            }
+            throw e;
+        }
+        try {
+            final long timestamp = _exchange.getPersistitInstance().getTimestampAllocator().updateTimestamp();
+            buffer.writePageOnCheckpoint(timestamp);
+            System.arraycopy(_segment, 0, buffer.getBytes(), HEADER_SIZE, _segmentSize);
+            final int end = HEADER_SIZE + _segmentSize;
+            if (end < buffer.getBufferSize()) {
+                buffer.clearBytes(end, buffer.getBufferSize());
+            }
+            buffer.setRightSibling(next);
+            buffer.setDirtyAtTimestamp(timestamp);
+            if (_inTxn) {
+                buffer.writePage();
+            }
+        } finally {
+            buffer.releaseTouched();
+        }
+        _page = next;
+        _segmentSize = 0;
+        _pageCount++;
+    }
+
+    /**
+     * @return address of a newly allocated, empty LONG_RECORD page
+     */
+    private long allocate() throws PersistitException {
+        final Buffer buffer = _volume.getStructure().allocPage();
+        try {
+            final long timestamp = _exchange.getPersistitInstance().getTimestampAllocator().updateTimestamp();
+            buffer.writePageOnCheckpoint(timestamp);
+            buffer.init(PAGE_TYPE_LONG_RECORD);
+            buffer.clearBytes(HEADER_SIZE, buffer.getBufferSize());
+            buffer.setRightSibling(0);
+            buffer.setDirtyAtTimestamp(timestamp);
+            return buffer.getPageAddress();
+        } finally {
+            buffer.releaseTouched();
+        }
+    }
+
+    /**
+     * Deallocate the chain written so far, if any.
+     */
+    private void abandon() {
+        _closed = true;
+        if (_head != 0) {
+            final long head = _head;
+            _head = 0;
+            try {
+                _volume.getStructure().deallocateGarbageChain(head, 0);
+            } catch (final PersistitException e) {
+                _exchange.getPersistitInstance().getLogBase().exception.log(e);
+            }
+        }
+    }
+}
@@ -943,6 +943,12 @@ public interface Management extends Remote, ManagementMXBean {
         int readerClaimedPageCount;
         int writerClaimedPageCount;
         long earliestDirtyTimestamp;
+        String replacementPolicy;
+        long policyHitCount;
+        long policyMissCount;
+        int hotPageCount;
+        long promoteCount;
+        long demoteCount;
 
         public BufferPoolInfo() {
 
@@ -1124,6 +1130,61 @@ public interface Management extends Remote, ManagementMXBean {
         public long getEarliestDirtyTimestamp() {
             return earliestDirtyTimestamp;
         }
+
+        /**
+         * @return Name of the replacement policy used to select pages for
+         *         eviction from this pool
+         */
+        public String getReplacementPolicy() {
+            return replacementPolicy;
+        }
+
+        /**
+         * Return the count of lookup operations recorded by the replacement
+         * policy as having found the page already present in the pool.
+         * 
+         * @return The policy hit count
+         */
+        public long getPolicyHitCount() {
+            return policyHitCount;
+        }
+
+        /**
+         * Return the count of pages recorded by the replacement policy as
+         * having been read or created in the pool.
+         * 
+         * @return The policy miss count
+         */
+        public long getPolicyMissCount() {
+            return policyMissCount;
+        }
+
+        /**
+         * Get the count of pages the replacement policy currently protects
+         * from eviction as members of the working set. Always zero for the
+         * CLOCK policy.
+         * 
+         * @return The hot page count
+         */
+        public int getHotPageCount() {
+            return hotPageCount;
+        }
+
+        /**
+         * @return Count of pages the replacement policy has promoted into the
+         *         protected working set
+         */
+        public long getPromoteCount() {
+            return promoteCount;
+        }
+
+        /**
+         * @return Count of pages the replacement policy has demoted from the
+         *         protected working set
+         */
+        public long getDemoteCount() {
+            return demoteCount;
+        }
     }
 
     /**
@@ -2480,6 +2541,8 @@ public interface Management extends Remote, ManagementMXBean {
         String recoveryException;
         boolean copySuspended;
         boolean copyFast;
+        int abortedTransactions;
+        int replayThreads;
 
         public RecoveryInfo() {
 
@@ -2489,14 +2552,15 @@ public interface Management extends Remote, ManagementMXBean {
                 "baseAddress", "currentAddress", "lastValidCheckpointTimestamp", "lastValidCheckpointSystemTime",
                 "lastValidCheckpointJournalFile", "lastValidCheckpointJournalAddress", "committedTransactions",
                 "uncommittedTransactions", "errorCount", "appliedTransactions", "recoveryStatus", "recoveryEndAddress",
-                "recoveryException", "copySuspended", "copyFast" })
+                "recoveryException", "copySuspended", "copyFast", "abortedTransactions", "replayThreads" })
         public RecoveryInfo(final String keystoneJournalFile, final long keystoneJournalAddress, final long blockSize,
                 final int pageMapSize, final long baseAddress, final long currentAddress,
                 final long lastValidCheckpointTimestamp, final long lastValidCheckpointSystemTime,
                 final String lastValidCheckpointJournalFile, final long lastValidCheckpointJournalAddress,
                 final int committedTransactions, final int uncommittedTransactions, final int errorCount,
                 final int appliedTransactions, final long recoveryStatus, final long recoveryEndAddress,
-                final String recoveryException, final boolean copySuspended, final boolean copyFast) {
+                final String recoveryException, final boolean copySuspended, final boolean copyFast,
+                final int abortedTransactions, final int replayThreads) {
             super();
             this.keystoneJournalFile = keystoneJournalFile;
             this.keystoneJournalAddress = keystoneJournalAddress;
@@ -2517,6 +2581,8 @@ public interface Management extends Remote, ManagementMXBean {
             this.recoveryException = recoveryException;
             this.copySuspended = copySuspended;
             this.copyFast = copyFast;
+            this.abortedTransactions = abortedTransactions;
+            this.replayThreads = replayThreads;
         }
 
         /**
@@ -2649,6 +2715,21 @@ public interface Management extends Remote, ManagementMXBean {
             return appliedTransactions;
         }
 
+        /**
+         * @return the number of recovered uncommitted Transactions that have
+         *         been rolled back
+         */
+        public int getAbortedTransactions() {
+            return abortedTransactions;
+        }
+
+        /**
+         * @return the number of threads applying recovered Transactions
+         */
+        public int getReplayThreads() {
+            return replayThreads;
+        }
+
         /**
          * @return the number of errors encountered while applying committed
          *         Transactions during recovery
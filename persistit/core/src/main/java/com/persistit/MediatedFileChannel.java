@@ -178,6 +178,17 @@ class MediatedFileChannel extends FileChannel {
         }
     }
 
+    @Override
+    public MappedByteBuffer map(final MapMode mode, final long position, final long size) throws IOException {
+        while (true) {
+            try {
+                return _channel.map(mode, position, size);
+            } catch (final ClosedChannelException e) {
+                handleClosedChannelException(e);
+            }
+        }
+    }
+
     @Override
     public long size() throws IOException {
         while (true) {
@@ -282,11 +293,6 @@ class MediatedFileChannel extends FileChannel {
         throw new UnsupportedOperationException();
     }
 
-    @Override
-    public MappedByteBuffer map(final MapMode arg0, final long arg1, final long arg2) throws IOException {
-        throw new UnsupportedOperationException();
-    }
-
     @Override
     public long position() throws IOException {
         throw new UnsupportedOperationException();
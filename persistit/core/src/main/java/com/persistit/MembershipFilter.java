@@ -0,0 +1,255 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.persistit.util.Util;
+
+/**
+ * <p>
+ * A Bloom filter over the encoded keys of a {@link Tree}. A key that has been
+ * added is always reported as possibly present, so a negative answer from
+ * {@link #mightContain(Key)} proves that the key has never been stored in the
+ * <code>Tree</code> since the filter was built and that a fetch would not
+ * find it.
+ * </p>
+ * <p>
+ * Bits are set with compare-and-set so that any number of threads may add and
+ * test keys concurrently. Keys cannot be removed from a Bloom filter; instead
+ * the filter counts removals and reports itself {@link #isSaturated()
+ * saturated} when so many keys have been removed, or so many more keys have
+ * been added than it was sized for, that it should be rebuilt.
+ * </p>
+ */
+class MembershipFilter {
+
+    final static long MINIMUM_CAPACITY = 1024;
+
+    /**
+     * Upper bound on the size of the bit array, in 64-bit words (16MB). Beyond
+     * the number of keys this supports at the target false-positive rate the
+     * filter remains correct but admits more false positives.
+     */
+    final static int MAXIMUM_WORDS = 1 << 21;
+
+    final static double FALSE_POSITIVE_RATE = 0.01;
+
+    private final static int MAXIMUM_HASH_COUNT = 16;
+
+    private final static int VERSION = 1;
+
+    private final static int HEADER_SIZE = 32;
+
+    private final AtomicLongArray _words;
+
+    private final long _bitCount;
+
+    private final int _hashCount;
+
+    private final long _capacity;
+
+    private final AtomicLong _insertions = new AtomicLong();
+
+    private final AtomicLong _removals = new AtomicLong();
+
+    /**
+     * Construct an empty filter sized to hold <code>capacity</code> keys at
+     * the {@link #FALSE_POSITIVE_RATE target false-positive rate}.
+     *
+     * @param capacity
+     *            expected number of keys
+     */
+    MembershipFilter(final long capacity) {
+        _capacity = Math.max(MINIMUM_CAPACITY, capacity);
+        final double bitsPerKey = -Math.log(FALSE_POSITIVE_RATE) / (Math.log(2) * Math.log(2));
+        final long words = ((long) Math.ceil(_capacity * bitsPerKey) + 63) >>> 6;
+        _words = new AtomicLongArray((int) Math.min(words, MAXIMUM_WORDS));
+        _bitCount = (long) _words.length() << 6;
+        _hashCount = hashCount(_bitCount, _capacity);
+    }
+
+    private MembershipFilter(final long[] words, final int hashCount, final long capacity, final long insertions,
+            final long removals) {
+        _words = new AtomicLongArray(words);
+        _bitCount = (long) words.length << 6;
+        _hashCount = hashCount;
+        _capacity = capacity;
+        _insertions.set(insertions);
+        _removals.set(removals);
+    }
+
+    private static int hashCount(final long bitCount, final long capacity) {
+        final long count = Math.round((double) bitCount / capacity * Math.log(2));
+        return (int) Math.max(1, Math.min(MAXIMUM_HASH_COUNT, count));
+    }
+
+    /**
+     * Add a key to this filter.
+     *
+     * @param key
+     *            the key
+     */
+    void add(final Key key) {
+        final long hash1 = hash(key.getEncodedBytes(), key.getEncodedSize());
+        final long hash2 = secondHash(hash1);
+        for (int i = 0; i < _hashCount; i++) {
+            final long bit = ((hash1 + i * hash2) & Long.MAX_VALUE) % _bitCount;
+            final int index = (int) (bit >>> 6);
+            final long mask = 1L << bit;
+            for (;;) {
+                final long word = _words.get(index);
+                if ((word & mask) != 0 || _words.compareAndSet(index, word, word | mask)) {
+                    break;
+                }
+            }
+        }
+        _insertions.incrementAndGet();
+    }
+
+    /**
+     * @param key
+     *            the key
+     * @return <code>false</code> if the key has certainly not been added to
+     *         this filter, otherwise <code>true</code>
+     */
+    boolean mightContain(final Key key) {
+        final long hash1 = hash(key.getEncodedBytes(), key.getEncodedSize());
+        final long hash2 = secondHash(hash1);
+        for (int i = 0; i < _hashCount; i++) {
+            final long bit = ((hash1 + i * hash2) & Long.MAX_VALUE) % _bitCount;
+            if ((_words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Record that a key added to this filter has since been removed from the
+     * <code>Tree</code>.
+     */
+    void removed() {
+        _removals.incrementAndGet();
+    }
+
+    /**
+     * @return <code>true</code> if this filter holds enough removed keys, or
+     *         more keys than it was sized for, that a rebuilt filter would
+     *         reject significantly more missing keys
+     */
+    boolean isSaturated() {
+        final long insertions = _insertions.get();
+        final long removals = _removals.get();
+        return insertions > _capacity && _words.length() < MAXIMUM_WORDS || removals > MINIMUM_CAPACITY
+                && removals > insertions / 2;
+    }
+
+    /**
+     * @return the number of keys this filter was sized to hold
+     */
+    long getCapacity() {
+        return _capacity;
+    }
+
+    /**
+     * @return an estimate of the number of keys currently present in the
+     *         <code>Tree</code>
+     */
+    long getEstimatedCount() {
+        return Math.max(0, _insertions.get() - _removals.get());
+    }
+
+    /**
+     * Serialize a filter. A <code>null</code> filter is serialized as a header
+     * that records only that a filter is enabled but must be rebuilt.
+     *
+     * @param filter
+     *            the filter, or <code>null</code>
+     * @return the serialized form
+     */
+    static byte[] toBytes(final MembershipFilter filter) {
+        final int wordCount = filter == null ? 0 : filter._words.length();
+        final byte[] bytes = new byte[HEADER_SIZE + wordCount * 8];
+        Util.putShort(bytes, 0, VERSION);
+        if (filter != null) {
+            Util.putShort(bytes, 2, filter._hashCount);
+            Util.putInt(bytes, 4, wordCount);
+            Util.putLong(bytes, 8, filter._capacity);
+            Util.putLong(bytes, 16, filter._insertions.get());
+            Util.putLong(bytes, 24, filter._removals.get());
+            for (int index = 0; index < wordCount; index++) {
+                Util.putLong(bytes, HEADER_SIZE + index * 8, filter._words.get(index));
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Deserialize a filter written by {@link #toBytes(MembershipFilter)}.
+     *
+     * @param bytes
+     *            the serialized form
+     * @return the filter, or <code>null</code> if the serialized form holds no
+     *         usable filter
+     */
+    static MembershipFilter fromBytes(final byte[] bytes) {
+        if (bytes == null || bytes.length < HEADER_SIZE || Util.getShort(bytes, 0) != VERSION) {
+            return null;
+        }
+        final int hashCount = Util.getShort(bytes, 2);
+        final int wordCount = Util.getInt(bytes, 4);
+        if (wordCount <= 0 || hashCount <= 0 || bytes.length != HEADER_SIZE + wordCount * 8) {
+            return null;
+        }
+        final long[] words = new long[wordCount];
+        for (int index = 0; index < wordCount; index++) {
+            words[index] = Util.getLong(bytes, HEADER_SIZE + index * 8);
+        }
+        return new MembershipFilter(words, hashCount, Util.getLong(bytes, 8), Util.getLong(bytes, 16),
+                Util.getLong(bytes, 24));
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the encoded key bytes, finished with the MurmurHash3
+     * mixing function so that all bits depend on all bytes.
+     */
+    static long hash(final byte[] bytes, final int size) {
+        long hash = 0xcbf29ce484222325L;
+        for (int index = 0; index < size; index++) {
+            hash ^= bytes[index] & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb93fe53ec4cdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static long secondHash(final long hash) {
+        return (Long.rotateLeft(hash, 32) * 0x9e3779b97f4a7c15L) | 1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MembershipFilter(capacity=%,d bits=%,d hashes=%d insertions=%,d removals=%,d)",
+                _capacity, _bitCount, _hashCount, _insertions.get(), _removals.get());
+    }
+}
@@ -0,0 +1,308 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>
+ * A second-level page cache held in direct (off-heap) memory. A
+ * {@link BufferPool} configured with an off-heap allocation copies the image
+ * of each clean page it evicts into this cache, and on a subsequent miss it
+ * copies the image back into a {@link Buffer} rather than reading it from the
+ * volume file or journal. This permits a very large page cache to be held
+ * with a small Java heap: only the working set of pages lives in heap-resident
+ * <code>Buffer</code>s, while the remainder lives in memory that the garbage
+ * collector never scans or copies.
+ * </p>
+ * <p>
+ * The cache is exclusive: a page image is removed from the cache when it is
+ * copied back into the <code>BufferPool</code>. Therefore the cache never
+ * holds a copy of a page that is also resident (and possibly being modified)
+ * in the pool, and no coherence protocol is needed beyond discarding all
+ * entries of a <code>Volume</code> when the pool invalidates that
+ * <code>Volume</code>.
+ * </p>
+ * <p>
+ * The arena is divided into segments, each a single direct
+ * <code>ByteBuffer</code> no larger than {@value #MAXIMUM_SEGMENT_SIZE}
+ * bytes. A page is assigned to a segment by hash; each segment has its own
+ * lock, its own open hash chains and a FIFO replacement pointer.
+ * </p>
+ */
+class OffHeapPageCache {
+
+    /**
+     * Upper bound on the size of one direct ByteBuffer segment
+     */
+    final static long MAXIMUM_SEGMENT_SIZE = 1L << 30;
+
+    /**
+     * Minimum number of segments - governs lock striping
+     */
+    private final static int MINIMUM_SEGMENT_COUNT = 16;
+
+    private final static int NONE = -1;
+
+    private final int _pageSize;
+
+    private final Segment[] _segments;
+
+    private final long _slotCount;
+
+    private final AtomicLong _hitCounter = new AtomicLong();
+
+    private final AtomicLong _missCounter = new AtomicLong();
+
+    private final AtomicLong _storeCounter = new AtomicLong();
+
+    private final AtomicLong _discardCounter = new AtomicLong();
+
+    /**
+     * Construct an off-heap cache of page images.
+     *
+     * @param memory
+     *            Number of bytes of direct memory to allocate
+     * @param pageSize
+     *            Size of each page image
+     */
+    OffHeapPageCache(final long memory, final int pageSize) {
+        final long slots = memory / pageSize;
+        if (slots < MINIMUM_SEGMENT_COUNT) {
+            throw new IllegalArgumentException("Off-heap page cache allocation too small: " + memory);
+        }
+        final long slotsPerSegmentLimit = MAXIMUM_SEGMENT_SIZE / pageSize;
+        final int segmentCount = (int) Math.max(MINIMUM_SEGMENT_COUNT, (slots + slotsPerSegmentLimit - 1)
+                / slotsPerSegmentLimit);
+        _pageSize = pageSize;
+        _segments = new Segment[segmentCount];
+        long allocated = 0;
+        for (int index = 0; index < segmentCount; index++) {
+            final int count = (int) (slots / segmentCount + (index < slots % segmentCount ? 1 : 0));
+            _segments[index] = new Segment(count);
+            allocated += count;
+        }
+        _slotCount = allocated;
+    }
+
+    int getPageSize() {
+        return _pageSize;
+    }
+
+    long getSlotCount() {
+        return _slotCount;
+    }
+
+    long getMemory() {
+        return _slotCount * _pageSize;
+    }
+
+    long getHitCount() {
+        return _hitCounter.get();
+    }
+
+    long getMissCount() {
+        return _missCounter.get();
+    }
+
+    long getStoreCount() {
+        return _storeCounter.get();
+    }
+
+    long getDiscardCount() {
+        return _discardCounter.get();
+    }
+
+    /**
+     * Copy the page image held by the supplied <code>Buffer</code> into the
+     * cache, replacing any previous image of the same page. The caller must
+     * hold a claim on the buffer and the buffer must not be dirty.
+     *
+     * @param buffer
+     *            the Buffer
+     */
+    void store(final Buffer buffer) {
+        final Volume volume = buffer.getVolume();
+        final long page = buffer.getPageAddress();
+        segment(volume, page).store(volume, page, buffer.getBytes());
+        _storeCounter.incrementAndGet();
+    }
+
+    /**
+     * Remove the image of a page from the cache and copy it into the supplied
+     * <code>Buffer</code>. The caller must hold a writer claim on the buffer.
+     *
+     * @param buffer
+     *            the Buffer; its volume and page address designate the page
+     *            to be loaded
+     * @return <code>true</code> if the cache held an image of the page
+     */
+    boolean take(final Buffer buffer) {
+        final Volume volume = buffer.getVolume();
+        final long page = buffer.getPageAddress();
+        if (segment(volume, page).take(volume, page, buffer.getBytes())) {
+            _hitCounter.incrementAndGet();
+            return true;
+        } else {
+            _missCounter.incrementAndGet();
+            return false;
+        }
+    }
+
+    /**
+     * Discard the image of a page, if present.
+     *
+     * @param volume
+     * @param page
+     */
+    void remove(final Volume volume, final long page) {
+        segment(volume, page).take(volume, page, null);
+    }
+
+    /**
+     * Discard all page images belonging to the specified <code>Volume</code>,
+     * or all page images if <code>volume</code> is <code>null</code>.
+     *
+     * @param volume
+     */
+    void invalidate(final Volume volume) {
+        for (final Segment segment : _segments) {
+            segment.invalidate(volume);
+        }
+    }
+
+    private Segment segment(final Volume volume, final long page) {
+        return _segments[(int) (((page ^ volume.hashCode()) & Integer.MAX_VALUE) % _segments.length)];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("OffHeapPageCache(%,d slots of %,d bytes, hits=%,d misses=%,d)", _slotCount,
+                _pageSize, getHitCount(), getMissCount());
+    }
+
+    /**
+     * One direct ByteBuffer and its index. All fields are guarded by _lock.
+     */
+    private class Segment {
+        private final ReentrantLock _lock = new ReentrantLock();
+        private final ByteBuffer _arena;
+        private final Volume[] _volumes;
+        private final long[] _pages;
+        private final int[] _next;
+        private final int[] _hashTable;
+        private int _clock;
+
+        Segment(final int slots) {
+            _arena = ByteBuffer.allocateDirect(slots * _pageSize);
+            _volumes = new Volume[slots];
+            _pages = new long[slots];
+            _next = new int[slots];
+            _hashTable = new int[slots * 2];
+            Arrays.fill(_hashTable, NONE);
+        }
+
+        void store(final Volume volume, final long page, final byte[] bytes) {
+            _lock.lock();
+            try {
+                int slot = find(volume, page);
+                if (slot == NONE) {
+                    slot = _clock;
+                    _clock = (_clock + 1) % _volumes.length;
+                    if (_volumes[slot] != null) {
+                        unlink(slot);
+                        _discardCounter.incrementAndGet();
+                    }
+                    final int hash = hash(volume, page);
+                    _volumes[slot] = volume;
+                    _pages[slot] = page;
+                    _next[slot] = _hashTable[hash];
+                    _hashTable[hash] = slot;
+                }
+                _arena.clear().position(slot * _pageSize);
+                _arena.put(bytes, 0, _pageSize);
+            } finally {
+                _lock.unlock();
+            }
+        }
+
+        boolean take(final Volume volume, final long page, final byte[] bytes) {
+            _lock.lock();
+            try {
+                final int slot = find(volume, page);
+                if (slot == NONE) {
+                    return false;
+                }
+                if (bytes != null) {
+                    _arena.clear().position(slot * _pageSize);
+                    _arena.get(bytes, 0, _pageSize);
+                }
+                unlink(slot);
+                return true;
+            } finally {
+                _lock.unlock();
+            }
+        }
+
+        void invalidate(final Volume volume) {
+            _lock.lock();
+            try {
+                for (int slot = 0; slot < _volumes.length; slot++) {
+                    if (_volumes[slot] != null && (volume == null || _volumes[slot] == volume)) {
+                        unlink(slot);
+                    }
+                }
+            } finally {
+                _lock.unlock();
+            }
+        }
+
+        private int hash(final Volume volume, final long page) {
+            return (int) (((page * 31 + volume.hashCode()) & Integer.MAX_VALUE) % _hashTable.length);
+        }
+
+        private int find(final Volume volume, final long page) {
+            for (int slot = _hashTable[hash(volume, page)]; slot != NONE; slot = _next[slot]) {
+                if (_pages[slot] == page && _volumes[slot] == volume) {
+                    return slot;
+                }
+            }
+            return NONE;
+        }
+
+        private void unlink(final int slot) {
+            final int hash = hash(_volumes[slot], _pages[slot]);
+            if (_hashTable[hash] == slot) {
+                _hashTable[hash] = _next[slot];
+            } else {
+                for (int prev = _hashTable[hash];; prev = _next[prev]) {
+                    assert prev != NONE : "Attempting to unlink an unattached slot";
+                    if (_next[prev] == slot) {
+                        _next[prev] = _next[slot];
+                        break;
+                    }
+                }
+            }
+            _volumes[slot] = null;
+            _pages[slot] = 0;
+            _next[slot] = NONE;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import java.util.zip.Checksum;
+
+import com.persistit.util.Util;
+
+/**
+ * <p>
+ * Computes the CRC-32C (Castagnoli) checksum stored in the header of every
+ * B-Tree page (see {@link Buffer#CHECKSUM_OFFSET}). The checksum covers the
+ * entire page image with the four checksum bytes taken as zero. Because a page
+ * is written only after its slack space has been cleared, the image read back
+ * from either the journal or the volume file is byte-for-byte the image that
+ * was checksummed.
+ * </p>
+ * <p>
+ * The value zero is reserved to mean "no checksum"; it is found in pages
+ * written by earlier versions of Persistit and in pages that have never been
+ * written. A computed checksum of zero is therefore stored as one.
+ * </p>
+ * <p>
+ * On a JVM that provides <code>java.util.zip.CRC32C</code> that intrinsic
+ * implementation is used; otherwise a table-driven implementation of the same
+ * polynomial computes identical values, so volumes may be moved freely between
+ * JVMs.
+ * </p>
+ */
+final class PageChecksum {
+
+    final static int NONE = 0;
+
+    private final static String CRC32C_CLASS_NAME = "java.util.zip.CRC32C";
+
+    private final static byte[] ZEROS = new byte[Buffer.CHECKSUM_SIZE];
+
+    private final static Class<?> CRC32C_CLASS = crc32cClass();
+
+    private final static ThreadLocal<Checksum> CHECKSUM_THREAD_LOCAL = new ThreadLocal<Checksum>() {
+        @Override
+        protected Checksum initialValue() {
+            return newChecksum();
+        }
+    };
+
+    private PageChecksum() {
+    }
+
+    /**
+     * Compute the checksum of a page image.
+     *
+     * @param bytes
+     *            array containing the page image
+     * @param offset
+     *            offset of the page image within <code>bytes</code>
+     * @param bufferSize
+     *            size of the page
+     * @return the checksum, never {@value #NONE}
+     */
+    static int compute(final byte[] bytes, final int offset, final int bufferSize) {
+        final Checksum checksum = CHECKSUM_THREAD_LOCAL.get();
+        final int tail = Buffer.CHECKSUM_OFFSET + Buffer.CHECKSUM_SIZE;
+        checksum.reset();
+        checksum.update(bytes, offset, Buffer.CHECKSUM_OFFSET);
+        checksum.update(ZEROS, 0, Buffer.CHECKSUM_SIZE);
+        checksum.update(bytes, offset + tail, bufferSize - tail);
+        final int value = (int) checksum.getValue();
+        return value == NONE ? 1 : value;
+    }
+
+    /**
+     * @param bytes
+     *            array containing the page image
+     * @param offset
+     *            offset of the page image within <code>bytes</code>
+     * @return the checksum stored in the page image
+     */
+    static int stored(final byte[] bytes, final int offset) {
+        return Util.getInt(bytes, offset + Buffer.CHECKSUM_OFFSET);
+    }
+
+    /**
+     * @param bytes
+     *            array containing the page image
+     * @param offset
+     *            offset of the page image within <code>bytes</code>
+     * @param bufferSize
+     *            size of the page
+     * @return <code>true</code> if the page image carries no checksum or if
+     *         its checksum matches its content
+     */
+    static boolean verify(final byte[] bytes, final int offset, final int bufferSize) {
+        final int stored = stored(bytes, offset);
+        return stored == NONE || stored == compute(bytes, offset, bufferSize);
+    }
+
+    static Checksum newChecksum() {
+        if (CRC32C_CLASS != null) {
+            try {
+                return (Checksum) CRC32C_CLASS.newInstance();
+            } catch (final Exception e) {
+                // fall through to the portable implementation
+            }
+        }
+        return new Crc32c();
+    }
+
+    private static Class<?> crc32cClass() {
+        try {
+            return Class.forName(CRC32C_CLASS_NAME);
+        } catch (final ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Portable table-driven CRC-32C, used when the JVM does not supply one.
+     */
+    static class Crc32c implements Checksum {
+
+        private final static int POLYNOMIAL = 0x82F63B78;
+
+        private final static int[] TABLE = new int[256];
+
+        static {
+            for (int i = 0; i < 256; i++) {
+                int crc = i;
+                for (int bit = 0; bit < 8; bit++) {
+                    crc = (crc & 1) != 0 ? (crc >>> 1) ^ POLYNOMIAL : crc >>> 1;
+                }
+                TABLE[i] = crc;
+            }
+        }
+
+        private int _crc = 0xFFFFFFFF;
+
+        @Override
+        public void update(final int b) {
+            _crc = (_crc >>> 8) ^ TABLE[(_crc ^ b) & 0xFF];
+        }
+
+        @Override
+        public void update(final byte[] bytes, final int offset, final int length) {
+            int crc = _crc;
+            for (int index = offset; index < offset + length; index++) {
+                crc = (crc >>> 8) ^ TABLE[(crc ^ bytes[index]) & 0xFF];
+            }
+            _crc = crc;
+        }
+
+        @Override
+        public long getValue() {
+            return ~_crc & 0xFFFFFFFFL;
+        }
+
+        @Override
+        public void reset() {
+            _crc = 0xFFFFFFFF;
+        }
+    }
+}
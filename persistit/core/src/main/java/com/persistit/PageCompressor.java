@@ -0,0 +1,136 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * <p>
+ * Compresses and expands the payload of a page image record (see
+ * {@link JournalRecord.PA}). The payload of a PA record is the page with the
+ * free space between its key block and its allocated tail removed. When the
+ * {@link VolumeSpecification} of the page's <code>Volume</code> enables
+ * compression, the payload is written as its first
+ * {@value Buffer#HEADER_SIZE} bytes, uncompressed, followed by the remainder
+ * compressed with the JDK's Deflate implementation. Keeping the page header
+ * uncompressed permits tools such as {@link JournalTool} and the recovery
+ * process to examine the page type and right sibling without expanding the
+ * record.
+ * </p>
+ * <p>
+ * Instances hold a <code>Deflater</code>, an <code>Inflater</code> and
+ * scratch space and are therefore not thread-safe. {@link JournalManager}
+ * keeps one per thread.
+ * </p>
+ */
+class PageCompressor {
+
+    /**
+     * Compression code stored in a PA record for an uncompressed payload
+     */
+    final static int NONE = 0;
+
+    /**
+     * Compression code stored in a PA record for a Deflate-compressed payload
+     */
+    final static int DEFLATE = 1;
+
+    private final Deflater _deflater = new Deflater(Deflater.BEST_SPEED);
+
+    private final Inflater _inflater = new Inflater();
+
+    private final byte[] _payload = new byte[Buffer.MAX_BUFFER_SIZE];
+
+    private final byte[] _compressed = new byte[Buffer.MAX_BUFFER_SIZE];
+
+    /**
+     * Compress the payload of a page image.
+     *
+     * @param bytes
+     *            the page image
+     * @param bufferSize
+     *            size of the page
+     * @param leftSize
+     *            number of bytes at the start of the page included in the
+     *            payload
+     * @param rightSize
+     *            number of bytes at the end of the page included in the
+     *            payload
+     * @return the size of the compressed payload now held in the array
+     *         returned by {@link #getCompressedBytes()}, or -1 if the payload
+     *         does not compress
+     */
+    int compress(final byte[] bytes, final int bufferSize, final int leftSize, final int rightSize) {
+        final int payloadSize = leftSize + rightSize;
+        System.arraycopy(bytes, 0, _payload, 0, leftSize);
+        System.arraycopy(bytes, bufferSize - rightSize, _payload, leftSize, rightSize);
+        final int headerSize = Math.min(Buffer.HEADER_SIZE, payloadSize);
+        System.arraycopy(_payload, 0, _compressed, 0, headerSize);
+        _deflater.reset();
+        _deflater.setInput(_payload, headerSize, payloadSize - headerSize);
+        _deflater.finish();
+        int size = headerSize;
+        while (!_deflater.finished() && size < payloadSize) {
+            size += _deflater.deflate(_compressed, size, payloadSize - size);
+        }
+        return _deflater.finished() && size < payloadSize ? size : -1;
+    }
+
+    /**
+     * @return the array holding the result of the most recent call to
+     *         {@link #compress(byte[], int, int, int)}
+     */
+    byte[] getCompressedBytes() {
+        return _compressed;
+    }
+
+    /**
+     * Expand a compressed payload in place.
+     *
+     * @param bytes
+     *            array holding the compressed payload; on return it holds the
+     *            uncompressed payload at the same offset
+     * @param offset
+     *            offset of the payload within <code>bytes</code>
+     * @param size
+     *            size of the compressed payload
+     * @param bufferSize
+     *            size of the page; the uncompressed payload may not exceed
+     *            it
+     * @return size of the uncompressed payload
+     * @throws DataFormatException
+     *             if the compressed payload is corrupt
+     */
+    int expand(final byte[] bytes, final int offset, final int size, final int bufferSize)
+            throws DataFormatException {
+        final int headerSize = Math.min(Buffer.HEADER_SIZE, size);
+        System.arraycopy(bytes, offset, _compressed, 0, size);
+        _inflater.reset();
+        _inflater.setInput(_compressed, headerSize, size - headerSize);
+        int expanded = headerSize;
+        while (!_inflater.finished()) {
+            final int count = _inflater.inflate(bytes, offset + expanded, bufferSize - expanded);
+            if (count == 0 && (_inflater.needsInput() || _inflater.needsDictionary() || expanded == bufferSize)) {
+                throw new DataFormatException("Compressed page payload is truncated or too large");
+            }
+            expanded += count;
+        }
+        return expanded;
+    }
+}
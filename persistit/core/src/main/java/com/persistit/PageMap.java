@@ -0,0 +1,361 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.persistit.JournalManager.PageNode;
+
+/**
+ * <p>
+ * Open-addressing hash map from (volume handle, page address) to the most
+ * recent {@link PageNode} for that page. Keys are held in a primitive
+ * <code>long</code> array, two elements per slot, and values in a parallel
+ * reference array, so the map allocates no object per entry beyond the
+ * <code>PageNode</code> itself, and a lookup by {@link #get(int, long)}
+ * allocates nothing.
+ * </p>
+ * <p>
+ * Lookups are lock-free and may run concurrently with one thread modifying the
+ * map. Methods that modify the map, including removal through an iterator, must
+ * be serialized by the caller; {@link JournalManager} performs them while
+ * holding its monitor. A lookup concurrent with a modification observes the
+ * map either before or after that modification.
+ * </p>
+ * <p>
+ * This is made safe by never moving a key within a table: a new entry is
+ * written into an empty slot, value first and volume handle last, and removal
+ * clears only the value, leaving the key as a tombstone that is reused if the
+ * same page is added again. When live entries and tombstones together fill
+ * three quarters of the table, the live entries are copied to a new table that
+ * is then published through a volatile field. A lookup that began on the old
+ * table completes there.
+ * </p>
+ * <p>
+ * This class implements {@link Map} so that code which builds or inspects the
+ * page map, such as recovery and unit tests, can treat it as one; keys and
+ * values are the same <code>PageNode</code>.
+ * </p>
+ */
+class PageMap extends AbstractMap<PageNode, PageNode> {
+
+    private final static int INITIAL_CAPACITY = 1024;
+
+    private final static long EMPTY = Long.MIN_VALUE;
+
+    private final static long MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private static class Table {
+
+        final AtomicLongArray _keys;
+
+        final AtomicReferenceArray<PageNode> _values;
+
+        final int _mask;
+
+        Table(final int capacity) {
+            _keys = new AtomicLongArray(capacity * 2);
+            _values = new AtomicReferenceArray<PageNode>(capacity);
+            _mask = capacity - 1;
+            for (int index = 0; index < capacity; index++) {
+                _keys.lazySet(index * 2, EMPTY);
+            }
+        }
+
+        int capacity() {
+            return _mask + 1;
+        }
+
+        /**
+         * @return index of the slot holding the key, or of the empty slot at
+         *         which the key's probe sequence ends
+         */
+        int find(final int volumeHandle, final long pageAddress) {
+            int index = hash(volumeHandle, pageAddress) & _mask;
+            while (true) {
+                final long handle = _keys.get(index * 2);
+                if (handle == EMPTY || handle == volumeHandle && _keys.get(index * 2 + 1) == pageAddress) {
+                    return index;
+                }
+                index = (index + 1) & _mask;
+            }
+        }
+    }
+
+    private volatile Table _table = new Table(INITIAL_CAPACITY);
+
+    /**
+     * Count of slots holding a live entry
+     */
+    private volatile int _size;
+
+    /**
+     * Count of slots holding a key, whether live or a tombstone
+     */
+    private int _used;
+
+    private Collection<PageNode> _values;
+
+    private Set<Map.Entry<PageNode, PageNode>> _entrySet;
+
+    private static int hash(final int volumeHandle, final long pageAddress) {
+        final long h = (pageAddress ^ ((long) volumeHandle << 40)) * MULTIPLIER;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Look up the <code>PageNode</code> for a page. Safe to call without
+     * synchronization, and allocates no objects.
+     *
+     * @param volumeHandle
+     *            journal handle of the volume
+     * @param pageAddress
+     *            page address within the volume
+     * @return the PageNode, or <code>null</code> if there is none
+     */
+    PageNode get(final int volumeHandle, final long pageAddress) {
+        final Table table = _table;
+        final int index = table.find(volumeHandle, pageAddress);
+        if (table._keys.get(index * 2) == EMPTY) {
+            return null;
+        }
+        return table._values.get(index);
+    }
+
+    @Override
+    public PageNode get(final Object key) {
+        if (!(key instanceof PageNode)) {
+            return null;
+        }
+        final PageNode pn = (PageNode) key;
+        return get(pn.getVolumeHandle(), pn.getPageAddress());
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Add or replace the entry for the page identified by
+     * <code>pageNode</code>. Must be serialized with other modifications.
+     */
+    @Override
+    public PageNode put(final PageNode key, final PageNode pageNode) {
+        assert key.equals(pageNode);
+        final int volumeHandle = pageNode.getVolumeHandle();
+        final long pageAddress = pageNode.getPageAddress();
+        Table table = _table;
+        int index = table.find(volumeHandle, pageAddress);
+        if (table._keys.get(index * 2) != EMPTY) {
+            final PageNode previous = table._values.getAndSet(index, pageNode);
+            if (previous == null) {
+                _size++;
+            }
+            return previous;
+        }
+        if ((_used + 1) * 4 > table.capacity() * 3) {
+            table = rehash(_size + 1);
+            index = table.find(volumeHandle, pageAddress);
+        }
+        table._values.set(index, pageNode);
+        table._keys.set(index * 2 + 1, pageAddress);
+        table._keys.set(index * 2, volumeHandle);
+        _used++;
+        _size++;
+        return null;
+    }
+
+    /**
+     * Remove the entry for a page. Must be serialized with other
+     * modifications.
+     */
+    @Override
+    public PageNode remove(final Object key) {
+        if (!(key instanceof PageNode)) {
+            return null;
+        }
+        final PageNode pn = (PageNode) key;
+        final Table table = _table;
+        final int index = table.find(pn.getVolumeHandle(), pn.getPageAddress());
+        if (table._keys.get(index * 2) == EMPTY) {
+            return null;
+        }
+        final PageNode previous = table._values.getAndSet(index, null);
+        if (previous != null) {
+            _size--;
+        }
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        _table = new Table(INITIAL_CAPACITY);
+        _size = 0;
+        _used = 0;
+    }
+
+    @Override
+    public int size() {
+        return _size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return _size == 0;
+    }
+
+    /**
+     * @return a view of the values; its iterator supports
+     *         <code>remove</code>, which must be serialized with other
+     *         modifications
+     */
+    @Override
+    public Collection<PageNode> values() {
+        if (_values == null) {
+            _values = new AbstractCollection<PageNode>() {
+                @Override
+                public Iterator<PageNode> iterator() {
+                    return new ValueIterator();
+                }
+
+                @Override
+                public int size() {
+                    return _size;
+                }
+            };
+        }
+        return _values;
+    }
+
+    @Override
+    public Set<Map.Entry<PageNode, PageNode>> entrySet() {
+        if (_entrySet == null) {
+            _entrySet = new AbstractSet<Map.Entry<PageNode, PageNode>>() {
+                @Override
+                public Iterator<Map.Entry<PageNode, PageNode>> iterator() {
+                    final ValueIterator iterator = new ValueIterator();
+                    return new Iterator<Map.Entry<PageNode, PageNode>>() {
+                        @Override
+                        public boolean hasNext() {
+                            return iterator.hasNext();
+                        }
+
+                        @Override
+                        public Map.Entry<PageNode, PageNode> next() {
+                            final PageNode pn = iterator.next();
+                            return new SimpleImmutableEntry<PageNode, PageNode>(pn, pn);
+                        }
+
+                        @Override
+                        public void remove() {
+                            iterator.remove();
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return _size;
+                }
+            };
+        }
+        return _entrySet;
+    }
+
+    /**
+     * @return number of slots in the current table
+     */
+    int getCapacity() {
+        return _table.capacity();
+    }
+
+    /**
+     * Copy the live entries into a new table sized for
+     * <code>minimumSize</code> entries at half occupancy and publish it.
+     */
+    private Table rehash(final int minimumSize) {
+        final Table oldTable = _table;
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < minimumSize * 2) {
+            capacity *= 2;
+        }
+        final Table newTable = new Table(capacity);
+        int used = 0;
+        for (int index = 0; index < oldTable.capacity(); index++) {
+            final PageNode pn = oldTable._values.get(index);
+            if (pn != null) {
+                final int slot = newTable.find(pn.getVolumeHandle(), pn.getPageAddress());
+                newTable._values.lazySet(slot, pn);
+                newTable._keys.lazySet(slot * 2 + 1, pn.getPageAddress());
+                newTable._keys.lazySet(slot * 2, pn.getVolumeHandle());
+                used++;
+            }
+        }
+        _used = used;
+        _table = newTable;
+        return newTable;
+    }
+
+    private class ValueIterator implements Iterator<PageNode> {
+
+        private final Table _iteratorTable = _table;
+
+        private int _index = -1;
+
+        private int _next = -1;
+
+        @Override
+        public boolean hasNext() {
+            if (_next <= _index) {
+                _next = _index + 1;
+                while (_next < _iteratorTable.capacity() && _iteratorTable._values.get(_next) == null) {
+                    _next++;
+                }
+            }
+            return _next < _iteratorTable.capacity();
+        }
+
+        @Override
+        public PageNode next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            _index = _next;
+            return _iteratorTable._values.get(_index);
+        }
+
+        @Override
+        public void remove() {
+            if (_index < 0 || _iteratorTable != _table) {
+                throw new IllegalStateException();
+            }
+            if (_iteratorTable._values.getAndSet(_index, null) != null) {
+                _size--;
+            }
+        }
+    }
+}
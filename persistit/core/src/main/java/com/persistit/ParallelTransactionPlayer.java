@@ -0,0 +1,245 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.persistit.JournalManager.TransactionMapItem;
+import com.persistit.TransactionPlayer.TransactionPlayerListener;
+import com.persistit.TransactionPlayer.Transcript;
+import com.persistit.exception.PersistitException;
+import com.persistit.exception.TestException;
+
+/**
+ * <p>
+ * Applies recovered transactions on a pool of worker threads. Each tree handle
+ * is assigned to one of a fixed number of lanes, and each lane is served by a
+ * single thread that applies transactions in the order they were dispatched.
+ * Because the caller dispatches transactions in commit order, the updates to
+ * any one tree are applied in commit order while transactions on unrelated
+ * trees proceed concurrently.
+ * </p>
+ * <p>
+ * A transaction that updates trees in more than one lane, that stores a long
+ * record (whose assembly requires the journal reader), or whose records are
+ * too large to hold in memory is not dispatched. The caller must instead call
+ * {@link #drain()} and apply it on its own thread, which makes such a
+ * transaction a barrier with respect to all lanes.
+ * </p>
+ * <p>
+ * The {@link TransactionPlayerListener} is called concurrently from the lane
+ * threads and must be thread-safe.
+ * </p>
+ */
+class ParallelTransactionPlayer {
+
+    final static int DEFAULT_THREADS = 1;
+
+    final static int MAXIMUM_THREADS = 64;
+
+    /**
+     * Largest transaction, in bytes of TX records, that is dispatched to a
+     * lane
+     */
+    final static int MAXIMUM_TRANSCRIPT_SIZE = 1024 * 1024;
+
+    /**
+     * Maximum total size of TX records read but not yet applied
+     */
+    final static int MAXIMUM_PENDING_SIZE = 64 * 1024 * 1024;
+
+    private final static long CLOSE_WAIT_MS = 60000;
+
+    interface Completion {
+
+        void applied(TransactionMapItem item);
+
+        void failed(TransactionMapItem item, Exception exception);
+    }
+
+    private final TransactionPlayer _player;
+
+    private final Completion _completion;
+
+    private final ExecutorService[] _lanes;
+
+    private final Future<?>[] _tails;
+
+    private final Semaphore _pending = new Semaphore(MAXIMUM_PENDING_SIZE);
+
+    private final AtomicInteger _dispatchedCount = new AtomicInteger();
+
+    private volatile TestException _testException;
+
+    ParallelTransactionPlayer(final TransactionPlayer player, final int threads, final Completion completion) {
+        _player = player;
+        _completion = completion;
+        _lanes = new ExecutorService[threads];
+        _tails = new Future<?>[threads];
+        for (int index = 0; index < threads; index++) {
+            final String name = "RECOVERY:" + (index + 1);
+            _lanes[index] = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable r) {
+                    final Thread thread = new Thread(r, name);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+    }
+
+    /**
+     * Attempt to dispatch a transaction to a lane. Reads the transaction's
+     * records on the calling thread.
+     *
+     * @param item
+     *            the transaction
+     * @param listener
+     *            listener that applies it
+     * @return <code>true</code> if the transaction was dispatched;
+     *         <code>false</code> if the caller must drain the lanes and apply
+     *         it itself
+     * @throws PersistitException
+     *             if the transaction's records cannot be read
+     * @throws TestException
+     *             if a previously dispatched transaction was interrupted by a
+     *             unit test
+     */
+    boolean dispatch(final TransactionMapItem item, final TransactionPlayerListener listener)
+            throws PersistitException, TestException {
+        checkTestException();
+        final Transcript transcript = _player.readTranscript(item, MAXIMUM_TRANSCRIPT_SIZE);
+        if (transcript == null || transcript.hasLongRecord()) {
+            return false;
+        }
+        final int lane = lane(transcript.getTreeHandles());
+        if (lane < 0) {
+            return false;
+        }
+        final int size = transcript.getSize();
+        _pending.acquireUninterruptibly(size);
+        _dispatchedCount.incrementAndGet();
+        _tails[lane] = _lanes[lane].submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (_testException == null) {
+                        _player.applyTranscript(transcript, listener);
+                        _completion.applied(item);
+                    }
+                } catch (final TestException e) {
+                    _testException = e;
+                    _completion.failed(item, e);
+                } catch (final Exception e) {
+                    _completion.failed(item, e);
+                } finally {
+                    _pending.release(size);
+                }
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Wait for every dispatched transaction to be applied.
+     *
+     * @throws TestException
+     *             if a dispatched transaction was interrupted by a unit test
+     */
+    void drain() throws TestException {
+        boolean interrupted = false;
+        for (int index = 0; index < _tails.length; index++) {
+            final Future<?> tail = _tails[index];
+            while (tail != null) {
+                try {
+                    tail.get();
+                    break;
+                } catch (final InterruptedException e) {
+                    interrupted = true;
+                } catch (final ExecutionException e) {
+                    break;
+                }
+            }
+            _tails[index] = null;
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        checkTestException();
+    }
+
+    /**
+     * Drain the lanes and stop their threads.
+     *
+     * @throws TestException
+     */
+    void close() throws TestException {
+        try {
+            drain();
+        } finally {
+            for (final ExecutorService lane : _lanes) {
+                lane.shutdown();
+            }
+            for (final ExecutorService lane : _lanes) {
+                try {
+                    lane.awaitTermination(CLOSE_WAIT_MS, TimeUnit.MILLISECONDS);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    int getThreadCount() {
+        return _lanes.length;
+    }
+
+    /**
+     * @return count of transactions applied on lane threads
+     */
+    int getDispatchedCount() {
+        return _dispatchedCount.get();
+    }
+
+    private int lane(final List<Integer> treeHandles) {
+        int lane = -1;
+        for (final Integer treeHandle : treeHandles) {
+            final int l = (treeHandle.intValue() & Integer.MAX_VALUE) % _lanes.length;
+            if (lane >= 0 && l != lane) {
+                return -1;
+            }
+            lane = l;
+        }
+        return lane;
+    }
+
+    private void checkTestException() throws TestException {
+        final TestException e = _testException;
+        if (e != null) {
+            throw e;
+        }
+    }
+}
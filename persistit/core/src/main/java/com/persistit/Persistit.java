@@ -38,6 +38,7 @@ import com.persistit.mxbeans.CheckpointManagerMXBean;
 import com.persistit.mxbeans.CleanupManagerMXBean;
 import com.persistit.mxbeans.IOMeterMXBean;
 import com.persistit.mxbeans.JournalManagerMXBean;
+import com.persistit.mxbeans.LatencyMeterMXBean;
 import com.persistit.mxbeans.MXBeanWrapper;
 import com.persistit.mxbeans.ManagementMXBean;
 import com.persistit.mxbeans.RecoveryManagerMXBean;
@@ -77,7 +78,16 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -230,14 +240,13 @@ public class Persistit {
   private final AtomicReference<CoderManager> _coderManager = new AtomicReference<CoderManager>();
   private final ClassIndex _classIndex = new ClassIndex(this);
 
-  private final ThreadLocal<SessionId> _sessionIdThreadLocal = new ThreadLocal<SessionId>() {
-    @Override
-    protected SessionId initialValue() {
-      return new SessionId();
-    }
-  };
+  private final ThreadLocal<SessionId> _sessionIdThreadLocal = new ThreadLocal<SessionId>();
 
-  private final Map<SessionId, Transaction> _transactionSessionMap = new HashMap<SessionId, Transaction>();
+  /**
+   * Registry of the Transaction owned by each session, used to enumerate
+   * transactions. A session finds its own Transaction through its SessionId.
+   */
+  private final ConcurrentMap<SessionId, Transaction> _transactionSessionMap = new ConcurrentHashMap<SessionId, Transaction>();
 
   private ManagementImpl _management;
 
@@ -253,12 +262,16 @@ public class Persistit {
 
   private final IOMeter _ioMeter = new IOMeter();
 
+  private final LatencyMeter _latencyMeter = new LatencyMeter();
+
+  private final ReadAhead _readAhead = new ReadAhead();
+
+  private ThreadPoolExecutor _asyncExecutor;
+
   private final AlertMonitor _alertMonitor = new AlertMonitor();
 
   private final TransactionIndex _transactionIndex = new TransactionIndex(_timestampAllocator, TRANSACTION_INDEX_SIZE);
 
-  private final Map<SessionId, List<Exchange>> _exchangePoolMap = new WeakHashMap<SessionId, List<Exchange>>();
-
   private final Map<ObjectName, Object> _mxbeans = new TreeMap<ObjectName, Object>();
 
   private final List<AlertMonitorMXBean> _alertMonitors = Collections
@@ -615,6 +628,7 @@ public class Persistit {
     _journalManager.init(_recoveryManager, journalPath, journalSize);
     _journalManager.setAppendOnly(_configuration.isAppendOnly());
     _journalManager.setIgnoreMissingVolumes(_configuration.isIgnoreMissingVolumes());
+    _journalManager.setCopierThreads(_configuration.getCopierThreads());
   }
 
   private void initializeBufferPools() {
@@ -623,7 +637,8 @@ public class Persistit {
       if (poolSize > 0) {
         final int bufferSize = config.getBufferSize();
         _logBase.allocateBuffers.log(poolSize, bufferSize);
-        final BufferPool pool = new BufferPool(poolSize, bufferSize, this);
+        final BufferPool pool = new BufferPool(poolSize, bufferSize, config.getOffHeapMemory(),
+            _configuration.getBufferReplacementPolicy(), this);
         _bufferPoolTable.put(bufferSize, pool);
         if (_configuration.isJmxEnabled()) {
           registerBufferPoolMXBean(bufferSize);
@@ -675,6 +690,8 @@ public class Persistit {
     _defaultJoinPolicy = _configuration.getJoinPolicy();
     _defaultCommitPolicy = _configuration.getCommitPolicy();
     _enableBufferInventory.set(_configuration.isBufferInventoryEnabled());
+    _readAhead.start(_configuration.getReadAheadWindow());
+    _latencyMeter.setEnabled(_configuration.isLatencyMeterEnabled());
   }
 
   private void initializeClassIndex() throws PersistitException {
@@ -743,6 +760,7 @@ public class Persistit {
     try {
       registerMBean(getManagement(), ManagementMXBean.class, ManagementMXBean.MXBEAN_NAME);
       registerMBean(_ioMeter, IOMeterMXBean.class, IOMeterMXBean.MXBEAN_NAME);
+      registerMBean(_latencyMeter, LatencyMeterMXBean.class, LatencyMeterMXBean.MXBEAN_NAME);
       registerMBean(_checkpointManager, CheckpointManagerMXBean.class, CheckpointManagerMXBean.MXBEAN_NAME);
       registerMBean(_cleanupManager, CleanupManagerMXBean.class, CleanupManagerMXBean.MXBEAN_NAME);
       registerMBean(_transactionIndex, TransactionIndexMXBean.class, TransactionIndexMXBean.MXBEAN_NAME);
@@ -852,23 +870,16 @@ public class Persistit {
     throws PersistitException {
     if (volume == null)
       throw new VolumeNotFoundException();
-    List<Exchange> stack;
-    final SessionId sessionId = getSessionId();
-
-    synchronized (_exchangePoolMap) {
-      stack = _exchangePoolMap.get(sessionId);
-      if (stack == null) {
-        stack = new ArrayList<Exchange>();
-        _exchangePoolMap.put(sessionId, stack);
-      }
-    }
-    if (stack.isEmpty()) {
-      return new Exchange(this, volume, treeName, create);
-    } else {
+    final List<Exchange> stack = getSessionId().getExchangePool();
+    if (!stack.isEmpty()) {
       final Exchange exchange = stack.remove(stack.size() - 1);
-      exchange.init(volume, treeName, create);
-      return exchange;
+      if (exchange.getPersistitInstance() == this) {
+        exchange.init(volume, treeName, create);
+        return exchange;
+      }
+      stack.clear();
     }
+    return new Exchange(this, volume, treeName, create);
   }
 
   /**
@@ -918,6 +929,33 @@ public class Persistit {
     return getExchange(volume, treeName, create);
   }
 
+  /**
+   * Get an {@link AsyncExchange} for the specified {@link Volume} and
+   * {@link Tree} whose operations run on the asynchronous I/O thread pool of
+   * this <code>Persistit</code> instance. The volume name is resolved as
+   * described in {@link #getExchange(String, String, boolean)}.
+   * 
+   * @param volumeName
+   *            The volume name that either matches the alias or a partially
+   *            matches the pathname of exactly one open <code>Volume</code>.
+   * 
+   * @param treeName
+   *            The tree name
+   * 
+   * @param create
+   *            <code>true</code> to create a new Tree if one by the specified
+   *            name does not already exist.
+   * 
+   * @throws PersistitException
+   */
+  public AsyncExchange getAsyncExchange(final String volumeName, final String treeName, final boolean create)
+    throws PersistitException {
+    final Volume volume = getVolume(volumeName);
+    if (volume == null)
+      throw new VolumeNotFoundException(volumeName);
+    return new AsyncExchange(this, volume, treeName, create);
+  }
+
   /**
    * <p>
    * Releases an <code>Exchange</code> to the internal pool. A subsequent
@@ -976,14 +1014,7 @@ public class Persistit {
     if (exchange == null) {
       return;
     }
-    List<Exchange> stack;
-    final SessionId sessionId = getSessionId();
-    synchronized (_exchangePoolMap) {
-      stack = _exchangePoolMap.get(sessionId);
-      if (stack == null) {
-        throw new IllegalStateException("Release not preceded by get");
-      }
-    }
+    final List<Exchange> stack = getSessionId().getExchangePool();
     if (stack.size() < MAX_POOLED_EXCHANGES) {
       exchange.removeState(secure);
       stack.add(exchange);
@@ -1646,11 +1677,14 @@ public class Persistit {
         }
       }
       recordBufferPoolInventory();
+      _readAhead.close();
+      closeAsyncExecutor();
       _cleanupManager.close(flush);
       waitForIOTaskStop(_cleanupManager);
 
       getTransaction().close();
       cleanup();
+      storeMembershipFilters();
 
       if (_lockVolume != null) {
         _lockVolume.close();
@@ -1701,17 +1735,14 @@ public class Persistit {
   }
 
   private void closeZombieTransactions(final boolean removeAllSessions) {
-    final Set<SessionId> sessionIds;
-    synchronized (_transactionSessionMap) {
-      sessionIds = new HashSet<SessionId>(_transactionSessionMap.keySet());
-    }
+    final Set<SessionId> sessionIds = new HashSet<SessionId>(_transactionSessionMap.keySet());
     for (final SessionId sessionId : sessionIds) {
       if (!sessionId.isAlive() || removeAllSessions) {
-        Transaction transaction = null;
-        synchronized (_transactionSessionMap) {
-          transaction = _transactionSessionMap.remove(sessionId);
-        }
+        final Transaction transaction = _transactionSessionMap.remove(sessionId);
         if (transaction != null) {
+          if (sessionId.getTransaction() == transaction) {
+            sessionId.setTransaction(null);
+          }
           try {
             transaction.close();
           } catch (final Exception e) {
@@ -1726,10 +1757,7 @@ public class Persistit {
     final long expires = System.currentTimeMillis() + timeout;
     boolean remaining = false;
     do {
-      final Map<SessionId, Transaction> copy;
-      synchronized (_transactionSessionMap) {
-        copy = new HashMap<SessionId, Transaction>(_transactionSessionMap);
-      }
+      final Map<SessionId, Transaction> copy = new HashMap<SessionId, Transaction>(_transactionSessionMap);
       for (final Entry<SessionId, Transaction> entry : copy.entrySet()) {
         final SessionId sessionId = entry.getKey();
         final Transaction txn = entry.getValue();
@@ -1810,6 +1838,8 @@ public class Persistit {
 
   private void releaseAllResources() {
 
+    _readAhead.close();
+    closeAsyncExecutor();
     unregisterMXBeans();
     try {
       if (_logger != null) {
@@ -1848,12 +1878,7 @@ public class Persistit {
       _cleanupManager.clear();
       _configuration = null;
     }
-    synchronized (_exchangePoolMap) {
-      _exchangePoolMap.clear();
-    }
-    synchronized (_transactionSessionMap) {
-      _transactionSessionMap.clear();
-    }
+    _transactionSessionMap.clear();
     synchronized (_cliSessionMap) {
       _cliSessionMap.clear();
     }
@@ -1896,10 +1921,7 @@ public class Persistit {
   }
 
   void flushTransactions(final long checkpointTimestamp) throws PersistitException {
-    final List<Transaction> transactions;
-    synchronized (_transactionSessionMap) {
-      transactions = new ArrayList<Transaction>(_transactionSessionMap.values());
-    }
+    final List<Transaction> transactions = new ArrayList<Transaction>(_transactionSessionMap.values());
 
     for (final Transaction transaction : transactions) {
       transaction.flushOnCheckpoint(checkpointTimestamp);
@@ -1913,6 +1935,15 @@ public class Persistit {
     }
   }
 
+  void storeMembershipFilters() throws PersistitException {
+    final List<Volume> volumes = getVolumes();
+    for (final Volume volume : volumes) {
+      if (!volume.isTemporary()) {
+        volume.getStructure().storeMembershipFilters();
+      }
+    }
+  }
+
   void waitForIOTaskStop(final IOTaskRunnable task) {
     if (_beginCloseTime == 0) {
       _beginCloseTime = System.nanoTime();
@@ -1998,7 +2029,12 @@ public class Persistit {
    * @return Thread-private SessionId
    */
   public SessionId getSessionId() {
-    return _sessionIdThreadLocal.get();
+    SessionId sessionId = _sessionIdThreadLocal.get();
+    if (sessionId == null) {
+      sessionId = new SessionId();
+      _sessionIdThreadLocal.set(sessionId);
+    }
+    return sessionId;
   }
 
   /**
@@ -2015,6 +2051,89 @@ public class Persistit {
     _sessionIdThreadLocal.set(sessionId);
   }
 
+  /**
+   * <p>
+   * Create a new session that is not attached to any thread. The session owns
+   * a {@link Transaction} and a pool of {@link Exchange}s, and may be passed
+   * from one task or thread to another. Use
+   * {@link #attachSession(SessionId)} to make it the current thread's session
+   * and {@link #detachSession()} when the thread no longer needs it.
+   * </p>
+   * <p>
+   * A thread that always works within an explicitly attached session creates
+   * no session of its own, and once the session is detached holds no
+   * Persistit state at all. This makes it practical to serve every request on
+   * its own short-lived thread. The application must eventually close the
+   * session with {@link #closeSession(SessionId)}.
+   * </p>
+   * 
+   * @return the new SessionId
+   */
+  public SessionId openSession() {
+    return new SessionId(false);
+  }
+
+  /**
+   * Attach a session to the current thread so that
+   * {@link #getTransaction()}, {@link #getExchange(String, String, boolean)}
+   * and {@link #releaseExchange(Exchange)} use its state. The session must
+   * not be attached to, or in use by, any other thread.
+   * 
+   * @param sessionId
+   *            the session
+   * @return the session previously attached to the current thread, or
+   *         <code>null</code> if there was none
+   * @throws IllegalStateException
+   *             if the session has been closed
+   */
+  public SessionId attachSession(final SessionId sessionId) {
+    if (sessionId.isClosed()) {
+      throw new IllegalStateException("Session " + sessionId + " is closed");
+    }
+    final SessionId previous = _sessionIdThreadLocal.get();
+    sessionId.assign();
+    _sessionIdThreadLocal.set(sessionId);
+    return previous;
+  }
+
+  /**
+   * Detach the current thread's session from the thread. The session and its
+   * transaction remain valid and may be attached to another thread later.
+   * After this call the current thread holds no reference to any session.
+   * 
+   * @return the session that was attached, or <code>null</code> if there was
+   *         none
+   */
+  public SessionId detachSession() {
+    final SessionId sessionId = _sessionIdThreadLocal.get();
+    _sessionIdThreadLocal.remove();
+    if (sessionId != null) {
+      sessionId.detach();
+    }
+    return sessionId;
+  }
+
+  /**
+   * Close a session and release its resources. A transaction that is still
+   * active in the session is rolled back. If the session is attached to the
+   * current thread it is also detached. The session must not be in use by
+   * any other thread.
+   * 
+   * @param sessionId
+   *            the session
+   * @throws PersistitException
+   */
+  public void closeSession(final SessionId sessionId) throws PersistitException {
+    if (_sessionIdThreadLocal.get() == sessionId) {
+      detachSession();
+    }
+    final Transaction txn = _transactionSessionMap.remove(sessionId);
+    sessionId.close();
+    if (txn != null) {
+      txn.close();
+    }
+  }
+
   /**
    * Close the session resources associated with the current thread.
    * 
@@ -2023,35 +2142,38 @@ public class Persistit {
   void closeSession() throws PersistitException {
     final SessionId sessionId = _sessionIdThreadLocal.get();
     if (sessionId != null) {
-      final Transaction txn;
-      synchronized (_transactionSessionMap) {
-        txn = _transactionSessionMap.remove(sessionId);
-      }
+      final Transaction txn = _transactionSessionMap.remove(sessionId);
       if (txn != null) {
+        sessionId.setTransaction(null);
         txn.close();
       }
     }
-    _sessionIdThreadLocal.set(null);
+    _sessionIdThreadLocal.remove();
   }
 
   /**
-   * Get the <code>Transaction</code> object for the current thread. The
-   * <code>Transaction</code> object lasts for the life of the thread. See
-   * {@link com.persistit.Transaction} for more information on how to use
-   * Persistit's transaction facilities.
+   * Get the <code>Transaction</code> object for the current thread's
+   * session. The <code>Transaction</code> object lasts for the life of the
+   * session. See {@link com.persistit.Transaction} for more information on how
+   * to use Persistit's transaction facilities.
    * 
    * @return This thread <code>Transaction</code> object.
    */
   public Transaction getTransaction() {
     final SessionId sessionId = getSessionId();
-    synchronized (_transactionSessionMap) {
-      Transaction txn = _transactionSessionMap.get(sessionId);
+    Transaction txn = sessionId.getTransaction();
+    if (txn == null || txn.getPersistit() != this) {
+      txn = _transactionSessionMap.get(sessionId);
       if (txn == null) {
         txn = new Transaction(this, sessionId);
-        _transactionSessionMap.put(sessionId, txn);
+        final Transaction other = _transactionSessionMap.putIfAbsent(sessionId, txn);
+        if (other != null) {
+          txn = other;
+        }
       }
-      return txn;
+      sessionId.setTransaction(txn);
     }
+    return txn;
   }
 
   /**
@@ -2246,6 +2368,69 @@ public class Persistit {
     return _ioMeter;
   }
 
+  LatencyMeter getLatencyMeter() {
+    return _latencyMeter;
+  }
+
+  ReadAhead getReadAhead() {
+    return _readAhead;
+  }
+
+  /**
+   * @return the thread pool on which {@link AsyncExchange} operations run,
+   *         created on first use with
+   *         {@link Configuration#getAsyncThreads()} threads
+   * @throws PersistitClosedException
+   *           if this Persistit instance is closed
+   */
+  synchronized Executor getAsyncExecutor() throws PersistitClosedException {
+    if (_closed.get()) {
+      throw new PersistitClosedException();
+    }
+    if (_asyncExecutor == null) {
+      final int threads = _configuration.getAsyncThreads();
+      final AtomicInteger threadCounter = new AtomicInteger();
+      final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.SECONDS,
+          new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable r) {
+              final Thread thread = new Thread(r, "ASYNC_IO:" + threadCounter.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            }
+          });
+      executor.allowCoreThreadTimeOut(true);
+      _asyncExecutor = executor;
+    }
+    return _asyncExecutor;
+  }
+
+  /**
+   * Stop accepting asynchronous operations and wait briefly for those in
+   * progress to finish. Queued operations that have not started fail with a
+   * <code>RejectedExecutionException</code>.
+   */
+  private void closeAsyncExecutor() {
+    final ThreadPoolExecutor executor;
+    synchronized (this) {
+      executor = _asyncExecutor;
+      _asyncExecutor = null;
+    }
+    if (executor != null) {
+      executor.shutdown();
+      for (final Runnable r : executor.getQueue().toArray(new Runnable[0])) {
+        if (executor.remove(r) && r instanceof AsyncResult) {
+          ((AsyncResult<?>) r).fail(new RejectedExecutionException("Persistit is closing"));
+        }
+      }
+      try {
+        executor.awaitTermination(SHORT_DELAY * 10, TimeUnit.MILLISECONDS);
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
   public AlertMonitor getAlertMonitor() {
     return _alertMonitor;
   }
@@ -0,0 +1,246 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.persistit.exception.PersistitException;
+
+/**
+ * <p>
+ * Asynchronous sequential read-ahead for range traversals. An {@link Exchange}
+ * that walks from a data page to its right sibling reports each such step to
+ * its {@link Stream}. Once a run of {@value #SEQUENTIAL_THRESHOLD} consecutive
+ * steps has been observed, the stream schedules a background task that follows
+ * the right-sibling chain ahead of the traversal and reads each page into the
+ * {@link BufferPool}. The number of pages read ahead of the traversal is bounded
+ * by the configured window (see {@link Configuration#setReadAheadWindow(int)}),
+ * so a traversal that stops early wastes at most that many reads.
+ * </p>
+ * <p>
+ * Read-ahead is a hint: the background task never waits for a page claimed by
+ * another thread and silently abandons the chain on any error. Pages it reads
+ * are counted by the {@link IOMeter} under the "RA" operation.
+ * </p>
+ */
+class ReadAhead {
+
+    /**
+     * Number of consecutive right-sibling steps that constitute sequential
+     * access
+     */
+    final static int SEQUENTIAL_THRESHOLD = 2;
+
+    final static int DEFAULT_WINDOW = 0;
+
+    final static int MAXIMUM_WINDOW = 1024;
+
+    private final static int THREAD_COUNT = 4;
+
+    private final static long CLOSE_WAIT_MS = 5000;
+
+    private final AtomicLong _scheduledCounter = new AtomicLong();
+
+    private final AtomicLong _pageCounter = new AtomicLong();
+
+    private volatile ExecutorService _executor;
+
+    private volatile int _window = DEFAULT_WINDOW;
+
+    synchronized void start(final int window) {
+        _window = window;
+        if (window > 0 && _executor == null) {
+            final AtomicInteger threadCounter = new AtomicInteger();
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(THREAD_COUNT, THREAD_COUNT, 1,
+                    TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                        @Override
+                        public Thread newThread(final Runnable r) {
+                            final Thread thread = new Thread(r, "READ_AHEAD:" + threadCounter.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            executor.allowCoreThreadTimeOut(true);
+            _executor = executor;
+        }
+    }
+
+    synchronized void close() {
+        final ExecutorService executor = _executor;
+        _executor = null;
+        if (executor != null) {
+            executor.shutdownNow();
+            try {
+                executor.awaitTermination(CLOSE_WAIT_MS, TimeUnit.MILLISECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    boolean isEnabled() {
+        return _window > 0 && _executor != null;
+    }
+
+    int getWindow() {
+        return _window;
+    }
+
+    /**
+     * @return count of read-ahead tasks scheduled
+     */
+    long getScheduledCount() {
+        return _scheduledCounter.get();
+    }
+
+    /**
+     * @return count of pages visited by read-ahead tasks
+     */
+    long getPageCount() {
+        return _pageCounter.get();
+    }
+
+    Stream newStream() {
+        return new Stream();
+    }
+
+    private boolean schedule(final Runnable task) {
+        final ExecutorService executor = _executor;
+        if (executor == null) {
+            return false;
+        }
+        try {
+            executor.execute(task);
+            _scheduledCounter.incrementAndGet();
+            return true;
+        } catch (final RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Read-ahead state of one {@link Exchange}. The {@link #advance} method is
+     * called only by the thread using the <code>Exchange</code>; the background
+     * task updates the same fields, so all access is synchronized on the
+     * stream.
+     */
+    class Stream implements Runnable {
+
+        private Volume _volume;
+
+        private long _lastPage;
+
+        private int _sequentialCount;
+
+        /**
+         * Next page the background task should read, or 0 if the end of the
+         * chain has been reached
+         */
+        private long _nextPage;
+
+        /**
+         * Count of pages read ahead of the traversal
+         */
+        private int _ahead;
+
+        /**
+         * Incremented to redirect a running task to a new position
+         */
+        private int _generation;
+
+        private boolean _running;
+
+        /**
+         * Record a step of a traversal from one data page to its right sibling.
+         *
+         * @param volume
+         *            the Volume containing the pages
+         * @param fromPage
+         *            address of the page the traversal is leaving
+         * @param toPage
+         *            address of the right sibling page the traversal is
+         *            entering
+         * @param nextPage
+         *            right sibling of <code>toPage</code>
+         */
+        synchronized void advance(final Volume volume, final long fromPage, final long toPage, final long nextPage) {
+            if (volume != _volume || fromPage != _lastPage) {
+                _volume = volume;
+                _sequentialCount = 0;
+                _ahead = 0;
+                _nextPage = 0;
+                _generation++;
+            }
+            _lastPage = toPage;
+            if (++_sequentialCount < SEQUENTIAL_THRESHOLD) {
+                return;
+            }
+            if (--_ahead < 0) {
+                /*
+                 * Either the run just became sequential or the traversal has
+                 * overtaken the background task. Restart from here.
+                 */
+                _ahead = 0;
+                _nextPage = nextPage;
+                _generation++;
+            }
+            if (!_running && _nextPage > 0 && _ahead < _window) {
+                _running = schedule(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            for (;;) {
+                final Volume volume;
+                final long page;
+                final int generation;
+                synchronized (this) {
+                    if (_nextPage <= 0 || _ahead >= _window || !isEnabled()) {
+                        _running = false;
+                        return;
+                    }
+                    volume = _volume;
+                    page = _nextPage;
+                    generation = _generation;
+                }
+                long rightSibling = 0;
+                try {
+                    rightSibling = volume.getPool().prefetch(volume, page);
+                    _pageCounter.incrementAndGet();
+                } catch (final PersistitException e) {
+                    // Read-ahead is only a hint
+                } catch (final RuntimeException e) {
+                    // Read-ahead is only a hint
+                }
+                synchronized (this) {
+                    if (generation == _generation) {
+                        _nextPage = rightSibling;
+                        _ahead++;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -135,7 +135,16 @@ import com.persistit.util.Util;
  * are already present in the recovered B-Trees.
  * </p>
  * <p>
- * This class is not threadsafe; it is intended to be called only during the
+ * When {@link Configuration#setRecoveryThreads(int)} specifies more than one
+ * thread, Phase 2 reads transactions in commit timestamp order and hands
+ * those confined to a single tree to a {@link ParallelTransactionPlayer},
+ * which applies them concurrently while preserving commit order within each
+ * tree. Transactions that span trees are applied only after every earlier
+ * transaction has been applied.
+ * </p>
+ * <p>
+ * Apart from the concurrent application of transactions described above,
+ * this class is not threadsafe; it is intended to be called only during the
  * single-threaded recovery process.
  * </p>
  * 
@@ -190,6 +199,8 @@ public class RecoveryManager implements RecoveryManagerMXBean, VolumeHandleLooku
 
     private volatile int _errorCount;
 
+    private volatile int _replayThreadCount = 1;
+
     private volatile boolean _recoveryDisabledForTestMode;
 
     private String _journalFilePath;
@@ -206,6 +217,8 @@ public class RecoveryManager implements RecoveryManagerMXBean, VolumeHandleLooku
 
     private ByteBuffer _readBuffer;
 
+    private byte[] _pageImage;
+
     private final int _readBufferSize = DEFAULT_BUFFER_SIZE;
 
     private long _readBufferAddress;
@@ -461,6 +474,9 @@ public class RecoveryManager implements RecoveryManagerMXBean, VolumeHandleLooku
         info.pageMapSize = _pageMap.size();
         info.baseAddress = _baseAddress;
         info.appliedTransactions = _appliedTransactionCount;
+        info.abortedTransactions = _abortedTransactionCount;
+        info.errorCount = _errorCount;
+        info.replayThreads = _replayThreadCount;
         info.committedTransactions = getCommittedCount();
         info.uncommittedTransactions = getUncommittedCount();
     }
@@ -502,11 +518,21 @@ public class RecoveryManager implements RecoveryManagerMXBean, VolumeHandleLooku
         return _appliedTransactionCount;
     }
 
+    @Override
+    public int getAbortedTransactionCount() {
+        return _abortedTransactionCount;
+    }
+
     @Override
     public int getErrorCount() {
         return _errorCount;
     }
 
+    @Override
+    public int getReplayThreadCount() {
+        return _replayThreadCount;
+    }
+
     public Checkpoint getLastValidCheckpoint() {
         return _lastValidCheckpoint;
     }
@@ -1083,6 +1109,8 @@ public class RecoveryManager implements RecoveryManagerMXBean, VolumeHandleLooku
                         + " is not preceded by an IV record for that handle at " + addressToString(address, timestamp));
             }
 
+            verifyPageChecksum(address, timestamp, pageAddress);
+
             final PageNode pageNode = new PageNode(volumeHandle, pageAddress, address, timestamp);
             final PageNode oldPageNode = _pageMap.get(pageNode);
             pageNode.setPrevious(oldPageNode);
@@ -1092,6 +1120,53 @@ public class RecoveryManager implements RecoveryManagerMXBean, VolumeHandleLooku
         }
     }
 
+    /**
+     * Reconstruct the page image held by the PA record in the read buffer and
+     * verify its checksum. A mismatch means the record was torn or damaged
+     * after it was written; it is reported as a CorruptJournalException so
+     * that recovery ends before the damaged record rather than replaying it.
+     *
+     * @param address
+     * @param timestamp
+     * @param pageAddress
+     * @throws PersistitIOException
+     */
+    private void verifyPageChecksum(final long address, final long timestamp, final long pageAddress)
+            throws PersistitIOException {
+        if (pageAddress == 0) {
+            return;
+        }
+        final int payloadSize = PA.getLength(_readBuffer) - PA.OVERHEAD;
+        final int leftSize = PA.getLeftSize(_readBuffer);
+        final int bufferSize = PA.getBufferSize(_readBuffer);
+        final int compression = PA.getCompression(_readBuffer);
+        if (bufferSize < Buffer.MIN_BUFFER_SIZE || bufferSize > Buffer.MAX_BUFFER_SIZE || leftSize < 0
+                || payloadSize > bufferSize) {
+            throw new CorruptJournalException("PA record invalid sizes: recordSize=" + payloadSize + " leftSize="
+                    + leftSize + " bufferSize=" + bufferSize + " at " + addressToString(address, timestamp));
+        }
+        if (_pageImage == null) {
+            _pageImage = new byte[Buffer.MAX_BUFFER_SIZE];
+        }
+        System.arraycopy(_readBuffer.array(), _readBuffer.position() + PA.OVERHEAD, _pageImage, 0, payloadSize);
+        int size = payloadSize;
+        if (compression != PageCompressor.NONE) {
+            size = _persistit.getJournalManager().expandPageImage(_pageImage, 0, payloadSize, compression, leftSize,
+                    bufferSize, address);
+        }
+        if (size < leftSize) {
+            throw new CorruptJournalException("PA record invalid sizes: recordSize=" + size + " leftSize="
+                    + leftSize + " at " + addressToString(address, timestamp));
+        }
+        final int rightSize = size - leftSize;
+        System.arraycopy(_pageImage, leftSize, _pageImage, bufferSize - rightSize, rightSize);
+        Arrays.fill(_pageImage, leftSize, bufferSize - rightSize, (byte) 0);
+        if (!PageChecksum.verify(_pageImage, 0, bufferSize)) {
+            throw new CorruptJournalException("PA record for page " + pageAddress + " fails checksum verification at "
+                    + addressToString(address, timestamp));
+        }
+    }
+
     /*
      * Process a PM (page map) record. There is one PM record near the beginning
      * of each journal file. It provides a copy of the page map that existed at
@@ -1520,37 +1595,69 @@ public class RecoveryManager implements RecoveryManagerMXBean, VolumeHandleLooku
             assert last.getCommitTimestamp() <= _persistit.getTimestampAllocator().getCurrentTimestamp();
         }
 
-        for (final TransactionMapItem item : sorted) {
-            final TransactionPlayerListener listener = item.isCommitted() ? commitListener : rollbackListener;
-            try {
-                if (!started) {
-                    commitListener.startRecovery(item.getStartAddress(), item.getCommitTimestamp());
-                    started = true;
-                }
-
-                _player.applyTransaction(item, listener);
-                if (item.isCommitted()) {
-                    _appliedTransactionCount++;
-                } else {
-                    _abortedTransactionCount++;
-                }
+        final int threads = _persistit.getConfiguration().getRecoveryThreads();
+        final ParallelTransactionPlayer parallel = threads > 1 && sorted.size() > 1 ? new ParallelTransactionPlayer(
+                _player, threads, new ParallelTransactionPlayer.Completion() {
+                    @Override
+                    public void applied(final TransactionMapItem item) {
+                        transactionApplied(item);
+                    }
 
-                if ((_appliedTransactionCount + _abortedTransactionCount) % APPLY_TRANSACTION_LOG_COUNT == 0) {
-                    _persistit.getLogBase().recoveryProgress.log(_appliedTransactionCount, _abortedTransactionCount,
-                            _recoveredTransactionMap.size() - _appliedTransactionCount - _abortedTransactionCount);
+                    @Override
+                    public void failed(final TransactionMapItem item, final Exception exception) {
+                        transactionFailed(item, exception);
+                    }
+                }) : null;
+        _replayThreadCount = parallel == null ? 1 : threads;
+        try {
+            for (final TransactionMapItem item : sorted) {
+                final TransactionPlayerListener listener = item.isCommitted() ? commitListener : rollbackListener;
+                try {
+                    if (!started) {
+                        commitListener.startRecovery(item.getStartAddress(), item.getCommitTimestamp());
+                        started = true;
+                    }
+                    if (parallel != null) {
+                        if (parallel.dispatch(item, listener)) {
+                            continue;
+                        }
+                        parallel.drain();
+                    }
+                    _player.applyTransaction(item, listener);
+                    transactionApplied(item);
+                } catch (final TestException te) {
+                    // Exception thrown by a unit test to interrupt recovery
+                    _persistit.getLogBase().recoveryException.log(te, item);
+                    throw te;
+                } catch (final Exception pe) {
+                    transactionFailed(item, pe);
                 }
-            } catch (final TestException te) {
-                // Exception thrown by a unit test to interrupt recovery
-                _persistit.getLogBase().recoveryException.log(te, item);
-                throw te;
-            } catch (final Exception pe) {
-                _persistit.getLogBase().recoveryException.log(pe, item);
-                _errorCount++;
+            }
+        } finally {
+            if (parallel != null) {
+                parallel.close();
             }
         }
         _branchMap.clear();
     }
 
+    private synchronized void transactionApplied(final TransactionMapItem item) {
+        if (item.isCommitted()) {
+            _appliedTransactionCount++;
+        } else {
+            _abortedTransactionCount++;
+        }
+        if ((_appliedTransactionCount + _abortedTransactionCount) % APPLY_TRANSACTION_LOG_COUNT == 0) {
+            _persistit.getLogBase().recoveryProgress.log(_appliedTransactionCount, _abortedTransactionCount,
+                    _recoveredTransactionMap.size() - _appliedTransactionCount - _abortedTransactionCount);
+        }
+    }
+
+    private synchronized void transactionFailed(final TransactionMapItem item, final Exception exception) {
+        _persistit.getLogBase().recoveryException.log(exception, item);
+        _errorCount++;
+    }
+
     /**
      * Assembles a long record into the provided Value object. This method
      * relies on finding the PAGE_TYPE_LONG_RECORD pages in the journal.
@@ -1627,6 +1734,7 @@ public class RecoveryManager implements RecoveryManagerMXBean, VolumeHandleLooku
             final int payloadSize = recordSize - PA.OVERHEAD;
             final int leftSize = PA.getLeftSize(_readBuffer);
             final int bufferSize = PA.getBufferSize(_readBuffer);
+            final int compression = PA.getCompression(_readBuffer);
             final long pageAddress = PA.getPageAddress(_readBuffer);
             //
             // Verify that this is the valid and appropriate PA record
@@ -1636,7 +1744,8 @@ public class RecoveryManager implements RecoveryManagerMXBean, VolumeHandleLooku
                         + " is not a PAGE record");
             }
 
-            if (leftSize < 0 || payloadSize < leftSize || payloadSize > bufferSize) {
+            if (leftSize < 0 || payloadSize > bufferSize || compression == PageCompressor.NONE
+                    && payloadSize < leftSize) {
                 throw new CorruptJournalException("Record at " + pn.toStringJournalAddress(this)
                         + " invalid sizes: recordSize= " + payloadSize + " leftSize=" + leftSize + " bufferSize="
                         + bufferSize);
@@ -1651,7 +1760,21 @@ public class RecoveryManager implements RecoveryManagerMXBean, VolumeHandleLooku
             // Verify that this is a PAGE_TYPE_LONG_RECORD
             //
             read(_currentAddress, recordSize);
-            final int pageType = JournalRecord.getByte(_readBuffer, PA.OVERHEAD + Buffer.TYPE_OFFSET);
+            final byte[] pageBytes;
+            final int at;
+            final int pageSize;
+            if (compression == PageCompressor.NONE) {
+                pageBytes = _readBuffer.array();
+                at = _readBuffer.position() + PA.OVERHEAD;
+                pageSize = payloadSize;
+            } else {
+                pageBytes = new byte[bufferSize];
+                at = 0;
+                System.arraycopy(_readBuffer.array(), _readBuffer.position() + PA.OVERHEAD, pageBytes, 0, payloadSize);
+                pageSize = _persistit.getJournalManager().expandPageImage(pageBytes, 0, payloadSize, compression,
+                        leftSize, bufferSize, _currentAddress);
+            }
+            final int pageType = Util.getByte(pageBytes, at + Buffer.TYPE_OFFSET);
 
             if (pageType != Buffer.PAGE_TYPE_LONG_RECORD) {
                 throw new CorruptJournalException("Long record chain contains invalid page type " + pageType
@@ -1659,15 +1782,14 @@ public class RecoveryManager implements RecoveryManagerMXBean, VolumeHandleLooku
                         + addressToString(from, timestamp));
             }
 
-            final int segmentSize = Math.min(remainingSize, payloadSize - Buffer.HEADER_SIZE);
+            final int segmentSize = Math.min(remainingSize, pageSize - Buffer.HEADER_SIZE);
 
-            System.arraycopy(_readBuffer.array(), _readBuffer.position() + PA.OVERHEAD + Buffer.HEADER_SIZE,
-                    value.getEncodedBytes(), offset, segmentSize);
+            System.arraycopy(pageBytes, at + Buffer.HEADER_SIZE, value.getEncodedBytes(), offset, segmentSize);
             offset += segmentSize;
             remainingSize -= segmentSize;
 
             // Next page in chain
-            page = JournalRecord.getLong(_readBuffer, PA.OVERHEAD + Buffer.RIGHT_SIBLING_OFFSET);
+            page = Util.getLong(pageBytes, at + Buffer.RIGHT_SIBLING_OFFSET);
 
             if (count > Buffer.MAX_LONG_RECORD_CHAIN) {
                 throw new CorruptJournalException("Long record chain has more than " + Buffer.MAX_LONG_RECORD_CHAIN
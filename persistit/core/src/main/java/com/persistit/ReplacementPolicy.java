@@ -0,0 +1,305 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * Policy used by a {@link BufferPool} to choose a page to evict when a buffer
+ * is needed for a page that is not already in the pool. The
+ * <code>BufferPool</code> sweeps a clock hand over its buffers and asks the
+ * policy whether each one is an eviction candidate. It also notifies the
+ * policy when a buffer is filled with a newly read or created page and when a
+ * lookup finds a page already in the pool.
+ * </p>
+ * <p>
+ * Two policies are provided:
+ * <dl>
+ * <dt>{@value #CLOCK_NAME}</dt>
+ * <dd>The classic CLOCK algorithm which gives each recently touched buffer a
+ * second chance. This approximates LRU but a long sequential scan touches every
+ * page once and can therefore flush the entire working set.</dd>
+ * <dt>{@value #CLOCK_2Q_NAME}</dt>
+ * <dd>A scan-resistant variant in the spirit of 2Q and CLOCK-Pro. Newly loaded
+ * pages enter a <i>cold</i> (probationary) state and are promoted to the
+ * <i>hot</i> state only when a subsequent lookup finds them in the pool. Hot
+ * pages are never chosen while the hot set is within its target size, so pages
+ * touched only once by a scan cycle through the cold portion of the pool
+ * without displacing the working set.</dd>
+ * </dl>
+ * </p>
+ * <p>
+ * Each <code>BufferPool</code> has its own instance; the policy is selected
+ * by name through {@link Configuration#setBufferReplacementPolicy(String)}.
+ * </p>
+ */
+abstract class ReplacementPolicy {
+
+    final static String CLOCK_NAME = "CLOCK";
+
+    final static String CLOCK_2Q_NAME = "2Q";
+
+    final static String DEFAULT_NAME = CLOCK_NAME;
+
+    /**
+     * Create a policy instance for a pool having the specified number of
+     * buffers.
+     *
+     * @param name
+     *            Policy name, case-insensitive
+     * @param bufferCount
+     *            number of buffers in the pool
+     * @return the policy
+     * @throws IllegalArgumentException
+     *             if the name is not recognized
+     */
+    static ReplacementPolicy forName(final String name, final int bufferCount) {
+        if (name == null || CLOCK_NAME.equalsIgnoreCase(name)) {
+            return new Clock();
+        }
+        if (CLOCK_2Q_NAME.equalsIgnoreCase(name)) {
+            return new Clock2Q(bufferCount);
+        }
+        throw new IllegalArgumentException("No such ReplacementPolicy " + name);
+    }
+
+    static boolean isValidName(final String name) {
+        return CLOCK_NAME.equalsIgnoreCase(name) || CLOCK_2Q_NAME.equalsIgnoreCase(name);
+    }
+
+    private final AtomicLong _hitCounter = new AtomicLong();
+
+    private final AtomicLong _missCounter = new AtomicLong();
+
+    /**
+     * @return the name of this policy
+     */
+    abstract String getName();
+
+    /**
+     * Called when the supplied buffer has been filled with a page read from
+     * disk or newly created. The caller holds a writer claim on the buffer.
+     *
+     * @param buffer
+     */
+    void loaded(final Buffer buffer) {
+        _missCounter.incrementAndGet();
+    }
+
+    /**
+     * Called when a lookup finds the requested page already present in the
+     * supplied buffer.
+     *
+     * @param buffer
+     */
+    void hit(final Buffer buffer) {
+        _hitCounter.incrementAndGet();
+    }
+
+    /**
+     * Called when the supplied buffer has been loaded by read-ahead rather
+     * than by a request for the page. The next lookup that finds the page
+     * fulfils the read-ahead and is not evidence of reuse.
+     *
+     * @param buffer
+     */
+    void prefetched(final Buffer buffer) {
+    }
+
+    /**
+     * Called by the clock sweep to determine whether the supplied buffer may
+     * be evicted. The implementation may change the state of the buffer, for
+     * example to clear its touched bit. The caller has not claimed the buffer,
+     * and the buffer may turn out to be ineligible for other reasons.
+     *
+     * @param buffer
+     * @param desperate
+     *            <code>true</code> if the sweep has already made a full pass
+     *            over the pool without finding a victim
+     * @return whether the buffer should be evicted
+     */
+    abstract boolean isCandidate(Buffer buffer, boolean desperate);
+
+    /**
+     * @return the count of lookups that found the page present
+     */
+    long getHitCount() {
+        return _hitCounter.get();
+    }
+
+    /**
+     * @return the count of pages loaded into the pool
+     */
+    long getMissCount() {
+        return _missCounter.get();
+    }
+
+    /**
+     * @return number of buffers the policy regards as members of the protected
+     *         working set
+     */
+    int getHotPageCount() {
+        return 0;
+    }
+
+    /**
+     * @return count of pages promoted into the protected working set
+     */
+    long getPromoteCount() {
+        return 0;
+    }
+
+    /**
+     * @return count of pages demoted from the protected working set
+     */
+    long getDemoteCount() {
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+
+    /**
+     * The classic CLOCK algorithm: a buffer whose touched bit is set gets a
+     * second chance.
+     */
+    static class Clock extends ReplacementPolicy {
+
+        @Override
+        String getName() {
+            return CLOCK_NAME;
+        }
+
+        @Override
+        boolean isCandidate(final Buffer buffer, final boolean desperate) {
+            if (buffer.isTouched()) {
+                buffer.clearTouched();
+                return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Scan-resistant CLOCK with a probationary (cold) and a protected (hot)
+     * population.
+     */
+    static class Clock2Q extends ReplacementPolicy {
+
+        /**
+         * Percentage of the pool that may be occupied by hot pages before the
+         * sweep begins to demote them.
+         */
+        final static int HOT_TARGET_PERCENT = 75;
+
+        private final static int COLD = 0;
+        private final static int COLD_REFERENCED = 1;
+        private final static int HOT = 2;
+        private final static int PREFETCHED = 3;
+
+        private final AtomicIntegerArray _states;
+        private final AtomicInteger _hotCount = new AtomicInteger();
+        private final AtomicLong _promoteCounter = new AtomicLong();
+        private final AtomicLong _demoteCounter = new AtomicLong();
+        private final int _hotTarget;
+
+        Clock2Q(final int bufferCount) {
+            _states = new AtomicIntegerArray(bufferCount);
+            _hotTarget = Math.max(1, (int) ((long) bufferCount * HOT_TARGET_PERCENT / 100));
+        }
+
+        @Override
+        String getName() {
+            return CLOCK_2Q_NAME;
+        }
+
+        @Override
+        void loaded(final Buffer buffer) {
+            super.loaded(buffer);
+            if (_states.getAndSet(buffer.getIndex(), COLD) == HOT) {
+                _hotCount.decrementAndGet();
+            }
+        }
+
+        @Override
+        void hit(final Buffer buffer) {
+            super.hit(buffer);
+            final int index = buffer.getIndex();
+            if (!_states.compareAndSet(index, PREFETCHED, COLD)) {
+                _states.compareAndSet(index, COLD, COLD_REFERENCED);
+            }
+        }
+
+        @Override
+        void prefetched(final Buffer buffer) {
+            _states.compareAndSet(buffer.getIndex(), COLD, PREFETCHED);
+        }
+
+        @Override
+        boolean isCandidate(final Buffer buffer, final boolean desperate) {
+            final int index = buffer.getIndex();
+            switch (_states.get(index)) {
+            case HOT:
+                if (buffer.isTouched()) {
+                    buffer.clearTouched();
+                    return false;
+                }
+                if (_hotCount.get() > _hotTarget && _states.compareAndSet(index, HOT, COLD)) {
+                    _hotCount.decrementAndGet();
+                    _demoteCounter.incrementAndGet();
+                    return true;
+                }
+                return desperate;
+
+            case COLD_REFERENCED:
+                if (_states.compareAndSet(index, COLD_REFERENCED, HOT)) {
+                    _hotCount.incrementAndGet();
+                    _promoteCounter.incrementAndGet();
+                }
+                buffer.clearTouched();
+                return false;
+
+            default:
+                if (buffer.isTouched()) {
+                    buffer.clearTouched();
+                    return false;
+                }
+                return true;
+            }
+        }
+
+        @Override
+        int getHotPageCount() {
+            return _hotCount.get();
+        }
+
+        @Override
+        long getPromoteCount() {
+            return _promoteCounter.get();
+        }
+
+        @Override
+        long getDemoteCount() {
+            return _demoteCounter.get();
+        }
+    }
+}
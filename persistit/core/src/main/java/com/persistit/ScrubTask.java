@@ -0,0 +1,185 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.persistit.CLI.Arg;
+import com.persistit.CLI.Cmd;
+import com.persistit.exception.CorruptVolumeException;
+import com.persistit.exception.InvalidPageStructureException;
+import com.persistit.exception.PersistitException;
+import com.persistit.util.Util;
+
+/**
+ * <p>
+ * Task that re-reads the pages of one or more volumes and verifies their
+ * checksums (see {@link PageChecksum}) in order to detect latent corruption of
+ * pages that are rarely read. Pages currently held in the buffer pool are
+ * skipped; they will be verified when next read after eviction. Each page that
+ * is not resident is read into a private copy, so scrubbing neither disturbs
+ * the buffer pool nor competes with foreground threads for buffers.
+ * </p>
+ * <p>
+ * The task runs at minimum thread priority and reads no more than the
+ * configured number of pages per second. It can make a fixed number of passes
+ * or run until stopped.
+ * </p>
+ */
+public class ScrubTask extends Task {
+
+    final static int DEFAULT_PAGES_PER_SECOND = 100;
+
+    private TreeSelector _treeSelector;
+
+    private int _pagesPerSecond = DEFAULT_PAGES_PER_SECOND;
+
+    private long _passes = 1;
+
+    private volatile Volume _currentVolume;
+
+    private volatile long _currentPage;
+
+    private volatile long _pass;
+
+    private volatile long _verifiedCount;
+
+    private volatile long _skippedCount;
+
+    private final List<String> _faults = new ArrayList<String>();
+
+    @Cmd("scrub")
+    static ScrubTask createScrubTask(
+            @Arg("volumes|string|Tree selector: Volumes to scrub") final String treeSelectorString,
+            @Arg("_flag|r|Use regex expression") final boolean regex,
+            @Arg("rate|int:100:1:1000000|Maximum pages read per second") final int pagesPerSecond,
+            @Arg("passes|long:1:0:|Number of passes over each volume, 0 to run until stopped") final long passes,
+            @Arg("_flag|v|Verbose results") final boolean verbose) throws Exception {
+        final ScrubTask task = new ScrubTask();
+        task._treeSelector = TreeSelector.parseSelector(treeSelectorString, regex, '\\');
+        task._pagesPerSecond = pagesPerSecond;
+        task._passes = passes;
+        task.setMessageLogVerbosity(verbose ? LOG_VERBOSE : LOG_NORMAL);
+        return task;
+    }
+
+    /**
+     * Package-private constructor for use in a {@link Task}.
+     */
+    ScrubTask() {
+    }
+
+    public ScrubTask(final Persistit persistit, final TreeSelector treeSelector, final int pagesPerSecond,
+            final long passes) {
+        super(persistit);
+        _treeSelector = treeSelector;
+        _pagesPerSecond = pagesPerSecond;
+        _passes = passes;
+    }
+
+    @Override
+    protected void runTask() throws Exception {
+        final Thread thread = Thread.currentThread();
+        final int priority = thread.getPriority();
+        thread.setPriority(Thread.MIN_PRIORITY);
+        try {
+            for (_pass = 1; _passes == 0 || _pass <= _passes; _pass++) {
+                for (final Volume volume : _persistit.getVolumes()) {
+                    if (!volume.isTemporary() && _treeSelector.isSelected(volume)) {
+                        scrubVolume(volume);
+                    }
+                }
+            }
+            postMessage(String.format("Scrub completed: verified=%,d skipped=%,d faults=%,d", _verifiedCount,
+                    _skippedCount, getFaultCount()), LOG_NORMAL);
+        } finally {
+            _currentVolume = null;
+            thread.setPriority(priority);
+        }
+    }
+
+    private void scrubVolume(final Volume volume) throws PersistitException {
+        _currentVolume = volume;
+        final BufferPool pool = volume.getPool();
+        final long nanosPerPage = StatisticsTask.NANOS_PER_SECOND / _pagesPerSecond;
+        long next = System.nanoTime();
+        postMessage("Scrubbing " + volume, LOG_VERBOSE);
+        for (long page = 1; page < volume.getNextAvailablePage(); page++) {
+            poll();
+            _currentPage = page;
+            if (pool.isCached(volume, page)) {
+                _skippedCount++;
+                continue;
+            }
+            final long delay = (next - System.nanoTime()) / StatisticsTask.NANOS_PER_MILLI;
+            if (delay > 0) {
+                Util.sleep(delay);
+            }
+            next = Math.max(next, System.nanoTime() - StatisticsTask.NANOS_PER_SECOND) + nanosPerPage;
+            try {
+                pool.getBufferCopy(volume, page);
+                _verifiedCount++;
+            } catch (final CorruptVolumeException e) {
+                addFault(e.getMessage());
+            } catch (final InvalidPageStructureException e) {
+                addFault(String.format("Invalid structure on page %,d of volume %s: %s", page, volume,
+                        e.getMessage()));
+            }
+        }
+    }
+
+    private synchronized void addFault(final String description) {
+        _faults.add(description);
+        postMessage(description, LOG_NORMAL);
+    }
+
+    /**
+     * @return descriptions of the pages that failed checksum verification
+     */
+    public synchronized List<String> getFaults() {
+        return new ArrayList<String>(_faults);
+    }
+
+    public synchronized int getFaultCount() {
+        return _faults.size();
+    }
+
+    /**
+     * @return count of pages read and verified
+     */
+    public long getVerifiedCount() {
+        return _verifiedCount;
+    }
+
+    /**
+     * @return count of pages skipped because they were resident in the buffer
+     *         pool
+     */
+    public long getSkippedCount() {
+        return _skippedCount;
+    }
+
+    @Override
+    public String getStatus() {
+        final Volume volume = _currentVolume;
+        final String position = volume == null ? "" : String.format("pass %,d volume %s page %,d ", _pass,
+                volume.getName(), _currentPage);
+        return String.format("%sverified=%,d skipped=%,d faults=%,d", position, _verifiedCount, _skippedCount,
+                getFaultCount());
+    }
+}
@@ -16,6 +16,8 @@
 
 package com.persistit;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -44,6 +46,20 @@ import java.util.concurrent.atomic.AtomicReference;
  * created during the lifetime of a <code>Persistit</code> instance and to
  * manage them appropriately.
  * </p>
+ * <p>
+ * The session itself owns that state: its <code>Transaction</code> and its
+ * pool of <code>Exchange</code>s are held by this object rather than in maps
+ * shared by all threads, so finding them requires no locking. A session must
+ * be used by only one thread at a time. A server that handles each request on
+ * a short-lived thread can create sessions with
+ * {@link Persistit#openSession()}, bind one to the thread serving a request
+ * with {@link Persistit#attachSession(SessionId)}, release it with
+ * {@link Persistit#detachSession()} when the request completes, and finally
+ * discard it with {@link Persistit#closeSession(SessionId)}. A session that is
+ * not attached to any thread remains alive until it is closed; a session
+ * attached to a thread that has ended is treated as abandoned by
+ * {@link Persistit#cleanup()}.
+ * </p>
  * 
  * @author peter
  * 
@@ -56,10 +72,22 @@ public class SessionId {
 
     private final AtomicReference<Thread> _owner = new AtomicReference<Thread>();
 
+    private final List<Exchange> _exchangePool = new ArrayList<Exchange>();
+
+    private volatile Transaction _transaction;
+
+    private volatile boolean _closed;
+
     public SessionId() {
         assign();
     }
 
+    SessionId(final boolean assign) {
+        if (assign) {
+            assign();
+        }
+    }
+
     @Override
     public boolean equals(final Object id) {
         if (id == null || !(id instanceof SessionId)) {
@@ -74,10 +102,16 @@ public class SessionId {
     }
 
     /**
-     * @return Status of the associated {@link Thread}.
+     * @return <code>false</code> if this session has been closed or if the
+     *         {@link Thread} it is attached to has ended; otherwise
+     *         <code>true</code>
      */
     public boolean isAlive() {
-        return _owner.get().isAlive();
+        if (_closed) {
+            return false;
+        }
+        final Thread t = _owner.get();
+        return t == null || t.isAlive();
     }
 
     @Override
@@ -89,6 +123,40 @@ public class SessionId {
         _owner.set(Thread.currentThread());
     }
 
+    void detach() {
+        _owner.compareAndSet(Thread.currentThread(), null);
+    }
+
+    /**
+     * @return the <code>Transaction</code> context owned by this session, or
+     *         <code>null</code> if none has been created yet
+     */
+    Transaction getTransaction() {
+        return _transaction;
+    }
+
+    void setTransaction(final Transaction transaction) {
+        _transaction = transaction;
+    }
+
+    /**
+     * @return pool of released <code>Exchange</code>s; accessed only by the
+     *         thread currently using the session
+     */
+    List<Exchange> getExchangePool() {
+        return _exchangePool;
+    }
+
+    boolean isClosed() {
+        return _closed;
+    }
+
+    void close() {
+        _closed = true;
+        _transaction = null;
+        _exchangePool.clear();
+    }
+
     boolean interrupt() {
         final Thread t = _owner.get();
         if (t != null && t != Thread.currentThread()) {
@@ -21,9 +21,21 @@ import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
 
 import com.persistit.CLI.Arg;
 import com.persistit.CLI.Cmd;
+import com.persistit.StreamSaver.Segment;
 import com.persistit.exception.CorruptImportStreamException;
 import com.persistit.exception.PersistitException;
 import com.persistit.policy.SplitPolicy;
@@ -31,7 +43,8 @@ import com.persistit.util.Util;
 
 /**
  * Loads Persistit records from a file or other stream in a format generated by
- * a {@link StreamSaver}.
+ * a {@link StreamSaver}, or from a directory of segments written by
+ * {@link StreamSaver#saveSegments(File, TreeSelector)}.
  * 
  * @version 1.0
  */
@@ -58,16 +71,26 @@ public class StreamLoader extends Task {
     protected boolean _createMissingTrees;
     protected ImportHandler _handler;
 
+    private int _threads = 1;
+    private TreeBuilder _treeBuilder;
+    private File _directory;
+    private StreamLoader _parent;
+    private boolean _useTreeBuilder;
+
     @Cmd("load")
     static Task createStreamLoader(@Arg("file|string:|Load from file path") final String file,
             @Arg("trees|string:|Tree selector - specify Volumes/Trees/Keys to save") final String treeSelectorString,
             @Arg("_flag|r|Use regular expressions in tree selector") final boolean regex,
             @Arg("_flag|n|Don't create missing Volumes (Default is to create them)") final boolean dontCreateVolumes,
             @Arg("_flag|t|Don't create missing Trees (Default is to create them)") final boolean dontCreateTrees,
-            @Arg("_flag|v|verbose") final boolean verbose) throws Exception {
+            @Arg("_flag|v|verbose") final boolean verbose,
+            @Arg("_flag|b|Load segments through a TreeBuilder") final boolean useTreeBuilder,
+            @Arg("threads|int:1:1:64|Number of threads loading segments") final int threads) throws Exception {
 
         final StreamLoader task = new StreamLoader();
         task._filePath = file;
+        task.setThreads(threads);
+        task._useTreeBuilder = useTreeBuilder;
         task._treeSelector = TreeSelector.parseSelector(treeSelectorString, regex, '\\');
         task._createMissingVolumes = !dontCreateVolumes;
         task._createMissingTrees = !dontCreateTrees;
@@ -82,6 +105,17 @@ public class StreamLoader extends Task {
     StreamLoader() {
     }
 
+    /**
+     * Construct a StreamLoader that has no input stream. Such a StreamLoader
+     * can be used only to load segments with {@link #loadSegments(File)}.
+     * 
+     * @param persistit
+     *            The Persistit instance
+     */
+    public StreamLoader(final Persistit persistit) {
+        super(persistit);
+    }
+
     public StreamLoader(final Persistit persistit, final DataInputStream dis) {
         super(persistit);
         _dis = dis;
@@ -95,6 +129,61 @@ public class StreamLoader extends Task {
         this(persistit, new DataInputStream(new BufferedInputStream(new FileInputStream(fileName))));
     }
 
+    /**
+     * Constructs a worker that loads segments from the parent's segment
+     * directory. The worker posts messages through the parent.
+     */
+    private StreamLoader(final StreamLoader parent) {
+        super(parent._persistit);
+        _parent = parent;
+        _directory = parent._directory;
+        _treeBuilder = parent._treeBuilder;
+    }
+
+    /**
+     * @return the number of threads used by {@link #loadSegments(File)}
+     */
+    public int getThreads() {
+        return _threads;
+    }
+
+    /**
+     * Sets the number of threads used by {@link #loadSegments(File)} to load
+     * segments concurrently. The default is 1.
+     * 
+     * @param threads
+     *            The number of threads, between 1 and
+     *            {@value StreamSaver#MAX_THREADS}
+     */
+    public void setThreads(final int threads) {
+        Util.rangeCheck(threads, 1, StreamSaver.MAX_THREADS);
+        _threads = threads;
+    }
+
+    /**
+     * @return the <code>TreeBuilder</code> through which segments are loaded,
+     *         or <code>null</code>
+     */
+    public TreeBuilder getTreeBuilder() {
+        return _treeBuilder;
+    }
+
+    /**
+     * Sets a <code>TreeBuilder</code> through which
+     * {@link #loadSegments(File)} loads records. Records are first sorted into
+     * the builder's temporary volumes and then merged into their trees by
+     * {@link TreeBuilder#merge()} after all segments have been read, which
+     * avoids interleaved page splits when many segments of the same tree are
+     * loaded concurrently. If <code>null</code>, the default, records are
+     * stored directly.
+     * 
+     * @param treeBuilder
+     *            The <code>TreeBuilder</code>
+     */
+    public void setTreeBuilder(final TreeBuilder treeBuilder) {
+        _treeBuilder = treeBuilder;
+    }
+
     public void close() throws IOException {
         _dis.close();
     }
@@ -117,6 +206,181 @@ public class StreamLoader extends Task {
                 _otherRecordCount), Task.LOG_NORMAL);
     }
 
+    /**
+     * Loads all records from a segment directory, creating missing volumes and
+     * trees.
+     * 
+     * @param directory
+     *            The segment directory
+     * @throws IOException
+     * @throws PersistitException
+     */
+    public void loadSegments(final File directory) throws IOException, PersistitException {
+        loadSegments(directory, new TreeSelector(), true, true);
+    }
+
+    /**
+     * <p>
+     * Loads the selected records from a directory of segments written by
+     * {@link StreamSaver#saveSegments(File, TreeSelector)}. Segments of trees
+     * that are not selected are not read. If {@link #getThreads()} is greater
+     * than one the segments are loaded concurrently.
+     * </p>
+     * <p>
+     * Each segment must end with a COMPLETION record and contain the number
+     * of data records listed for it in the index; otherwise this method
+     * throws a {@link CorruptImportStreamException}.
+     * </p>
+     * 
+     * @param directory
+     *            The segment directory
+     * @param treeSelector
+     *            The <code>TreeSelector</code>s to select volumes, trees, and
+     *            KeyFilters within trees.
+     * @param createMissingVolumes
+     *            Whether to create volumes that do not exist
+     * @param createMissingTrees
+     *            Whether to create trees that do not exist
+     * @throws IOException
+     * @throws PersistitException
+     */
+    public void loadSegments(final File directory, final TreeSelector treeSelector,
+            final boolean createMissingVolumes, final boolean createMissingTrees) throws IOException,
+            PersistitException {
+        _directory = directory;
+        _treeSelector = treeSelector == null ? new TreeSelector() : treeSelector;
+        _createMissingVolumes = createMissingVolumes;
+        _createMissingTrees = createMissingTrees;
+        final List<Segment> segments = new ArrayList<Segment>();
+        for (final Segment segment : StreamSaver.readSegmentIndex(directory)) {
+            if (_treeSelector.isTreeNameSelected(segment._volumeName, segment._treeName)) {
+                segments.add(segment);
+            }
+        }
+        final int threads = Math.min(_threads, segments.size());
+        if (threads <= 1) {
+            final StreamLoader worker = new StreamLoader(this);
+            final SegmentHandler handler = worker.newSegmentHandler();
+            for (final Segment segment : segments) {
+                worker.loadSegment(segment, handler);
+            }
+        } else {
+            loadConcurrently(segments, threads);
+        }
+        if (_treeBuilder != null) {
+            try {
+                _treeBuilder.merge();
+            } catch (final PersistitException e) {
+                throw e;
+            } catch (final IOException e) {
+                throw e;
+            } catch (final Exception e) {
+                throw new PersistitException(e);
+            }
+        }
+        postMessage(String.format("DONE - processed %,d data records and %,d other records in %,d segments",
+                _dataRecordCount, _otherRecordCount, segments.size()), Task.LOG_NORMAL);
+    }
+
+    private void loadConcurrently(final List<Segment> segments, final int threads) throws IOException,
+            PersistitException {
+        final AtomicInteger counter = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable r) {
+                final Thread thread = new Thread(r, "STREAM_LOADER:" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (final Segment segment : segments) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        final StreamLoader worker = new StreamLoader(StreamLoader.this);
+                        worker.loadSegment(segment, worker.newSegmentHandler());
+                        return null;
+                    }
+                }));
+            }
+            Throwable exception = null;
+            for (final Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (final ExecutionException e) {
+                    if (exception == null) {
+                        exception = e.getCause();
+                        /*
+                         * Abandon the segments that have not started
+                         */
+                        for (final Runnable r : executor.shutdownNow()) {
+                            ((Future<?>) r).cancel(false);
+                        }
+                    }
+                } catch (final CancellationException e) {
+                    // abandoned after an earlier failure
+                } catch (final InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+            if (exception instanceof PersistitException) {
+                throw (PersistitException) exception;
+            } else if (exception instanceof IOException) {
+                throw (IOException) exception;
+            } else if (exception instanceof RuntimeException) {
+                throw (RuntimeException) exception;
+            } else if (exception != null) {
+                throw new IOException(exception);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private SegmentHandler newSegmentHandler() {
+        return new SegmentHandler(_parent, _parent._treeSelector, _parent._createMissingVolumes,
+                _parent._createMissingTrees, _treeBuilder);
+    }
+
+    /**
+     * Load one segment and verify that it is complete.
+     */
+    private void loadSegment(final Segment segment, final SegmentHandler handler) throws IOException,
+            PersistitException {
+        final File file = new File(_directory, segment._fileName);
+        _dis = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file),
+                DEFAULT_BUFFER_SIZE), DEFAULT_BUFFER_SIZE));
+        _handler = handler;
+        handler._completed = false;
+        final int dataRecordCount = _dataRecordCount;
+        final int otherRecordCount = _otherRecordCount;
+        try {
+            while (next(handler)) {
+                if (_dataRecordCount % 100 == 0) {
+                    poll();
+                }
+            }
+        } finally {
+            close();
+        }
+        if (!handler._completed) {
+            throw new CorruptImportStreamException("Segment " + file + " is incomplete");
+        }
+        if (_dataRecordCount - dataRecordCount != segment._recordCount) {
+            throw new CorruptImportStreamException("Segment " + file + " contains "
+                    + (_dataRecordCount - dataRecordCount) + " data records instead of " + segment._recordCount);
+        }
+        _parent.addRecordCounts(_dataRecordCount - dataRecordCount, _otherRecordCount - otherRecordCount);
+        postMessage("Loaded " + segment, Task.LOG_VERBOSE);
+    }
+
+    private synchronized void addRecordCounts(final int dataRecordCount, final int otherRecordCount) {
+        _dataRecordCount += dataRecordCount;
+        _otherRecordCount += otherRecordCount;
+    }
+
     public boolean next(final ImportHandler handler) throws IOException, PersistitException {
         final int b1 = _dis.read();
         if (b1 == -1) {
@@ -360,14 +624,81 @@ public class StreamLoader extends Task {
 
     }
 
+    /**
+     * Handler for segments loaded by {@link StreamLoader#loadSegments(File)}.
+     * Creation of volumes and trees is serialized because several segments
+     * may be loaded concurrently, and data records are optionally diverted to
+     * a {@link TreeBuilder}.
+     */
+    private static class SegmentHandler extends ImportHandler {
+        private final StreamLoader _lock;
+        private final TreeBuilder _treeBuilder;
+        private boolean _completed;
+
+        private SegmentHandler(final StreamLoader lock, final TreeSelector treeSelector,
+                final boolean createMissingVolumes, final boolean createMissingTrees, final TreeBuilder treeBuilder) {
+            super(lock._persistit, treeSelector, createMissingVolumes, createMissingTrees);
+            _lock = lock;
+            _treeBuilder = treeBuilder;
+        }
+
+        @Override
+        protected void handleDataRecord(final Key key, final Value value) throws PersistitException {
+            if (_treeBuilder == null) {
+                super.handleDataRecord(key, value);
+            } else if (_tree != null && (_keyFilter == null || _keyFilter.selected(key))) {
+                try {
+                    _treeBuilder.store(_tree, key, value);
+                } catch (final PersistitException e) {
+                    throw e;
+                } catch (final Exception e) {
+                    throw new PersistitException(e);
+                }
+            }
+        }
+
+        @Override
+        protected void handleVolumeIdRecord(final long volumeId, final long initialPages, final long extensionPages,
+                final long maximumPages, final int bufferSize, final String path, final String name)
+                throws PersistitException {
+            synchronized (_lock) {
+                super.handleVolumeIdRecord(volumeId, initialPages, extensionPages, maximumPages, bufferSize, path,
+                        name);
+            }
+        }
+
+        @Override
+        protected void handleTreeIdRecord(final String treeName) throws PersistitException {
+            synchronized (_lock) {
+                super.handleTreeIdRecord(treeName);
+            }
+        }
+
+        @Override
+        protected void handleCompletionRecord() throws PersistitException {
+            _completed = true;
+        }
+    }
+
     @Override
     public void runTask() throws Exception {
+        if (new File(_filePath).isDirectory()) {
+            if (_useTreeBuilder) {
+                _treeBuilder = new TreeBuilder(_persistit);
+                _treeBuilder.setMergeThreadCount(_threads);
+            }
+            loadSegments(new File(_filePath), _treeSelector, _createMissingVolumes, _createMissingTrees);
+            return;
+        }
         _dis = new DataInputStream(new BufferedInputStream(new FileInputStream(_filePath), DEFAULT_BUFFER_SIZE));
         load(_treeSelector, _createMissingVolumes, _createMissingTrees);
     }
 
     @Override
     public String getStatus() {
+        if (_directory != null && _parent == null) {
+            return "Loading segments from " + _directory + " (" + _dataRecordCount + ")";
+        }
         if (_handler == null || _handler._tree == null) {
             return null;
         }
@@ -16,16 +16,32 @@
 
 package com.persistit;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
 
 import com.persistit.CLI.Arg;
 import com.persistit.CLI.Cmd;
+import com.persistit.Key.Direction;
+import com.persistit.KeyHistogram.KeyCount;
+import com.persistit.exception.CorruptImportStreamException;
 import com.persistit.exception.PersistitException;
 import com.persistit.util.Util;
 
@@ -34,6 +50,15 @@ import com.persistit.util.Util;
  * Saves Persistit records to a DataOutputStream in the format expected by a
  * {@link StreamLoader} instance.
  * </p>
+ * <p>
+ * Alternatively {@link #saveSegments(File, TreeSelector)} saves records to a
+ * directory of GZIP-compressed segment files. Each segment is a complete
+ * stream in the same format holding a contiguous range of keys from one tree,
+ * and the directory contains an index file listing the segments. Trees, and
+ * key ranges within large trees, are saved concurrently when more than one
+ * thread is specified by {@link #setThreads(int)}, and the segments can be
+ * loaded concurrently by {@link StreamLoader#loadSegments(File)}.
+ * </p>
  * 
  * @version 1.0
  */
@@ -104,6 +129,27 @@ public class StreamSaver extends Task {
      * constructors.
      */
     public final static int DEFAULT_BUFFER_SIZE = 65536;
+    /**
+     * Name of the index file in a segment directory
+     */
+    public final static String SEGMENT_INDEX_NAME = "segments.idx";
+    /**
+     * Default maximum number of uncompressed bytes written to one segment
+     */
+    public final static int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    /**
+     * Maximum number of threads used to save segments
+     */
+    public final static int MAX_THREADS = 64;
+    /**
+     * Number of key ranges per thread into which a large tree is divided when
+     * segments are saved by more than one thread
+     */
+    final static int RANGES_PER_THREAD = 4;
+
+    final static int SEGMENT_INDEX_MAGIC = ('P' << 24) + ('S' << 16) + ('I' << 8) + 'X';
+
+    final static String SEGMENT_NAME_FORMAT = "segment%06d.gz";
 
     protected String _filePath;
     protected DataOutputStream _dos;
@@ -119,6 +165,37 @@ public class StreamSaver extends Task {
     protected int _recordCount;
     protected TreeSelector _treeSelector;
 
+    private int _threads = 1;
+    private int _segmentSize = DEFAULT_SEGMENT_SIZE;
+    private boolean _segmented;
+    private File _directory;
+    private StreamSaver _parent;
+    private AtomicInteger _segmentCounter;
+    private Segment _segment;
+
+    /**
+     * Description of one segment file in a segment directory
+     */
+    static class Segment {
+        final String _fileName;
+        final String _volumeName;
+        final String _treeName;
+        long _recordCount;
+        long _length;
+
+        Segment(final String fileName, final String volumeName, final String treeName) {
+            _fileName = fileName;
+            _volumeName = volumeName;
+            _treeName = treeName;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %s/%s (%,d records, %,d bytes)", _fileName, _volumeName, _treeName,
+                    _recordCount, _length);
+        }
+    }
+
     /**
      * Package-private constructor used by {@link ManagementImpl} to instantiate
      * a {@link Task}. The {@link #setupTask} method must be called to specify
@@ -129,6 +206,34 @@ public class StreamSaver extends Task {
         _lastKey = new Key((Persistit) null);
     }
 
+    /**
+     * Construct a StreamSaver that has no output stream. Such a StreamSaver
+     * can be used only to save segments with
+     * {@link #saveSegments(File, TreeSelector)}.
+     * 
+     * @param persistit
+     *            The Persistit instance
+     */
+    public StreamSaver(final Persistit persistit) {
+        super(persistit);
+        _lastKey = new Key(persistit);
+    }
+
+    /**
+     * Constructs a worker that saves key ranges into segments of the
+     * parent's segment directory. The worker posts messages through the
+     * parent.
+     */
+    private StreamSaver(final StreamSaver parent) {
+        super(parent._persistit);
+        _lastKey = new Key(parent._persistit);
+        _parent = parent;
+        _directory = parent._directory;
+        _segmentCounter = parent._segmentCounter;
+        _segmentSize = parent._segmentSize;
+        _cycleCount = parent._cycleCount;
+    }
+
     /**
      * Construct a StreamSaver from the provided DataOutputStream. The
      * DataOutputStream should be based on a BufferedOutputStream for better
@@ -159,9 +264,13 @@ public class StreamSaver extends Task {
     static StreamSaver createTask(@Arg("file|string:|Save to file") final String file,
             @Arg("trees|string:*|Tree selector - specify Volumes/Trees/Keys to save") final String treeSelectorString,
             @Arg("_flag|v|verbose") final boolean verbose,
-            @Arg("_flag|r|Use regular expressions in tree selector") final boolean regex) throws Exception {
+            @Arg("_flag|r|Use regular expressions in tree selector") final boolean regex,
+            @Arg("_flag|z|Save compressed segments to the directory named by file") final boolean segmented,
+            @Arg("threads|int:1:1:64|Number of threads saving segments") final int threads) throws Exception {
         final StreamSaver task = new StreamSaver();
         task._filePath = file;
+        task._segmented = segmented;
+        task.setThreads(threads);
         task._treeSelector = TreeSelector.parseSelector(treeSelectorString, regex, '\\');
         task.setMessageLogVerbosity(verbose ? LOG_VERBOSE : LOG_NORMAL);
         return task;
@@ -232,6 +341,48 @@ public class StreamSaver extends Task {
         _cycleCount = count;
     }
 
+    /**
+     * @return the number of threads used by
+     *         {@link #saveSegments(File, TreeSelector)}
+     */
+    public int getThreads() {
+        return _threads;
+    }
+
+    /**
+     * Sets the number of threads used by
+     * {@link #saveSegments(File, TreeSelector)} to save trees and key ranges
+     * concurrently. The default is 1.
+     * 
+     * @param threads
+     *            The number of threads, between 1 and {@value #MAX_THREADS}
+     */
+    public void setThreads(final int threads) {
+        Util.rangeCheck(threads, 1, MAX_THREADS);
+        _threads = threads;
+    }
+
+    /**
+     * @return the maximum number of uncompressed bytes written to one segment
+     */
+    public int getSegmentSize() {
+        return _segmentSize;
+    }
+
+    /**
+     * Sets the maximum number of uncompressed bytes written to one segment by
+     * {@link #saveSegments(File, TreeSelector)}. A key range that exceeds this
+     * size is written to several consecutive segments. The default is
+     * {@value #DEFAULT_SEGMENT_SIZE}.
+     * 
+     * @param size
+     *            The segment size
+     */
+    public void setSegmentSize(final int size) {
+        Util.rangeCheck(size, DEFAULT_BUFFER_SIZE, Integer.MAX_VALUE);
+        _segmentSize = size;
+    }
+
     /**
      * Closes this StreamSaver and the underlying DataOutputStream. If the save
      * operation ran to completion without error, this method writes a
@@ -573,16 +724,350 @@ public class StreamSaver extends Task {
         }
     }
 
+    /**
+     * <p>
+     * Saves the trees selected by a <code>TreeSelector</code> to GZIP
+     * compressed segment files in the supplied directory, which is created if
+     * necessary. Each segment holds records from a contiguous range of keys in
+     * one tree and is a complete stream that could also be loaded on its own
+     * by a <code>StreamLoader</code>. A new segment is started whenever the
+     * uncompressed size of the current one reaches {@link #getSegmentSize()}.
+     * After all segments have been written this method writes the index file
+     * {@value #SEGMENT_INDEX_NAME} listing them; a directory without an index
+     * is the result of a save that did not complete.
+     * </p>
+     * <p>
+     * If {@link #getThreads()} is greater than one, the selected trees are
+     * saved concurrently and trees of more than one level are further divided
+     * into key ranges by sampling their index pages. Unlike
+     * {@link #saveTrees(TreeSelector)}, an exception thrown while saving any
+     * tree ends the save.
+     * </p>
+     * 
+     * @param directory
+     *            The directory to which segments are saved
+     * @param treeSelector
+     *            The <code>TreeSelector</code>s to select volumes, trees, and
+     *            KeyFilters within trees.
+     * @throws PersistitException
+     * @throws IOException
+     */
+    public void saveSegments(final File directory, final TreeSelector treeSelector) throws PersistitException,
+            IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create directory " + directory);
+        }
+        final File index = new File(directory, SEGMENT_INDEX_NAME);
+        if (index.exists() && !index.delete()) {
+            throw new IOException("Unable to delete " + index);
+        }
+        _directory = directory;
+        _segmentCounter = new AtomicInteger();
+
+        final List<Range> ranges = new ArrayList<Range>();
+        for (final Tree tree : _persistit.getSelectedTrees(treeSelector)) {
+            final Volume volume = tree.getVolume();
+            if (volume.getDirectoryTree() == tree) {
+                for (final String treeName : volume.getTreeNames()) {
+                    addRanges(ranges, volume.getTree(treeName, false), null);
+                }
+            } else {
+                addRanges(ranges, tree, treeSelector.keyFilter(volume.getName(), tree.getName()));
+            }
+        }
+        postMessage(String.format("Saving %,d key ranges to %s", ranges.size(), directory), LOG_VERBOSE);
+
+        final List<Segment> segments = new ArrayList<Segment>();
+        final int threads = Math.min(_threads, ranges.size());
+        if (threads <= 1) {
+            final StreamSaver worker = new StreamSaver(this);
+            for (final Range range : ranges) {
+                segments.addAll(worker.saveRange(range));
+            }
+        } else {
+            saveConcurrently(ranges, threads, segments);
+        }
+        writeSegmentIndex(index, segments);
+        postMessage(String.format("DONE - saved %,d data records in %,d segments", segmentRecordCount(segments),
+                segments.size()), LOG_NORMAL);
+    }
+
+    /**
+     * A range of keys in a tree to be saved by one worker. The
+     * <code>start</code> key is inclusive and the <code>end</code> key is
+     * exclusive; either may be <code>null</code> to denote the beginning or
+     * end of the tree.
+     */
+    private static class Range {
+        final Tree _tree;
+        final KeyFilter _filter;
+        final Key _start;
+        final Key _end;
+
+        Range(final Tree tree, final KeyFilter filter, final Key start, final Key end) {
+            _tree = tree;
+            _filter = filter;
+            _start = start;
+            _end = end;
+        }
+    }
+
+    /**
+     * Add the key ranges of a tree. A tree is divided only when it has more
+     * than one level and more than one thread will save it; the boundaries
+     * are keys sampled from the index level just above the data pages, so
+     * each range covers roughly the same number of data pages.
+     */
+    private void addRanges(final List<Range> ranges, final Tree tree, final KeyFilter filter)
+            throws PersistitException {
+        Key start = null;
+        if (_threads > 1 && tree.getDepth() > 1) {
+            final Exchange exchange = new Exchange(tree);
+            final KeyHistogram histogram = exchange.computeHistogram(null, null, _threads * RANGES_PER_THREAD, 0,
+                    null, 1);
+            for (final KeyCount sample : histogram.getSamples()) {
+                final Key key = new Key(_persistit);
+                System.arraycopy(sample.getBytes(), 0, key.getEncodedBytes(), 0, sample.getBytes().length);
+                key.setEncodedSize(sample.getBytes().length);
+                if (key.getEncodedSize() > 0 && (start == null || key.compareTo(start) > 0)) {
+                    ranges.add(new Range(tree, filter, start, key));
+                    start = key;
+                }
+            }
+        }
+        ranges.add(new Range(tree, filter, start, null));
+    }
+
+    private void saveConcurrently(final List<Range> ranges, final int threads, final List<Segment> segments)
+            throws PersistitException, IOException {
+        final AtomicInteger counter = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable r) {
+                final Thread thread = new Thread(r, "STREAM_SAVER:" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            final List<Future<List<Segment>>> futures = new ArrayList<Future<List<Segment>>>();
+            for (final Range range : ranges) {
+                futures.add(executor.submit(new Callable<List<Segment>>() {
+                    @Override
+                    public List<Segment> call() throws Exception {
+                        return new StreamSaver(StreamSaver.this).saveRange(range);
+                    }
+                }));
+            }
+            Throwable exception = null;
+            for (final Future<List<Segment>> future : futures) {
+                try {
+                    segments.addAll(future.get());
+                } catch (final ExecutionException e) {
+                    if (exception == null) {
+                        exception = e.getCause();
+                        /*
+                         * Abandon the ranges that have not started
+                         */
+                        for (final Runnable r : executor.shutdownNow()) {
+                            ((Future<?>) r).cancel(false);
+                        }
+                    }
+                } catch (final CancellationException e) {
+                    // abandoned after an earlier failure
+                } catch (final InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+            if (exception instanceof PersistitException) {
+                throw (PersistitException) exception;
+            } else if (exception instanceof IOException) {
+                throw (IOException) exception;
+            } else if (exception instanceof RuntimeException) {
+                throw (RuntimeException) exception;
+            } else if (exception != null) {
+                throw new IOException(exception);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Save the records of one key range, starting a new segment whenever the
+     * current one is full.
+     * 
+     * @return the segments written
+     */
+    private List<Segment> saveRange(final Range range) throws PersistitException, IOException {
+        final List<Segment> segments = new ArrayList<Segment>();
+        final Exchange exchange = new Exchange(range._tree);
+        final Key key = exchange.getKey();
+        Direction direction = Key.GTEQ;
+        if (range._start == null) {
+            key.clear().append(Key.BEFORE);
+            direction = Key.GT;
+        } else {
+            range._start.copyTo(key);
+        }
+        try {
+            while (exchange.traverse(direction, range._filter, Integer.MAX_VALUE)) {
+                direction = Key.GT;
+                if (range._end != null && key.compareTo(range._end) >= 0) {
+                    break;
+                }
+                if (_segment != null && _dos.size() >= _segmentSize) {
+                    closeSegment();
+                }
+                if (_segment == null) {
+                    segments.add(openSegment(exchange, range._filter));
+                }
+                writeData(exchange);
+            }
+            if (_segment != null) {
+                closeSegment();
+            }
+        } finally {
+            if (_segment != null) {
+                _segment = null;
+                _dos.close();
+            }
+        }
+        return segments;
+    }
+
+    private Segment openSegment(final Exchange exchange, final KeyFilter filter) throws IOException {
+        final String fileName = String.format(SEGMENT_NAME_FORMAT, _segmentCounter.incrementAndGet());
+        _dos = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(new File(
+                _directory, fileName)), DEFAULT_BUFFER_SIZE), DEFAULT_BUFFER_SIZE));
+        _segment = new Segment(fileName, exchange.getVolume().getName(), exchange.getTree().getName());
+        _segment._recordCount = _dataRecordCount;
+        writeTimestamp();
+        _dos.writeChar(RECORD_TYPE_START);
+        if (filter != null) {
+            _dos.writeChar(RECORD_TYPE_KEY_FILTER);
+            _dos.writeUTF(filter.toString());
+        }
+        return _segment;
+    }
+
+    private void closeSegment() throws IOException {
+        final Segment segment = _segment;
+        writeRecordCount(_dataRecordCount, _otherRecordCount);
+        _dos.writeChar(RECORD_TYPE_END);
+        _segment = null;
+        close();
+        segment._recordCount = _dataRecordCount - segment._recordCount;
+        segment._length = new File(_directory, segment._fileName).length();
+        postMessage("Saved " + segment, LOG_VERBOSE);
+    }
+
+    private static long segmentRecordCount(final List<Segment> segments) {
+        long count = 0;
+        for (final Segment segment : segments) {
+            count += segment._recordCount;
+        }
+        return count;
+    }
+
+    private static void writeSegmentIndex(final File file, final List<Segment> segments) throws IOException {
+        final DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        try {
+            dos.writeInt(SEGMENT_INDEX_MAGIC);
+            dos.writeInt(segments.size());
+            for (final Segment segment : segments) {
+                dos.writeUTF(segment._fileName);
+                dos.writeUTF(segment._volumeName);
+                dos.writeUTF(segment._treeName);
+                dos.writeLong(segment._recordCount);
+                dos.writeLong(segment._length);
+            }
+            dos.writeChar(RECORD_TYPE_COMPLETION);
+        } finally {
+            dos.close();
+        }
+    }
+
+    /**
+     * Read the index of a segment directory written by
+     * {@link #saveSegments(File, TreeSelector)}.
+     * 
+     * @param directory
+     *            The segment directory
+     * @return the segments in the order they were listed
+     * @throws CorruptImportStreamException
+     *             if the index is missing or incomplete
+     * @throws IOException
+     */
+    static List<Segment> readSegmentIndex(final File directory) throws PersistitException, IOException {
+        final File file = new File(directory, SEGMENT_INDEX_NAME);
+        if (!file.isFile()) {
+            throw new CorruptImportStreamException("Missing segment index " + file);
+        }
+        final DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (dis.readInt() != SEGMENT_INDEX_MAGIC) {
+                throw new CorruptImportStreamException("Invalid segment index " + file);
+            }
+            final int count = dis.readInt();
+            final List<Segment> segments = new ArrayList<Segment>(count);
+            for (int index = 0; index < count; index++) {
+                final Segment segment = new Segment(dis.readUTF(), dis.readUTF(), dis.readUTF());
+                segment._recordCount = dis.readLong();
+                segment._length = dis.readLong();
+                segments.add(segment);
+            }
+            if (dis.readChar() != RECORD_TYPE_COMPLETION) {
+                throw new CorruptImportStreamException("Incomplete segment index " + file);
+            }
+            return segments;
+        } finally {
+            dis.close();
+        }
+    }
+
     @Override
     protected void runTask() throws PersistitException, IOException {
+        if (_segmented) {
+            saveSegments(new File(_filePath), _treeSelector);
+            return;
+        }
         _dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(_filePath), DEFAULT_BUFFER_SIZE));
         saveTrees(_treeSelector);
         close();
     }
 
+    /**
+     * Workers saving segments are stopped or suspended along with the parent
+     * task.
+     */
+    @Override
+    protected void poll() {
+        if (_parent == null) {
+            super.poll();
+        } else {
+            synchronized (_parent) {
+                _parent.poll();
+            }
+        }
+    }
+
+    @Override
+    protected void postMessage(final String message, final int level) {
+        if (_parent == null) {
+            super.postMessage(message, level);
+        } else {
+            synchronized (_parent) {
+                _parent.postMessage(message, level);
+            }
+        }
+    }
+
     @Override
     public String getStatus() {
-        if (_lastTree == null) {
+        if (_segmentCounter != null) {
+            return "Saving segments to " + _directory + " (" + _segmentCounter.get() + " segments)";
+        } else if (_lastTree == null) {
             return null;
         } else {
             return "Saving " + _lastTree.getName() + " in " + _lastTree.getVolume().getPath() + " (" + _recordCount
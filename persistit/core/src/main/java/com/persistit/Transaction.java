@@ -94,9 +94,8 @@ import com.persistit.util.Util;
  * <dt>{@link CommitPolicy#GROUP}</dt>
  * <dd>The <code>commit</code> method does not return until all updates created
  * by the transaction have been written to non-volatile storage. In addition,
- * the committing transaction waits briefly in an attempt to recruit other
- * concurrently running transactions to write their updates with the same
- * physical I/O operation.</dd>
+ * concurrently committing transactions share the same physical I/O
+ * operation.</dd>
  * <dt>{@link CommitPolicy#SOFT}</dt>
  * <dd>The <code>commit</code> method returns <i>before</i> the updates have
  * been recorded on non-volatile storage. Persistit attempts to write them
@@ -113,12 +112,16 @@ import com.persistit.util.Util;
  * <p>
  * HARD and GROUP ensure each transaction is written durably to non-volatile
  * storage before the <code>commit</code> method returns. The difference is that
- * GROUP can improve throughput somewhat when many transactions are running
- * concurrently because the average number of I/O operations needed to commit N
- * transactions can be smaller than N. However, for one or a small number of
- * concurrent threads, GROUP reduces throughput because it works by introducing
- * a delay to allow other concurrent transactions to commit within a single I/O
- * operation.
+ * GROUP can improve throughput substantially when many transactions are
+ * running concurrently because the average number of I/O operations needed to
+ * commit N transactions can be much smaller than N. With GROUP, one committing
+ * thread forces the journal on behalf of every transaction waiting to commit,
+ * and transactions that reach their commit points during that I/O operation
+ * are made durable together by the next one. A delay to recruit additional
+ * transactions is introduced only when recent commits have arrived
+ * concurrently, and is then derived from the measured duration of the I/O
+ * operation, so a single thread committing with GROUP pays little more than
+ * with HARD.
  * </p>
  * <p>
  * SOFT commits are generally much faster than HARD or GROUP commits, especially
@@ -443,6 +446,11 @@ public class Transaction {
 
     private final Set<CleanupAction> _lockCleanupActions = new HashSet<CleanupAction>();
 
+    /**
+     * Streams created in this transaction that have not yet been closed
+     */
+    private final List<LongRecordOutputStream> _outputStreams = new ArrayList<LongRecordOutputStream>();
+
     public static enum CommitPolicy {
         /**
          * The {@link Transaction#commit} method returns before all updates have
@@ -461,11 +469,11 @@ public class Transaction {
         HARD,
         /**
          * Every committed transaction is flushed to durable storage before
-         * {@link Transaction#commit()} returns. Persistit attempts to
-         * coordinate the I/O needed to do this with other pending transactions;
-         * as a consequence, the commit method may pause briefly waiting for
-         * other transactions to reach their commit points. In general this
-         * option provides the slowest rate of sequential commits, but the
+         * {@link Transaction#commit()} returns. Persistit coordinates the I/O
+         * needed to do this with other pending transactions so that a single
+         * I/O operation makes a group of concurrently committed transactions
+         * durable; as a consequence, the commit method may pause briefly
+         * waiting for other transactions to reach their commit points. The
          * aggregate transaction throughput across many threads may be much
          * higher than with the HARD policy.
          */
@@ -679,6 +687,7 @@ public class Transaction {
                 if (!_rollbackCompleted) {
                     rollback();
                 }
+                abandonOutputStreams();
             } else {
                 _commitCount++;
                 _rollbacksSinceLastCommit = 0;
@@ -688,6 +697,7 @@ public class Transaction {
             } catch (final Exception e) {
                 _persistit.getLogBase().pruneException.log(e, "locks");
             }
+            _outputStreams.clear();
             _transactionStatus = null;
             _rollbackPending = false;
             _threadName = null;
@@ -697,6 +707,26 @@ public class Transaction {
         _commitCompleted = false;
     }
 
+    void addOutputStream(final LongRecordOutputStream stream) {
+        _outputStreams.add(stream);
+    }
+
+    void removeOutputStream(final LongRecordOutputStream stream) {
+        _outputStreams.remove(stream);
+    }
+
+    /**
+     * Deallocate the pages written by streams that were not closed before the
+     * transaction rolled back. Their values can no longer be stored.
+     */
+    private void abandonOutputStreams() {
+        final List<LongRecordOutputStream> streams = new ArrayList<LongRecordOutputStream>(_outputStreams);
+        _outputStreams.clear();
+        for (final LongRecordOutputStream stream : streams) {
+            stream.rollback();
+        }
+    }
+
     /**
      * <p>
      * Explicitly rolls back all work done within the scope of this transaction.
@@ -861,6 +891,7 @@ public class Transaction {
             if (_rollbackCompleted) {
                 throw new IllegalStateException("Already rolled back " + this);
             }
+            final long start = _persistit.getLatencyMeter().start();
             for (Delta delta = _transactionStatus.getDelta(); delta != null; delta = delta.getNext()) {
                 writeDeltaToJournal(delta);
             }
@@ -891,10 +922,15 @@ public class Transaction {
 
             _persistit.getJournalManager().throttle();
             if (flushedTimetimestamp != 0) {
-                _persistit.getJournalManager().waitForDurability(flushedTimetimestamp,
-                        policy == CommitPolicy.SOFT ? _persistit.getTransactionCommitLeadTime() : 0,
-                        policy == CommitPolicy.GROUP ? _persistit.getTransactionCommitStallTime() : 0);
+                if (policy == CommitPolicy.GROUP) {
+                    _persistit.getJournalManager().waitForGroupCommit(flushedTimetimestamp,
+                            _persistit.getTransactionCommitStallTime());
+                } else {
+                    _persistit.getJournalManager().waitForDurability(flushedTimetimestamp,
+                            policy == CommitPolicy.SOFT ? _persistit.getTransactionCommitLeadTime() : 0, 0);
+                }
             }
+            _persistit.getLatencyMeter().record(LatencyMeter.COMMIT, start);
         }
     }
 
@@ -1087,6 +1123,10 @@ public class Transaction {
         return _sessionId;
     }
 
+    Persistit getPersistit() {
+        return _persistit;
+    }
+
     /**
      * Return the number of transactions committed by this transaction context.
      * 
@@ -73,6 +73,94 @@ class TransactionPlayer {
         boolean createTree(long timestamp) throws PersistitException;
     }
 
+    /**
+     * Private copy of the TX records of one transaction, together with the
+     * handles of the trees it updates.
+     */
+    static class Transcript {
+        private final long _startTimestamp;
+        private final long _commitTimestamp;
+        private final long[] _addresses;
+        private final int[] _sizes;
+        private final ByteBuffer _records;
+        private final List<Integer> _treeHandles = new ArrayList<Integer>();
+        private boolean _longRecord;
+
+        Transcript(final long startTimestamp, final long commitTimestamp, final long[] addresses, final int[] sizes,
+                final ByteBuffer records) throws CorruptJournalException {
+            _startTimestamp = startTimestamp;
+            _commitTimestamp = commitTimestamp;
+            _addresses = addresses;
+            _sizes = sizes;
+            _records = records;
+            int start = 0;
+            for (int index = 0; index < sizes.length; index++) {
+                final int end = start + sizes[index];
+                for (int position = start + TX.OVERHEAD; position < end;) {
+                    records.position(position);
+                    final int innerSize = JournalRecord.getLength(records);
+                    final int type = JournalRecord.getType(records);
+                    if (innerSize <= 0) {
+                        throw new CorruptJournalException("Invalid record length " + innerSize + " in transaction "
+                                + "record at " + addressToString(addresses[index]));
+                    }
+                    final int treeHandle;
+                    switch (type) {
+                    case SR.TYPE:
+                        treeHandle = SR.getTreeHandle(records);
+                        final int valueAt = position + SR.OVERHEAD + SR.getKeySize(records);
+                        if (position + innerSize - valueAt >= Buffer.LONGREC_SIZE
+                                && (records.get(valueAt) & 0xFF) == Buffer.LONGREC_TYPE) {
+                            _longRecord = true;
+                        }
+                        break;
+                    case DR.TYPE:
+                        treeHandle = DR.getTreeHandle(records);
+                        break;
+                    case DT.TYPE:
+                        treeHandle = DT.getTreeHandle(records);
+                        break;
+                    case D0.TYPE:
+                        treeHandle = D0.getTreeHandle(records);
+                        break;
+                    case D1.TYPE:
+                        treeHandle = D1.getTreeHandle(records);
+                        break;
+                    default:
+                        throw new CorruptJournalException("Invalid record type " + type + " in transaction record at "
+                                + addressToString(addresses[index]));
+                    }
+                    if (!_treeHandles.contains(treeHandle)) {
+                        _treeHandles.add(treeHandle);
+                    }
+                    position += innerSize;
+                }
+                start = end;
+            }
+            records.position(0);
+        }
+
+        /**
+         * @return handles of the trees updated by the transaction
+         */
+        List<Integer> getTreeHandles() {
+            return _treeHandles;
+        }
+
+        /**
+         * @return <code>true</code> if the transaction stores a long record,
+         *         which requires the {@link TransactionPlayerSupport} to
+         *         assemble
+         */
+        boolean hasLongRecord() {
+            return _longRecord;
+        }
+
+        int getSize() {
+            return _records.limit();
+        }
+    }
+
     final TransactionPlayerSupport _support;
 
     TransactionPlayer(final TransactionPlayerSupport support) {
@@ -83,22 +171,113 @@ class TransactionPlayer {
             throws PersistitException {
 
         final List<Long> chainedAddress = new ArrayList<Long>();
-        long address = item.getLastRecordAddress();
+        final long commitTimestamp = readTransactionChain(item, chainedAddress);
+        final long startTimestamp = item.getStartTimestamp();
+        long address = item.getStartAddress();
+        int recordSize = TX.getLength(_support.getReadBuffer());
+
+        listener.startTransaction(address, startTimestamp, commitTimestamp);
+        applyTransactionUpdates(_support.getReadBuffer(), address, recordSize, startTimestamp, commitTimestamp,
+                listener);
+
+        for (final Long continuation : chainedAddress) {
+            address = continuation.longValue();
+            recordSize = readContinuation(address);
+            applyTransactionUpdates(_support.getReadBuffer(), address, recordSize, startTimestamp, commitTimestamp,
+                    listener);
+        }
+        listener.endTransaction(address, startTimestamp);
+
+    }
+
+    /**
+     * Read all TX records of a transaction into a private {@link Transcript}
+     * that can later be applied by
+     * {@link #applyTranscript(Transcript, TransactionPlayerListener)} on any
+     * thread. Reading uses the {@link TransactionPlayerSupport} and must be
+     * done by the thread that owns it.
+     * 
+     * @param item
+     *            the transaction to read
+     * @param maximumSize
+     *            maximum total size of the TX records
+     * @return the Transcript, or <code>null</code> if the records exceed
+     *         <code>maximumSize</code> bytes
+     * @throws PersistitException
+     */
+    Transcript readTranscript(final TransactionMapItem item, final int maximumSize) throws PersistitException {
+        final List<Long> chainedAddress = new ArrayList<Long>();
+        final long commitTimestamp = readTransactionChain(item, chainedAddress);
+        final long[] addresses = new long[chainedAddress.size() + 1];
+        final int[] sizes = new int[addresses.length];
+        addresses[0] = item.getStartAddress();
+        sizes[0] = TX.getLength(_support.getReadBuffer());
+        if (sizes[0] > maximumSize) {
+            return null;
+        }
+        ByteBuffer bb = ByteBuffer.allocate(sizes[0]);
+        bb.put(_support.getReadBuffer().array(), _support.getReadBuffer().position(), sizes[0]);
+        for (int index = 1; index < addresses.length; index++) {
+            addresses[index] = chainedAddress.get(index - 1).longValue();
+            sizes[index] = readContinuation(addresses[index]);
+            if (bb.position() + sizes[index] > maximumSize) {
+                return null;
+            }
+            if (bb.remaining() < sizes[index]) {
+                final ByteBuffer larger = ByteBuffer.allocate(Math.min(maximumSize,
+                        Math.max(bb.capacity() * 2, bb.position() + sizes[index])));
+                bb.flip();
+                larger.put(bb);
+                bb = larger;
+            }
+            bb.put(_support.getReadBuffer().array(), _support.getReadBuffer().position(), sizes[index]);
+        }
+        bb.flip();
+        return new Transcript(item.getStartTimestamp(), commitTimestamp, addresses, sizes, bb);
+    }
 
-        int recordSize;
-        int type;
-        long startTimestamp;
-        long commitTimestamp;
-        long backchainAddress;
+    /**
+     * Apply a transaction previously read by
+     * {@link #readTranscript(TransactionMapItem, int)}.
+     * 
+     * @param transcript
+     * @param listener
+     * @throws PersistitException
+     */
+    void applyTranscript(final Transcript transcript, final TransactionPlayerListener listener)
+            throws PersistitException {
+        final ByteBuffer bb = transcript._records;
+        final long startTimestamp = transcript._startTimestamp;
+        listener.startTransaction(transcript._addresses[0], startTimestamp, transcript._commitTimestamp);
+        int position = 0;
+        for (int index = 0; index < transcript._addresses.length; index++) {
+            bb.position(position);
+            applyTransactionUpdates(bb, transcript._addresses[index], transcript._sizes[index], startTimestamp,
+                    transcript._commitTimestamp, listener);
+            position += transcript._sizes[index];
+        }
+        listener.endTransaction(transcript._addresses[transcript._addresses.length - 1], startTimestamp);
+    }
 
+    /**
+     * Follow the back-chain of TX records from the last record of a
+     * transaction to its first. On return the read buffer holds the first
+     * record and <code>chainedAddress</code> holds the addresses of the
+     * remaining records in journal order.
+     * 
+     * @return the commit timestamp recorded in the transaction
+     */
+    private long readTransactionChain(final TransactionMapItem item, final List<Long> chainedAddress)
+            throws PersistitException {
+        long address = item.getLastRecordAddress();
         for (;;) {
             _support.read(address, TX.OVERHEAD);
-            recordSize = TX.getLength(_support.getReadBuffer());
+            final int recordSize = TX.getLength(_support.getReadBuffer());
             _support.read(address, recordSize);
-            type = TX.getType(_support.getReadBuffer());
-            startTimestamp = TX.getTimestamp(_support.getReadBuffer());
-            commitTimestamp = TX.getCommitTimestamp(_support.getReadBuffer());
-            backchainAddress = TX.getBackchainAddress(_support.getReadBuffer());
+            final int type = TX.getType(_support.getReadBuffer());
+            final long startTimestamp = TX.getTimestamp(_support.getReadBuffer());
+            final long commitTimestamp = TX.getCommitTimestamp(_support.getReadBuffer());
+            final long backchainAddress = TX.getBackchainAddress(_support.getReadBuffer());
             if (recordSize < TX.OVERHEAD || recordSize > Transaction.TRANSACTION_BUFFER_SIZE + TX.OVERHEAD
                     || type != TX.TYPE) {
                 throw new CorruptJournalException("Transaction record at " + addressToString(address)
@@ -113,31 +292,29 @@ class TransactionPlayer {
                     throw new CorruptJournalException("Transaction record at " + addressToString(address)
                             + " has an invalid start " + addressToString(item.getStartAddress()));
                 }
-                break;
+                return commitTimestamp;
             }
             chainedAddress.add(0, address);
             address = backchainAddress;
         }
+    }
 
-        listener.startTransaction(address, startTimestamp, commitTimestamp);
-        applyTransactionUpdates(_support.getReadBuffer(), address, recordSize, startTimestamp, commitTimestamp,
-                listener);
-
-        for (final Long continuation : chainedAddress) {
-            address = continuation.longValue();
-            _support.read(address, TX.OVERHEAD);
-            recordSize = TX.getLength(_support.getReadBuffer());
-            if (recordSize < TX.OVERHEAD || recordSize > Transaction.TRANSACTION_BUFFER_SIZE + TX.OVERHEAD
-                    || type != TX.TYPE) {
-                throw new CorruptJournalException("Transaction record at " + addressToString(address)
-                        + " has invalid length " + recordSize + " or type " + type);
-            }
-            _support.read(address, recordSize);
-            applyTransactionUpdates(_support.getReadBuffer(), address, recordSize, startTimestamp, commitTimestamp,
-                    listener);
+    /**
+     * Read a continuation TX record into the read buffer.
+     * 
+     * @return the size of the record
+     */
+    private int readContinuation(final long address) throws PersistitException {
+        _support.read(address, TX.OVERHEAD);
+        final int recordSize = TX.getLength(_support.getReadBuffer());
+        final int type = TX.getType(_support.getReadBuffer());
+        if (recordSize < TX.OVERHEAD || recordSize > Transaction.TRANSACTION_BUFFER_SIZE + TX.OVERHEAD
+                || type != TX.TYPE) {
+            throw new CorruptJournalException("Transaction record at " + addressToString(address)
+                    + " has invalid length " + recordSize + " or type " + type);
         }
-        listener.endTransaction(address, startTimestamp);
-
+        _support.read(address, recordSize);
+        return recordSize;
     }
 
     void applyTransactionUpdates(final ByteBuffer byteBuffer, final long address, final int recordSize,
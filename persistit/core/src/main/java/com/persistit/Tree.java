@@ -16,6 +16,7 @@
 
 package com.persistit;
 
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -109,6 +110,11 @@ public class Tree extends SharedResource {
         volatile boolean _pruned;
         private final Accumulator[] _accumulators = new Accumulator[MAX_ACCUMULATOR_COUNT];
         private final TreeStatistics _treeStatistics = new TreeStatistics();
+        volatile boolean _filterEnabled;
+        volatile MembershipFilter _filter;
+        volatile MembershipFilter _filterUnderConstruction;
+        volatile boolean _filterRebuildRequested;
+        final AtomicBoolean _filterRebuildScheduled = new AtomicBoolean();
 
         @Override
         public boolean prune() throws PersistitException {
@@ -401,6 +407,192 @@ public class Tree extends SharedResource {
         return _appCache.get();
     }
 
+    /**
+     * <p>
+     * Enable or disable a membership filter for this <code>Tree</code>. The
+     * filter is a Bloom filter over every key stored in the <code>Tree</code>.
+     * It lets {@link Exchange#fetch()} and {@link Exchange#isValueDefined()}
+     * report most missing keys without searching the B-Tree, which saves page
+     * reads when an application looks up many keys that do not exist.
+     * </p>
+     * <p>
+     * The filter is built in the background by scanning the
+     * <code>Tree</code>. Until it is built, lookups search the B-Tree as usual.
+     * Stores add keys to the filter. Removing a range of keys causes the filter
+     * to be rebuilt in the background. The setting is recorded in the
+     * <code>Volume</code>'s directory. The filter's contents are saved when
+     * Persistit closes normally, so they do not need to be rebuilt at startup.
+     * </p>
+     *
+     * @param enabled
+     *            <code>true</code> to maintain and consult a membership filter
+     * @throws IllegalStateException
+     *             if this <code>Tree</code> is in a temporary volume
+     * @throws PersistitException
+     */
+    public void setMembershipFilterEnabled(final boolean enabled) throws PersistitException {
+        if (_volume.isTemporary()) {
+            throw new IllegalStateException("Membership filter not supported in temporary volume " + _volume);
+        }
+        final TreeVersion version = version();
+        if (version._filterEnabled != enabled) {
+            version._filter = null;
+            version._filterEnabled = enabled;
+            _volume.getStructure().storeMembershipFilter(this, false);
+        }
+    }
+
+    /**
+     * @return <code>true</code> if this <code>Tree</code> has a membership
+     *         filter
+     * @see #setMembershipFilterEnabled(boolean)
+     */
+    public boolean isMembershipFilterEnabled() {
+        return version()._filterEnabled;
+    }
+
+    /**
+     * Install a membership filter loaded from the directory.
+     *
+     * @param filter
+     *            the filter, or <code>null</code> if it must be rebuilt
+     */
+    void loadMembershipFilter(final MembershipFilter filter) {
+        final TreeVersion version = version();
+        version._filter = filter;
+        version._filterEnabled = true;
+    }
+
+    /**
+     * @return the current membership filter, or <code>null</code> if there is
+     *         none or if it is due to be rebuilt
+     */
+    MembershipFilter getMembershipFilter() {
+        final TreeVersion version = version();
+        return version._filterEnabled && !version._filterRebuildRequested ? version._filter : null;
+    }
+
+    /**
+     * Test the membership filter, if there is one, and schedule a rebuild of
+     * the filter if it is missing or has been invalidated.
+     *
+     * @param key
+     *            the key being looked up
+     * @return <code>false</code> if the key is certainly not in this
+     *         <code>Tree</code>
+     */
+    boolean mightContain(final Key key) {
+        final TreeVersion version = version();
+        if (!version._filterEnabled) {
+            return true;
+        }
+        final MembershipFilter filter = version._filter;
+        if (filter == null || version._filterRebuildRequested) {
+            scheduleMembershipFilterRebuild(version);
+        }
+        return filter == null || filter.mightContain(key);
+    }
+
+    /**
+     * Add a newly inserted key to the membership filter. Called after the key
+     * has been written to its data page so that a concurrent rebuild either
+     * finds the key in the page or receives it here.
+     *
+     * @param key
+     *            the inserted key
+     */
+    void membershipAdded(final Key key) {
+        final TreeVersion version = version();
+        final MembershipFilter pending = version._filterUnderConstruction;
+        if (pending != null) {
+            pending.add(key);
+        }
+        final MembershipFilter filter = version._filter;
+        if (filter != null && filter != pending) {
+            filter.add(key);
+            if (filter.isSaturated()) {
+                version._filterRebuildRequested = true;
+            }
+        }
+    }
+
+    /**
+     * Account for removed keys. The filter remains correct, since removed keys
+     * only become false positives, but a range removal or enough single
+     * removals make it worth rebuilding.
+     *
+     * @param range
+     *            <code>true</code> if a range of keys was removed
+     */
+    void membershipRemoved(final boolean range) {
+        final TreeVersion version = version();
+        final MembershipFilter filter = version._filter;
+        if (filter != null) {
+            if (!range) {
+                filter.removed();
+            }
+            if (range || filter.isSaturated()) {
+                version._filterRebuildRequested = true;
+            }
+        }
+    }
+
+    private void scheduleMembershipFilterRebuild(final TreeVersion version) {
+        if (version._filterRebuildScheduled.compareAndSet(false, true)) {
+            if (!_persistit.getCleanupManager().offer(new CleanupManager.CleanupRebuildFilter(getHandle()))) {
+                version._filterRebuildScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Build a new membership filter by scanning every key physically present
+     * in this <code>Tree</code>, including versions not visible to any
+     * particular transaction. Keys stored while the scan is in progress are
+     * added to the new filter by {@link #membershipAdded(Key)}. The previous
+     * filter stays in use until the new one is complete.
+     *
+     * @param exchange
+     *            an <code>Exchange</code> on this <code>Tree</code>
+     * @throws PersistitException
+     */
+    void rebuildMembershipFilter(final Exchange exchange) throws PersistitException {
+        final TreeVersion version = version();
+        boolean built = false;
+        try {
+            if (!version._filterEnabled) {
+                return;
+            }
+            version._filterRebuildRequested = false;
+            final MembershipFilter previous = version._filter;
+            long capacity = previous == null ? MembershipFilter.MINIMUM_CAPACITY : previous.getEstimatedCount() * 2;
+            MembershipFilter filter;
+            exchange.ignoreMVCCFetch(true);
+            do {
+                filter = new MembershipFilter(capacity);
+                version._filterUnderConstruction = filter;
+                long count = 0;
+                exchange.clear().append(Key.BEFORE);
+                while (exchange.traverse(Key.GT, true, 0)) {
+                    filter.add(exchange.getKey());
+                    count++;
+                }
+                capacity = count * 2;
+            } while (filter.isSaturated());
+            if (version._filterEnabled) {
+                version._filter = filter;
+            }
+            built = true;
+        } finally {
+            exchange.ignoreMVCCFetch(false);
+            version._filterUnderConstruction = null;
+            if (!built && version._filterEnabled) {
+                version._filterRebuildRequested = true;
+            }
+            version._filterRebuildScheduled.set(false);
+        }
+    }
+
     /**
      * @return The handle value used to identify this <code>Tree</code> in the
      *         journal
@@ -34,6 +34,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import com.persistit.exception.DuplicateKeyException;
@@ -139,6 +147,29 @@ import com.persistit.util.Util;
  * sequence in which trees are populated within the {@link #merge()} method
  * </ul>
  * </p>
+ * <h3>Parallel operation</h3>
+ * <p>
+ * The {@link #store(Exchange)} methods may be called concurrently by multiple
+ * threads. Each thread fills its own sort volume and, when that volume is full,
+ * streams it to a sort file without blocking the other threads.
+ * </p>
+ * <p>
+ * By default {@link #merge()} runs on the calling thread and builds the
+ * destination trees one at a time. After {@link #setMergeThreadCount(int)} has
+ * been called with a value greater than one, each sort volume is instead
+ * streamed to separate sort files per destination tree and per key range, and
+ * the merge runs one task per destination tree and key range on that many
+ * threads. The key ranges of a tree are chosen when its first sort volume is
+ * saved, by dividing the keys of that sort tree into equal parts; since
+ * <code>TreeBuilder</code> is intended for keys that arrive in random order,
+ * those keys are a representative sample of the whole data set. In this mode
+ * {@link #duplicateKeyDetected(Tree, Key, Value, Value)},
+ * {@link #beforeMergeKey(Exchange)} and {@link #afterMergeKey(Exchange)} may be
+ * called concurrently and must be thread-safe, and the order given by
+ * {@link #getTreeComparator()} determines only the order in which merge tasks
+ * are started. Calls to {@link #reportSorted(long)} and
+ * {@link #reportMerged(long)} are always serialized.
+ * </p>
  * 
  * @author peter
  * 
@@ -148,6 +179,7 @@ public class TreeBuilder {
     private final static long REPORT_REPORT_MULTIPLE = 1000000;
     private final static String SDF = "yyyyMMddHHmm";
     private final static int STREAM_SIZE = 1024 * 1024;
+    private final static int MAXIMUM_MERGE_THREADS = 64;
 
     private final String _name;
     private final long _uniqueId;
@@ -158,21 +190,18 @@ public class TreeBuilder {
     private final AtomicLong _sortedKeyCount = new AtomicLong();
     private final AtomicLong _mergedKeyCount = new AtomicLong();
     private volatile long _reportKeyCountMultiple = REPORT_REPORT_MULTIPLE;
-    private Volume _sortVolume;
-    private File _sortFile;
+    private volatile int _mergeThreadCount = 1;
+    private final Object _reportLock = new Object();
 
     private final List<Tree> _allTrees = new ArrayList<Tree>();
     private final Map<String, Tree> _sortTreeMap = new HashMap<String, Tree>();
+    private final Map<Tree, Key[]> _rangeBoundaries = new HashMap<Tree, Key[]>();
 
     private int _sortFileIndex;
     private final List<Node> _sortNodes = new ArrayList<Node>();
+    private final List<SortVolume> _sortVolumes = new ArrayList<SortVolume>();
 
-    private final ThreadLocal<Map<Tree, Exchange>> _sortExchangeMapThreadLocal = new ThreadLocal<Map<Tree, Exchange>>() {
-        @Override
-        public Map<Tree, Exchange> initialValue() {
-            return new HashMap<Tree, Exchange>();
-        }
-    };
+    private final ThreadLocal<SortVolume> _sortVolumeThreadLocal = new ThreadLocal<SortVolume>();
 
     private final Comparator<Tree> _defaultTreeComparator = new Comparator<Tree>() {
         /**
@@ -198,6 +227,24 @@ public class TreeBuilder {
         }
     };
 
+    /**
+     * A temporary volume being filled by one thread, and the sort trees in it
+     */
+    private static class SortVolume {
+
+        private final Volume _volume;
+        private final File _file;
+        private final int _index;
+        private final Map<Tree, Exchange> _exchanges = new HashMap<Tree, Exchange>();
+        private volatile boolean _finished;
+
+        private SortVolume(final Volume volume, final File file, final int index) {
+            _volume = volume;
+            _file = file;
+            _index = index;
+        }
+    }
+
     private class Node implements Comparable<Node> {
 
         private Tree _tree;
@@ -207,6 +254,8 @@ public class TreeBuilder {
         private final int _precedence;
 
         private final File _file;
+        private final Tree _destination;
+        private final int _range;
         private StreamLoader _loader;
         private Handler _handler;
         private boolean _next;
@@ -230,9 +279,11 @@ public class TreeBuilder {
             return _file;
         }
 
-        private Node(final File file, final int index) {
+        private Node(final File file, final int index, final Tree destination, final int range) {
             _file = file;
             _precedence = index;
+            _destination = destination;
+            _range = range;
         }
 
         @Override
@@ -309,6 +360,25 @@ public class TreeBuilder {
             writeData(exchange.getKey(), exchange.getValue());
             _recordCount++;
         }
+
+        /**
+         * Write the records that precede the data records of one saved key
+         * range, as {@link #save(Exchange, KeyFilter)} does for a whole tree.
+         */
+        void startRange() throws IOException {
+            writeTimestamp();
+            _dos.writeChar(RECORD_TYPE_START);
+        }
+
+        /**
+         * Write the records that follow the data records of one saved key
+         * range.
+         */
+        void endRange() throws IOException {
+            writeRecordCount(_dataRecordCount, _otherRecordCount);
+            _dos.writeChar(RECORD_TYPE_END);
+            writeTimestamp();
+        }
     }
 
     public TreeBuilder(final Persistit persistit) {
@@ -363,6 +433,28 @@ public class TreeBuilder {
         return _reportKeyCountMultiple;
     }
 
+    /**
+     * Set the number of threads used by {@link #merge()}. With the default
+     * value of one, sort volumes are saved to one sort file each and
+     * {@link #merge()} builds the destination trees one after another on the
+     * calling thread. With a larger value, sort volumes are saved to separate
+     * sort files per destination tree and key range, and those are merged
+     * concurrently. This value must be set before the first record is stored.
+     * 
+     * @param count
+     *            number of merge threads, between 1 and 64
+     */
+    public final void setMergeThreadCount(final int count) {
+        _mergeThreadCount = Util.rangeCheck(count, 1, MAXIMUM_MERGE_THREADS);
+    }
+
+    /**
+     * @return Number of threads used by {@link #merge()}
+     */
+    public final int getMergeThreadCount() {
+        return _mergeThreadCount;
+    }
+
     /**
      * @return Count of sort trees that have been created while sorting keys
      */
@@ -493,13 +585,21 @@ public class TreeBuilder {
      * @throws Exception
      */
     public final void store(final Tree tree, final Key key, final Value value) throws Exception {
-        final Map<Tree, Exchange> map = _sortExchangeMapThreadLocal.get();
-        Exchange ex = map.get(tree);
-        if (ex == null || ex.getTree().getVolume().getNextAvailablePage() > _pageLimit) {
-            final Volume newSortVolume = getSortVolume();
+        SortVolume sortVolume = _sortVolumeThreadLocal.get();
+        if (sortVolume != null
+                && (sortVolume._finished || sortVolume._volume.getNextAvailablePage() > _pageLimit)) {
+            finishSortVolume(sortVolume);
+            sortVolume = null;
+        }
+        if (sortVolume == null) {
+            sortVolume = newSortVolume();
+            _sortVolumeThreadLocal.set(sortVolume);
+        }
+        Exchange ex = sortVolume._exchanges.get(tree);
+        if (ex == null) {
             final String tempTreeName = "_" + _persistit.getJournalManager().handleForTree(tree);
-            ex = _persistit.getExchange(newSortVolume, tempTreeName, true);
-            map.put(tree, ex);
+            ex = _persistit.getExchange(sortVolume._volume, tempTreeName, true);
+            sortVolume._exchanges.put(tree, ex);
             synchronized (this) {
                 if (!_allTrees.contains(tree)) {
                     _allTrees.add(tree);
@@ -521,7 +621,9 @@ public class TreeBuilder {
         if (stored) {
             final long count = _sortedKeyCount.incrementAndGet();
             if ((count % _reportKeyCountMultiple) == 0) {
-                reportSorted(count);
+                synchronized (_reportLock) {
+                    reportSorted(count);
+                }
             }
         }
     }
@@ -548,20 +650,130 @@ public class TreeBuilder {
 
     /**
      * Merge the record previously stored in sort volumes into their destination
-     * <code>Tree</code>s.
+     * <code>Tree</code>s. All calls to {@link #store(Exchange)} must have
+     * completed before this method is called.
      * 
      * @throws Exception
      */
     public synchronized void merge() throws Exception {
-        finishSortVolume();
+        finishSortVolumes();
+        if ((_mergedKeyCount.get() % _reportKeyCountMultiple) != 0) {
+            synchronized (_reportLock) {
+                reportSorted(_mergedKeyCount.get());
+            }
+        }
+        final List<List<Node>> tasks = mergeTasks();
+        final int threads = Math.min(_mergeThreadCount, tasks.size());
+        if (threads <= 1) {
+            for (final List<Node> nodes : tasks) {
+                mergeNodes(nodes);
+            }
+        } else {
+            mergeConcurrently(tasks, threads);
+        }
         if ((_mergedKeyCount.get() % _reportKeyCountMultiple) != 0) {
-            reportSorted(_mergedKeyCount.get());
+            synchronized (_reportLock) {
+                reportMerged(_mergedKeyCount.get());
+            }
+        }
+        reset();
+    }
+
+    /**
+     * Group the sort nodes into merge tasks. Nodes saved from whole sort
+     * volumes form one task. Nodes saved per destination tree and key range
+     * form one task per tree and range, ordered by
+     * {@link #getTreeComparator()} and then by range.
+     */
+    private List<List<Node>> mergeTasks() {
+        final List<List<Node>> tasks = new ArrayList<List<Node>>();
+        final List<Node> whole = new ArrayList<Node>();
+        final Map<Tree, SortedMap<Integer, List<Node>>> ranges = new HashMap<Tree, SortedMap<Integer, List<Node>>>();
+        for (final Node node : _sortNodes) {
+            if (node._destination == null) {
+                whole.add(node);
+            } else {
+                SortedMap<Integer, List<Node>> map = ranges.get(node._destination);
+                if (map == null) {
+                    map = new TreeMap<Integer, List<Node>>();
+                    ranges.put(node._destination, map);
+                }
+                List<Node> list = map.get(node._range);
+                if (list == null) {
+                    list = new ArrayList<Node>();
+                    map.put(node._range, list);
+                }
+                list.add(node);
+            }
+        }
+        if (!whole.isEmpty()) {
+            tasks.add(whole);
+        }
+        final List<Tree> trees = new ArrayList<Tree>(ranges.keySet());
+        Collections.sort(trees, getTreeComparator());
+        for (final Tree tree : trees) {
+            tasks.addAll(ranges.get(tree).values());
+        }
+        return tasks;
+    }
+
+    private void mergeConcurrently(final List<List<Node>> tasks, final int threads) throws Exception {
+        final AtomicInteger counter = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable r) {
+                final Thread thread = new Thread(r, "TREE_BUILDER_MERGE:" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (final List<Node> nodes : tasks) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        mergeNodes(nodes);
+                        return null;
+                    }
+                }));
+            }
+            Exception exception = null;
+            for (final Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (final ExecutionException e) {
+                    if (exception == null) {
+                        exception = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                        /*
+                         * Abandon the tasks that have not started
+                         */
+                        for (final Runnable r : executor.shutdownNow()) {
+                            ((Future<?>) r).cancel(false);
+                        }
+                    }
+                } catch (final CancellationException e) {
+                    // abandoned after an earlier failure
+                }
+            }
+            if (exception != null) {
+                throw exception;
+            }
+        } finally {
+            executor.shutdown();
         }
+    }
+
+    /**
+     * Perform a k-way merge of the supplied sort nodes into their destination
+     * trees.
+     */
+    private void mergeNodes(final List<Node> nodes) throws Exception {
         Tree currentTree = null;
         Exchange ex = null;
         final SortedMap<Node, Node> sorted = new TreeMap<Node, Node>();
 
-        for (final Node node : _sortNodes) {
+        for (final Node node : nodes) {
             node.createStreamLoader();
             if (node.next()) {
                 insertNode(sorted, node);
@@ -592,8 +804,11 @@ public class TreeBuilder {
                 }
                 if (stored) {
                     afterMergeKey(ex);
-                    if ((_mergedKeyCount.incrementAndGet() % _reportKeyCountMultiple) == 0) {
-                        reportMerged(_mergedKeyCount.get());
+                    final long count = _mergedKeyCount.incrementAndGet();
+                    if ((count % _reportKeyCountMultiple) == 0) {
+                        synchronized (_reportLock) {
+                            reportMerged(count);
+                        }
                     }
                 }
             }
@@ -606,21 +821,18 @@ public class TreeBuilder {
                 node = next;
             }
         }
-        if ((_mergedKeyCount.get() % _reportKeyCountMultiple) != 0) {
-            reportMerged(_mergedKeyCount.get());
-        }
-        reset();
     }
 
     private synchronized void reset() throws Exception {
         Exception exception = null;
-        try {
-            if (_sortVolume != null) {
-                _sortVolume.close();
-            }
-        } catch (final PersistitException e) {
-            if (exception == null) {
-                exception = e;
+        for (final SortVolume sortVolume : _sortVolumes) {
+            sortVolume._finished = true;
+            try {
+                sortVolume._volume.close();
+            } catch (final PersistitException e) {
+                if (exception == null) {
+                    exception = e;
+                }
             }
         }
 
@@ -637,9 +849,10 @@ public class TreeBuilder {
         }
         _allTrees.clear();
         _sortNodes.clear();
-        _sortVolume = null;
+        _sortVolumes.clear();
+        _rangeBoundaries.clear();
         _sortFileIndex = 0;
-        _sortExchangeMapThreadLocal.get().clear();
+        _sortVolumeThreadLocal.remove();
         if (exception != null) {
             throw exception;
         }
@@ -651,60 +864,172 @@ public class TreeBuilder {
         reset();
     }
 
-    private synchronized Volume getSortVolume() throws Exception {
-        if (_sortVolume != null && _sortVolume.getNextAvailablePage() > _pageLimit) {
-            finishSortVolume();
+    private synchronized SortVolume newSortVolume() throws Exception {
+        final File directory;
+        if (_directories.isEmpty()) {
+            String directoryName = _persistit.getConfiguration().getTmpVolDir();
+            if (directoryName == null) {
+                directoryName = System.getProperty("java.io.tmpdir");
+            }
+            directory = new File(directoryName);
+            if (!directory.exists()) {
+                directory.mkdirs();
+            }
+            _directories.add(directory);
+        } else {
+            directory = _directories.get(_sortFileIndex % _directories.size());
+        }
+        final Volume volume = Volume.createTemporaryVolume(_persistit, _pageSize, directory);
+        final File file = new File(directory, String.format("%s_%d.%06d", _name, _uniqueId, _sortFileIndex));
+        final SortVolume sortVolume = new SortVolume(volume, file, _sortFileIndex);
+        _sortVolumes.add(sortVolume);
+        _sortFileIndex++;
+        return sortVolume;
+    }
+
+    private void finishSortVolumes() throws Exception {
+        final List<SortVolume> sortVolumes;
+        synchronized (this) {
+            sortVolumes = new ArrayList<SortVolume>(_sortVolumes);
+        }
+        for (final SortVolume sortVolume : sortVolumes) {
+            finishSortVolume(sortVolume);
+        }
+    }
+
+    /**
+     * Stream a sort volume to its sort file or files and close it. The volume
+     * is claimed while holding the monitor, but saved without it so that
+     * other threads can continue to store records meanwhile.
+     */
+    private void finishSortVolume(final SortVolume sortVolume) throws Exception {
+        synchronized (this) {
+            if (!_sortVolumes.remove(sortVolume)) {
+                return;
+            }
+            sortVolume._finished = true;
+        }
+        try {
+            beforeSortVolumeClosed(sortVolume._volume, sortVolume._file);
+            final List<Node> nodes = saveSortVolume(sortVolume);
+            synchronized (this) {
+                _sortNodes.addAll(nodes);
+            }
+            afterSortVolumeClose(sortVolume._volume, sortVolume._file);
+        } finally {
+            sortVolume._volume.close();
+        }
+    }
+
+    private List<Node> saveSortVolume(final SortVolume sortVolume) throws Exception {
+        final List<Tree> sorted;
+        synchronized (this) {
+            sorted = new ArrayList<Tree>(_allTrees);
         }
-        if (_sortVolume == null) {
-            final File directory;
-            if (_directories.isEmpty()) {
-                String directoryName = _persistit.getConfiguration().getTmpVolDir();
-                if (directoryName == null) {
-                    directoryName = System.getProperty("java.io.tmpdir");
+        Collections.sort(sorted, getTreeComparator());
+        final int ranges = _mergeThreadCount;
+        final List<Node> nodes = new ArrayList<Node>();
+        if (ranges <= 1) {
+            final File file = sortVolume._file;
+            final DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file),
+                    STREAM_SIZE));
+            final StreamSaver saver = new SortStreamSaver(_persistit, dos);
+            for (final Tree tree : sorted) {
+                final String sortTreeName = "_" + tree.getHandle();
+                final Tree sortTree = sortVolume._volume.getTree(sortTreeName, false);
+                if (sortTree != null) {
+                    final Exchange exchange = new Exchange(sortTree);
+                    saver.save(exchange, null);
                 }
-                directory = new File(directoryName);
-                if (!directory.exists()) {
-                    directory.mkdirs();
+            }
+            file.deleteOnExit();
+            dos.close();
+            nodes.add(new Node(file, sortVolume._index, null, 0));
+        } else {
+            for (final Tree tree : sorted) {
+                final String sortTreeName = "_" + tree.getHandle();
+                final Tree sortTree = sortVolume._volume.getTree(sortTreeName, false);
+                if (sortTree != null) {
+                    saveSortTreeRanges(sortVolume, tree, sortTree, rangeBoundaries(tree, sortTree, ranges), nodes);
                 }
-                _directories.add(directory);
-            } else {
-                directory = _directories.get(_sortFileIndex % _directories.size());
             }
-            _sortVolume = Volume.createTemporaryVolume(_persistit, _pageSize, directory);
-            _sortFile = new File(directory, String.format("%s_%d.%06d", _name, _uniqueId, _sortFileIndex));
-            final Node node = new Node(_sortFile, _sortFileIndex);
-            _sortNodes.add(node);
-            _sortFileIndex++;
         }
-        return _sortVolume;
+        return nodes;
     }
 
-    private void finishSortVolume() throws Exception {
-        if (_sortVolume != null) {
-            beforeSortVolumeClosed(_sortVolume, _sortFile);
-            saveSortVolume(_sortVolume, _sortFile);
-            afterSortVolumeClose(_sortVolume, _sortFile);
-            _sortVolume.close();
-            _sortVolume = null;
+    /**
+     * Save one sort tree to a separate sort file for each key range in which
+     * it has records.
+     */
+    private void saveSortTreeRanges(final SortVolume sortVolume, final Tree tree, final Tree sortTree,
+            final Key[] boundaries, final List<Node> nodes) throws Exception {
+        final Exchange exchange = new Exchange(sortTree);
+        exchange.clear().append(Key.BEFORE);
+        int range = 0;
+        DataOutputStream dos = null;
+        SortStreamSaver saver = null;
+        try {
+            while (exchange.traverse(Key.GT, true, Integer.MAX_VALUE)) {
+                while (range < boundaries.length && exchange.getKey().compareTo(boundaries[range]) >= 0) {
+                    range++;
+                    if (saver != null) {
+                        saver.endRange();
+                        dos.close();
+                        saver = null;
+                    }
+                }
+                if (saver == null) {
+                    final File file = new File(sortVolume._file.getParentFile(), String.format("%s.%d.%d",
+                            sortVolume._file.getName(), tree.getHandle(), range));
+                    file.deleteOnExit();
+                    dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), STREAM_SIZE));
+                    saver = new SortStreamSaver(_persistit, dos);
+                    nodes.add(new Node(file, sortVolume._index, tree, range));
+                    saver.startRange();
+                }
+                saver.writeData(exchange);
+            }
+            if (saver != null) {
+                saver.endRange();
+            }
+        } finally {
+            if (dos != null) {
+                dos.close();
+            }
         }
     }
 
-    private void saveSortVolume(final Volume volume, final File file) throws Exception {
-        final DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file),
-                STREAM_SIZE));
-        final List<Tree> sorted = new ArrayList<Tree>(_allTrees);
-        Collections.sort(sorted, getTreeComparator());
-        final StreamSaver saver = new SortStreamSaver(_persistit, dos);
-        for (final Tree tree : sorted) {
-            final String sortTreeName = "_" + tree.getHandle();
-            final Tree sortTree = volume.getTree(sortTreeName, false);
-            if (sortTree != null) {
-                final Exchange exchange = new Exchange(sortTree);
-                saver.save(exchange, null);
+    /**
+     * @return the keys dividing the destination tree into key ranges, choosing
+     *         them from the first sort tree saved for it
+     */
+    private synchronized Key[] rangeBoundaries(final Tree tree, final Tree sortTree, final int ranges)
+            throws PersistitException {
+        Key[] boundaries = _rangeBoundaries.get(tree);
+        if (boundaries == null) {
+            final Exchange exchange = new Exchange(sortTree);
+            exchange.clear().append(Key.BEFORE);
+            long count = 0;
+            while (exchange.traverse(Key.GT, true, 0)) {
+                count++;
             }
+            if (count < ranges) {
+                boundaries = new Key[0];
+            } else {
+                boundaries = new Key[ranges - 1];
+                exchange.clear().append(Key.BEFORE);
+                long position = 0;
+                int index = 0;
+                while (index < boundaries.length && exchange.traverse(Key.GT, true, 0)) {
+                    if (position == count * (index + 1) / ranges) {
+                        boundaries[index++] = new Key(exchange.getKey());
+                    }
+                    position++;
+                }
+            }
+            _rangeBoundaries.put(tree, boundaries);
         }
-        file.deleteOnExit();
-        dos.close();
+        return boundaries;
     }
 
     /**
@@ -712,6 +1037,9 @@ public class TreeBuilder {
      * a sort volume has been filled to capacity. Subsequent to this call, the
      * sort volume is streamed to a sort file and then its pages in the
      * <code>BufferPool</code> are invalidated to allow their immediate reuse.
+     * This method is called on the thread that filled the sort volume and
+     * therefore may be called concurrently when multiple threads store
+     * records.
      * 
      * @param volume
      *            The temporary <code>Volume</code> that has been filled
@@ -845,8 +1173,10 @@ public class TreeBuilder {
     }
 
     void unitTestNextSortFile() throws Exception {
-        finishSortVolume();
-        _sortExchangeMapThreadLocal.get().clear();
-        _sortVolume = null;
+        final SortVolume sortVolume = _sortVolumeThreadLocal.get();
+        if (sortVolume != null) {
+            finishSortVolume(sortVolume);
+            _sortVolumeThreadLocal.remove();
+        }
     }
 }
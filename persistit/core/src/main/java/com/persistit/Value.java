@@ -306,6 +306,12 @@ public final class Value {
 
   private final static int SIZE_GRANULARITY = 256;
 
+  /**
+   * Size of the header preceding the elements of a top-level
+   * <code>byte</code> array
+   */
+  final static int BYTE_ARRAY_HEADER_SIZE = 2;
+
   private final static char TRUE_CHAR = 'T';
   private final static char FALSE_CHAR = 'F';
   private final static String UNDEFINED = "undefined";
@@ -4252,6 +4258,24 @@ public final class Value {
     _longMode = mode;
   }
 
+  /**
+   * Write the two bytes that introduce a <code>byte</code> array encoded as
+   * the sole item of a <code>Value</code>. The elements follow directly.
+   */
+  static void putByteArrayHeader(final byte[] bytes, final int offset) {
+    bytes[offset] = (byte) CLASS_ARRAY;
+    bytes[offset + 1] = (byte) TYPE_BYTE;
+  }
+
+  /**
+   * @return <code>true</code> if the encoded bytes begin with the header
+   *         written by {@link #putByteArrayHeader(byte[], int)}
+   */
+  static boolean isByteArray(final byte[] bytes, final int offset, final int size) {
+    return size >= BYTE_ARRAY_HEADER_SIZE && (bytes[offset] & 0xFF) == CLASS_ARRAY
+      && (bytes[offset + 1] & 0xFF) == TYPE_BYTE;
+  }
+
   private ValueCoder getValueCoder(final Class<?> clazz) {
     final CoderManager cm = _persistit.getCoderManager();
     if (cm != null) {
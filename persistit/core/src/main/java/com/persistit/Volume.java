@@ -477,7 +477,11 @@ public class Volume {
         final boolean exists = VolumeHeader.verifyVolumeHeader(_specification, persistit.getCurrentTimestamp());
 
         _structure = new VolumeStructure(persistit, this, _specification.getPageSize());
-        _storage = new VolumeStorageV2(persistit, this);
+        if (_specification.isReadOnly() && _specification.isMapped()) {
+            _storage = new VolumeStorageM2(persistit, this);
+        } else {
+            _storage = new VolumeStorageV2(persistit, this);
+        }
         _statistics = new VolumeStatistics();
 
         boolean opened = false;
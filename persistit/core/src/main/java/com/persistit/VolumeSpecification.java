@@ -35,12 +35,29 @@ import com.persistit.util.Util;
  */
 public class VolumeSpecification {
 
+    /**
+     * Compression applied to page images of a volume when they are written to
+     * the journal.
+     */
+    public enum Compression {
+        /**
+         * Page images are written as-is
+         */
+        NONE,
+        /**
+         * Page images are compressed with the JDK's Deflate implementation
+         */
+        DEFLATE
+    }
+
     private final static String ATTR_NAME = "name";
     private final static String ATTR_ALIAS = "alias";
     private final static String ATTR_CREATE = "create";
     private final static String ATTR_READONLY = "readOnly";
+    private final static String ATTR_MAPPED = "mapped";
     private final static String ATTR_CREATEONLY = "createOnly";
     private final static String ATTR_PAGE_SIZE = "pageSize";
+    private final static String ATTR_COMPRESSION = "compression";
 
     private final static String ATTR_INITIAL_SIZE = "initialSize";
     private final static String ATTR_EXTENSION_SIZE = "extensionSize";
@@ -53,9 +70,11 @@ public class VolumeSpecification {
     private String path;
     private String name = null;
     private boolean readOnly = false;
+    private boolean mapped = false;
     private boolean create = false;
     private boolean createOnly = false;
     private boolean aliased = false;
+    private Compression compression = Compression.NONE;
 
     private int pageSize = -1;
     private int version = -1;
@@ -131,6 +150,11 @@ public class VolumeSpecification {
      * <dt><code>readOnly</code></dt>
      * <dd>Open in Read-Only mode. (Incompatible with create mode.)</dd>
      * 
+     * <dt><code>mapped</code></dt>
+     * <dd>Memory-map the volume file and serve page reads from the mapped
+     * file rather than through file system calls. (Requires
+     * <code>readOnly</code>.)</dd>
+     * 
      * <dt><code>create</code></dt>
      * <dd>Creates the volume if it does not exist. Requires
      * <code>pageSize</code>, <code>initialPagesM</code>,
@@ -161,6 +185,11 @@ public class VolumeSpecification {
      * <dd><i>NNN</i> is the maximum number of pages to which this volume can
      * extend.</dd>
      * 
+     * <dt><code>compression:<i>XXX</i></code></dt>
+     * <dd><i>XXX</i> is <code>none</code> or <code>deflate</code>. Selects the
+     * {@link Compression} applied to page images of this volume written to
+     * the journal.</dd>
+     * 
      * </dl>
      * <p>
      * 
@@ -181,10 +210,19 @@ public class VolumeSpecification {
                 final String attr = innerTokenizer.nextToken().trim();
                 if (ATTR_READONLY.equals(attr)) {
                     readOnly = true;
+                } else if (ATTR_MAPPED.equals(attr)) {
+                    mapped = true;
                 } else if (ATTR_CREATE.equals(attr)) {
                     create = true;
                 } else if (ATTR_CREATEONLY.equals(attr)) {
                     createOnly = true;
+                } else if (ATTR_COMPRESSION.equals(attr)) {
+                    final String valueString = innerTokenizer.nextToken().trim();
+                    try {
+                        compression = Compression.valueOf(valueString.toUpperCase());
+                    } catch (final IllegalArgumentException e) {
+                        throw new InvalidVolumeSpecificationException("Invalid compression " + specification);
+                    }
                 } else if (ATTR_NAME.equals(attr) || ATTR_ALIAS.equals(attr)) {
                     final String valueString = innerTokenizer.nextToken().trim();
                     if (valueString != null && !valueString.isEmpty()) {
@@ -237,6 +275,9 @@ public class VolumeSpecification {
                 throw new InvalidVolumeSpecificationException(specification + ": readOnly, create and createOnly "
                         + "attributes are mutually exclusive");
             }
+            if (mapped && !readOnly) {
+                throw new InvalidVolumeSpecificationException(specification + ": mapped attribute requires readOnly");
+            }
             //
             // Allows size specification in bytes rather than pages.
             //
@@ -334,6 +375,18 @@ public class VolumeSpecification {
         this.readOnly = readOnly;
     }
 
+    /**
+     * @return <code>true</code> if the volume file of a read-only volume is to
+     *         be memory-mapped
+     */
+    public boolean isMapped() {
+        return mapped;
+    }
+
+    public void setMapped(final boolean mapped) {
+        this.mapped = mapped;
+    }
+
     public boolean isAliased() {
         return aliased;
     }
@@ -412,6 +465,14 @@ public class VolumeSpecification {
         this.maximumSize = roundSize(maximumSize);
     }
 
+    public Compression getCompression() {
+        return compression;
+    }
+
+    public void setCompression(final Compression compression) {
+        this.compression = compression == null ? Compression.NONE : compression;
+    }
+
     public int getVersion() {
         return version;
     }
@@ -435,9 +496,15 @@ public class VolumeSpecification {
         appendSize(sb, ATTR_MAXIMUM_SIZE, ATTR_MAXIMUM_PAGES, maximumSize, maximumPages);
         appendSize(sb, ATTR_EXTENSION_SIZE, ATTR_EXTENSION_PAGES, extensionSize, extensionPages);
 
+        if (compression != Compression.NONE) {
+            sb.append(',').append(ATTR_COMPRESSION).append(':').append(compression.name().toLowerCase());
+        }
         if (readOnly) {
             sb.append(',').append(ATTR_READONLY);
         }
+        if (mapped) {
+            sb.append(',').append(ATTR_MAPPED);
+        }
         if (createOnly) {
             sb.append(',').append(ATTR_CREATEONLY);
         } else if (create) {
@@ -467,11 +534,11 @@ public class VolumeSpecification {
             return false;
         }
         final VolumeSpecification v = (VolumeSpecification) object;
-        return path.equals(v.path) && name.equals(v.name) && readOnly == v.readOnly && create == v.create
+        return path.equals(v.path) && name.equals(v.name) && readOnly == v.readOnly && mapped == v.mapped && create == v.create
                 && createOnly == v.createOnly && aliased == v.aliased && pageSize == v.pageSize && version == v.version
                 && id == v.id && initialPages == v.initialPages && initialSize == v.initialSize
                 && extensionPages == v.extensionPages && extensionSize == v.extensionSize
-                && maximumPages == v.maximumPages && maximumSize == v.maximumSize;
+                && maximumPages == v.maximumPages && maximumSize == v.maximumSize && compression == v.compression;
     }
 
     private String ds(final long s) {
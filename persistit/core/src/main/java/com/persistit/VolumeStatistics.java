@@ -42,6 +42,14 @@ class VolumeStatistics {
     private final AtomicLong _storeCounter = new AtomicLong();
     private final AtomicLong _removeCounter = new AtomicLong();
 
+    private final AtomicLong _compressedPageCounter = new AtomicLong();
+
+    private final AtomicLong _uncompressedByteCounter = new AtomicLong();
+
+    private final AtomicLong _compressedByteCounter = new AtomicLong();
+
+    private final AtomicLong _checksumFailureCounter = new AtomicLong();
+
     /**
      * @return the count of physical disk read requests performed on this
      *         <code>Volume</code>
@@ -99,6 +107,38 @@ class VolumeStatistics {
         return _removeCounter.get();
     }
 
+    /**
+     * @return the count of page images of this <code>Volume</code> that
+     *         were compressed when written to the journal
+     */
+    public long getCompressedPageCounter() {
+        return _compressedPageCounter.get();
+    }
+
+    /**
+     * @return the total size in bytes of page images of this
+     *         <code>Volume</code> offered for compression
+     */
+    public long getUncompressedByteCounter() {
+        return _uncompressedByteCounter.get();
+    }
+
+    /**
+     * @return the total size in bytes of the same page images as written;
+     *         images that did not compress are counted at their original size
+     */
+    public long getCompressedByteCounter() {
+        return _compressedByteCounter.get();
+    }
+
+    /**
+     * @return the count of pages of this <code>Volume</code> whose checksum
+     *         did not match their content when read
+     */
+    public long getChecksumFailureCounter() {
+        return _checksumFailureCounter.get();
+    }
+
     /**
      * @return The system time at which this <code>Volume</code> was created
      */
@@ -161,6 +201,10 @@ class VolumeStatistics {
         _traverseCounter.set(0);
         _storeCounter.set(0);
         _readCounter.set(0);
+        _compressedPageCounter.set(0);
+        _uncompressedByteCounter.set(0);
+        _compressedByteCounter.set(0);
+        _checksumFailureCounter.set(0);
     }
 
     void bumpReadCounter() {
@@ -173,6 +217,18 @@ class VolumeStatistics {
         _lastWriteTime = System.currentTimeMillis();
     }
 
+    void bumpCompressionCounters(final int uncompressedSize, final int compressedSize) {
+        if (compressedSize < uncompressedSize) {
+            _compressedPageCounter.incrementAndGet();
+        }
+        _uncompressedByteCounter.addAndGet(uncompressedSize);
+        _compressedByteCounter.addAndGet(compressedSize);
+    }
+
+    void bumpChecksumFailureCounter() {
+        _checksumFailureCounter.incrementAndGet();
+    }
+
     void bumpGetCounter() {
         _getCounter.incrementAndGet();
     }
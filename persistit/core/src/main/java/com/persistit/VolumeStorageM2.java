@@ -0,0 +1,122 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+import com.persistit.exception.PersistitException;
+import com.persistit.exception.PersistitIOException;
+
+/**
+ * <p>
+ * Manage file I/O for a read-only <code>Volume</code> whose backing file is
+ * memory-mapped. The volume is opened exactly as by {@link VolumeStorageV2};
+ * the file is then mapped in segments of up to {@value #MAXIMUM_SEGMENT_SIZE}
+ * bytes and every subsequent page read is served by copying the page image from
+ * the mapped file into the buffer. This avoids a system call per page read and
+ * lets all processes on the host that map the same file share a single copy of
+ * it in the operating system's page cache.
+ * </p>
+ * <p>
+ * Mapping is selected by the <code>mapped</code> attribute of the
+ * {@link VolumeSpecification} and is only permitted for a read-only volume, so
+ * the file never grows or changes while it is mapped. Page images still
+ * present in the journal take precedence as they do for any other volume. The
+ * mapping is released when the volume is closed and the mapped buffers are
+ * garbage collected.
+ * </p>
+ */
+class VolumeStorageM2 extends VolumeStorageV2 {
+
+    final static int MAXIMUM_SEGMENT_SIZE = 1024 * 1024 * 1024;
+
+    private volatile ByteBuffer[] _segments;
+
+    private long _segmentSize;
+
+    VolumeStorageM2(final Persistit persistit, final Volume volume) {
+        super(persistit, volume);
+    }
+
+    /**
+     * Open the volume file and map it into memory.
+     *
+     * @throws PersistitException
+     */
+    @Override
+    synchronized void open() throws PersistitException {
+        super.open();
+        final FileChannel channel = getChannel();
+        final int pageSize = _volume.getStructure().getPageSize();
+        try {
+            final long size = channel.size();
+            final long segmentSize = (MAXIMUM_SEGMENT_SIZE / pageSize) * pageSize;
+            final ByteBuffer[] segments = new ByteBuffer[(int) ((size + segmentSize - 1) / segmentSize)];
+            for (int index = 0; index < segments.length; index++) {
+                final long position = index * segmentSize;
+                segments[index] = channel.map(MapMode.READ_ONLY, position, Math.min(segmentSize, size - position));
+            }
+            _segmentSize = segmentSize;
+            _segments = segments;
+        } catch (final IOException ioe) {
+            close();
+            throw new PersistitIOException(ioe);
+        }
+    }
+
+    @Override
+    void close() throws PersistitException {
+        try {
+            super.close();
+        } finally {
+            _segments = null;
+        }
+    }
+
+    /**
+     * Copy the image of a page from the mapped file into a buffer. Falls back
+     * to reading through the channel if the page lies beyond the mapped region
+     * or the file has not yet been mapped.
+     */
+    @Override
+    void readPageFromFile(final Buffer buffer, final long page) throws IOException, PersistitIOException {
+        final ByteBuffer[] segments = _segments;
+        final int bufferSize = buffer.getBufferSize();
+        final long position = page * _volume.getStructure().getPageSize();
+        if (segments != null) {
+            final long index = position / _segmentSize;
+            final int offset = (int) (position - index * _segmentSize);
+            if (index < segments.length && offset + bufferSize <= segments[(int) index].limit()) {
+                final ByteBuffer bb = segments[(int) index].duplicate();
+                bb.position(offset);
+                bb.get(buffer.getBytes(), 0, bufferSize);
+                return;
+            }
+        }
+        super.readPageFromFile(buffer, page);
+    }
+
+    /**
+     * @return <code>true</code> if the volume file is currently mapped
+     */
+    boolean isMapped() {
+        return _segments != null;
+    }
+}
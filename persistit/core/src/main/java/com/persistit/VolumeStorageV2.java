@@ -451,17 +451,7 @@ class VolumeStorageV2 extends VolumeStorage {
             }
 
             try {
-                final ByteBuffer bb = buffer.getByteBuffer();
-                bb.position(0).limit(buffer.getBufferSize());
-                int read = 0;
-                while (read < buffer.getBufferSize()) {
-                    final long position = page * _volume.getStructure().getPageSize() + bb.position();
-                    final int bytesRead = _channel.read(bb, position);
-                    if (bytesRead <= 0) {
-                        throw new PersistitIOException("Unable to read bytes at position " + position + " in " + this);
-                    }
-                    read += bytesRead;
-                }
+                readPageFromFile(buffer, page);
                 _persistit.getIOMeter().chargeReadPageFromVolume(this._volume, buffer.getPageAddress(),
                         buffer.getBufferSize(), buffer.getIndex());
                 _volume.getStatistics().bumpReadCounter();
@@ -477,6 +467,30 @@ class VolumeStorageV2 extends VolumeStorage {
         }
     }
 
+    /**
+     * Read the image of a page from the volume file into a buffer.
+     * 
+     * @param buffer
+     *            the buffer to fill
+     * @param page
+     *            the page address
+     * @throws IOException
+     * @throws PersistitIOException
+     */
+    void readPageFromFile(final Buffer buffer, final long page) throws IOException, PersistitIOException {
+        final ByteBuffer bb = buffer.getByteBuffer();
+        bb.position(0).limit(buffer.getBufferSize());
+        int read = 0;
+        while (read < buffer.getBufferSize()) {
+            final long position = page * _volume.getStructure().getPageSize() + bb.position();
+            final int bytesRead = _channel.read(bb, position);
+            if (bytesRead <= 0) {
+                throw new PersistitIOException("Unable to read bytes at position " + position + " in " + this);
+            }
+            read += bytesRead;
+        }
+    }
+
     @Override
     void writePage(final Buffer buffer) throws PersistitException {
         /*
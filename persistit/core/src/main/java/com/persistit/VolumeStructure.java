@@ -40,6 +40,7 @@ class VolumeStructure {
     final static String TREE_ROOT = "root";
     final static String TREE_STATS = "stats";
     final static String TREE_ACCUMULATOR = "totals";
+    final static String TREE_FILTER = "filter";
 
     final static long INVALID_PAGE_ADDRESS = -1;
 
@@ -54,6 +55,15 @@ class VolumeStructure {
     private final Map<String, WeakReference<Tree>> _treeNameHashMap = new HashMap<String, WeakReference<Tree>>();
     private Tree _directoryTree;
 
+    /**
+     * Pin counts of LONG_RECORD chains, by first page, being read by a
+     * {@link LongRecordInputStream}. A pinned chain that is deallocated is
+     * added to the garbage chain like any other, so that it is not leaked by a
+     * crash, but {@link #allocPage()} does not reuse its pages until its last
+     * pin is released. Guarded by synchronizing on itself.
+     */
+    private final Map<Long, Integer> _pinnedLongRecords = new HashMap<Long, Integer>();
+
     static class Chain {
         final long _left;
         final long _right;
@@ -209,6 +219,9 @@ class VolumeStructure {
         if (value.isDefined()) {
             value.get(tree);
             loadTreeStatistics(tree);
+            if (!_volume.isTemporary()) {
+                loadMembershipFilter(tree);
+            }
             tree.setPrimordial();
             tree.setValid();
         } else if (createIfNecessary) {
@@ -284,6 +297,69 @@ class VolumeStructure {
         }
     }
 
+    /**
+     * Record the membership filter setting of a tree in the directory. When
+     * <code>withContent</code> is <code>true</code> the filter itself is saved
+     * as well; otherwise only the fact that the tree has a filter is recorded,
+     * and the filter is rebuilt when the tree is next opened.
+     *
+     * @param tree
+     * @param withContent
+     * @throws PersistitException
+     */
+    void storeMembershipFilter(final Tree tree, final boolean withContent) throws PersistitException {
+        if (tree == _directoryTree || _volume.isReadOnly()) {
+            return;
+        }
+        final Exchange ex = directoryExchange();
+        ex.ignoreTransactions();
+        ex.clear().append(DIRECTORY_TREE_NAME).append(TREE_FILTER).append(tree.getName());
+        if (tree.isMembershipFilterEnabled()) {
+            final MembershipFilter filter = withContent ? tree.getMembershipFilter() : null;
+            final Value value = new Value(_persistit, Value.INITIAL_SIZE, Value.MAXIMUM_SIZE);
+            value.putByteArray(MembershipFilter.toBytes(filter));
+            ex.store(ex.getKey(), value);
+        } else {
+            ex.remove();
+        }
+    }
+
+    /**
+     * Load the membership filter of a tree, if it has one. A saved filter only
+     * reflects the keys present when it was saved, so the saved content is
+     * discarded as soon as it is loaded; it is saved again at the next normal
+     * shutdown.
+     *
+     * @param tree
+     * @throws PersistitException
+     */
+    void loadMembershipFilter(final Tree tree) throws PersistitException {
+        final Exchange ex = directoryExchange();
+        final Value value = new Value(_persistit, Value.INITIAL_SIZE, Value.MAXIMUM_SIZE);
+        ex.clear().append(DIRECTORY_TREE_NAME).append(TREE_FILTER).append(tree.getName()).fetch(value);
+        if (value.isDefined()) {
+            final MembershipFilter filter = MembershipFilter.fromBytes(value.getByteArray());
+            tree.loadMembershipFilter(filter);
+            if (filter != null) {
+                storeMembershipFilter(tree, false);
+            }
+        }
+    }
+
+    /**
+     * Save the membership filters of all open trees that have one. Called when
+     * Persistit is closed.
+     *
+     * @throws PersistitException
+     */
+    void storeMembershipFilters() throws PersistitException {
+        for (final Tree tree : referencedTrees()) {
+            if (tree != _directoryTree && tree.isLive() && tree.isMembershipFilterEnabled()) {
+                storeMembershipFilter(tree, true);
+            }
+        }
+    }
+
     void removeTree(final Tree tree) throws PersistitException {
         if (tree == _directoryTree) {
             throw new IllegalArgumentException("Can't delete the Directory tree");
@@ -297,6 +373,7 @@ class VolumeStructure {
             ex.clear().append(DIRECTORY_TREE_NAME).append(TREE_ROOT).append(tree.getName()).remove(Key.GTEQ);
             ex.clear().append(DIRECTORY_TREE_NAME).append(TREE_STATS).append(tree.getName()).remove(Key.GTEQ);
             ex.clear().append(DIRECTORY_TREE_NAME).append(TREE_ACCUMULATOR).append(tree.getName()).remove(Key.GTEQ);
+            ex.clear().append(DIRECTORY_TREE_NAME).append(TREE_FILTER).append(tree.getName()).remove(Key.GTEQ);
             tree.delete();
         } finally {
             tree.release();
@@ -450,6 +527,14 @@ class VolumeStructure {
                     garbageBuffer.writePageOnCheckpoint(timestamp);
                     assert garbageBuffer.isGarbagePage() : "Garbage root page wrong type: " + garbageBuffer;
 
+                    if (garbageBuffer.getGarbageChainLeftPage() != -1 && !selectUnpinnedGarbageChain(garbageBuffer)) {
+                        /*
+                         * Every chain on the garbage root page is still being
+                         * read; leave them all in place.
+                         */
+                        return allocNewPage();
+                    }
+
                     final long page = garbageBuffer.getGarbageChainLeftPage();
                     final long rightPage = garbageBuffer.getGarbageChainRightPage();
 
@@ -509,13 +594,23 @@ class VolumeStructure {
          * If there was no garbage chain above then we need to allocate a new
          * page from the volume.
          */
+        return allocNewPage();
+    }
+
+    private Buffer allocNewPage() throws PersistitException {
         final long page = _volume.getStorage().allocNewPage();
-        buffer = _pool.get(_volume, page, true, false);
+        final Buffer buffer = _pool.get(_volume, page, true, false);
         buffer.init(Buffer.PAGE_TYPE_UNALLOCATED);
         Debug.$assert0.t(buffer.getPageAddress() != 0);
         return buffer;
     }
 
+    private boolean selectUnpinnedGarbageChain(final Buffer garbageBuffer) {
+        synchronized (_pinnedLongRecords) {
+            return _pinnedLongRecords.isEmpty() || garbageBuffer.selectGarbageChain(_pinnedLongRecords.keySet());
+        }
+    }
+
     void deallocateGarbageChain(final long left, final long right) throws PersistitException {
         final List<Chain> list = new ArrayList<Chain>();
         list.add(new Chain(left, right));
@@ -532,6 +627,8 @@ class VolumeStructure {
 
                 assert left > 0 || right < 0 : "Attempt to deallocate invalid garbage chain " + chain;
 
+                final boolean pinned = right == 0 && isPinned(left);
+
                 Buffer garbageBuffer = null;
                 final long timestamp = _persistit.getTimestampAllocator().updateTimestamp();
 
@@ -557,6 +654,23 @@ class VolumeStructure {
                             garbageBuffer = releaseBuffer(garbageBuffer);
                         }
                     }
+                    if (pinned) {
+                        /*
+                         * The first page of a pinned chain is still being read
+                         * and cannot become the garbage root, so start a new
+                         * garbage root page to hold the chain.
+                         */
+                        garbageBuffer = allocNewPage();
+                        garbageBuffer.writePageOnCheckpoint(timestamp);
+                        garbageBuffer.init(Buffer.PAGE_TYPE_GARBAGE);
+                        _persistit.getLogBase().newGarbageRoot.log(garbageBufferInfo(garbageBuffer));
+                        garbageBuffer.addGarbageChain(left, right, -1);
+                        _persistit.getLogBase().newGarbageChain.log(left, right, garbageBufferInfo(garbageBuffer));
+                        garbageBuffer.setRightSibling(garbagePage);
+                        garbageBuffer.setDirtyAtTimestamp(timestamp);
+                        setGarbageRoot(garbageBuffer.getPageAddress());
+                        continue;
+                    }
                     garbageBuffer = _pool.get(_volume, left, true, true);
                     garbageBuffer.writePageOnCheckpoint(timestamp);
 
@@ -597,6 +711,50 @@ class VolumeStructure {
         }
     }
 
+    /**
+     * Prevent the pages of the LONG_RECORD chain starting at <code>page</code>
+     * from being reused until {@link #unpinLongRecord(long)} is called. Must be
+     * called while the page holding the referring descriptor is claimed so
+     * that the chain cannot already have been deallocated.
+     *
+     * @param page
+     *            address of the first page of the chain
+     */
+    void pinLongRecord(final long page) {
+        synchronized (_pinnedLongRecords) {
+            final Integer count = _pinnedLongRecords.get(page);
+            _pinnedLongRecords.put(page, count == null ? 1 : count + 1);
+        }
+    }
+
+    /**
+     * Release a pin acquired by {@link #pinLongRecord(long)}. If the chain was
+     * removed from the tree while pinned, its pages become available to
+     * {@link #allocPage()} once the last pin is released.
+     *
+     * @param page
+     *            address of the first page of the chain
+     */
+    void unpinLongRecord(final long page) {
+        synchronized (_pinnedLongRecords) {
+            final Integer count = _pinnedLongRecords.get(page);
+            if (count == null) {
+                throw new IllegalStateException("Long record chain at " + page + " is not pinned");
+            }
+            if (count > 1) {
+                _pinnedLongRecords.put(page, count - 1);
+            } else {
+                _pinnedLongRecords.remove(page);
+            }
+        }
+    }
+
+    private boolean isPinned(final long page) {
+        synchronized (_pinnedLongRecords) {
+            return _pinnedLongRecords.containsKey(page);
+        }
+    }
+
     void harvestLongRecords(final Buffer buffer, final int start, final int end) throws PersistitException {
         final List<Chain> chains = new ArrayList<Chain>();
         harvestLongRecords(buffer, start, end, chains);
@@ -0,0 +1,506 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit.encoding;
+
+import java.io.Externalizable;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.ObjectStreamField;
+import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+
+import com.persistit.DefaultValueCoder;
+import com.persistit.Persistit;
+import com.persistit.Value;
+import com.persistit.exception.ConversionException;
+
+/**
+ * <p>
+ * A {@link ValueCoder} for plain serializable classes that binds a
+ * <code>MethodHandle</code> of the exact field type to each serialized field
+ * when it is constructed, so that encoding and decoding an object neither
+ * boxes primitive field values nor performs the access checks of
+ * <code>java.lang.reflect.Field</code>.
+ * </p>
+ * <p>
+ * The serialized form is identical to that written by {@link DefaultValueCoder}
+ * : the fields of the superclass are written first, followed by the fields
+ * defined by standard Java serialization in the same order. Values stored with
+ * either coder can therefore be read by the other, and a
+ * <code>GeneratedValueCoder</code> can be registered for a class that already
+ * has stored instances.
+ * </p>
+ * <p>
+ * Instances are constructed as <code>DefaultValueCoder</code> constructs them:
+ * through the platform's serialization constructor, which runs only the
+ * no-argument constructor of the first non-serializable superclass, or
+ * through the class's own no-argument constructor when the
+ * <code>constructorOverride</code> property is set. For classes that customize
+ * serialization through <code>Externalizable</code>, <code>writeObject</code>,
+ * <code>readObject</code>, <code>writeReplace</code> or
+ * <code>readResolve</code>, a <code>DefaultValueCoder</code> is used instead;
+ * see {@link #create(Persistit, Class)}.
+ * </p>
+ */
+public final class GeneratedValueCoder implements ValueRenderer, HandleCache {
+
+    private final static MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private final static Method NEW_INSTANCE_METHOD = newInstanceMethod();
+
+    private final Class<?> _clazz;
+    private final MethodHandle _constructor;
+    private final FieldCoder[] _fieldCoders;
+    private final ValueRenderer _superClassValueRenderer;
+    private volatile int _handle;
+
+    /**
+     * Create a <code>ValueCoder</code> for the supplied class and register it
+     * with the <code>CoderManager</code> of the supplied Persistit instance.
+     *
+     * @param persistit
+     *            the Persistit instance
+     * @param clazz
+     *            a <code>java.io.Serializable</code> class
+     * @return the registered <code>ValueCoder</code>
+     * @throws ConversionException
+     *             if the class is not serializable
+     */
+    public static ValueCoder register(final Persistit persistit, final Class<?> clazz) {
+        final ValueCoder coder = create(persistit, clazz);
+        persistit.getCoderManager().registerValueCoder(clazz, coder);
+        return coder;
+    }
+
+    /**
+     * Create a <code>ValueCoder</code> for the supplied class: a
+     * <code>GeneratedValueCoder</code> if the class uses default serialization
+     * and can be constructed as <code>DefaultValueCoder</code> would construct
+     * it, and otherwise a {@link DefaultValueCoder}.
+     *
+     * @param persistit
+     *            the Persistit instance
+     * @param clazz
+     *            a <code>java.io.Serializable</code> class
+     * @return the <code>ValueCoder</code>
+     * @throws ConversionException
+     *             if the class is not serializable
+     */
+    public static ValueCoder create(final Persistit persistit, final Class<?> clazz) {
+        if (!Serializable.class.isAssignableFrom(clazz)) {
+            throw new ConversionException("Not Serializable: " + clazz.getName());
+        }
+        final boolean constructorOverride = persistit.getConfiguration().isConstructorOverride();
+        if (isDefaultSerializable(clazz)
+                && (constructorOverride ? hasNoArgumentConstructor(clazz) : NEW_INSTANCE_METHOD != null)) {
+            return new GeneratedValueCoder(persistit, clazz, constructorOverride);
+        }
+        return new DefaultValueCoder(persistit, clazz);
+    }
+
+    private GeneratedValueCoder(final Persistit persistit, final Class<?> clazz, final boolean constructorOverride) {
+        _clazz = clazz;
+        try {
+            final ObjectStreamClass classDescriptor = ObjectStreamClass.lookup(clazz);
+            if (constructorOverride) {
+                final Constructor<?> constructor = clazz.getDeclaredConstructor();
+                constructor.setAccessible(true);
+                _constructor = LOOKUP.unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+            } else {
+                NEW_INSTANCE_METHOD.setAccessible(true);
+                _constructor = LOOKUP.unreflect(NEW_INSTANCE_METHOD).bindTo(classDescriptor)
+                        .asType(MethodType.methodType(Object.class));
+            }
+
+            final ObjectStreamField[] osFields = classDescriptor.getFields();
+            Arrays.sort(osFields);
+            _fieldCoders = new FieldCoder[osFields.length];
+            for (int index = 0; index < osFields.length; index++) {
+                final String name = osFields[index].getName();
+                final Field field;
+                try {
+                    field = clazz.getDeclaredField(name);
+                } catch (final NoSuchFieldException e) {
+                    throw new ConversionException(clazz + " unmatched serializable field '" + name + "' declared");
+                }
+                _fieldCoders[index] = fieldCoder(field);
+            }
+        } catch (final ReflectiveOperationException e) {
+            throw new ConversionException("Generating ValueCoder for " + clazz.getName(), e);
+        }
+
+        final Class<?> superClass = clazz.getSuperclass();
+        if (superClass != null && Serializable.class.isAssignableFrom(superClass)) {
+            ValueCoder coder = persistit.getCoderManager().lookupValueCoder(superClass);
+            if (!(coder instanceof DefaultValueCoder) && !(coder instanceof GeneratedValueCoder)) {
+                coder = create(persistit, superClass);
+            }
+            _superClassValueRenderer = (ValueRenderer) coder;
+        } else {
+            _superClassValueRenderer = null;
+        }
+    }
+
+    /**
+     * Return the <code>class</code> that this <code>ValueCoder</code> serves.
+     *
+     * @return The <code>class</code>
+     */
+    public Class<?> getClientClass() {
+        return _clazz;
+    }
+
+    @Override
+    public void put(final Value value, final Object object, final CoderContext context) throws ConversionException {
+        if (_superClassValueRenderer != null) {
+            _superClassValueRenderer.put(value, object, context);
+        }
+        FieldCoder fieldCoder = null;
+        try {
+            for (int index = 0; index < _fieldCoders.length; index++) {
+                fieldCoder = _fieldCoders[index];
+                fieldCoder.toValue(object, value);
+            }
+        } catch (final ConversionException e) {
+            throw e;
+        } catch (final Throwable t) {
+            throw new ConversionException("Encoding " + fieldCoder + " for " + _clazz, t);
+        }
+    }
+
+    @Override
+    public Object get(final Value value, final Class<?> clazz, final CoderContext context) throws ConversionException {
+        if (clazz != _clazz) {
+            throw new ClassCastException("Client class " + _clazz.getName() + " does not match requested class "
+                    + clazz.getName());
+        }
+        final Object instance;
+        try {
+            instance = (Object) _constructor.invokeExact();
+        } catch (final Throwable t) {
+            throw new ConversionException("Instantiating " + _clazz.getName(), t);
+        }
+        value.registerEncodedObject(instance);
+        render(value, instance, clazz, context);
+        return instance;
+    }
+
+    @Override
+    public void render(final Value value, final Object target, final Class<?> clazz, final CoderContext context)
+            throws ConversionException {
+        if (target == null) {
+            throw new IllegalArgumentException("Target object must not be null");
+        }
+        if (_superClassValueRenderer != null) {
+            _superClassValueRenderer.render(value, target, clazz.getSuperclass(), context);
+        }
+        FieldCoder fieldCoder = null;
+        try {
+            for (int index = 0; index < _fieldCoders.length; index++) {
+                fieldCoder = _fieldCoders[index];
+                fieldCoder.fromValue(target, value);
+            }
+        } catch (final ConversionException e) {
+            throw e;
+        } catch (final Throwable t) {
+            throw new ConversionException("Decoding " + fieldCoder + " for " + _clazz, t);
+        }
+    }
+
+    @Override
+    public synchronized void setHandle(final int handle) {
+        if (_handle != 0 && _handle != handle) {
+            throw new IllegalStateException("Attempt to change handle from " + _handle + " to " + handle);
+        }
+        _handle = handle;
+    }
+
+    @Override
+    public int getHandle() {
+        return _handle;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("GeneratedValueCoder(");
+        sb.append(_clazz.getName()).append(",value[");
+        for (int index = 0; index < _fieldCoders.length; index++) {
+            if (index > 0) {
+                sb.append(",");
+            }
+            sb.append(_fieldCoders[index]._name);
+        }
+        sb.append("])");
+        return sb.toString();
+    }
+
+    /**
+     * @return <code>true</code> if neither the class nor any of its
+     *         superclasses customizes its serialized form
+     */
+    private static boolean isDefaultSerializable(final Class<?> clazz) {
+        if (Externalizable.class.isAssignableFrom(clazz)) {
+            return false;
+        }
+        for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+            if (declaresMethod(c, "writeObject", ObjectOutputStream.class)
+                    || declaresMethod(c, "readObject", ObjectInputStream.class) || declaresMethod(c, "writeReplace")
+                    || declaresMethod(c, "readResolve")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean declaresMethod(final Class<?> clazz, final String name, final Class<?>... arguments) {
+        try {
+            final Method method = clazz.getDeclaredMethod(name, arguments);
+            return !Modifier.isStatic(method.getModifiers());
+        } catch (final NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return the method <code>DefaultValueCoder</code> uses to construct
+     *         instances without running their constructors, or
+     *         <code>null</code> if this platform has none
+     */
+    private static Method newInstanceMethod() {
+        try {
+            return ObjectStreamClass.class.getDeclaredMethod("newInstance");
+        } catch (final NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static boolean hasNoArgumentConstructor(final Class<?> clazz) {
+        try {
+            clazz.getDeclaredConstructor();
+            return !Modifier.isAbstract(clazz.getModifiers());
+        } catch (final NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static FieldCoder fieldCoder(final Field field) throws IllegalAccessException {
+        field.setAccessible(true);
+        final Class<?> type = field.getType();
+        final Class<?> handleType = type.isPrimitive() ? type : Object.class;
+        final MethodHandle getter = LOOKUP.unreflectGetter(field).asType(
+                MethodType.methodType(handleType, Object.class));
+        final MethodHandle setter = LOOKUP.unreflectSetter(field).asType(
+                MethodType.methodType(void.class, Object.class, handleType));
+        final String name = field.getName();
+        if (type == boolean.class) {
+            return new BooleanFieldCoder(name, getter, setter);
+        } else if (type == byte.class) {
+            return new ByteFieldCoder(name, getter, setter);
+        } else if (type == short.class) {
+            return new ShortFieldCoder(name, getter, setter);
+        } else if (type == char.class) {
+            return new CharFieldCoder(name, getter, setter);
+        } else if (type == int.class) {
+            return new IntFieldCoder(name, getter, setter);
+        } else if (type == long.class) {
+            return new LongFieldCoder(name, getter, setter);
+        } else if (type == float.class) {
+            return new FloatFieldCoder(name, getter, setter);
+        } else if (type == double.class) {
+            return new DoubleFieldCoder(name, getter, setter);
+        } else {
+            return new ObjectFieldCoder(name, getter, setter);
+        }
+    }
+
+    /**
+     * Copies one field between an object and a <code>Value</code> through
+     * method handles whose types match the field type exactly.
+     */
+    private static abstract class FieldCoder {
+        final String _name;
+        final MethodHandle _getter;
+        final MethodHandle _setter;
+
+        FieldCoder(final String name, final MethodHandle getter, final MethodHandle setter) {
+            _name = name;
+            _getter = getter;
+            _setter = setter;
+        }
+
+        abstract void toValue(Object object, Value value) throws Throwable;
+
+        abstract void fromValue(Object object, Value value) throws Throwable;
+
+        @Override
+        public String toString() {
+            return "FieldCoder[" + _name + "]";
+        }
+    }
+
+    private final static class ObjectFieldCoder extends FieldCoder {
+        ObjectFieldCoder(final String name, final MethodHandle getter, final MethodHandle setter) {
+            super(name, getter, setter);
+        }
+
+        @Override
+        void toValue(final Object object, final Value value) throws Throwable {
+            value.put((Object) _getter.invokeExact(object));
+        }
+
+        @Override
+        void fromValue(final Object object, final Value value) throws Throwable {
+            _setter.invokeExact(object, value.get(null, null));
+        }
+    }
+
+    private final static class BooleanFieldCoder extends FieldCoder {
+        BooleanFieldCoder(final String name, final MethodHandle getter, final MethodHandle setter) {
+            super(name, getter, setter);
+        }
+
+        @Override
+        void toValue(final Object object, final Value value) throws Throwable {
+            value.put((boolean) _getter.invokeExact(object));
+        }
+
+        @Override
+        void fromValue(final Object object, final Value value) throws Throwable {
+            _setter.invokeExact(object, value.getBoolean());
+        }
+    }
+
+    private final static class ByteFieldCoder extends FieldCoder {
+        ByteFieldCoder(final String name, final MethodHandle getter, final MethodHandle setter) {
+            super(name, getter, setter);
+        }
+
+        @Override
+        void toValue(final Object object, final Value value) throws Throwable {
+            value.put((byte) _getter.invokeExact(object));
+        }
+
+        @Override
+        void fromValue(final Object object, final Value value) throws Throwable {
+            _setter.invokeExact(object, value.getByte());
+        }
+    }
+
+    private final static class ShortFieldCoder extends FieldCoder {
+        ShortFieldCoder(final String name, final MethodHandle getter, final MethodHandle setter) {
+            super(name, getter, setter);
+        }
+
+        @Override
+        void toValue(final Object object, final Value value) throws Throwable {
+            value.put((short) _getter.invokeExact(object));
+        }
+
+        @Override
+        void fromValue(final Object object, final Value value) throws Throwable {
+            _setter.invokeExact(object, value.getShort());
+        }
+    }
+
+    private final static class CharFieldCoder extends FieldCoder {
+        CharFieldCoder(final String name, final MethodHandle getter, final MethodHandle setter) {
+            super(name, getter, setter);
+        }
+
+        @Override
+        void toValue(final Object object, final Value value) throws Throwable {
+            value.put((char) _getter.invokeExact(object));
+        }
+
+        @Override
+        void fromValue(final Object object, final Value value) throws Throwable {
+            _setter.invokeExact(object, value.getChar());
+        }
+    }
+
+    private final static class IntFieldCoder extends FieldCoder {
+        IntFieldCoder(final String name, final MethodHandle getter, final MethodHandle setter) {
+            super(name, getter, setter);
+        }
+
+        @Override
+        void toValue(final Object object, final Value value) throws Throwable {
+            value.put((int) _getter.invokeExact(object));
+        }
+
+        @Override
+        void fromValue(final Object object, final Value value) throws Throwable {
+            _setter.invokeExact(object, value.getInt());
+        }
+    }
+
+    private final static class LongFieldCoder extends FieldCoder {
+        LongFieldCoder(final String name, final MethodHandle getter, final MethodHandle setter) {
+            super(name, getter, setter);
+        }
+
+        @Override
+        void toValue(final Object object, final Value value) throws Throwable {
+            value.put((long) _getter.invokeExact(object));
+        }
+
+        @Override
+        void fromValue(final Object object, final Value value) throws Throwable {
+            _setter.invokeExact(object, value.getLong());
+        }
+    }
+
+    private final static class FloatFieldCoder extends FieldCoder {
+        FloatFieldCoder(final String name, final MethodHandle getter, final MethodHandle setter) {
+            super(name, getter, setter);
+        }
+
+        @Override
+        void toValue(final Object object, final Value value) throws Throwable {
+            value.put((float) _getter.invokeExact(object));
+        }
+
+        @Override
+        void fromValue(final Object object, final Value value) throws Throwable {
+            _setter.invokeExact(object, value.getFloat());
+        }
+    }
+
+    private final static class DoubleFieldCoder extends FieldCoder {
+        DoubleFieldCoder(final String name, final MethodHandle getter, final MethodHandle setter) {
+            super(name, getter, setter);
+        }
+
+        @Override
+        void toValue(final Object object, final Value value) throws Throwable {
+            value.put((double) _getter.invokeExact(object));
+        }
+
+        @Override
+        void fromValue(final Object object, final Value value) throws Throwable {
+            _setter.invokeExact(object, value.getDouble());
+        }
+    }
+}
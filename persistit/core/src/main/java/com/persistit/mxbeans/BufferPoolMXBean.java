@@ -149,4 +149,44 @@ public interface BufferPoolMXBean {
     @Description("Earliest timestamp of any dirty page in this BufferPool.")
     public long getEarliestDirtyTimestamp();
 
+    /**
+     * @return The name of the replacement policy used to select pages for
+     *         eviction from this <code>BufferPool</code>
+     */
+    @Description("The name of the replacement policy used to select pages for eviction")
+    public String getReplacementPolicy();
+
+    /**
+     * @return The number of page lookups the replacement policy recorded as
+     *         hits in this <code>BufferPool</code>
+     */
+    @Description("The number of page lookups the replacement policy recorded as hits")
+    public long getPolicyHitCount();
+
+    /**
+     * @return The number of page loads the replacement policy recorded as
+     *         misses in this <code>BufferPool</code>
+     */
+    @Description("The number of page loads the replacement policy recorded as misses")
+    public long getPolicyMissCount();
+
+    /**
+     * @return The number of pages the replacement policy currently protects
+     *         from eviction
+     */
+    @Description("The number of pages the replacement policy currently protects from eviction")
+    public int getHotPageCount();
+
+    /**
+     * @return The number of pages promoted into the protected working set
+     */
+    @Description("The number of pages promoted into the protected working set")
+    public long getPromoteCount();
+
+    /**
+     * @return The number of pages demoted from the protected working set
+     */
+    @Description("The number of pages demoted from the protected working set")
+    public long getDemoteCount();
+
 }
@@ -56,14 +56,16 @@ public interface IOMeterMXBean {
      * <dd>Flush journal</dd>
      * <dt>GP</dt>
      * <dd>Get Page</dd>
+     * <dt>RA</dt>
+     * <dd>Read page ahead of a sequential traversal</dd>
      * </dl>
      * 
      */
     public final static String[] OPERATION_NAMES = { "Unknown", "Read page from Volume", "Read page from Journal",
             "Copy page from journal", "Copy page to volume", "Write page from Journal", "Write Transaction to Journal",
-            "Other", "Evict page from pool", "Flush journal", "Get page" };
+            "Other", "Evict page from pool", "Flush journal", "Get page", "Read ahead" };
 
-    public final static String[] OPERATIONS = { "??", "RV", "RJ", "CJ", "CV", "WJ", "TJ", "XX", "EV", "FJ", "GP" };
+    public final static String[] OPERATIONS = { "??", "RV", "RJ", "CJ", "CV", "WJ", "TJ", "XX", "EV", "FJ", "GP", "RA" };
 
     public final static String[] SUMMARY_ITEMS = { "CJ", "CV", "RV", "RJ", "WJ", "EV", "FJ" };
 
@@ -96,6 +96,13 @@ public interface JournalManagerMXBean {
      */
     final static int DEFAULT_COPIES_PER_CYCLE = 1000;
 
+    /**
+     * Default and maximum number of threads that write pages copied from the
+     * journal to volumes on different devices concurrently.
+     */
+    final static int DEFAULT_COPIER_THREADS = 4;
+    final static int MAXIMUM_COPIER_THREADS = 64;
+
     /**
      * Default time interval (in milliseconds) for logging repetitive I/O
      * exceptions on attempts to write to the journal. Prevents excessively
@@ -172,6 +179,12 @@ public interface JournalManagerMXBean {
     @Description("Interval between page copying cycles")
     void setCopierInterval(long copierInterval);
 
+    @Description("Maximum number of threads writing copied pages to volumes on different devices")
+    int getCopierThreads();
+
+    @Description("Maximum number of threads writing copied pages to volumes on different devices")
+    void setCopierThreads(int copierThreads);
+
     @Description("True if the journal has been closed")
     boolean isClosed();
 
@@ -238,6 +251,21 @@ public interface JournalManagerMXBean {
     @Description("Total aggregate time spent waiting for durable commits in milliseconds")
     long getCommitCompletionWaitTime();
 
+    @Description("Number of journal force operations performed on behalf of GROUP commits")
+    long getGroupCommitBatchCount();
+
+    @Description("Average number of GROUP commits made durable by one force operation")
+    double getGroupCommitAverageBatchSize();
+
+    @Description("Largest number of GROUP commits made durable by one force operation")
+    int getGroupCommitMaximumBatchSize();
+
+    @Description("Total aggregate time spent waiting for durable GROUP commits in milliseconds")
+    long getGroupCommitWaitTime();
+
+    @Description("Moving average of the time taken to force the journal for GROUP commits in microseconds")
+    long getGroupCommitForceTime();
+
     @Description("Threshold in  milliseconds for warnings of long duration flush cycles")
     long getSlowIoAlertThreshold();
 
@@ -0,0 +1,122 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit.mxbeans;
+
+import javax.management.MXBean;
+
+/**
+ * <p>
+ * Manages histograms of the latency of frequent operations. Each histogram
+ * counts operations in buckets whose width is about 3% of their value, so
+ * that percentiles such as the 99th and 99.9th can be reported with bounded
+ * error. Recording is lock-free and costs two reads of the system nanosecond
+ * timer per operation while measurement is enabled.
+ * </p>
+ * <p>
+ * Histograms accumulate from the time measurement is enabled or the
+ * histograms were last reset. Latencies are reported in nanoseconds.
+ * </p>
+ */
+@MXBean
+public interface LatencyMeterMXBean {
+
+    public final static String MXBEAN_NAME = "com.persistit:type=Persistit,class=LatencyMeter";
+
+    /**
+     * Names of the operations measured by this bean:
+     * <dl>
+     * <dt>fetch</dt>
+     * <dd>Exchange fetch of one key</dd>
+     * <dt>store</dt>
+     * <dd>Exchange store of one key</dd>
+     * <dt>traverse</dt>
+     * <dd>One step of an Exchange traversal</dd>
+     * <dt>remove</dt>
+     * <dd>Exchange removal of a key or key range</dd>
+     * <dt>commit</dt>
+     * <dd>Commit of an outermost transaction, including the wait for
+     * durability</dd>
+     * <dt>readPage</dt>
+     * <dd>Read of a page into the buffer pool from the journal or a volume</dd>
+     * <dt>writePage</dt>
+     * <dd>Write of a dirty page from the buffer pool to the journal</dd>
+     * <dt>forceJournal</dt>
+     * <dd>Force of the journal file to disk</dd>
+     * </dl>
+     */
+    public final static String[] OPERATIONS = { "fetch", "store", "traverse", "remove", "commit", "readPage",
+            "writePage", "forceJournal" };
+
+    /**
+     * Percentiles shown by {@link #dump(boolean)}
+     */
+    public final static double[] DUMP_PERCENTILES = { 50, 90, 99, 99.9, 99.99 };
+
+    @Description("True if operation latencies are being measured")
+    public boolean isEnabled();
+
+    @Description("True if operation latencies are being measured")
+    public void setEnabled(boolean enabled);
+
+    /**
+     * @param operation
+     *            An operation name specified in {@link #OPERATIONS}
+     * @return Number of operations measured
+     */
+    @Description("Number of operations measured for a specified type (see LatencyMeterMXBean.OPERATIONS)")
+    public long count(String operation);
+
+    /**
+     * @param operation
+     *            An operation name specified in {@link #OPERATIONS}
+     * @return Mean latency of the operations in nanoseconds
+     */
+    @Description("Mean latency in nanoseconds for a specified type (see LatencyMeterMXBean.OPERATIONS)")
+    public double mean(String operation);
+
+    /**
+     * @param operation
+     *            An operation name specified in {@link #OPERATIONS}
+     * @return Largest latency measured in nanoseconds
+     */
+    @Description("Maximum latency in nanoseconds for a specified type (see LatencyMeterMXBean.OPERATIONS)")
+    public long maximum(String operation);
+
+    /**
+     * @param operation
+     *            An operation name specified in {@link #OPERATIONS}
+     * @param percentile
+     *            A percentile between 0 and 100, e.g., 99.9
+     * @return Latency in nanoseconds at or below which the specified
+     *         percentage of the operations completed
+     */
+    @Description("Latency in nanoseconds at a percentile, e.g., 99.9, for a specified type "
+            + "(see LatencyMeterMXBean.OPERATIONS)")
+    public long percentile(String operation, double percentile);
+
+    /**
+     * @param reset
+     *            <code>true</code> to reset the histograms after reading them
+     * @return A table of the count, mean, percentiles and maximum latency of
+     *         each operation in microseconds
+     */
+    @Description("Table of latency percentiles of all operations in microseconds, optionally resetting them")
+    public String dump(boolean reset);
+
+    @Description("Reset all histograms")
+    public void reset();
+}
@@ -46,8 +46,16 @@ public interface RecoveryManagerMXBean {
 
     public int getAppliedTransactionCount();
 
+    public int getAbortedTransactionCount();
+
     public int getErrorCount();
 
+    /**
+     * @return number of threads applying recovered transactions; see
+     *         {@link com.persistit.Configuration#setRecoveryThreads(int)}
+     */
+    public int getReplayThreadCount();
+
     public long getLastValidCheckpointTimestamp();
 
     public long getLastValidCheckpointAddress();
@@ -30,11 +30,13 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class AccumulatorTest extends PersistitUnitTestCase {
 
@@ -528,6 +530,117 @@ public class AccumulatorTest extends PersistitUnitTestCase {
         }
     }
 
+    @Test
+    public void testStripedLiveValue() throws Exception {
+        final long RUN_TIME_MAX = 50000;
+        final int THREAD_COUNT = 16;
+        final int TXN_COUNT = 2000;
+        final int TOTAL = THREAD_COUNT * TXN_COUNT;
+
+        final TransactionIndex ti = new TransactionIndex(_tsa, 256);
+        final Accumulator rowCount = Accumulator.accumulator(Accumulator.Type.SUM, null, 0, 0, ti);
+        final Accumulator contended = Accumulator.accumulator(Accumulator.Type.SUM, null, 1, 0, ti);
+        final Accumulator max = Accumulator.accumulator(Accumulator.Type.MAX, null, 2, 0, ti);
+        final Accumulator seq = Accumulator.accumulator(Accumulator.Type.SEQ, null, 3, 0, ti);
+        /*
+         * Create the cells up front so that every update of the second
+         * accumulator goes to a cell and is combined with the shared value on
+         * read
+         */
+        assertNotNull(contended.createLiveCells());
+        contended.liveValue().set(Long.MAX_VALUE / 2);
+
+        final long[] allocated = new long[TOTAL];
+        final Thread[] threads = new Thread[THREAD_COUNT];
+        for (int thread = 0; thread < THREAD_COUNT; ++thread) {
+            final int t = thread;
+            threads[thread] = ConcurrentUtil.createThread("Thread_" + thread, new ConcurrentUtil.ThrowingRunnable() {
+                @Override
+                public void run() throws Throwable {
+                    for (int txn = 0; txn < TXN_COUNT; txn++) {
+                        final TransactionStatus status = ti.registerTransaction();
+                        rowCount.update(1, status, 0);
+                        contended.update(-1, status, 0);
+                        max.update(t * TXN_COUNT + txn, status, 0);
+                        allocated[t * TXN_COUNT + txn] = seq.update(1, status, 0);
+                        status.commit(_tsa.updateTimestamp());
+                        ti.notifyCompleted(status, _tsa.getCurrentTimestamp());
+                    }
+                }
+            });
+        }
+        ConcurrentUtil.startAndJoinAssertSuccess(RUN_TIME_MAX, threads);
+
+        assertEquals(TOTAL, rowCount.getLiveValue());
+        assertEquals(Long.MAX_VALUE / 2 - TOTAL, contended.getLiveValue());
+        assertEquals(TOTAL - 1, max.getLiveValue());
+        assertEquals(TOTAL, seq.getLiveValue());
+        Arrays.sort(allocated);
+        for (int i = 0; i < TOTAL; i++) {
+            assertEquals("Sequence values must be unique", i + 1, allocated[i]);
+        }
+
+        final long after = _tsa.updateTimestamp();
+        assertEquals(TOTAL, rowCount.getSnapshotValue(after, 0));
+        assertEquals(-TOTAL, contended.getSnapshotValue(after, 0));
+        assertEquals(TOTAL - 1, max.getSnapshotValue(after, 0));
+        ti.checkpointAccumulatorSnapshots(_tsa.getCurrentTimestamp(),
+                Arrays.asList(new Accumulator[] { rowCount, contended, max, seq }));
+        assertEquals(TOTAL, rowCount.getCheckpointValue());
+        assertEquals(-TOTAL, contended.getCheckpointValue());
+        assertEquals(TOTAL, seq.getCheckpointValue());
+
+        contended.updateBaseValue(5, _tsa.getCurrentTimestamp());
+        assertEquals(5, contended.getLiveValue());
+    }
+
+    @Test
+    public void testStripedPartialSumsMayOverflow() throws Exception {
+        final TransactionIndex ti = new TransactionIndex(_tsa, 1);
+        final Accumulator acc = Accumulator.accumulator(Accumulator.Type.SUM, null, 0, 0, ti);
+        final AtomicLongArray cells = acc.createLiveCells();
+        /*
+         * Simulate racing updates that left the shared value and a cell at
+         * opposite extremes while the combined value is small
+         */
+        acc.liveValue().set(Long.MIN_VALUE + 10);
+        cells.set(Accumulator.cellIndex(Thread.currentThread()), Long.MAX_VALUE);
+        assertEquals(9, acc.getLiveValue());
+
+        final TransactionStatus status1 = ti.registerTransaction();
+        acc.update(5, status1, 0);
+        assertEquals(14, acc.getLiveValue());
+        try {
+            acc.update(Long.MAX_VALUE, status1, 0);
+            fail("Expected overflow");
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+        assertEquals(14, acc.getLiveValue());
+        status1.commit(_tsa.updateTimestamp());
+        ti.notifyCompleted(status1, _tsa.getCurrentTimestamp());
+
+        /*
+         * Committed deltas whose partial sums overflow must still aggregate
+         * to the correct snapshot and checkpoint values
+         */
+        acc.liveValue().set(0);
+        cells.set(Accumulator.cellIndex(Thread.currentThread()), 0);
+        for (final long value : new long[] { Long.MAX_VALUE, -Long.MAX_VALUE, Long.MAX_VALUE - 5 }) {
+            final TransactionStatus status = ti.registerTransaction();
+            acc.update(value, status, 0);
+            status.commit(_tsa.updateTimestamp());
+            ti.notifyCompleted(status, _tsa.getCurrentTimestamp());
+        }
+        assertEquals(Long.MAX_VALUE - 5, acc.getLiveValue());
+        /*
+         * The snapshot also includes the 5 committed by status1
+         */
+        assertEquals(Long.MAX_VALUE, acc.getSnapshotValue(_tsa.updateTimestamp(), 0));
+        ti.checkpointAccumulatorSnapshots(_tsa.getCurrentTimestamp(), Arrays.asList(new Accumulator[] { acc }));
+        assertEquals(Long.MAX_VALUE, acc.getCheckpointValue());
+    }
+
     private static int countDeltas(final TransactionStatus status) {
         int count = 0;
         Accumulator.Delta d = status.getDelta();
@@ -0,0 +1,228 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import com.persistit.Transaction.CommitPolicy;
+import com.persistit.exception.TreeNotFoundException;
+
+public class AsyncExchangeTest extends PersistitUnitTestCase {
+
+    private final static String TREE_NAME = "AsyncExchangeTest";
+
+    private final static int COUNT = 1000;
+
+    @Test
+    public void storeFetchRemove() throws Exception {
+        final AsyncExchange ax = _persistit.getAsyncExchange(VOLUME_NAME, TREE_NAME, true);
+        final Key key = new Key(_persistit);
+        final Value value = new Value(_persistit);
+        final List<AsyncResult<Void>> stores = new ArrayList<AsyncResult<Void>>();
+        for (int i = 0; i < COUNT; i++) {
+            key.clear().append(i);
+            value.put(RED_FOX + i);
+            stores.add(ax.store(key, value));
+        }
+        for (final AsyncResult<Void> store : stores) {
+            store.getResult();
+        }
+
+        key.clear().append(17);
+        final Value fetched = ax.fetch(key).getResult();
+        assertNotSame(value, fetched);
+        assertEquals(RED_FOX + 17, fetched.getString());
+
+        final List<Key> keys = new ArrayList<Key>();
+        for (int i = COUNT - 10; i < COUNT + 10; i++) {
+            keys.add(new Key(_persistit).append(i));
+        }
+        final List<Value> values = ax.fetch(keys).getResult();
+        assertEquals(keys.size(), values.size());
+        for (int i = 0; i < keys.size(); i++) {
+            if (i < 10) {
+                assertEquals(RED_FOX + (COUNT - 10 + i), values.get(i).getString());
+            } else {
+                assertFalse(values.get(i).isDefined());
+            }
+        }
+
+        assertTrue(ax.remove(key).getResult());
+        assertFalse(ax.remove(key).getResult());
+        assertFalse(ax.fetch(key).getResult().isDefined());
+    }
+
+    @Test
+    public void traverse() throws Exception {
+        final Exchange ex = _persistit.getExchange(VOLUME_NAME, TREE_NAME, true);
+        for (int i = 0; i < COUNT; i++) {
+            ex.getValue().put(i);
+            ex.clear().append(i).store();
+        }
+        final AsyncExchange ax = new AsyncExchange(_persistit, ex.getVolume(), TREE_NAME, false);
+
+        final Key from = new Key(_persistit).append(Key.BEFORE);
+        int expected = 0;
+        while (true) {
+            final List<AsyncExchange.Entry> page = ax.traverse(from, Key.GT, null, 100).getResult();
+            if (page.isEmpty()) {
+                break;
+            }
+            for (final AsyncExchange.Entry entry : page) {
+                assertEquals(expected, entry.getKey().reset().decodeInt());
+                assertEquals(expected, entry.getValue().getInt());
+                expected++;
+            }
+            page.get(page.size() - 1).getKey().copyTo(from);
+        }
+        assertEquals(COUNT, expected);
+
+        from.clear().append(500);
+        final List<AsyncExchange.Entry> down = ax.traverse(from, Key.LTEQ, null, 3).getResult();
+        assertEquals(3, down.size());
+        assertEquals(500, down.get(0).getKey().reset().decodeInt());
+        assertEquals(498, down.get(2).getKey().reset().decodeInt());
+
+        final KeyFilter filter = new KeyFilter(new KeyFilter.Term[] { KeyFilter.rangeTerm(10, 19) });
+        from.clear().append(Key.BEFORE);
+        assertEquals(10, ax.traverse(from, Key.GT, filter, 100).getResult().size());
+
+        try {
+            ax.traverse(from, Key.EQ, null, 1);
+            fail("Expected IllegalArgumentException");
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void listeners() throws Exception {
+        final AsyncExchange ax = _persistit.getAsyncExchange(VOLUME_NAME, TREE_NAME, true);
+        final Key key = new Key(_persistit).append("a");
+        final Value value = new Value(_persistit);
+        value.put(RED_FOX);
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<String> result = new AtomicReference<String>();
+        final AtomicReference<Thread> thread = new AtomicReference<Thread>();
+        /*
+         * Chain a fetch from the listener of the store
+         */
+        ax.store(key, value).addListener(new AsyncResult.Listener<Void>() {
+            @Override
+            public void completed(final AsyncResult<Void> stored) {
+                ax.fetch(key).addListener(new AsyncResult.Listener<Value>() {
+                    @Override
+                    public void completed(final AsyncResult<Value> fetched) {
+                        try {
+                            result.set(fetched.getResult().getString());
+                            thread.set(Thread.currentThread());
+                        } catch (final Exception e) {
+                            result.set(e.toString());
+                        }
+                        latch.countDown();
+                    }
+                });
+            }
+        });
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(RED_FOX, result.get());
+        assertTrue(thread.get().getName().startsWith("ASYNC_IO:"));
+
+        final AsyncResult<Value> done = ax.fetch(key);
+        done.getResult();
+        final AtomicInteger invoked = new AtomicInteger();
+        final CountDownLatch late = new CountDownLatch(1);
+        done.addListener(new AsyncResult.Listener<Value>() {
+            @Override
+            public void completed(final AsyncResult<Value> r) {
+                invoked.incrementAndGet();
+                late.countDown();
+            }
+        });
+        assertTrue(late.await(10, TimeUnit.SECONDS));
+        assertEquals(1, invoked.get());
+    }
+
+    @Test
+    public void exceptions() throws Exception {
+        final Volume volume = _persistit.getVolume(VOLUME_NAME);
+        try {
+            new AsyncExchange(_persistit, volume, TREE_NAME, false);
+            fail("Expected TreeNotFoundException");
+        } catch (final TreeNotFoundException e) {
+            // expected
+        }
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final AsyncExchange ax = new AsyncExchange(_persistit, volume, TREE_NAME, true, executor);
+        final Key key = new Key(_persistit).append(1);
+        ax.fetch(key).getResult();
+        _persistit.getExchange(volume, TREE_NAME, false).removeTree();
+        try {
+            ax.fetch(key).getResult();
+            fail("Expected TreeNotFoundException");
+        } catch (final TreeNotFoundException e) {
+            // expected
+        }
+
+        executor.shutdown();
+        final AsyncResult<Value> rejected = ax.fetch(key);
+        assertTrue(rejected.isDone());
+        try {
+            rejected.getResult();
+            fail("Expected RejectedExecutionException");
+        } catch (final RejectedExecutionException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void transactional() throws Exception {
+        final AsyncExchange ax = _persistit.getAsyncExchange(VOLUME_NAME, TREE_NAME, true);
+        ax.setCommitPolicy(CommitPolicy.SOFT);
+        final Key key = new Key(_persistit).append("counter");
+        final Value value = new Value(_persistit);
+        final List<AsyncResult<Void>> stores = new ArrayList<AsyncResult<Void>>();
+        for (int i = 0; i < 100; i++) {
+            value.put(i);
+            key.clear().append("counter").append(i);
+            stores.add(ax.store(key, value));
+        }
+        for (final AsyncResult<Void> store : stores) {
+            store.getResult();
+        }
+        key.clear().append("counter");
+        assertEquals(100, ax.traverse(key, Key.GT, null, 1000).getResult().size());
+        assertEquals(0, _persistit.getTransaction().getNestedTransactionDepth());
+    }
+}
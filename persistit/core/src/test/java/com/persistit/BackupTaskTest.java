@@ -19,7 +19,9 @@ package com.persistit;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Properties;
 import java.util.Random;
@@ -27,8 +29,10 @@ import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipFile;
 
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class BackupTaskTest extends PersistitUnitTestCase {
   private final static int TRANSACTION_COUNT = 50000;
@@ -125,6 +129,77 @@ public class BackupTaskTest extends PersistitUnitTestCase {
     assertTrue(tw.commitTransactions.isEmpty());
   }
 
+  @Test
+  public void testIncrementalBackup() throws Exception {
+    final PersistitMap<Integer, String> pmap1 = new PersistitMap<Integer, String>(_persistit.getExchange(
+      "persistit", "BackupTest", true));
+    for (int index = 0; index < 50000; index++) {
+      pmap1.put(new Integer(index), "This is the record for index=" + index);
+    }
+    final File full = temp.newFile("full.zip");
+    backup("backup -y -c file=" + path(full));
+
+    for (int index = 0; index < 50000; index += 1000) {
+      pmap1.put(new Integer(index), "This is the updated record for index=" + index);
+    }
+    final File delta1 = temp.newFile("delta1.zip");
+    backup("backup -y -c base=" + path(full) + " file=" + path(delta1));
+
+    for (int index = 50000; index < 50100; index++) {
+      pmap1.put(new Integer(index), "This is the record for index=" + index);
+    }
+    pmap1.remove(new Integer(1));
+    final File delta2 = temp.newFile("delta2.zip");
+    backup("backup -y -c base=" + path(delta1) + " file=" + path(delta2));
+
+    final Volume volume = _persistit.getVolume("persistit");
+    final long volumeSize = volume.getStorage().getNextAvailablePage() * volume.getPageSize();
+    assertTrue(changedPagesSize(delta1, volume) < volumeSize / 2);
+    assertTrue(changedPagesSize(delta2, volume) < changedPagesSize(delta1, volume));
+    final TreeMap<Integer, String> tmap = new TreeMap<Integer, String>(pmap1);
+
+    final Configuration config = _persistit.getConfiguration();
+    _persistit.close();
+    cleanUpDirectory(new File(DATA_PATH));
+
+    final BackupTask restore = new BackupTask();
+    restore.setMessageWriter(new PrintWriter(System.out));
+    try {
+      restore.doRestore(Arrays.asList(path(full), path(delta2)));
+      fail("Expected IOException");
+    } catch (final IOException e) {
+      assertTrue(e.getMessage().contains("not based on"));
+    }
+    restore.doRestore(Arrays.asList(path(full), path(delta1), path(delta2)));
+
+    _persistit = new Persistit(config);
+    _persistit.checkAllVolumes();
+    final PersistitMap<Integer, String> pmap2 = new PersistitMap<Integer, String>(_persistit.getExchange(
+      "persistit", "BackupTest", false));
+    assertTrue(pmap2.equals(tmap));
+  }
+
+  private void backup(final String command) throws Exception {
+    final BackupTask backup = (BackupTask) CLI.parseTask(_persistit, command);
+    backup.setMessageWriter(new PrintWriter(System.out));
+    backup.setup(1, command, "cli", 0, 5);
+    backup.run();
+    assertTrue(backup.getStatus(), backup.getStatus().contains("completed"));
+  }
+
+  private long changedPagesSize(final File archive, final Volume volume) throws Exception {
+    final ZipFile zipFile = new ZipFile(archive);
+    try {
+      return zipFile.getEntry(volume.getPath() + BackupTask.PAGES_SUFFIX).getSize();
+    } finally {
+      zipFile.close();
+    }
+  }
+
+  private String path(final File file) {
+    return file.getAbsolutePath().replaceAll("\\\\", "/");
+  }
+
   private class TransactionWriter implements Runnable {
 
     final Set<Integer> commitTransactions = new HashSet<Integer>();
@@ -38,6 +38,8 @@ public class CommandLineTest extends PersistitUnitTestCase {
         assertNotNull(TestShim.parseTask(_persistit, "backup file=somefile -a -y -z"));
         assertNotNull(TestShim.parseTask(_persistit, "save trees=persistit file=somefile"));
         assertNotNull(TestShim.parseTask(_persistit, "load trees=persistit:*{1:2} file=somefile -t -n"));
+        assertNotNull(TestShim.parseTask(_persistit, "save -z threads=4 file=somedirectory"));
+        assertNotNull(TestShim.parseTask(_persistit, "load -b threads=4 file=somedirectory"));
         assertNull(TestShim.parseTask(_persistit, "open datapath=somefile"));
         try {
             TestShim.parseTask(_persistit, "backup file=somefile -s -y -z wrong=parameter");
@@ -71,6 +73,16 @@ public class CommandLineTest extends PersistitUnitTestCase {
 
         assertEquals(300, pmap.size());
 
+        final File directory = temp.newFolder("CommandLineTest");
+        status = management.launch("save -z threads=2 file=" + directory + " trees=persistit:CommandLineTest");
+        waitForCompletion(taskId(status));
+        pmap.clear();
+
+        status = management.launch("load -b threads=2 file=" + directory);
+        waitForCompletion(taskId(status));
+
+        assertEquals(300, pmap.size());
+
         status = management.launch("jquery -T -V -v page=1");
         waitForCompletion(taskId(status));
 
@@ -0,0 +1,155 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class ExchangeBatchTest extends PersistitUnitTestCase {
+
+    private final static int BATCHES = 200;
+
+    private final static int BATCH_SIZE = 500;
+
+    @Test
+    public void storeAndFetchBatches() throws Exception {
+        final Exchange ex = _persistit.getExchange(VOLUME_NAME, "ExchangeBatchTest", true);
+        for (int batch = 0; batch < BATCHES; batch++) {
+            final List<Key> keys = new ArrayList<Key>();
+            final List<Value> values = new ArrayList<Value>();
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                final int k = (batch % 10) * 1000000 + (batch / 10) * BATCH_SIZE + i;
+                keys.add(new Key(_persistit).append(k));
+                final Value value = new Value(_persistit);
+                value.put(RED_FOX + k);
+                values.add(value);
+            }
+            ex.store(keys, values);
+            assertEquals(keys.get(BATCH_SIZE - 1), ex.getKey());
+        }
+
+        for (int batch = 0; batch < BATCHES; batch++) {
+            final List<Key> keys = new ArrayList<Key>();
+            final List<Value> values = new ArrayList<Value>();
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                /*
+                 * Every other key was stored
+                 */
+                final int k = (batch % 10) * 1000000 + (batch / 10) * BATCH_SIZE + i * 2;
+                keys.add(new Key(_persistit).append(k));
+                values.add(new Value(_persistit));
+            }
+            ex.fetch(keys, values);
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                final int k = keys.get(i).reset().decodeInt();
+                final boolean stored = (k % 1000000) < (BATCHES / 10) * BATCH_SIZE;
+                assertEquals("Key " + k, stored, values.get(i).isDefined());
+                if (stored) {
+                    assertEquals(RED_FOX + k, values.get(i).getString());
+                }
+            }
+        }
+
+        ex.clear();
+        int count = 0;
+        while (ex.next(true)) {
+            count++;
+        }
+        assertEquals(BATCHES * BATCH_SIZE, count);
+    }
+
+    @Test
+    public void keysMustBeAscending() throws Exception {
+        final Exchange ex = _persistit.getExchange(VOLUME_NAME, "ExchangeBatchTest", true);
+        final List<Key> keys = new ArrayList<Key>();
+        final List<Value> values = new ArrayList<Value>();
+        for (final int k : new int[] { 1, 3, 2 }) {
+            keys.add(new Key(_persistit).append(k));
+            final Value value = new Value(_persistit);
+            value.put(k);
+            values.add(value);
+        }
+        try {
+            ex.store(keys, values);
+            fail("Expected IllegalArgumentException");
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            ex.fetch(keys.subList(0, 2), values);
+            fail("Expected IllegalArgumentException");
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+        ex.clear();
+        assertFalse("Nothing stored", ex.next(true));
+    }
+
+    @Test
+    public void concurrentBatchesInterleave() throws Exception {
+        final int threadCount = 4;
+        final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+        final Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            final int id = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        final Exchange ex = _persistit.getExchange(VOLUME_NAME, "ExchangeBatchTest", true);
+                        for (int batch = 0; batch < BATCHES / 4; batch++) {
+                            final List<Key> keys = new ArrayList<Key>();
+                            final List<Value> values = new ArrayList<Value>();
+                            for (int i = 0; i < BATCH_SIZE; i++) {
+                                final int k = (batch * BATCH_SIZE + i) * threadCount + id;
+                                keys.add(new Key(_persistit).append(k));
+                                final Value value = new Value(_persistit);
+                                value.put(createString(100));
+                                values.add(value);
+                            }
+                            ex.store(keys, values);
+                        }
+                    } catch (final Exception e) {
+                        failure.set(e);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        final Exchange ex = _persistit.getExchange(VOLUME_NAME, "ExchangeBatchTest", false);
+        int expected = 0;
+        while (ex.next(true)) {
+            assertEquals(expected++, ex.getKey().reset().decodeInt());
+        }
+        assertEquals(threadCount * (BATCHES / 4) * BATCH_SIZE, expected);
+        assertTrue(_persistit.getVolume(VOLUME_NAME).getTree("ExchangeBatchTest", false).getDepth() > 1);
+    }
+}
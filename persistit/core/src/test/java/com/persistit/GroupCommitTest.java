@@ -0,0 +1,110 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import com.persistit.Transaction.CommitPolicy;
+
+public class GroupCommitTest extends PersistitUnitTestCase {
+
+    private final static int THREADS = 8;
+
+    private final static int COMMITS = 200;
+
+    @Test
+    public void singleCommitterForcesAlone() throws Exception {
+        final JournalManager jman = _persistit.getJournalManager();
+        final Exchange ex = _persistit.getExchange(VOLUME_NAME, "GroupCommitTest", true);
+        final Transaction txn = _persistit.getTransaction();
+        for (int i = 0; i < COMMITS; i++) {
+            txn.begin();
+            try {
+                ex.getValue().put(RED_FOX);
+                ex.to(i).store();
+                txn.commit(CommitPolicy.GROUP);
+            } finally {
+                txn.end();
+            }
+        }
+        assertEquals(COMMITS, jman.getGroupCommitBatchCount());
+        assertEquals(1, jman.getGroupCommitMaximumBatchSize());
+        assertEquals(1.0, jman.getGroupCommitAverageBatchSize(), 0.0);
+        assertTrue(jman.getGroupCommitForceTime() > 0);
+    }
+
+    @Test
+    public void concurrentCommittersShareForce() throws Exception {
+        final JournalManager jman = _persistit.getJournalManager();
+        final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+        final Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            final int id = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        final Exchange ex = _persistit.getExchange(VOLUME_NAME, "GroupCommitTest" + id, true);
+                        final Transaction txn = _persistit.getTransaction();
+                        for (int i = 0; i < COMMITS; i++) {
+                            txn.begin();
+                            try {
+                                ex.getValue().put(i);
+                                ex.to(i).store();
+                                txn.commit(CommitPolicy.GROUP);
+                            } finally {
+                                txn.end();
+                            }
+                        }
+                    } catch (final Exception e) {
+                        failure.set(e);
+                    }
+                }
+            }, "GroupCommitTest" + t);
+        }
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        assertTrue(jman.getGroupCommitBatchCount() <= THREADS * COMMITS);
+        assertTrue(jman.getGroupCommitMaximumBatchSize() <= THREADS);
+        assertTrue(jman.getTotalCompletedCommits() >= THREADS * COMMITS);
+
+        /*
+         * Every GROUP commit must survive a crash without any further flush.
+         */
+        _persistit.crash();
+        _persistit = new Persistit(_config);
+        for (int t = 0; t < THREADS; t++) {
+            final Exchange ex = _persistit.getExchange(VOLUME_NAME, "GroupCommitTest" + t, false);
+            for (int i = 0; i < COMMITS; i++) {
+                ex.to(i).fetch();
+                assertEquals(i, ex.getValue().getInt());
+            }
+        }
+    }
+}
@@ -17,13 +17,16 @@
 package com.persistit;
 
 import com.persistit.exception.PersistitException;
+import com.persistit.exception.TaskEndedException;
 
 import org.junit.Ignore;
 import org.junit.Test;
 
 import java.io.PrintWriter;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -221,6 +224,113 @@ public class IntegrityCheckTest extends PersistitUnitTestCase {
         assertTrue(icheck.getFaults().length > 0);
     }
 
+    @Test
+    public void testParallelCheckMatchesSerial() throws Exception {
+        final Exchange ex = _persistit.getExchange(_volumeName, "deep", true);
+        deepStore(ex);
+        assertTrue(ex.getTree().getDepth() >= 3);
+
+        final IntegrityCheck serial = icheck();
+        serial.checkVolume(ex.getVolume());
+        final IntegrityCheck parallel = icheck();
+        parallel.setThreads(4);
+        parallel.checkVolume(ex.getVolume());
+
+        assertEquals(0, serial.getFaults().length);
+        assertEquals(0, parallel.getFaults().length);
+        assertEquals(serial.getIndexPageCount(), parallel.getIndexPageCount());
+        assertEquals(serial.getIndexByteCount(), parallel.getIndexByteCount());
+        assertEquals(serial.getDataPageCount(), parallel.getDataPageCount());
+        assertEquals(serial.getDataByteCount(), parallel.getDataByteCount());
+        assertEquals(serial.getLongRecordPageCount(), parallel.getLongRecordPageCount());
+        assertEquals(serial.getGarbagePageCount(), parallel.getGarbagePageCount());
+        assertEquals(1.0, parallel.getProgress(), 0.01);
+    }
+
+    @Test
+    public void testParallelCheckDetectsFaults() throws Exception {
+        final Exchange ex = _persistit.getExchange(_volumeName, "deep", true);
+        deepStore(ex);
+        corrupt1(ex);
+        corrupt3(ex);
+
+        final IntegrityCheck serial = icheck();
+        serial.checkTree(ex.getTree());
+        final IntegrityCheck parallel = icheck();
+        parallel.setThreads(16);
+        parallel.checkTree(ex.getTree());
+
+        assertTrue(serial.getFaults().length > 0);
+        assertEquals(serial.getFaults().length, parallel.getFaults().length);
+        assertTrue(serial.getIndexHoleCount() > 0);
+        assertEquals(serial.getIndexHoleCount(), parallel.getIndexHoleCount());
+        assertEquals(serial.getDataPageCount(), parallel.getDataPageCount());
+    }
+
+    @Test
+    public void testThrottledCheck() throws Exception {
+        deepStore(_persistit.getExchange(_volumeName, "deep", true));
+        _persistit.close();
+        _persistit = new Persistit(_config);
+        final Exchange ex = _persistit.getExchange(_volumeName, "deep", false);
+
+        final IntegrityCheck icheck = icheck();
+        icheck.setThreads(4);
+        icheck.setPagesPerSecond(200);
+        final long start = System.nanoTime();
+        icheck.checkTree(ex.getTree());
+        final long elapsed = System.nanoTime() - start;
+        assertEquals(0, icheck.getFaults().length);
+        /*
+         * One second's worth of pages may be read without delay
+         */
+        final long pages = icheck.getIndexPageCount() + icheck.getDataPageCount();
+        assertTrue(pages > 400);
+        assertTrue("Check was not throttled", elapsed >= (pages - 200) * 5000000L * 9 / 10);
+    }
+
+    @Test
+    public void testSuspendAndStopParallelCheck() throws Exception {
+        deepStore(_persistit.getExchange(_volumeName, "deep", true));
+        _persistit.close();
+        _persistit = new Persistit(_config);
+        final Tree tree = _persistit.getExchange(_volumeName, "deep", false).getTree();
+
+        final IntegrityCheck icheck = icheck();
+        icheck.setThreads(4);
+        icheck.setPagesPerSecond(100);
+        final AtomicReference<Throwable> result = new AtomicReference<Throwable>();
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    icheck.checkTree(tree);
+                } catch (final Throwable t) {
+                    result.set(t);
+                }
+            }
+        });
+        thread.start();
+        Thread.sleep(500);
+        icheck.suspend();
+        Thread.sleep(200);
+        /*
+         * Suspended workers must not hold the parent's monitor
+         */
+        final double progress;
+        synchronized (icheck) {
+            progress = icheck.getProgress();
+        }
+        Thread.sleep(300);
+        assertEquals(progress, icheck.getProgress(), 0.0);
+        assertTrue(thread.isAlive());
+
+        icheck.stop();
+        thread.join(10000);
+        assertFalse(thread.isAlive());
+        assertTrue("Unexpected " + result.get(), result.get() instanceof TaskEndedException);
+    }
+
     private String key(final int i) {
         return String.format("%05d%s", i, RED_FOX);
     }
@@ -237,6 +347,18 @@ public class IntegrityCheckTest extends PersistitUnitTestCase {
         }
     }
 
+    private void deepStore(final Exchange ex) throws PersistitException {
+        final StringBuilder sb = new StringBuilder();
+        while (sb.length() < 500) {
+            sb.append(RED_FOX);
+        }
+        ex.getValue().put(sb.toString());
+        for (int i = 0; i < SIZE * 20; i++) {
+            ex.to(key(i));
+            ex.store();
+        }
+    }
+
     private void waitForCleanupManager(final CleanupManager cm) throws InterruptedException {
         for (int wait = 0; wait < 60 && cm.getEnqueuedCount() > 0; wait++) {
             Thread.sleep(1000);
@@ -21,12 +21,16 @@ import com.persistit.CheckpointManager.Checkpoint;
 import com.persistit.JournalManager.PageNode;
 import com.persistit.TransactionPlayer.TransactionPlayerListener;
 import com.persistit.exception.PersistitException;
+import com.persistit.exception.PersistitIOException;
 import com.persistit.unit.ConcurrentUtil.ThrowingRunnable;
 import com.persistit.util.Util;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -664,6 +668,129 @@ public class JournalManagerTest extends PersistitUnitTestCase {
         disableSequencer();
     }
 
+    @Test
+    public void testCopyBackToSeveralVolumes() throws Exception {
+        final JournalManager jman = _persistit.getJournalManager();
+        jman.setAppendOnly(true);
+        final Exchange[] exchanges = new Exchange[3];
+        for (int i = 0; i < exchanges.length; i++) {
+            final Volume volume = _persistit.loadVolume(new VolumeSpecification(DATA_PATH + "/JournalManagerTest"
+                    + i, null, 16384, 1, 1000, 25000, true, false, false));
+            exchanges[i] = _persistit.getExchange(volume, "JournalManagerTest1", true);
+        }
+        /*
+         * Interleave updates so that page images of the volumes are
+         * interleaved in the journal
+         */
+        for (int i = 0; i < 5000; i++) {
+            final Exchange exchange = exchanges[i % exchanges.length];
+            exchange.getValue().put(RED_FOX + i);
+            exchange.clear().append(i).store();
+        }
+        _persistit.flush();
+        _persistit.flushStatistics();
+        _persistit.checkpoint();
+        assertTrue(jman.getPageMapSize() > exchanges.length);
+
+        final long copied = jman.getCopiedPageCount();
+        jman.setCopierThreads(exchanges.length);
+        jman.setAppendOnly(false);
+        jman.copyBack();
+        assertEquals(0, jman.getPageMapSize());
+        assertTrue(jman.getCopiedPageCount() > copied);
+
+        for (final Exchange exchange : exchanges) {
+            final Volume volume = exchange.getVolume();
+            _persistit.getBufferPool(volume.getPageSize()).invalidate(volume);
+        }
+        for (int i = 0; i < 5000; i++) {
+            final Exchange exchange = exchanges[i % exchanges.length];
+            exchange.clear().append(i).fetch();
+            assertEquals(RED_FOX + i, exchange.getValue().getString());
+        }
+    }
+
+    @Test
+    public void testConcurrentCopyBackToSeveralDevices() throws Exception {
+        final String reason = "Write Failure";
+        final JournalManager jman = _persistit.getJournalManager();
+        jman.setAppendOnly(true);
+        jman.setCopyDevicePerVolume(true);
+        final Set<String> writerThreads = Collections.synchronizedSet(new HashSet<String>());
+        final Exchange[] exchanges = new Exchange[3];
+        final ErrorInjectingFileChannel[] channels = new ErrorInjectingFileChannel[exchanges.length];
+        for (int i = 0; i < exchanges.length; i++) {
+            final Volume volume = _persistit.loadVolume(new VolumeSpecification(DATA_PATH + "/JournalManagerTest"
+                    + i, null, 16384, 1, 1000, 25000, true, false, false));
+            exchanges[i] = _persistit.getExchange(volume, "JournalManagerTest1", true);
+            channels[i] = new ErrorInjectingFileChannel() {
+                @Override
+                public int write(final ByteBuffer byteBuffer, final long position) throws IOException {
+                    writerThreads.add(Thread.currentThread().getName());
+                    return super.write(byteBuffer, position);
+                }
+            };
+            ((MediatedFileChannel) volume.getStorage().getChannel()).injectChannelForTests(channels[i]);
+        }
+        for (int i = 0; i < 5000; i++) {
+            final Exchange exchange = exchanges[i % exchanges.length];
+            exchange.getValue().put(RED_FOX + i);
+            exchange.clear().append(i).store();
+        }
+        _persistit.flush();
+        _persistit.flushStatistics();
+        _persistit.checkpoint();
+        jman.setCopierThreads(exchanges.length + 1);
+
+        /*
+         * Each volume is in its own group, so at least two of the failing
+         * volumes are written by copy writer threads. Their failures must be
+         * reported by copyBack and leave the pages in the page map.
+         */
+        for (final ErrorInjectingFileChannel channel : channels) {
+            channel.injectTestIOException(new IOException(reason), "w");
+        }
+        jman.setAppendOnly(false);
+        try {
+            jman.copyBack();
+            fail("Expected copyBack to fail");
+        } catch (final PersistitIOException e) {
+            assertEquals(reason, e.getCause().getMessage());
+        }
+        assertTrue(jman.getPageMapSize() > 0);
+        assertTrue("Copy writers not used: " + writerThreads, countCopyWriters(writerThreads) >= 2);
+
+        writerThreads.clear();
+        for (final ErrorInjectingFileChannel channel : channels) {
+            channel.injectTestIOException(null, "");
+        }
+        jman.copyBack();
+        assertEquals(0, jman.getPageMapSize());
+        assertTrue("Copy writers not used: " + writerThreads, countCopyWriters(writerThreads) >= 2);
+
+        for (final Exchange exchange : exchanges) {
+            final Volume volume = exchange.getVolume();
+            _persistit.getBufferPool(volume.getPageSize()).invalidate(volume);
+        }
+        for (int i = 0; i < 5000; i++) {
+            final Exchange exchange = exchanges[i % exchanges.length];
+            exchange.clear().append(i).fetch();
+            assertEquals(RED_FOX + i, exchange.getValue().getString());
+        }
+    }
+
+    private static int countCopyWriters(final Set<String> threadNames) {
+        int count = 0;
+        synchronized (threadNames) {
+            for (final String name : threadNames) {
+                if (name.startsWith("JOURNAL_COPY_WRITER")) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
     private int countKeys(final boolean mvcc) throws PersistitException {
         final Exchange exchange = _persistit.getExchange(_volumeName, "JournalManagerTest1", false);
         exchange.ignoreMVCCFetch(!mvcc);
@@ -0,0 +1,84 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.persistit.Key.Direction;
+
+public class KeyFilterTraverseTest extends PersistitUnitTestCase {
+
+    private final static String[] YEARS = { "2022", "2023", "2024", "2025", "2026" };
+
+    private final static int PREFIXES = 50;
+
+    private final static int ITEMS = 400;
+
+    private Exchange populate() throws Exception {
+        final Exchange ex = _persistit.getExchange(VOLUME_NAME, "KeyFilterTraverseTest", true);
+        for (int a = 0; a < PREFIXES; a++) {
+            for (final String year : YEARS) {
+                for (int n = 0; n < ITEMS; n++) {
+                    ex.getValue().put(n);
+                    ex.clear().append(a).append(year).append(n).store();
+                }
+            }
+        }
+        return ex;
+    }
+
+    @Test
+    public void skipScanVisitsAboutAsManyKeysAsMatch() throws Exception {
+        final Exchange ex = populate();
+        final KeyFilter filter = new KeyFilter("{*,\"2024\",100:200}").limit(3, 3);
+        for (final Direction direction : new Direction[] { Key.GT, Key.LT }) {
+            ex.clear();
+            int matches = 0;
+            long visited = 0;
+            while (ex.traverse(direction, filter, Integer.MAX_VALUE)) {
+                assertTrue(filter.selected(ex.getKey()));
+                assertEquals(ex.getKey().indexTo(2).decodeInt(), ex.getValue().getInt());
+                matches++;
+                visited += ex.getKeysVisitedDuringTraverse();
+            }
+            assertEquals(PREFIXES * 101, matches);
+            assertTrue("Visited " + visited, visited <= matches + PREFIXES);
+        }
+    }
+
+    @Test
+    public void keyPrefixFilterSelectsOnlyPrefixedKeys() throws Exception {
+        final Exchange ex = populate();
+        final Key prefix = new Key(_persistit).append(7).append("2024");
+        for (final KeyFilter filter : new KeyFilter[] { new KeyFilter(prefix), new KeyFilter(prefix, 1, 3),
+                new KeyFilter(prefix, 3, 3) }) {
+            for (final Direction direction : new Direction[] { Key.GT, Key.LT }) {
+                ex.clear();
+                int matches = 0;
+                while (ex.traverse(direction, filter, Integer.MAX_VALUE)) {
+                    assertEquals(filter + " " + direction, "{7,\"2024\"," + ex.getValue().getInt() + "}", ex
+                            .getKey().toString());
+                    matches++;
+                }
+                assertEquals(filter + " " + direction, ITEMS, matches);
+            }
+        }
+    }
+}
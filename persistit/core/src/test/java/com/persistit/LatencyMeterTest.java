@@ -0,0 +1,132 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.persistit.LatencyMeter.Histogram;
+import com.persistit.LatencyMeter.Snapshot;
+import com.persistit.Transaction.CommitPolicy;
+
+public class LatencyMeterTest extends PersistitUnitTestCase {
+
+    @Test
+    public void bucketsBoundValues() {
+        int previous = -1;
+        for (long value = 0; value < 1L << 40; value = value < 1000 ? value + 1 : value + value / 7) {
+            final int bucket = LatencyMeter.bucket(value);
+            assertTrue("Buckets must be ascending at " + value, bucket >= previous);
+            final long highest = LatencyMeter.highestValue(bucket);
+            assertTrue("Bucket must contain " + value, highest >= value);
+            assertTrue("Bucket for " + value + " is too wide", highest - value <= value / 32);
+            if (bucket > 0) {
+                assertTrue("Bucket must not overlap its predecessor", LatencyMeter.highestValue(bucket - 1) < value);
+            }
+            previous = bucket;
+        }
+        assertEquals(LatencyMeter.bucket(Long.MAX_VALUE), LatencyMeter.bucket(1L << 50));
+    }
+
+    @Test
+    public void percentiles() {
+        final Histogram histogram = new Histogram();
+        for (long value = 1; value <= 10000; value++) {
+            histogram.record(value * 1000);
+        }
+        final Snapshot snapshot = histogram.snapshot(false);
+        assertEquals(10000, snapshot.getCount());
+        assertEquals(5000500.0, snapshot.getMean(), 0.001);
+        assertEquals(10000000, snapshot.getMaximum());
+        assertNear(5000000, snapshot.getValueAtPercentile(50));
+        assertNear(9900000, snapshot.getValueAtPercentile(99));
+        assertNear(9990000, snapshot.getValueAtPercentile(99.9));
+        assertEquals(10000000, snapshot.getValueAtPercentile(100));
+
+        assertEquals(10000, histogram.snapshot(true).getCount());
+        final Snapshot empty = histogram.snapshot(false);
+        assertEquals(0, empty.getCount());
+        assertEquals(0, empty.getMaximum());
+        assertEquals(0, empty.getValueAtPercentile(99));
+    }
+
+    @Test
+    public void disabledMeterRecordsNothing() throws Exception {
+        final LatencyMeter meter = _persistit.getLatencyMeter();
+        meter.setEnabled(false);
+        meter.reset();
+        final Exchange ex = _persistit.getExchange("persistit", "LatencyMeterTest", true);
+        ex.getValue().put("abc");
+        ex.to(1).store();
+        ex.fetch();
+        for (final String operation : LatencyMeter.OPERATIONS) {
+            assertEquals(0, meter.count(operation));
+        }
+    }
+
+    @Test
+    public void operationsAreRecorded() throws Exception {
+        final Exchange ex = _persistit.getExchange("persistit", "LatencyMeterTest", true);
+        final LatencyMeter meter = _persistit.getLatencyMeter();
+        meter.setEnabled(true);
+        meter.reset();
+        final Transaction txn = ex.getTransaction();
+        for (int i = 0; i < 100; i++) {
+            txn.begin();
+            try {
+                ex.getValue().put("value" + i);
+                ex.to(i).store();
+                txn.commit(CommitPolicy.HARD);
+            } finally {
+                txn.end();
+            }
+        }
+        ex.to(Key.BEFORE);
+        while (ex.next()) {
+            ex.fetch();
+        }
+        ex.to(50).remove();
+
+        assertEquals(100, meter.count("store"));
+        assertEquals(100, meter.count("fetch"));
+        assertTrue(meter.count("traverse") >= 101);
+        assertTrue(meter.count("remove") >= 1);
+        assertEquals(100, meter.count("commit"));
+
+        _persistit.checkpoint();
+        assertTrue(meter.count("writePage") > 0);
+        assertTrue(meter.count("forceJournal") > 0);
+        assertTrue(meter.maximum("commit") >= meter.percentile("commit", 50));
+        assertTrue(meter.mean("commit") > 0);
+
+        final String dump = _persistit.getManagement().execute("latency -r");
+        for (final String operation : LatencyMeter.OPERATIONS) {
+            assertTrue("Dump must show " + operation, dump.contains(operation));
+        }
+        assertEquals(0, meter.count("store"));
+
+        _persistit.getManagement().execute("latency -d");
+        assertFalse(meter.isEnabled());
+    }
+
+    private static void assertNear(final long expected, final long actual) {
+        assertTrue("Expected about " + expected + " but was " + actual, Math.abs(actual - expected) <= expected / 32);
+    }
+}
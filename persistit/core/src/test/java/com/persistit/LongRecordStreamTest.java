@@ -0,0 +1,223 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.persistit.Transaction.CommitPolicy;
+import com.persistit.exception.ConversionException;
+
+public class LongRecordStreamTest extends PersistitUnitTestCase {
+
+    private final static int SIZE = 3 * 1024 * 1024 + 17;
+
+    private static byte[] document(final int size, final long seed) {
+        final byte[] bytes = new byte[size];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static void write(final OutputStream os, final byte[] bytes) throws IOException {
+        for (int offset = 0; offset < bytes.length; offset += 7777) {
+            os.write(bytes, offset, Math.min(7777, bytes.length - offset));
+        }
+        os.close();
+    }
+
+    private static byte[] readFully(final InputStream is, final int size) throws IOException {
+        final byte[] bytes = new byte[size];
+        int offset = 0;
+        int n;
+        while ((n = is.read(bytes, offset, Math.min(5000, size - offset))) > 0) {
+            offset += n;
+        }
+        assertEquals(size, offset);
+        assertEquals(-1, is.read());
+        return bytes;
+    }
+
+    @Test
+    public void streamedValueMatchesStoredValue() throws Exception {
+        final Exchange ex = _persistit.getExchange(VOLUME_NAME, "LongRecordStreamTest", true);
+        final byte[] doc = document(SIZE, 1);
+
+        write(ex.to("streamed").storeOutputStream(), doc);
+        assertTrue(ex.isValueLongRecord());
+        ex.fetch();
+        assertArrayEquals(doc, ex.getValue().getByteArray());
+
+        ex.getValue().put(doc);
+        ex.to("stored").store();
+        final LongRecordInputStream is = ex.fetchInputStream();
+        assertEquals(SIZE, is.getLength());
+        assertArrayEquals(doc, readFully(is, SIZE));
+        is.close();
+
+        final byte[] small = document(50, 2);
+        write(ex.to("small").storeOutputStream(), small);
+        assertFalse(ex.isValueLongRecord());
+        assertArrayEquals(small, readFully(ex.fetchInputStream(), small.length));
+
+        assertNull(ex.to("missing").fetchInputStream());
+        ex.getValue().put(RED_FOX);
+        ex.to("string").store();
+        try {
+            ex.fetchInputStream();
+            fail("Expected ConversionException");
+        } catch (final ConversionException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void rangeAccess() throws Exception {
+        final Exchange ex = _persistit.getExchange(VOLUME_NAME, "LongRecordStreamTest", true);
+        final byte[] doc = document(SIZE, 3);
+        write(ex.to("doc").storeOutputStream(), doc);
+
+        final LongRecordInputStream is = ex.fetchInputStream();
+        final int offset = SIZE / 2 + 123;
+        assertEquals(offset, is.skip(offset));
+        assertEquals(offset, is.getPosition());
+        is.mark(0);
+        final byte[] range = new byte[50000];
+        assertEquals(range.length, is.read(range));
+        for (int i = 0; i < range.length; i++) {
+            assertEquals(doc[offset + i], range[i]);
+        }
+        is.reset();
+        assertEquals(doc[offset] & 0xFF, is.read());
+        is.close();
+    }
+
+    @Test
+    public void streamSurvivesConcurrentReplacement() throws Exception {
+        final Exchange ex = _persistit.getExchange(VOLUME_NAME, "LongRecordStreamTest", true);
+        final byte[] doc = document(SIZE, 4);
+        write(ex.to("doc").storeOutputStream(), doc);
+
+        final LongRecordInputStream is = ex.fetchInputStream();
+        final byte[] head = new byte[1000];
+        assertEquals(head.length, is.read(head));
+        /*
+         * Replace and then churn enough pages that the old chain would be
+         * reused if it had been deallocated.
+         */
+        ex.getValue().put(RED_FOX);
+        ex.store();
+        write(ex.to("other").storeOutputStream(), document(SIZE, 5));
+        final byte[] rest = readFully(is, SIZE - head.length);
+        is.close();
+        for (int i = 0; i < rest.length; i++) {
+            assertEquals(doc[head.length + i], rest[i]);
+        }
+
+        final IntegrityCheck icheck = new IntegrityCheck(_persistit);
+        icheck.checkVolume(_persistit.getVolume(VOLUME_NAME));
+        assertEquals("Corrupt volume", 0, icheck.getFaults().length);
+    }
+
+    @Test
+    public void pinnedChainIsNotLeakedByShutdown() throws Exception {
+        Exchange ex = _persistit.getExchange(VOLUME_NAME, "LongRecordStreamTest", true);
+        final byte[] doc = document(SIZE, 7);
+        write(ex.to("doc").storeOutputStream(), doc);
+
+        final LongRecordInputStream is = ex.fetchInputStream();
+        assertEquals(doc[0] & 0xFF, is.read());
+        ex.getValue().put(RED_FOX);
+        ex.store();
+        ex.prune();
+        final long pages = ex.getVolume().getNextAvailablePage();
+        /*
+         * Shut down while the removed chain is still being read. Its pages
+         * must be reused after restart.
+         */
+        _persistit.close();
+        _persistit = new Persistit(_config);
+        ex = _persistit.getExchange(VOLUME_NAME, "LongRecordStreamTest", false);
+        write(ex.to("other").storeOutputStream(), document(SIZE, 8));
+        assertTrue("Pinned chain was leaked", ex.getVolume().getNextAvailablePage() - pages < 10);
+        is.close();
+
+        final IntegrityCheck icheck = new IntegrityCheck(_persistit);
+        icheck.checkVolume(_persistit.getVolume(VOLUME_NAME));
+        assertEquals("Corrupt volume", 0, icheck.getFaults().length);
+    }
+
+    @Test
+    public void rollbackDeallocatesUnclosedStream() throws Exception {
+        final Exchange ex = _persistit.getExchange(VOLUME_NAME, "LongRecordStreamTest", true);
+        final byte[] doc = document(SIZE, 9);
+        final Transaction txn = ex.getTransaction();
+        final OutputStream os;
+        txn.begin();
+        try {
+            os = ex.to("doc").storeOutputStream();
+            os.write(doc);
+            txn.rollback();
+        } finally {
+            txn.end();
+        }
+        try {
+            os.write(0);
+            fail("Expected IOException");
+        } catch (final IOException e) {
+            // expected
+        }
+        final long pages = ex.getVolume().getNextAvailablePage();
+        write(ex.to("doc").storeOutputStream(), doc);
+        assertTrue("Abandoned chain was leaked", ex.getVolume().getNextAvailablePage() - pages < 10);
+        assertArrayEquals(doc, readFully(ex.fetchInputStream(), SIZE));
+
+        final IntegrityCheck icheck = new IntegrityCheck(_persistit);
+        icheck.checkVolume(_persistit.getVolume(VOLUME_NAME));
+        assertEquals("Corrupt volume", 0, icheck.getFaults().length);
+    }
+
+    @Test
+    public void transactionalStreamSurvivesCrash() throws Exception {
+        final Exchange ex = _persistit.getExchange(VOLUME_NAME, "LongRecordStreamTest", true);
+        final byte[] doc = document(SIZE, 6);
+        final Transaction txn = ex.getTransaction();
+        txn.begin();
+        try {
+            write(ex.to("doc").storeOutputStream(), doc);
+            txn.commit(CommitPolicy.HARD);
+        } finally {
+            txn.end();
+        }
+        _persistit.crash();
+        _persistit = new Persistit(_config);
+        final Exchange ex2 = _persistit.getExchange(VOLUME_NAME, "LongRecordStreamTest", false);
+        final LongRecordInputStream is = ex2.to("doc").fetchInputStream();
+        assertArrayEquals(doc, readFully(is, SIZE));
+        is.close();
+    }
+}
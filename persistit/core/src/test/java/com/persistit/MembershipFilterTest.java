@@ -0,0 +1,203 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.persistit.Transaction.CommitPolicy;
+
+public class MembershipFilterTest extends PersistitUnitTestCase {
+
+    private final static String TREE_NAME = "MembershipFilterTest";
+
+    private final static int COUNT = 10000;
+
+    @Test
+    public void filterHasNoFalseNegatives() {
+        final MembershipFilter filter = new MembershipFilter(COUNT);
+        final Key key = new Key(_persistit);
+        for (int i = 0; i < COUNT; i++) {
+            filter.add(key.to(i));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < COUNT; i++) {
+            assertTrue(filter.mightContain(key.to(i)));
+            if (filter.mightContain(key.to(COUNT + i))) {
+                falsePositives++;
+            }
+        }
+        assertTrue("Too many false positives: " + falsePositives, falsePositives < COUNT * 3
+                * MembershipFilter.FALSE_POSITIVE_RATE);
+        assertFalse(filter.isSaturated());
+        filter.add(key.to(-1));
+        assertTrue(filter.isSaturated());
+
+        final MembershipFilter copy = MembershipFilter.fromBytes(MembershipFilter.toBytes(filter));
+        assertEquals(filter.toString(), copy.toString());
+        for (int i = 0; i < COUNT; i++) {
+            assertEquals(filter.mightContain(key.to(COUNT + i)), copy.mightContain(key.to(COUNT + i)));
+        }
+        assertNull(MembershipFilter.fromBytes(MembershipFilter.toBytes(null)));
+    }
+
+    @Test
+    public void fetchSkipsMissingKeys() throws Exception {
+        final Exchange ex = _persistit.getExchange(VOLUME_NAME, TREE_NAME, true);
+        store(ex, 0, COUNT);
+        ex.getTree().setMembershipFilterEnabled(true);
+        assertTrue(ex.getTree().isMembershipFilterEnabled());
+        awaitFilter(ex);
+
+        store(ex, COUNT, COUNT + 100);
+        for (int i = 0; i < COUNT + 100; i++) {
+            assertTrue(ex.to(i).isValueDefined());
+            assertEquals("value" + i, ex.fetch().getValue().getString());
+        }
+        final MembershipFilter filter = ex.getTree().getMembershipFilter();
+        int rejected = 0;
+        for (int i = 0; i < COUNT; i++) {
+            ex.clear().append("missing").append(i);
+            if (!filter.mightContain(ex.getKey())) {
+                rejected++;
+            }
+            assertFalse(ex.isValueDefined());
+            assertFalse(ex.fetch().getValue().isDefined());
+        }
+        assertTrue("Too few keys rejected: " + rejected, rejected > COUNT * 9 / 10);
+    }
+
+    @Test
+    public void filterSeesUncommittedStores() throws Exception {
+        final Exchange ex = _persistit.getExchange(VOLUME_NAME, TREE_NAME, true);
+        ex.getTree().setMembershipFilterEnabled(true);
+        awaitFilter(ex);
+        final Transaction txn = _persistit.getTransaction();
+        txn.begin();
+        try {
+            store(ex, 0, 100);
+            for (int i = 0; i < 100; i++) {
+                assertTrue(ex.to(i).isValueDefined());
+            }
+            txn.commit(CommitPolicy.SOFT);
+        } finally {
+            txn.end();
+        }
+        for (int i = 0; i < 100; i++) {
+            assertTrue(ex.to(i).isValueDefined());
+        }
+    }
+
+    @Test
+    public void removeKeyRangeRebuildsFilter() throws Exception {
+        final Exchange ex = _persistit.getExchange(VOLUME_NAME, TREE_NAME, true);
+        store(ex, 0, COUNT);
+        ex.getTree().setMembershipFilterEnabled(true);
+        final MembershipFilter before = awaitFilter(ex);
+        ex.to(COUNT / 2).remove();
+        assertFalse(ex.isValueDefined());
+        assertTrue(ex.getTree().getMembershipFilter() == before);
+
+        ex.removeAll();
+        assertNull(ex.getTree().getMembershipFilter());
+        final MembershipFilter after = awaitFilter(ex);
+        assertTrue(after != before);
+        for (int i = 0; i < COUNT; i++) {
+            assertFalse(ex.to(i).isValueDefined());
+        }
+        assertEquals(0, after.getEstimatedCount());
+        store(ex, 0, 1);
+        assertTrue(ex.to(0).isValueDefined());
+    }
+
+    @Test
+    public void filterSurvivesRestart() throws Exception {
+        Exchange ex = _persistit.getExchange(VOLUME_NAME, TREE_NAME, true);
+        store(ex, 0, COUNT);
+        ex.getTree().setMembershipFilterEnabled(true);
+        final String saved = awaitFilter(ex).toString();
+        _persistit.close();
+
+        _persistit = new Persistit(_config);
+        ex = _persistit.getExchange(VOLUME_NAME, TREE_NAME, false);
+        assertTrue(ex.getTree().isMembershipFilterEnabled());
+        final MembershipFilter loaded = ex.getTree().getMembershipFilter();
+        assertNotNull(loaded);
+        assertEquals(saved, loaded.toString());
+        final Transaction txn = _persistit.getTransaction();
+        txn.begin();
+        try {
+            store(ex, COUNT, COUNT + 1);
+            txn.commit(CommitPolicy.HARD);
+        } finally {
+            txn.end();
+        }
+
+        /*
+         * The saved filter does not contain the key stored above. Recovery
+         * must add it when the committed transaction is replayed.
+         */
+        safeCrashAndRestoreProperties();
+        ex = _persistit.getExchange(VOLUME_NAME, TREE_NAME, false);
+        assertTrue(ex.getTree().isMembershipFilterEnabled());
+        assertTrue(ex.to(COUNT).isValueDefined());
+        awaitFilter(ex);
+        assertTrue(ex.to(COUNT).isValueDefined());
+
+        ex.getTree().setMembershipFilterEnabled(false);
+        _persistit.close();
+        _persistit = new Persistit(_config);
+        ex = _persistit.getExchange(VOLUME_NAME, TREE_NAME, false);
+        assertFalse(ex.getTree().isMembershipFilterEnabled());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void temporaryVolumeRejected() throws Exception {
+        final Volume volume = _persistit.createTemporaryVolume();
+        _persistit.getExchange(volume, TREE_NAME, true).getTree().setMembershipFilterEnabled(true);
+    }
+
+    private void store(final Exchange ex, final int from, final int to) throws Exception {
+        for (int i = from; i < to; i++) {
+            ex.getValue().put("value" + i);
+            ex.to(i).store();
+        }
+    }
+
+    /**
+     * Look up a key, which schedules the filter to be built, and wait for the
+     * cleanup manager to build it.
+     */
+    private MembershipFilter awaitFilter(final Exchange ex) throws Exception {
+        final long expires = System.nanoTime() + 10_000_000_000L;
+        while (System.nanoTime() < expires) {
+            ex.clear().append("probe").isValueDefined();
+            final MembershipFilter filter = ex.getTree().getMembershipFilter();
+            if (filter != null) {
+                return filter;
+            }
+            _persistit.getCleanupManager().kick();
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Membership filter was not built");
+    }
+}
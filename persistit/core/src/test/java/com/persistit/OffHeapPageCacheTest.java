@@ -0,0 +1,92 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Properties;
+
+import org.junit.Test;
+
+public class OffHeapPageCacheTest extends PersistitUnitTestCase {
+
+    private final static int RECORDS = 20000;
+
+    @Override
+    protected Properties doGetProperties(final boolean cleanup) {
+        final Properties p = getProperties(cleanup);
+        p.setProperty("buffer.offheap.16384", "16M");
+        return p;
+    }
+
+    @Test
+    public void configuration() throws Exception {
+        assertEquals(16 * Configuration.MEGA, _config.getBufferPoolMap().get(16384).getOffHeapMemory());
+        final OffHeapPageCache cache = _persistit.getVolume(VOLUME_NAME).getPool().getOffHeapCache();
+        assertNotNull(cache);
+        assertEquals(1024, cache.getSlotCount());
+        assertEquals(16384, cache.getPageSize());
+    }
+
+    @Test
+    public void evictedPagesAreServedFromOffHeapCache() throws Exception {
+        final Exchange ex = _persistit.getExchange(VOLUME_NAME, "OffHeapPageCacheTest", true);
+        for (int i = 0; i < RECORDS; i++) {
+            ex.getValue().put(RED_FOX + i);
+            ex.to(i).store();
+        }
+        final OffHeapPageCache cache = ex.getVolume().getPool().getOffHeapCache();
+        assertTrue("Pages should have been evicted to the off-heap cache", cache.getStoreCount() > 0);
+
+        final long hits = cache.getHitCount();
+        for (int i = 0; i < RECORDS; i++) {
+            ex.to(i).fetch();
+            assertEquals(RED_FOX + i, ex.getValue().getString());
+        }
+        assertTrue("Pages should have been loaded from the off-heap cache", cache.getHitCount() > hits);
+
+        ex.removeAll();
+        for (int i = 0; i < RECORDS; i += 100) {
+            assertFalse(ex.to(i).isValueDefined());
+        }
+    }
+
+    @Test
+    public void invalidateDiscardsImages() throws Exception {
+        final Volume volume = _persistit.getVolume(VOLUME_NAME);
+        final BufferPool pool = volume.getPool();
+        final OffHeapPageCache cache = new OffHeapPageCache(Configuration.MEGA, 16384);
+
+        final Buffer buffer = pool.get(volume, 1, true, true);
+        try {
+            cache.store(buffer);
+            assertTrue(cache.take(buffer));
+            assertFalse("Images are removed when taken", cache.take(buffer));
+            cache.store(buffer);
+            cache.invalidate(volume);
+            assertFalse(cache.take(buffer));
+            cache.store(buffer);
+            cache.remove(volume, 1);
+            assertFalse(cache.take(buffer));
+        } finally {
+            buffer.release();
+        }
+    }
+}
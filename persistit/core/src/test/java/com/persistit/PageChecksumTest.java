@@ -0,0 +1,122 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.RandomAccessFile;
+import java.util.Random;
+import java.util.zip.Checksum;
+
+import org.junit.Test;
+
+import com.persistit.exception.CorruptVolumeException;
+import com.persistit.util.Util;
+
+public class PageChecksumTest extends PersistitUnitTestCase {
+
+    private final static int RECORDS = 5000;
+
+    @Test
+    public void crc32c() throws Exception {
+        final byte[] check = "123456789".getBytes("US-ASCII");
+        final Checksum portable = new PageChecksum.Crc32c();
+        portable.update(check, 0, check.length);
+        assertEquals(0xE3069283L, portable.getValue());
+
+        final byte[] page = new byte[16384];
+        new Random(1).nextBytes(page);
+        final Checksum checksum = PageChecksum.newChecksum();
+        checksum.update(page, 0, page.length);
+        portable.reset();
+        portable.update(page, 0, page.length);
+        assertEquals(portable.getValue(), checksum.getValue());
+    }
+
+    @Test
+    public void verifyPageImage() throws Exception {
+        final byte[] page = new byte[16384];
+        assertTrue("Unwritten pages carry no checksum", PageChecksum.verify(page, 0, page.length));
+        new Random(2).nextBytes(page);
+        Util.putInt(page, Buffer.CHECKSUM_OFFSET, PageChecksum.compute(page, 0, page.length));
+        assertTrue(PageChecksum.verify(page, 0, page.length));
+        page[page.length / 2]++;
+        assertTrue(!PageChecksum.verify(page, 0, page.length));
+    }
+
+    @Test
+    public void corruptPageIsDetected() throws Exception {
+        final Exchange ex = _persistit.getExchange(VOLUME_NAME, "PageChecksumTest", true);
+        ex.getValue().put(RED_FOX);
+        for (int i = 0; i < RECORDS; i++) {
+            ex.to(i).store();
+        }
+        final long page = ex.to(0).fetchBufferCopy(0).getPageAddress();
+        drainJournal();
+
+        final Volume volume = ex.getVolume();
+        volume.getPool().evict(volume);
+        ex.to(0).fetch();
+        assertEquals(RED_FOX, ex.getValue().getString());
+        assertEquals(0, volume.getStatistics().getChecksumFailureCounter());
+
+        final ScrubTask clean = scrub();
+        assertEquals(0, clean.getFaultCount());
+        assertTrue(clean.getVerifiedCount() + clean.getSkippedCount() > 0);
+
+        volume.getPool().evict(volume);
+        final long position = page * volume.getPageSize() + volume.getPageSize() - 16;
+        flip(volume, position);
+        try {
+            final ScrubTask dirty = scrub();
+            assertEquals(dirty.getFaults().toString(), 1, dirty.getFaultCount());
+            try {
+                ex.to(0).fetch();
+                fail("Expected CorruptVolumeException");
+            } catch (final CorruptVolumeException e) {
+                // expected
+            }
+            assertTrue(volume.getStatistics().getChecksumFailureCounter() > 0);
+        } finally {
+            flip(volume, position);
+        }
+        ex.to(0).fetch();
+        assertEquals(RED_FOX, ex.getValue().getString());
+    }
+
+    private ScrubTask scrub() throws Exception {
+        final ScrubTask task = new ScrubTask(_persistit, TreeSelector.parseSelector(VOLUME_NAME, false, '\\'),
+                1000000, 1);
+        task.setup(1, "scrub", "PageChecksumTest", 0, Task.LOG_NORMAL);
+        task.runTask();
+        return task;
+    }
+
+    private void flip(final Volume volume, final long position) throws Exception {
+        final RandomAccessFile file = new RandomAccessFile(volume.getAbsoluteFile(), "rw");
+        try {
+            file.seek(position);
+            final int b = file.read();
+            file.seek(position);
+            file.write(b ^ 0xFF);
+        } finally {
+            file.close();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Properties;
+
+import org.junit.Test;
+
+import com.persistit.VolumeSpecification.Compression;
+import com.persistit.exception.InvalidVolumeSpecificationException;
+
+public class PageCompressionTest extends PersistitUnitTestCase {
+
+    private final static int RECORDS = 5000;
+
+    @Override
+    protected Properties doGetProperties(final boolean cleanup) {
+        final Properties p = getProperties(cleanup);
+        p.setProperty("volume.1", p.getProperty("volume.1") + ",compression:deflate");
+        return p;
+    }
+
+    @Test
+    public void specification() throws Exception {
+        final VolumeSpecification vs = new VolumeSpecification("/tmp/x,pageSize:16K,compression:deflate");
+        assertEquals(Compression.DEFLATE, vs.getCompression());
+        assertTrue(vs.toString().contains("compression:deflate"));
+        assertEquals(vs, new VolumeSpecification(vs.toString()));
+        assertEquals(Compression.NONE, new VolumeSpecification("/tmp/x,pageSize:16K").getCompression());
+        try {
+            new VolumeSpecification("/tmp/x,pageSize:16K,compression:lzma");
+            fail("Expected InvalidVolumeSpecificationException");
+        } catch (final InvalidVolumeSpecificationException e) {
+            // expected
+        }
+        assertEquals(Compression.DEFLATE, _persistit.getVolume(VOLUME_NAME).getSpecification().getCompression());
+    }
+
+    @Test
+    public void compressorRoundTrip() throws Exception {
+        final int bufferSize = 16384;
+        final byte[] page = new byte[bufferSize];
+        for (int i = 0; i < 4000; i++) {
+            page[i] = (byte) "{\"name\":\"value\"}".charAt(i % 16);
+        }
+        for (int i = bufferSize - 2000; i < bufferSize; i++) {
+            page[i] = (byte) (i % 7);
+        }
+        final PageCompressor compressor = new PageCompressor();
+        final int size = compressor.compress(page, bufferSize, 4000, 2000);
+        assertTrue(size > 0 && size < 6000);
+
+        final byte[] copy = new byte[bufferSize];
+        System.arraycopy(compressor.getCompressedBytes(), 0, copy, 0, size);
+        assertEquals(6000, new PageCompressor().expand(copy, 0, size, bufferSize));
+        assertArrayEquals(Arrays.copyOfRange(page, 0, 4000), Arrays.copyOfRange(copy, 0, 4000));
+        assertArrayEquals(Arrays.copyOfRange(page, bufferSize - 2000, bufferSize),
+                Arrays.copyOfRange(copy, 4000, 6000));
+
+        final byte[] random = new byte[bufferSize];
+        new java.util.Random(1).nextBytes(random);
+        assertEquals("Incompressible payloads are stored as-is", -1, compressor.compress(random, bufferSize, 0,
+                bufferSize));
+    }
+
+    @Test
+    public void compressedPageImages() throws Exception {
+        final Exchange ex = _persistit.getExchange(VOLUME_NAME, "PageCompressionTest", true);
+        for (int i = 0; i < RECORDS; i++) {
+            ex.getValue().put(json(i));
+            ex.to(i).store();
+        }
+        final String longValue = createString(100000);
+        ex.getValue().put(longValue);
+        ex.to("long").store();
+        _persistit.checkpoint();
+
+        final Volume volume = ex.getVolume();
+        final VolumeStatistics stats = volume.getStatistics();
+        assertTrue(stats.getCompressedPageCounter() > 0);
+        assertTrue("Expected at least 2x compression: " + stats.getCompressedByteCounter() + "/"
+                + stats.getUncompressedByteCounter(),
+                stats.getCompressedByteCounter() * 2 < stats.getUncompressedByteCounter());
+
+        volume.getPool().evict(volume);
+        verify(ex, longValue);
+
+        drainJournal();
+        volume.getPool().evict(volume);
+        verify(ex, longValue);
+    }
+
+    @Test
+    public void recoverCompressedPageImages() throws Exception {
+        final String longValue = createString(100000);
+        final Transaction txn = _persistit.getTransaction();
+        txn.begin();
+        try {
+            final Exchange ex = _persistit.getExchange(VOLUME_NAME, "PageCompressionTest", true);
+            for (int i = 0; i < RECORDS; i++) {
+                ex.getValue().put(json(i));
+                ex.to(i).store();
+            }
+            ex.getValue().put(longValue);
+            ex.to("long").store();
+            txn.commit();
+        } finally {
+            txn.end();
+        }
+        _persistit.checkpoint();
+        safeCrashAndRestoreProperties();
+        _persistit.initialize();
+        verify(_persistit.getExchange(VOLUME_NAME, "PageCompressionTest", false), longValue);
+    }
+
+    private void verify(final Exchange ex, final String longValue) throws Exception {
+        for (int i = 0; i < RECORDS; i++) {
+            ex.to(i).fetch();
+            assertEquals(json(i), ex.getValue().getString());
+        }
+        ex.to("long").fetch();
+        assertEquals(longValue, ex.getValue().getString());
+    }
+
+    private static String json(final int i) {
+        return "{\"id\":" + i + ",\"name\":\"user" + i + "\",\"status\":\"active\",\"roles\":[\"reader\",\"writer\"]}";
+    }
+}
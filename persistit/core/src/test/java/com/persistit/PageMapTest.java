@@ -0,0 +1,117 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import com.persistit.JournalManager.PageNode;
+
+public class PageMapTest {
+
+    @Test
+    public void behavesLikeHashMap() {
+        final PageMap map = new PageMap();
+        final Map<PageNode, PageNode> reference = new HashMap<PageNode, PageNode>();
+        final Random random = new Random(1);
+        for (int i = 0; i < 200000; i++) {
+            final PageNode pn = new PageNode(random.nextInt(4) + 1, random.nextInt(20000), i, i);
+            switch (random.nextInt(3)) {
+            case 0:
+            case 1:
+                assertSame(reference.put(pn, pn), map.put(pn, pn));
+                break;
+            default:
+                assertSame(reference.remove(pn), map.remove(pn));
+            }
+        }
+        assertEquals(reference.size(), map.size());
+        assertEquals(reference, map);
+        for (final PageNode pn : reference.values()) {
+            assertSame(pn, map.get(pn.getVolumeHandle(), pn.getPageAddress()));
+        }
+        int removed = 0;
+        for (final Iterator<PageNode> iterator = map.values().iterator(); iterator.hasNext();) {
+            if (iterator.next().getPageAddress() % 2 == 0) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        assertEquals(reference.size() - removed, map.size());
+        assertNull(map.get(5, 0));
+        map.clear();
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void lookupsConcurrentWithUpdates() throws Exception {
+        final int pages = 50000;
+        final PageMap map = new PageMap();
+        /*
+         * Even pages are always present; odd pages come and go.
+         */
+        for (int page = 0; page < pages; page += 2) {
+            final PageNode pn = new PageNode(1, page, page, 0);
+            map.put(pn, pn);
+        }
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicReference<String> failure = new AtomicReference<String>();
+        final Thread[] readers = new Thread[4];
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    final Random random = new Random();
+                    while (!done.get()) {
+                        final int page = random.nextInt(pages) & ~1;
+                        final PageNode pn = map.get(1, page);
+                        if (pn == null || pn.getPageAddress() != page) {
+                            failure.set("Missing page " + page);
+                            return;
+                        }
+                    }
+                }
+            });
+            readers[r].start();
+        }
+        final Random random = new Random(2);
+        for (int i = 0; i < 1000000; i++) {
+            final PageNode pn = new PageNode(1 + random.nextInt(2), random.nextInt(pages) | 1, i, i);
+            if (random.nextBoolean()) {
+                map.put(pn, pn);
+            } else {
+                map.remove(pn);
+            }
+        }
+        done.set(true);
+        for (final Thread reader : readers) {
+            reader.join();
+        }
+        assertNull(failure.get(), failure.get());
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Properties;
+
+import org.junit.Test;
+
+import com.persistit.Management.RecoveryInfo;
+
+public class ParallelRecoveryTest extends PersistitUnitTestCase {
+
+    private final static int TREES = 6;
+
+    private final static int TRANSACTIONS = 3000;
+
+    private final static int THREADS = 4;
+
+    @Override
+    protected Properties doGetProperties(final boolean cleanup) {
+        final Properties p = getProperties(cleanup);
+        p.setProperty("recoverythreads", Integer.toString(THREADS));
+        return p;
+    }
+
+    @Test
+    public void parallelReplayPreservesPerTreeOrder() throws Exception {
+        final String longValue = createString(20000);
+        final Exchange[] exchanges = new Exchange[TREES];
+        for (int t = 0; t < TREES; t++) {
+            exchanges[t] = _persistit.getExchange(VOLUME_NAME, "ParallelRecoveryTest" + t, true);
+        }
+        final Transaction txn = _persistit.getTransaction();
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            txn.begin();
+            try {
+                final Exchange ex = exchanges[i % TREES];
+                /*
+                 * The "last" key is overwritten by every transaction on the
+                 * tree, so its recovered value reveals replay order.
+                 */
+                ex.getValue().put(i);
+                ex.clear().append("last").store();
+                ex.clear().append("key").append(i).store();
+                if (i % 7 == 0 && i > TREES) {
+                    ex.clear().append("key").append(i - TREES).remove();
+                }
+                if (i % 50 == 0) {
+                    final Exchange other = exchanges[(i + 1) % TREES];
+                    other.getValue().put(-i);
+                    other.clear().append("cross").append(i).store();
+                }
+                if (i % 500 == 0) {
+                    ex.getValue().put(longValue);
+                    ex.clear().append("long").append(i).store();
+                }
+                txn.commit();
+            } finally {
+                txn.end();
+            }
+        }
+
+        _persistit.getJournalManager().flush();
+        _persistit.crash();
+        _persistit = new Persistit(_config);
+
+        final RecoveryManager rman = _persistit.getRecoveryManager();
+        assertEquals(THREADS, rman.getReplayThreadCount());
+        assertTrue(rman.getAppliedTransactionCount() > 0);
+        assertEquals(0, rman.getErrorCount());
+        final RecoveryInfo info = _persistit.getManagement().getRecoveryInfo();
+        assertEquals(THREADS, info.getReplayThreads());
+        assertEquals(rman.getAppliedTransactionCount(), info.getAppliedTransactions());
+
+        for (int t = 0; t < TREES; t++) {
+            final Exchange ex = _persistit.getExchange(VOLUME_NAME, "ParallelRecoveryTest" + t, false);
+            ex.clear().append("last").fetch();
+            assertEquals(TRANSACTIONS - TREES + t, ex.getValue().getInt());
+        }
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            final Exchange ex = _persistit.getExchange(VOLUME_NAME, "ParallelRecoveryTest" + (i % TREES), false);
+            final boolean removed = (i + TREES) % 7 == 0 && i + TREES < TRANSACTIONS;
+            ex.clear().append("key").append(i).fetch();
+            if (removed) {
+                assertFalse("key " + i, ex.getValue().isDefined());
+            } else {
+                assertEquals(i, ex.getValue().getInt());
+            }
+            if (i % 50 == 0) {
+                final Exchange other = _persistit.getExchange(VOLUME_NAME, "ParallelRecoveryTest" + ((i + 1) % TREES),
+                        false);
+                other.clear().append("cross").append(i).fetch();
+                assertEquals(-i, other.getValue().getInt());
+            }
+            if (i % 500 == 0) {
+                ex.clear().append("long").append(i).fetch();
+                assertEquals(createString(20000), ex.getValue().getString());
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Properties;
+
+import org.junit.Test;
+
+public class ReadAheadTest extends PersistitUnitTestCase {
+
+    private final static int RECORDS = 20000;
+
+    private final static int WINDOW = 4;
+
+    @Override
+    protected Properties doGetProperties(final boolean cleanup) {
+        final Properties p = getProperties(cleanup);
+        p.setProperty("readahead", Integer.toString(WINDOW));
+        return p;
+    }
+
+    @Test
+    public void configuration() throws Exception {
+        assertEquals(WINDOW, _config.getReadAheadWindow());
+        assertTrue(_persistit.getReadAhead().isEnabled());
+        try {
+            _config.setReadAheadWindow(ReadAhead.MAXIMUM_WINDOW + 1);
+            fail("Expected IllegalArgumentException");
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void forwardTraversalReadsAhead() throws Exception {
+        final Exchange ex = _persistit.getExchange(VOLUME_NAME, "ReadAheadTest", true);
+        ex.getValue().put(createString(200));
+        for (int i = 0; i < RECORDS; i++) {
+            ex.to(i).store();
+        }
+        _persistit.flush();
+        final Volume volume = ex.getVolume();
+        volume.getPool().evict(volume);
+
+        final IOMeter ioMeter = _persistit.getIOMeter();
+        final ReadAhead readAhead = _persistit.getReadAhead();
+        final long readAheadPages = ioMeter.totalOperations("RA");
+        final long scheduled = readAhead.getScheduledCount();
+
+        ex.clear().append(Key.BEFORE);
+        int count = 0;
+        while (ex.next()) {
+            assertEquals(count, ex.getKey().decodeInt());
+            count++;
+        }
+        assertEquals(RECORDS, count);
+        assertTrue("Read-ahead tasks should have been scheduled", readAhead.getScheduledCount() > scheduled);
+        assertTrue("Pages should have been read ahead", ioMeter.totalOperations("RA") > readAheadPages);
+    }
+
+    @Test
+    public void disabledReadAheadSchedulesNothing() throws Exception {
+        final Volume volume = _persistit.getVolume(VOLUME_NAME);
+        final ReadAhead readAhead = new ReadAhead();
+        final ReadAhead.Stream stream = readAhead.newStream();
+        /*
+         * Not started: advancing must never schedule work.
+         */
+        stream.advance(volume, 1, 2, 3);
+        stream.advance(volume, 2, 3, 4);
+        stream.advance(volume, 3, 4, 5);
+        assertEquals(0, readAhead.getScheduledCount());
+    }
+}
@@ -0,0 +1,157 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Properties;
+
+import org.junit.Test;
+
+import com.persistit.Management.BufferPoolInfo;
+
+public class ReplacementPolicyTest extends PersistitUnitTestCase {
+
+    private final static int HOT_KEYS = 4;
+
+    private final static int SCAN_RECORDS = 20000;
+
+    @Override
+    protected Properties doGetProperties(final boolean cleanup) {
+        final Properties p = getProperties(cleanup);
+        p.setProperty("bufferpolicy", "2q");
+        return p;
+    }
+
+    @Test
+    public void configuration() throws Exception {
+        assertEquals("2Q", _config.getBufferReplacementPolicy());
+        assertEquals("2Q", _persistit.getVolume(VOLUME_NAME).getPool().getReplacementPolicy().getName());
+        try {
+            _config.setBufferReplacementPolicy("LRU-K");
+            fail("Expected IllegalArgumentException");
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void clockStateTransitions() throws Exception {
+        final BufferPool pool = _persistit.getVolume(VOLUME_NAME).getPool();
+        final ReplacementPolicy policy = ReplacementPolicy.forName("CLOCK", 1);
+        final Buffer buffer = new Buffer(pool.getBufferSize(), 0, pool, _persistit);
+        buffer.setTouched();
+        assertFalse(policy.isCandidate(buffer, false));
+        assertFalse(buffer.isTouched());
+        assertTrue(policy.isCandidate(buffer, false));
+    }
+
+    @Test
+    public void clock2QStateTransitions() throws Exception {
+        final BufferPool pool = _persistit.getVolume(VOLUME_NAME).getPool();
+        final ReplacementPolicy policy = ReplacementPolicy.forName("2Q", 4);
+        final Buffer[] buffers = new Buffer[4];
+        for (int index = 0; index < buffers.length; index++) {
+            buffers[index] = new Buffer(pool.getBufferSize(), index, pool, _persistit);
+            policy.loaded(buffers[index]);
+        }
+        /*
+         * A page touched once (e.g., by a scan) gets only the CLOCK second
+         * chance.
+         */
+        buffers[0].setTouched();
+        assertFalse(policy.isCandidate(buffers[0], false));
+        assertTrue(policy.isCandidate(buffers[0], false));
+        /*
+         * A page found again by a lookup is promoted and is then protected.
+         */
+        policy.hit(buffers[1]);
+        assertFalse(policy.isCandidate(buffers[1], false));
+        assertEquals(1, policy.getHotPageCount());
+        assertEquals(1, policy.getPromoteCount());
+        assertFalse(policy.isCandidate(buffers[1], false));
+        assertTrue("Hot pages are evictable by a desperate sweep", policy.isCandidate(buffers[1], true));
+        /*
+         * Exceeding the hot target (3 of 4 buffers) forces demotion.
+         */
+        for (int index = 0; index < buffers.length; index++) {
+            policy.hit(buffers[index]);
+            policy.isCandidate(buffers[index], false);
+        }
+        assertEquals(4, policy.getHotPageCount());
+        assertTrue(policy.isCandidate(buffers[2], false));
+        assertEquals(3, policy.getHotPageCount());
+        assertEquals(1, policy.getDemoteCount());
+        /*
+         * Reusing a hot buffer for another page makes it cold.
+         */
+        policy.loaded(buffers[3]);
+        assertEquals(2, policy.getHotPageCount());
+    }
+
+    @Test
+    public void scanDoesNotFlushWorkingSet() throws Exception {
+        final Exchange scan = _persistit.getExchange(VOLUME_NAME, "scan", true);
+        scan.getValue().put(createString(200));
+        for (int i = 0; i < SCAN_RECORDS; i++) {
+            scan.to(i).store();
+        }
+        final Exchange hot = _persistit.getExchange(VOLUME_NAME, "hot", true);
+        for (int i = 0; i < HOT_KEYS; i++) {
+            hot.getValue().put(RED_FOX);
+            hot.to(i).store();
+        }
+        final BufferPool pool = hot.getVolume().getPool();
+        /*
+         * Establish the working set. Separate Exchanges ensure each lookup
+         * goes through the BufferPool rather than the Exchange's level cache.
+         */
+        for (int pass = 0; pass < 3; pass++) {
+            readHotKeys();
+            scan.to(pass * 100).fetch();
+        }
+        scan.clear().append(Key.BEFORE);
+        int count = 0;
+        while (scan.next()) {
+            count++;
+        }
+        assertEquals(SCAN_RECORDS, count);
+
+        final long misses = pool.getMissCounter();
+        readHotKeys();
+        assertEquals("Working set should survive the scan", misses, pool.getMissCounter());
+
+        final BufferPoolInfo info = new BufferPoolInfo();
+        pool.populateBufferPoolInfo(info);
+        assertEquals("2Q", info.getReplacementPolicy());
+        assertTrue(info.getHotPageCount() > 0);
+        assertTrue(info.getPromoteCount() > 0);
+        assertTrue(info.getPolicyMissCount() > 0);
+        assertTrue(info.getPolicyHitCount() > 0);
+    }
+
+    private void readHotKeys() throws Exception {
+        for (int i = 0; i < HOT_KEYS; i++) {
+            final Exchange ex = new Exchange(_persistit, VOLUME_NAME, "hot", false);
+            ex.to(i).fetch();
+            assertEquals(RED_FOX, ex.getValue().getString());
+        }
+    }
+}
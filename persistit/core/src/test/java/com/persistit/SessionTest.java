@@ -0,0 +1,147 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class SessionTest extends PersistitUnitTestCase {
+
+    @Test
+    public void exchangePoolBelongsToSession() throws Exception {
+        final SessionId s1 = _persistit.openSession();
+        final SessionId s2 = _persistit.openSession();
+        final SessionId original = _persistit.attachSession(s1);
+        try {
+            final Exchange ex1 = _persistit.getExchange(VOLUME_NAME, "SessionTest", true);
+            _persistit.releaseExchange(ex1);
+            assertSame(ex1, _persistit.getExchange(VOLUME_NAME, "SessionTest", true));
+            _persistit.releaseExchange(ex1);
+
+            assertSame(s1, _persistit.attachSession(s2));
+            final Exchange ex2 = _persistit.getExchange(VOLUME_NAME, "SessionTest", true);
+            assertNotSame(ex1, ex2);
+            assertSame(s2, _persistit.getTransaction().getSessionId());
+
+            _persistit.attachSession(s1);
+            assertSame(ex1, _persistit.getExchange(VOLUME_NAME, "SessionTest", true));
+            assertSame(s1, _persistit.getTransaction().getSessionId());
+        } finally {
+            _persistit.closeSession(s1);
+            _persistit.closeSession(s2);
+            if (original != null) {
+                _persistit.attachSession(original);
+            }
+        }
+    }
+
+    @Test
+    public void transactionSpansThreads() throws Exception {
+        final SessionId session = _persistit.openSession();
+        final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+        /*
+         * Begin and update on one thread, commit on another. Each thread
+         * ends immediately after detaching the session.
+         */
+        runInThread(session, failure, new Step() {
+            @Override
+            public void run() throws Exception {
+                final Transaction txn = _persistit.getTransaction();
+                txn.begin();
+                final Exchange ex = _persistit.getExchange(VOLUME_NAME, "SessionTest", true);
+                ex.getValue().put(RED_FOX);
+                ex.to(1).store();
+                _persistit.releaseExchange(ex);
+            }
+        });
+        assertTrue("Detached session remains alive", session.isAlive());
+        _persistit.cleanup();
+        runInThread(session, failure, new Step() {
+            @Override
+            public void run() throws Exception {
+                final Transaction txn = _persistit.getTransaction();
+                assertTrue("Transaction still active", txn.isActive());
+                txn.commit();
+                txn.end();
+            }
+        });
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        _persistit.closeSession(session);
+        assertFalse(session.isAlive());
+        try {
+            _persistit.attachSession(session);
+            fail("Expected IllegalStateException");
+        } catch (final IllegalStateException e) {
+            // expected
+        }
+
+        final Exchange ex = _persistit.getExchange(VOLUME_NAME, "SessionTest", false);
+        assertEquals(RED_FOX, ex.to(1).fetch().getValue().getString());
+    }
+
+    @Test
+    public void detachLeavesNoThreadState() throws Exception {
+        final SessionId session = _persistit.openSession();
+        final AtomicReference<SessionId> after = new AtomicReference<SessionId>();
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                _persistit.attachSession(session);
+                after.set(_persistit.detachSession());
+            }
+        });
+        thread.start();
+        thread.join();
+        assertSame(session, after.get());
+        assertTrue("Detached session outlives its thread", session.isAlive());
+        _persistit.closeSession(session);
+        assertFalse(session.isAlive());
+    }
+
+    private interface Step {
+        void run() throws Exception;
+    }
+
+    private void runInThread(final SessionId session, final AtomicReference<Exception> failure, final Step step)
+            throws InterruptedException {
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                _persistit.attachSession(session);
+                try {
+                    step.run();
+                } catch (final Exception e) {
+                    failure.set(e);
+                } finally {
+                    _persistit.detachSession();
+                }
+            }
+        });
+        thread.start();
+        thread.join();
+    }
+}
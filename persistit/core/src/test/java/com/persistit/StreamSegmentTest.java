@@ -0,0 +1,191 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+
+import com.persistit.StreamSaver.Segment;
+import com.persistit.exception.CorruptImportStreamException;
+
+public class StreamSegmentTest extends PersistitUnitTestCase {
+
+    private final static int COUNT = 20000;
+
+    private final static String[] TREE_NAMES = { "StreamSegmentTest1", "StreamSegmentTest2", "StreamSegmentTest3" };
+
+    @Override
+    protected Properties doGetProperties(final boolean cleanup) {
+        return getBiggerProperties(cleanup);
+    }
+
+    @Test
+    public void parallelSaveAndLoad() throws Exception {
+        store();
+        final File directory = temp.newFolder("segments");
+        final StreamSaver saver = new StreamSaver(_persistit);
+        saver.setThreads(4);
+        saver.setSegmentSize(StreamSaver.DEFAULT_BUFFER_SIZE);
+        saver.saveSegments(directory, new TreeSelector());
+
+        final List<Segment> segments = StreamSaver.readSegmentIndex(directory);
+        assertTrue("Expected the trees to be divided", segments.size() > TREE_NAMES.length * 2);
+        final Set<String> names = new HashSet<String>();
+        long records = 0;
+        for (final Segment segment : segments) {
+            assertTrue(names.add(segment._fileName));
+            final File file = new File(directory, segment._fileName);
+            assertEquals(segment._length, file.length());
+            assertTrue("Segment is not compressed", segment._length < StreamSaver.DEFAULT_BUFFER_SIZE / 2);
+            records += segment._recordCount;
+        }
+        assertEquals(COUNT * TREE_NAMES.length, records);
+
+        removeTrees();
+        final StreamLoader loader = new StreamLoader(_persistit);
+        loader.setThreads(4);
+        loader.loadSegments(directory);
+        verify(TREE_NAMES);
+    }
+
+    @Test
+    public void loadThroughTreeBuilder() throws Exception {
+        store();
+        final File directory = temp.newFolder("segments");
+        final StreamSaver saver = new StreamSaver(_persistit);
+        saver.setThreads(2);
+        saver.setSegmentSize(StreamSaver.DEFAULT_BUFFER_SIZE);
+        saver.saveSegments(directory, TreeSelector.parseSelector(VOLUME_NAME + ":StreamSegmentTest[12]", true,
+                '\\'));
+
+        removeTrees();
+        final TreeBuilder builder = new TreeBuilder(_persistit);
+        builder.setMergeThreadCount(2);
+        final StreamLoader loader = new StreamLoader(_persistit);
+        loader.setThreads(3);
+        loader.setTreeBuilder(builder);
+        loader.loadSegments(directory);
+        assertEquals(COUNT * 2, builder.getMergedKeyCount());
+        verify("StreamSegmentTest1", "StreamSegmentTest2");
+        assertNull(_persistit.getVolume(VOLUME_NAME).getTree("StreamSegmentTest3", false));
+
+        final IntegrityCheck icheck = new IntegrityCheck(_persistit);
+        icheck.checkVolume(_persistit.getVolume(VOLUME_NAME));
+        assertEquals(0, icheck.getFaults().length);
+    }
+
+    @Test
+    public void incompleteSegments() throws Exception {
+        store();
+        final File directory = temp.newFolder("segments");
+        final StreamSaver saver = new StreamSaver(_persistit);
+        saver.setSegmentSize(StreamSaver.DEFAULT_BUFFER_SIZE);
+        saver.saveSegments(directory, new TreeSelector());
+        final List<Segment> segments = StreamSaver.readSegmentIndex(directory);
+
+        final File index = new File(directory, StreamSaver.SEGMENT_INDEX_NAME);
+        final RandomAccessFile raf = new RandomAccessFile(index, "rw");
+        final long length = raf.length();
+        raf.setLength(length - 2);
+        try {
+            new StreamLoader(_persistit).loadSegments(directory);
+            fail("Expected an incomplete index");
+        } catch (final IOException e) {
+            // expected
+        }
+        raf.setLength(length);
+        raf.seek(length - 2);
+        raf.writeChar(StreamSaver.RECORD_TYPE_COMPLETION);
+        raf.close();
+
+        final Segment last = segments.get(segments.size() - 1);
+        final File file = new File(directory, last._fileName);
+        assertTrue(file.delete());
+        final StreamSaver partial = new StreamSaver(_persistit, new DataOutputStream(new GZIPOutputStream(
+                new FileOutputStream(file))));
+        partial.writeComment("truncated");
+        partial._stop = true;
+        partial.close();
+        try {
+            new StreamLoader(_persistit).loadSegments(directory);
+            fail("Expected an incomplete segment");
+        } catch (final CorruptImportStreamException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void missingIndex() throws Exception {
+        try {
+            new StreamLoader(_persistit).loadSegments(temp.newFolder("empty"));
+            fail("Expected a missing index");
+        } catch (final CorruptImportStreamException e) {
+            // expected
+        }
+    }
+
+    private void store() throws Exception {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            sb.append(RED_FOX);
+        }
+        for (final String treeName : TREE_NAMES) {
+            final Exchange ex = _persistit.getExchange(VOLUME_NAME, treeName, true);
+            for (int i = 0; i < COUNT; i++) {
+                ex.getValue().put(treeName + i + sb);
+                ex.clear().append(i % 100).append(i).store();
+            }
+            assertTrue(ex.getTree().getDepth() > 1);
+        }
+    }
+
+    private void removeTrees() throws Exception {
+        for (final String treeName : TREE_NAMES) {
+            _persistit.getExchange(VOLUME_NAME, treeName, false).removeTree();
+        }
+    }
+
+    private void verify(final String... treeNames) throws Exception {
+        for (final String treeName : treeNames) {
+            final Exchange ex = _persistit.getExchange(VOLUME_NAME, treeName, false);
+            int count = 0;
+            ex.clear().append(Key.BEFORE);
+            while (ex.next(true)) {
+                final int i = ex.getKey().indexTo(1).decodeInt();
+                assertEquals(i % 100, ex.getKey().indexTo(0).decodeInt());
+                assertTrue(ex.getValue().getString().startsWith(treeName + i + RED_FOX));
+                count++;
+            }
+            assertEquals(COUNT, count);
+        }
+    }
+}
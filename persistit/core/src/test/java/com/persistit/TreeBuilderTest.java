@@ -25,9 +25,12 @@ import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.assertNull;
 
 public class TreeBuilderTest extends PersistitUnitTestCase {
     private final static int COUNT = 100000;
@@ -279,4 +282,79 @@ public class TreeBuilderTest extends PersistitUnitTestCase {
         }
     }
 
+    @Test
+    public void parallelStoreAndMerge() throws Exception {
+        final int threadCount = 4;
+        final AtomicLong lastMerged = new AtomicLong();
+        final AtomicReference<String> failure = new AtomicReference<String>();
+        final TreeBuilder tb = new TreeBuilder(_persistit) {
+            @Override
+            protected void reportMerged(final long count) {
+                if (count < lastMerged.get()) {
+                    failure.set("Merged count went backward: " + count);
+                }
+                lastMerged.set(count);
+            }
+        };
+        tb.setReportKeyCountMultiple(COUNT / 10);
+        tb.setMergeThreadCount(threadCount);
+        final List<Integer> shuffled = new ArrayList<Integer>(COUNT);
+        for (int i = 0; i < COUNT; i++) {
+            shuffled.add(i);
+        }
+        Collections.shuffle(shuffled);
+
+        final Thread[] threads = new Thread[threadCount];
+        final AtomicReference<Exception> exception = new AtomicReference<Exception>();
+        for (int t = 0; t < threadCount; t++) {
+            final int id = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        final Exchange a = _persistit.getExchange(VOLUME_NAME, "a", true);
+                        final Exchange b = _persistit.getExchange(VOLUME_NAME, "b", true);
+                        for (int i = id; i < COUNT; i += threadCount) {
+                            final int k = shuffled.get(i);
+                            a.to(k).getValue().put(RED_FOX + "," + k);
+                            tb.store(a);
+                            b.clear().append(k).append("b").getValue().put(k);
+                            tb.store(b);
+                            if (i % (COUNT / 5) == id) {
+                                tb.unitTestNextSortFile();
+                            }
+                        }
+                    } catch (final Exception e) {
+                        exception.set(e);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        if (exception.get() != null) {
+            throw exception.get();
+        }
+        assertEquals(2 * COUNT, tb.getSortedKeyCount());
+        assertTrue("Expect a sort volume per thread", tb.getSortFileCount() >= threadCount);
+
+        tb.merge();
+        assertNull(failure.get(), failure.get());
+        assertEquals(2 * COUNT, tb.getMergedKeyCount());
+        assertEquals(2 * COUNT, lastMerged.get());
+
+        final Exchange a = _persistit.getExchange(VOLUME_NAME, "a", false);
+        final Exchange b = _persistit.getExchange(VOLUME_NAME, "b", false);
+        int count = 0;
+        while (a.next(true) && b.next(true)) {
+            assertEquals("Expect correct key value", count, a.getKey().decodeInt());
+            assertEquals(RED_FOX + "," + count, a.getValue().getString());
+            assertEquals("Expect correct key value", count, b.getKey().reset().decodeInt());
+            count++;
+        }
+        assertEquals("Expect every key value", COUNT, count);
+    }
+
 }
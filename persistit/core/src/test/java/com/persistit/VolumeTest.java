@@ -19,6 +19,7 @@ package com.persistit;
 import com.persistit.exception.CorruptVolumeException;
 import com.persistit.exception.InUseException;
 import com.persistit.exception.InvalidVolumeSpecificationException;
+import com.persistit.exception.ReadOnlyVolumeException;
 import com.persistit.exception.VolumeFullException;
 import org.junit.Test;
 
@@ -245,6 +246,50 @@ public class VolumeTest extends PersistitUnitTestCase {
     _persistit = new Persistit(_config);
   }
 
+  @Test
+  public void mappedReadOnlyVolume() throws Exception {
+    final int RECORDS = 5000;
+    final VolumeSpecification vs = validVolumeSpecification("${datapath}/vmapped, pageSize:16k, initialSize:1m, maximumSize:100m, extensionSize:1m, create");
+    final Volume vol1 = _persistit.loadVolume(vs);
+    final Exchange ex1 = _persistit.getExchange(vol1, "VolumeTest", true);
+    for (int i = 0; i < RECORDS; i++) {
+      ex1.clear().append(i).getValue().put(RED_FOX + i);
+      ex1.store();
+    }
+    _persistit.releaseExchange(ex1);
+    _persistit.flush();
+    _persistit.copyBackPages();
+    vol1.close();
+
+    final VolumeSpecification vs2 = validVolumeSpecification("${datapath}/vmapped, pageSize:16k, readOnly, mapped");
+    assertTrue(vs2.isMapped());
+    final Volume vol2 = _persistit.loadVolume(vs2);
+    assertTrue(vol2.getStorage() instanceof VolumeStorageM2);
+    assertTrue(((VolumeStorageM2) vol2.getStorage()).isMapped());
+
+    vol2.getPool().evict(vol2);
+    final long reads = vol2.getStatistics().getReadCounter();
+    final Exchange ex2 = _persistit.getExchange(vol2, "VolumeTest", false);
+    for (int i = 0; i < RECORDS; i++) {
+      ex2.clear().append(i).fetch();
+      assertEquals(RED_FOX + i, ex2.getValue().getString());
+    }
+    assertTrue(vol2.getStatistics().getReadCounter() > reads);
+    try {
+      ex2.clear().append(RECORDS).getValue().put(RED_FOX);
+      ex2.store();
+      fail("Expected ReadOnlyVolumeException");
+    } catch (final ReadOnlyVolumeException e) {
+      // expected
+    }
+    vol2.close();
+    assertFalse(((VolumeStorageM2) vol2.getStorage()).isMapped());
+
+    invalidVolumeSpecification("/a/b/c,mapped");
+    final VolumeSpecification vs3 = validVolumeSpecification("/a/b/c,pageSize:16k,readOnly,mapped");
+    assertEquals("Parse of toString should be equal", vs3, validVolumeSpecification(vs3.toString()));
+  }
+
   @Test
   public void timeoutWhenPageIsInUse() throws Exception {
     final Exchange exchange = _persistit.getExchange(VOLUME_NAME, "VolumeTest", true);
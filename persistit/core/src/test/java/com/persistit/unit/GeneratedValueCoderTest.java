@@ -0,0 +1,176 @@
+/**
+ * Copyright 2026 Open Identity Platform Community
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.persistit.unit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.persistit.DefaultValueCoder;
+import com.persistit.Exchange;
+import com.persistit.PersistitUnitTestCase;
+import com.persistit.Value;
+import com.persistit.encoding.GeneratedValueCoder;
+import com.persistit.encoding.ValueCoder;
+import com.persistit.exception.ConversionException;
+
+public class GeneratedValueCoderTest extends PersistitUnitTestCase {
+
+    static class Base implements Serializable {
+        private static final long serialVersionUID = 1L;
+        long id;
+        String name;
+    }
+
+    static class Pojo extends Base {
+        private static final long serialVersionUID = 1L;
+        private boolean flag;
+        private byte b;
+        private short s;
+        private char c;
+        private int i;
+        private float f;
+        private double d;
+        private final String text = null;
+        private int[] numbers;
+        private Pojo next;
+        transient int ignored;
+
+        Pojo() {
+        }
+
+        Pojo(final int seed) {
+            id = seed;
+            name = "name" + seed;
+            flag = seed % 2 == 0;
+            b = (byte) seed;
+            s = (short) (seed * 3);
+            c = (char) ('A' + seed % 26);
+            i = seed * 7;
+            f = seed / 3f;
+            d = seed / 7d;
+            numbers = new int[] { seed, seed + 1 };
+            ignored = seed;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof Pojo)) {
+                return false;
+            }
+            final Pojo p = (Pojo) o;
+            return p.id == id && p.name.equals(name) && p.flag == flag && p.b == b && p.s == s && p.c == c
+                    && p.i == i && p.f == f && p.d == d && Arrays.equals(p.numbers, numbers)
+                    && (p.next == null ? next == null : p.next.equals(next));
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) id;
+        }
+    }
+
+    static class Replaced implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private Object writeReplace() {
+            return this;
+        }
+    }
+
+    static class Counted implements Serializable {
+        private static final long serialVersionUID = 1L;
+        static int constructed;
+        int value;
+
+        Counted() {
+            constructed++;
+        }
+
+        Counted(final int value) {
+            this();
+            this.value = value;
+        }
+    }
+
+    static class NotSerializable {
+    }
+
+    @Test
+    public void roundTrip() throws Exception {
+        _persistit.getConfiguration().setConstructorOverride(true);
+        final ValueCoder coder = GeneratedValueCoder.register(_persistit, Pojo.class);
+        assertTrue(coder instanceof GeneratedValueCoder);
+        assertEquals(coder, _persistit.getCoderManager().lookupValueCoder(Pojo.class));
+
+        final Exchange exchange = _persistit.getExchange("persistit", "GeneratedValueCoderTest", true);
+        final Pojo pojo = new Pojo(5);
+        pojo.next = new Pojo(6);
+        exchange.getValue().put(pojo);
+        exchange.to(1).store();
+        exchange.getValue().clear();
+        exchange.fetch();
+        final Pojo copy = (Pojo) exchange.getValue().get();
+        assertEquals(pojo, copy);
+        assertEquals(0, copy.ignored);
+    }
+
+    @Test
+    public void compatibleWithDefaultValueCoder() throws Exception {
+        _persistit.getConfiguration().setConstructorOverride(true);
+        final Pojo pojo = new Pojo(17);
+
+        _persistit.getCoderManager().registerValueCoder(Pojo.class, new DefaultValueCoder(_persistit, Pojo.class));
+        final Value value = new Value(_persistit);
+        value.put(pojo);
+        final byte[] expected = Arrays.copyOf(value.getEncodedBytes(), value.getEncodedSize());
+
+        GeneratedValueCoder.register(_persistit, Pojo.class);
+        assertEquals(pojo, value.get());
+        value.put(pojo);
+        assertArrayEquals(expected, Arrays.copyOf(value.getEncodedBytes(), value.getEncodedSize()));
+    }
+
+    @Test
+    public void customSerializationUsesDefaultValueCoder() throws Exception {
+        _persistit.getConfiguration().setConstructorOverride(true);
+        assertTrue(GeneratedValueCoder.create(_persistit, Replaced.class) instanceof DefaultValueCoder);
+    }
+
+    @Test
+    public void withoutConstructorOverrideSkipsConstructor() throws Exception {
+        final ValueCoder coder = GeneratedValueCoder.register(_persistit, Counted.class);
+        assertTrue(coder instanceof GeneratedValueCoder);
+
+        final Value value = new Value(_persistit);
+        value.put(new Counted(23));
+        final int constructed = Counted.constructed;
+        final Counted copy = (Counted) value.get();
+        assertEquals(23, copy.value);
+        assertEquals("No-argument constructor was run", constructed, Counted.constructed);
+    }
+
+    @Test(expected = ConversionException.class)
+    public void notSerializable() throws Exception {
+        GeneratedValueCoder.create(_persistit, NotSerializable.class);
+    }
+}